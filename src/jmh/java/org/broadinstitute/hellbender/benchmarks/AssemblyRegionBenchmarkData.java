@@ -0,0 +1,153 @@
+package org.broadinstitute.hellbender.benchmarks;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.reference.ReferenceSequenceFile;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.engine.AssemblyRegion;
+import org.broadinstitute.hellbender.engine.ReadsDataSource;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.AssemblyBasedCallerUtils;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.AssemblyResultSet;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.HaplotypeCallerArgumentCollection;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.readthreading.ReadThreadingAssembler;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedSampleList;
+import org.broadinstitute.hellbender.utils.genotyper.SampleList;
+import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadUtils;
+import org.broadinstitute.hellbender.utils.smithwaterman.SmithWatermanJavaAligner;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Real HaplotypeCaller inputs for the microbenchmarks: the well-mapped reads of one assembly region taken from the
+ * NA12878 chr20/21 snippet in src/test/resources/large, prepared and assembled exactly as HaplotypeCaller does it.
+ *
+ * The benchmarks are run from the project directory (see the {@code jmh} task in build.gradle). Other inputs can be
+ * used by setting the {@value #BAM_PROPERTY} and {@value #REFERENCE_PROPERTY} system properties.
+ */
+public final class AssemblyRegionBenchmarkData {
+
+    public static final String BAM_PROPERTY = "gatk.benchmark.bam";
+    public static final String REFERENCE_PROPERTY = "gatk.benchmark.reference";
+
+    public static final String DEFAULT_BAM = "src/test/resources/large/CEUTrio.HiSeq.WGS.b37.NA12878.20.21.bam";
+    public static final String DEFAULT_REFERENCE = "src/test/resources/large/human_g1k_v37.20.21.fasta";
+
+    /**
+     * Two small regions around known NA12878 SNPs, usable as values of the benchmarks' {@code interval} parameter.
+     */
+    public static final String DEFAULT_INTERVAL = "20:10000050-10000300";
+    public static final String SECOND_INTERVAL = "20:10000400-10000750";
+
+    // same defaults as HaplotypeCaller
+    private static final int ASSEMBLY_REGION_PADDING = 100;
+    private static final int MIN_MAPPING_QUALITY = 20;
+
+    private static final Logger logger = LogManager.getLogger(AssemblyRegionBenchmarkData.class);
+
+    private static final Map<String, AssemblyRegionBenchmarkData> loaded = new ConcurrentHashMap<>();
+
+    private final SAMFileHeader header;
+    private final SampleList samples;
+    private final AssemblyRegion region;
+    private final AssemblyResultSet assemblyResultSet;
+
+    private AssemblyRegionBenchmarkData(final SAMFileHeader header, final SampleList samples, final AssemblyRegion region, final AssemblyResultSet assemblyResultSet) {
+        this.header = header;
+        this.samples = samples;
+        this.region = region;
+        this.assemblyResultSet = assemblyResultSet;
+    }
+
+    /**
+     * Load (once per JVM) and assemble the region for the given interval.
+     *
+     * @param interval an interval string such as {@value #DEFAULT_INTERVAL}
+     */
+    public static AssemblyRegionBenchmarkData load(final String interval) {
+        Utils.nonNull(interval, "interval is null");
+        return loaded.computeIfAbsent(interval, AssemblyRegionBenchmarkData::loadUncached);
+    }
+
+    private static AssemblyRegionBenchmarkData loadUncached(final String interval) {
+        final Path bam = Paths.get(System.getProperty(BAM_PROPERTY, DEFAULT_BAM));
+        final String reference = System.getProperty(REFERENCE_PROPERTY, DEFAULT_REFERENCE);
+
+        final HaplotypeCallerArgumentCollection hcArgs = new HaplotypeCallerArgumentCollection();
+        try (final ReadsDataSource reads = new ReadsDataSource(bam);
+             final ReferenceSequenceFile referenceReader = AssemblyBasedCallerUtils.createReferenceReader(reference)) {
+            final SAMFileHeader header = reads.getHeader();
+            final SampleList samples = new IndexedSampleList(ReadUtils.getSamplesFromHeader(header));
+
+            final AssemblyRegion region = new AssemblyRegion(new SimpleInterval(interval), Collections.emptyList(), true, ASSEMBLY_REGION_PADDING, header);
+            reads.query(region.getExtendedSpan()).forEachRemaining(read -> {
+                if (isWellMapped(read)) {
+                    region.add(read);
+                }
+            });
+
+            final ReadThreadingAssembler assembler = AssemblyBasedCallerUtils.createReadThreadingAssembler(hcArgs);
+            final AssemblyResultSet assemblyResultSet = AssemblyBasedCallerUtils.assembleReads(region, Collections.emptyList(), hcArgs, header,
+                    samples, logger, referenceReader, assembler, SmithWatermanJavaAligner.getInstance());
+            logger.info(String.format("Benchmark region %s: %d reads, %d haplotypes", interval, region.getReads().size(), assemblyResultSet.getHaplotypeCount()));
+            return new AssemblyRegionBenchmarkData(header, samples, region, assemblyResultSet);
+        } catch (final IOException e) {
+            throw new GATKException("Could not load benchmark data for " + interval, e);
+        }
+    }
+
+    private static boolean isWellMapped(final GATKRead read) {
+        return !read.isUnmapped() && !read.isDuplicate() && !read.isSecondaryAlignment() && !read.isSupplementaryAlignment()
+                && !read.failsVendorQualityCheck() && read.getMappingQuality() >= MIN_MAPPING_QUALITY;
+    }
+
+    public SAMFileHeader getHeader() {
+        return header;
+    }
+
+    public SampleList getSamples() {
+        return samples;
+    }
+
+    /**
+     * @return the region reads, after the clipping HaplotypeCaller applies before assembly
+     */
+    public List<GATKRead> getReads() {
+        return Collections.unmodifiableList(region.getReads());
+    }
+
+    public AssemblyResultSet getAssemblyResultSet() {
+        return assemblyResultSet;
+    }
+
+    public Haplotype getReferenceHaplotype() {
+        return assemblyResultSet.getReferenceHaplotype();
+    }
+
+    /**
+     * @return the reference bases, including the assembly padding, that the haplotypes were assembled against
+     */
+    public byte[] getFullReferenceWithPadding() {
+        return assemblyResultSet.getFullReferenceWithPadding();
+    }
+
+    /**
+     * @return the assembled haplotypes, reference first
+     */
+    public List<Haplotype> getHaplotypes() {
+        final List<Haplotype> result = new ArrayList<>(assemblyResultSet.getHaplotypeList());
+        result.sort((h1, h2) -> Boolean.compare(h2.isReference(), h1.isReference()));
+        return result;
+    }
+}
@@ -0,0 +1,104 @@
+package org.broadinstitute.hellbender.tools.walkers;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.variant.variantcontext.*;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.variantcontext.writer.VariantContextWriterBuilder;
+import htsjdk.variant.vcf.*;
+import org.broadinstitute.hellbender.engine.ReferenceDataSource;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.broadinstitute.hellbender.utils.variant.GATKVCFConstants;
+import org.broadinstitute.hellbender.utils.variant.GATKVCFHeaderLines;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Combining hundreds of synthetic single-sample gVCFs over the first contig of the mini hg19 reference. Each gVCF is
+ * made of reference blocks of random lengths, so that the blocks of the different inputs overlap and end at different
+ * positions, with the odd SNP.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CombineGVCFsBenchmark {
+    private static final String REFERENCE = "src/test/resources/hg19mini.fasta";
+    private static final String CONTIG = "1";
+    private static final int CONTIG_LENGTH = 16_000;
+    private static final int MAX_BLOCK_LENGTH = 1_000;
+    private static final double SNP_RATE = 0.001;
+
+    @Param({"100", "500"})
+    public int numberOfInputs;
+
+    private File directory;
+    private final List<String> arguments = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        directory = IOUtils.createTempDir("CombineGVCFsBenchmark");
+        final byte[] bases;
+        final SAMSequenceDictionary dictionary;
+        try (final ReferenceDataSource reference = ReferenceDataSource.of(Paths.get(REFERENCE))) {
+            bases = reference.queryAndPrefetch(CONTIG, 1, CONTIG_LENGTH).getBases();
+            dictionary = reference.getSequenceDictionary();
+        }
+
+        arguments.addAll(Arrays.asList("-R", REFERENCE, "-L", CONTIG, "-O", new File(directory, "combined.g.vcf").getAbsolutePath()));
+        final Random random = new Random(7);
+        for (int i = 0; i < numberOfInputs; i++) {
+            final File gvcf = new File(directory, "sample" + i + ".g.vcf");
+            writeGVCF(gvcf, "sample" + i, bases, dictionary, random);
+            arguments.addAll(Arrays.asList("-V", gvcf.getAbsolutePath()));
+        }
+    }
+
+    private static void writeGVCF(final File gvcf, final String sample, final byte[] bases, final SAMSequenceDictionary dictionary, final Random random) {
+        final Set<VCFHeaderLine> headerLines = new LinkedHashSet<>();
+        VCFStandardHeaderLines.addStandardFormatLines(headerLines, true, VCFConstants.GENOTYPE_KEY, VCFConstants.DEPTH_KEY,
+                VCFConstants.GENOTYPE_QUALITY_KEY, VCFConstants.GENOTYPE_PL_KEY, VCFConstants.GENOTYPE_ALLELE_DEPTHS);
+        VCFStandardHeaderLines.addStandardInfoLines(headerLines, true, VCFConstants.END_KEY);
+        headerLines.add(GATKVCFHeaderLines.getFormatLine(GATKVCFConstants.MIN_DP_FORMAT_KEY));
+        final VCFHeader header = new VCFHeader(headerLines, Collections.singletonList(sample));
+        header.setSequenceDictionary(dictionary);
+
+        try (final VariantContextWriter writer = new VariantContextWriterBuilder().setOutputFile(gvcf).setReferenceDictionary(dictionary).build()) {
+            writer.writeHeader(header);
+            int start = 1;
+            while (start <= bases.length) {
+                final Allele ref = Allele.create(bases[start - 1], true);
+                final int depth = 10 + random.nextInt(30);
+                if (random.nextDouble() < SNP_RATE && ref.getBases()[0] != 'N') {
+                    final Allele alt = Allele.create(ref.basesMatch("A") ? "C" : "A");
+                    final Genotype genotype = new GenotypeBuilder(sample, Arrays.asList(ref, alt)).DP(depth).GQ(99)
+                            .AD(new int[]{depth / 2, depth - depth / 2, 0}).PL(new int[]{500, 0, 500, 600, 550, 1200}).make();
+                    writer.add(new VariantContextBuilder(sample, CONTIG, start, start, Arrays.asList(ref, alt, Allele.NON_REF_ALLELE)).genotypes(genotype).make());
+                    start++;
+                } else {
+                    final int end = Math.min(bases.length, start + random.nextInt(MAX_BLOCK_LENGTH));
+                    final Genotype genotype = new GenotypeBuilder(sample, Arrays.asList(ref, ref)).DP(depth).GQ(60)
+                            .AD(new int[]{depth, 0}).PL(new int[]{0, 60, 900}).attribute(GATKVCFConstants.MIN_DP_FORMAT_KEY, depth).make();
+                    writer.add(new VariantContextBuilder(sample, CONTIG, start, end, Arrays.asList(ref, Allele.NON_REF_ALLELE))
+                            .attribute(VCFConstants.END_KEY, end).genotypes(genotype).make());
+                    start = end + 1;
+                }
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        IOUtils.deleteRecursivelyOnExit(directory);
+    }
+
+    @Benchmark
+    public Object combineGVCFs() {
+        return new CombineGVCFs().instanceMain(arguments.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,92 @@
+package org.broadinstitute.hellbender.tools.walkers;
+
+import htsjdk.variant.variantcontext.*;
+import htsjdk.variant.vcf.VCFConstants;
+import htsjdk.variant.vcf.VCFHeader;
+import org.broadinstitute.hellbender.tools.walkers.annotator.VariantAnnotatorEngine;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.variant.GATKVCFConstants;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merging a site of synthetic single-sample gVCFs the way CombineGVCFs does: most samples have a reference block
+ * over the site, some a SNP starting at the site, and some a deletion starting before it.
+ *
+ * Run with {@code -prof gc} to see the allocation per merged site ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReferenceConfidenceVariantContextMergerBenchmark {
+    private static final String CONTIG = "20";
+    private static final int POSITION = 10_000_000;
+
+    private static final Allele REF = Allele.create("A", true);
+    private static final Allele SNP = Allele.create("C");
+    private static final Allele DELETION_REF = Allele.create("TA", true);
+    private static final Allele DELETION = Allele.create("T");
+
+    @Param({"100", "1000", "10000"})
+    public int numberOfSamples;
+
+    // percentage of the samples with a SNP starting at the site and with a deletion spanning the site
+    @Param({"1"})
+    public int variantPercentage;
+
+    private final List<VariantContext> vcs = new ArrayList<>();
+    private ReferenceConfidenceVariantContextMerger merger;
+    private SimpleInterval loc;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(13);
+        for (int i = 0; i < numberOfSamples; i++) {
+            final String sample = "sample" + i;
+            final int type = random.nextInt(100);
+            if (type < variantPercentage) {
+                vcs.add(makeVariant(sample, POSITION, POSITION, Arrays.asList(REF, SNP, Allele.NON_REF_ALLELE), random));
+            } else if (type < 2 * variantPercentage) {
+                vcs.add(makeVariant(sample, POSITION - 1, POSITION, Arrays.asList(DELETION_REF, DELETION, Allele.NON_REF_ALLELE), random));
+            } else {
+                final int start = POSITION - random.nextInt(100);
+                vcs.add(makeVariant(sample, start, start + 200, Arrays.asList(REF, Allele.NON_REF_ALLELE), random));
+            }
+        }
+        vcs.sort(Comparator.comparingInt(VariantContext::getStart));
+
+        merger = new ReferenceConfidenceVariantContextMerger(new VariantAnnotatorEngine(Collections.emptyList(), null, Collections.emptyList(), false), new VCFHeader());
+        loc = new SimpleInterval(CONTIG, POSITION, POSITION);
+    }
+
+    private static VariantContext makeVariant(final String sample, final int start, final int end, final List<Allele> alleles, final Random random) {
+        final int depth = 10 + random.nextInt(30);
+        final int numberOfGenotypes = alleles.size() * (alleles.size() + 1) / 2;
+        final int[] pls = new int[numberOfGenotypes];
+        for (int i = 1; i < numberOfGenotypes; i++) {
+            pls[i] = 10 + random.nextInt(500);
+        }
+        final int[] ads = new int[alleles.size()];
+        ads[0] = depth;
+
+        final Genotype genotype = new GenotypeBuilder(sample, Arrays.asList(alleles.get(0), alleles.get(0)))
+                .DP(depth).GQ(Math.min(99, pls[1])).AD(ads).PL(pls)
+                .attribute(GATKVCFConstants.MIN_DP_FORMAT_KEY, depth)
+                .make();
+        final VariantContextBuilder builder = new VariantContextBuilder(sample, CONTIG, start, end, alleles).genotypes(genotype);
+        if (alleles.size() == 2) {
+            builder.attribute(VCFConstants.END_KEY, end);
+        }
+        return builder.make();
+    }
+
+    @Benchmark
+    public VariantContext merge() {
+        return merger.merge(vcs, loc, REF.getBases()[0], false, false);
+    }
+}
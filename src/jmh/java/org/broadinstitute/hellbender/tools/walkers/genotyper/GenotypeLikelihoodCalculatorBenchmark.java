@@ -0,0 +1,68 @@
+package org.broadinstitute.hellbender.tools.walkers.genotyper;
+
+import org.broadinstitute.hellbender.benchmarks.AssemblyRegionBenchmarkData;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.AssemblyBasedCallerUtils;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedAlleleList;
+import org.broadinstitute.hellbender.utils.genotyper.ReadLikelihoods;
+import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.broadinstitute.hellbender.utils.pairhmm.LoglessPairHMM;
+import org.broadinstitute.hellbender.utils.pairhmm.PairHMM;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Computing genotype likelihoods from the read x haplotype likelihoods of a real assembly region, treating every
+ * assembled haplotype as an allele.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenotypeLikelihoodCalculatorBenchmark {
+
+    @Param({AssemblyRegionBenchmarkData.DEFAULT_INTERVAL, AssemblyRegionBenchmarkData.SECOND_INTERVAL})
+    public String interval;
+
+    @Param({"1", "2", "4"})
+    public int ploidy;
+
+    private ReadLikelihoods<Haplotype> likelihoods;
+    private GenotypeLikelihoodCalculator calculator;
+
+    @Setup
+    public void setup() {
+        final AssemblyRegionBenchmarkData data = AssemblyRegionBenchmarkData.load(interval);
+        final List<Haplotype> haplotypes = data.getHaplotypes();
+        final Map<String, List<GATKRead>> readsBySample = AssemblyBasedCallerUtils.splitReadsBySample(data.getSamples(), data.getHeader(), data.getReads());
+        likelihoods = new ReadLikelihoods<>(data.getSamples(), new IndexedAlleleList<>(haplotypes), readsBySample);
+
+        final Map<GATKRead, byte[]> gapContinuationPenalties = new HashMap<>();
+        data.getReads().forEach(read -> gapContinuationPenalties.put(read, Utils.dupBytes((byte) 10, read.getLength())));
+        final PairHMM hmm = new LoglessPairHMM();
+        hmm.initialize(haplotypes, readsBySample,
+                data.getReads().stream().mapToInt(GATKRead::getLength).max().orElse(0),
+                haplotypes.stream().mapToInt(Haplotype::length).max().orElse(0));
+        for (int s = 0; s < likelihoods.numberOfSamples(); s++) {
+            hmm.computeLog10Likelihoods(likelihoods.sampleMatrix(s), likelihoods.sampleReads(s), gapContinuationPenalties);
+        }
+        hmm.close();
+
+        calculator = new GenotypeLikelihoodCalculators().getInstance(ploidy, haplotypes.size());
+    }
+
+    @Benchmark
+    public void genotypeLikelihoods(final Blackhole blackhole) {
+        for (int s = 0; s < likelihoods.numberOfSamples(); s++) {
+            blackhole.consume(calculator.genotypeLikelihoods(likelihoods.sampleMatrix(s)));
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.graphs;
+
+import org.broadinstitute.hellbender.benchmarks.AssemblyRegionBenchmarkData;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.AssemblyResultSet;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.readthreading.ReadThreadingGraph;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enumerating the best haplotypes of the cleaned-up sequence graph of a real assembly region, as done by
+ * {@code ReadThreadingAssembler} after every successful assembly.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KBestHaplotypeFinderBenchmark {
+
+    @Param({AssemblyRegionBenchmarkData.DEFAULT_INTERVAL, AssemblyRegionBenchmarkData.SECOND_INTERVAL})
+    public String interval;
+
+    // HaplotypeCaller's default --max-num-haplotypes-in-population
+    @Param({"128"})
+    public int maxHaplotypes;
+
+    private SeqGraph graph;
+
+    @Setup
+    public void setup() {
+        final AssemblyResultSet assemblyResultSet = AssemblyRegionBenchmarkData.load(interval).getAssemblyResultSet();
+        final ReadThreadingGraph threadingGraph = assemblyResultSet.getUniqueReadThreadingGraph(assemblyResultSet.getMaximumKmerSize());
+        Utils.validate(threadingGraph != null, () -> "no read threading graph was assembled for " + interval);
+
+        // same clean-up as ReadThreadingAssembler before looking for haplotypes
+        graph = threadingGraph.toSequenceGraph();
+        graph.zipLinearChains();
+        graph.removeSingletonOrphanVertices();
+        graph.removeVerticesNotConnectedToRefRegardlessOfEdgeDirection();
+        graph.simplifyGraph();
+        graph.removePathsNotConnectedToRef();
+        graph.simplifyGraph();
+        Utils.validate(graph.getReferenceSourceVertex() != null && graph.getReferenceSinkVertex() != null,
+                () -> "the sequence graph for " + interval + " has no reference source or sink");
+    }
+
+    @Benchmark
+    public void findBestHaplotypes(final Blackhole blackhole) {
+        final KBestHaplotypeFinder finder = new KBestHaplotypeFinder(graph, graph.getReferenceSourceVertex(), graph.getReferenceSinkVertex());
+        final int count = Math.min(finder.size(), maxHaplotypes);
+        for (int i = 0; i < count; i++) {
+            blackhole.consume(finder.get(i).haplotype());
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.readthreading;
+
+import org.broadinstitute.hellbender.benchmarks.AssemblyRegionBenchmarkData;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.graphs.SeqGraph;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the read threading graph of a real assembly region, as done for each kmer size by
+ * {@link ReadThreadingAssembler}, and converting it to a sequence graph.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReadThreadingGraphBenchmark {
+
+    @Param({AssemblyRegionBenchmarkData.DEFAULT_INTERVAL, AssemblyRegionBenchmarkData.SECOND_INTERVAL})
+    public String interval;
+
+    @Param({"10", "25"})
+    public int kmerSize;
+
+    private AssemblyRegionBenchmarkData data;
+
+    @Setup
+    public void setup() {
+        data = AssemblyRegionBenchmarkData.load(interval);
+    }
+
+    private ReadThreadingGraph threadReads() {
+        final ReadThreadingGraph graph = new ReadThreadingGraph(kmerSize, false, (byte) 10, 1);
+        graph.addSequence("ref", data.getReferenceHaplotype().getBases(), true);
+        for (final GATKRead read : data.getReads()) {
+            graph.addRead(read, data.getHeader());
+        }
+        graph.buildGraphIfNecessary();
+        return graph;
+    }
+
+    @Benchmark
+    public ReadThreadingGraph buildGraph() {
+        return threadReads();
+    }
+
+    @Benchmark
+    public SeqGraph buildGraphAndConvertToSequenceGraph() {
+        final ReadThreadingGraph graph = threadReads();
+        graph.pruneLowWeightChains(2);
+        return graph.toSequenceGraph();
+    }
+}
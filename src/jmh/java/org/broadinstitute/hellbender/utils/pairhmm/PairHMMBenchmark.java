@@ -0,0 +1,70 @@
+package org.broadinstitute.hellbender.utils.pairhmm;
+
+import org.broadinstitute.hellbender.benchmarks.AssemblyRegionBenchmarkData;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.AssemblyBasedCallerUtils;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.PairHMMNativeArgumentCollection;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedAlleleList;
+import org.broadinstitute.hellbender.utils.genotyper.ReadLikelihoods;
+import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Computing the read x haplotype likelihoods of a real assembly region with each PairHMM implementation.
+ *
+ * The hardware-accelerated implementations fail during setup on machines that do not support them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PairHMMBenchmark {
+
+    @Param({AssemblyRegionBenchmarkData.DEFAULT_INTERVAL, AssemblyRegionBenchmarkData.SECOND_INTERVAL})
+    public String interval;
+
+    @Param({"LOGLESS_CACHING", "ANTIDIAGONAL_LOGLESS_CACHING", "AVX_LOGLESS_CACHING"})
+    public PairHMM.Implementation implementation;
+
+    // HaplotypeCaller's default --pair-hmm-gap-continuation-penalty
+    private static final byte GAP_CONTINUATION_PENALTY = 10;
+
+    private PairHMM hmm;
+    private ReadLikelihoods<Haplotype> likelihoods;
+    private final Map<GATKRead, byte[]> gapContinuationPenalties = new HashMap<>();
+
+    @Setup
+    public void setup() {
+        final AssemblyRegionBenchmarkData data = AssemblyRegionBenchmarkData.load(interval);
+        final List<Haplotype> haplotypes = data.getHaplotypes();
+        final Map<String, List<GATKRead>> readsBySample = AssemblyBasedCallerUtils.splitReadsBySample(data.getSamples(), data.getHeader(), data.getReads());
+        likelihoods = new ReadLikelihoods<>(data.getSamples(), new IndexedAlleleList<>(haplotypes), readsBySample);
+        data.getReads().forEach(read -> gapContinuationPenalties.put(read, Utils.dupBytes(GAP_CONTINUATION_PENALTY, read.getLength())));
+
+        hmm = implementation.makeNewHMM(new PairHMMNativeArgumentCollection().getPairHMMArgs());
+        final int readMaxLength = data.getReads().stream().mapToInt(GATKRead::getLength).max().orElse(0);
+        final int haplotypeMaxLength = haplotypes.stream().mapToInt(Haplotype::length).max().orElse(0);
+        hmm.initialize(haplotypes, readsBySample, readMaxLength, haplotypeMaxLength);
+    }
+
+    @TearDown
+    public void tearDown() {
+        hmm.close();
+    }
+
+    @Benchmark
+    public ReadLikelihoods<Haplotype> computeLikelihoods() {
+        for (int s = 0; s < likelihoods.numberOfSamples(); s++) {
+            hmm.computeLog10Likelihoods(likelihoods.sampleMatrix(s), likelihoods.sampleReads(s), gapContinuationPenalties);
+        }
+        return likelihoods;
+    }
+}
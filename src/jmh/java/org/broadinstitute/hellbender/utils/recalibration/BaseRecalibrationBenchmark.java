@@ -0,0 +1,86 @@
+package org.broadinstitute.hellbender.utils.recalibration;
+
+import htsjdk.samtools.SAMFileHeader;
+import org.broadinstitute.hellbender.benchmarks.AssemblyRegionBenchmarkData;
+import org.broadinstitute.hellbender.engine.ReadsDataSource;
+import org.broadinstitute.hellbender.engine.ReferenceDataSource;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.CovariateKeyCache;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.ReadCovariates;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.StandardCovariateList;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counting the reads of a small interval of the NA12878 chr20/21 snippet the way BaseRecalibrator does.
+ *
+ * Run with {@code -prof gc} to see the allocation per operation ({@code gc.alloc.rate.norm}): computing the
+ * covariates should not allocate at all once the key cache has grown to fit the longest read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BaseRecalibrationBenchmark {
+
+    @Param({"20:10000000-10010000"})
+    public String interval;
+
+    private SAMFileHeader header;
+    private final List<GATKRead> reads = new ArrayList<>();
+    private ReferenceDataSource reference;
+    private StandardCovariateList covariates;
+    private CovariateKeyCache keyCache;
+    private BaseRecalibrationEngine engine;
+
+    @Setup
+    public void setup() {
+        final String bam = System.getProperty(AssemblyRegionBenchmarkData.BAM_PROPERTY, AssemblyRegionBenchmarkData.DEFAULT_BAM);
+        final String fasta = System.getProperty(AssemblyRegionBenchmarkData.REFERENCE_PROPERTY, AssemblyRegionBenchmarkData.DEFAULT_REFERENCE);
+        try (final ReadsDataSource readsSource = new ReadsDataSource(Paths.get(bam))) {
+            header = readsSource.getHeader();
+            readsSource.query(new SimpleInterval(interval)).forEachRemaining(read -> {
+                if (!read.isUnmapped() && !read.isDuplicate() && !read.isSecondaryAlignment() && !read.failsVendorQualityCheck()) {
+                    reads.add(read);
+                }
+            });
+        }
+        reference = ReferenceDataSource.of(Paths.get(fasta));
+
+        final RecalibrationArgumentCollection recalArgs = new RecalibrationArgumentCollection();
+        covariates = new StandardCovariateList(recalArgs, header);
+        keyCache = new CovariateKeyCache();
+        engine = new BaseRecalibrationEngine(recalArgs, header);
+    }
+
+    @TearDown
+    public void tearDown() {
+        reference.close();
+    }
+
+    @Benchmark
+    public int computeCovariates() {
+        int sum = 0;
+        for (final GATKRead read : reads) {
+            final ReadCovariates readCovariates = RecalUtils.computeCovariates(read, header, covariates, true, keyCache);
+            sum += readCovariates.getKey(0, 0, 0);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public BaseRecalibrationEngine processReads() {
+        for (final GATKRead read : reads) {
+            engine.processRead(read, reference, Collections.emptyList());
+        }
+        return engine;
+    }
+}
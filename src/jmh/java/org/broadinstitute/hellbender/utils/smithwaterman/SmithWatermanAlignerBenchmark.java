@@ -0,0 +1,68 @@
+package org.broadinstitute.hellbender.utils.smithwaterman;
+
+import org.broadinstitute.gatk.nativebindings.smithwaterman.SWOverhangStrategy;
+import org.broadinstitute.hellbender.benchmarks.AssemblyRegionBenchmarkData;
+import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.broadinstitute.hellbender.utils.read.CigarUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The two Smith-Waterman workloads of HaplotypeCaller on a real assembly region: aligning every assembled haplotype
+ * to the padded reference, and aligning every read to the reference haplotype.
+ *
+ * The hardware-accelerated implementation fails during setup on machines that do not support it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SmithWatermanAlignerBenchmark {
+
+    @Param({AssemblyRegionBenchmarkData.DEFAULT_INTERVAL, AssemblyRegionBenchmarkData.SECOND_INTERVAL})
+    public String interval;
+
+    @Param({"JAVA", "JAVA_BANDED", "AVX_ENABLED"})
+    public SmithWatermanAligner.Implementation implementation;
+
+    private SmithWatermanAligner aligner;
+    private byte[] reference;
+    private byte[] referenceHaplotype;
+    private List<Haplotype> haplotypes;
+    private List<GATKRead> reads;
+
+    @Setup
+    public void setup() {
+        final AssemblyRegionBenchmarkData data = AssemblyRegionBenchmarkData.load(interval);
+        aligner = SmithWatermanAligner.getAligner(implementation);
+        reference = data.getFullReferenceWithPadding();
+        referenceHaplotype = data.getReferenceHaplotype().getBases();
+        haplotypes = data.getHaplotypes();
+        reads = data.getReads();
+    }
+
+    @TearDown
+    public void tearDown() {
+        aligner.close();
+    }
+
+    @Benchmark
+    public void alignHaplotypesToReference(final Blackhole blackhole) {
+        for (final Haplotype haplotype : haplotypes) {
+            blackhole.consume(CigarUtils.calculateCigar(reference, haplotype.getBases(), aligner));
+        }
+    }
+
+    @Benchmark
+    public void alignReadsToReferenceHaplotype(final Blackhole blackhole) {
+        for (final GATKRead read : reads) {
+            blackhole.consume(aligner.align(referenceHaplotype, read.getBases(), CigarUtils.ALIGNMENT_TO_BEST_HAPLOTYPE_SW_PARAMETERS, SWOverhangStrategy.SOFTCLIP));
+        }
+    }
+}
@@ -29,6 +29,9 @@ public final class StandardArgumentDefinitions {
     public static final String CLOUD_PREFETCH_BUFFER_LONG_NAME = "cloud-prefetch-buffer";
     public static final String CLOUD_INDEX_PREFETCH_BUFFER_LONG_NAME = "cloud-index-prefetch-buffer";
     public static final String DISABLE_BAM_INDEX_CACHING_LONG_NAME = "disable-bam-index-caching";
+    public static final String READ_AHEAD_QUEUE_DEPTH_LONG_NAME = "read-ahead-queue-depth";
+    public static final String USE_REFERENCE_IMAGE_LONG_NAME = "use-reference-image";
+    public static final String RANDOM_ACCESS_FEATURE_CACHE_SIZE_LONG_NAME = "random-access-feature-cache-size";
     public static final String DISABLE_SEQUENCE_DICT_VALIDATION_NAME = "disable-sequence-dictionary-validation";
     public static final String ADD_OUTPUT_SAM_PROGRAM_RECORD = "add-output-sam-program-record";
     public static final String ADD_OUTPUT_VCF_COMMANDLINE = "add-output-vcf-command-line";
@@ -10,16 +10,21 @@ import org.broadinstitute.hellbender.engine.filters.WellformedReadFilter;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.IGVUtils;
 import org.broadinstitute.hellbender.utils.IntervalUtils;
+import org.broadinstitute.hellbender.utils.OrderedParallelExecutor;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.activityprofile.ActivityProfileState;
 import org.broadinstitute.hellbender.utils.downsampling.PositionalDownsampler;
 import org.broadinstitute.hellbender.utils.downsampling.ReadsDownsampler;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.reference.ReferenceBases;
 
 import java.io.IOException;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * An AssemblyRegionWalker is a tool that processes an entire region of reads at a time, each marked as either "active"
@@ -38,6 +43,11 @@ import java.util.List;
  *
  * Internally, the reads are loaded in chunks called read shards, which are then subdivided into active/inactive regions
  * for processing by the tool implementation. One read shard is created per contig.
+ *
+ * Tools that can process regions concurrently implement {@link ConcurrentRegionProcessing}. When such a tool is run
+ * with {@code --threads} greater than 1, regions are still produced in order by the traversal thread, but are processed
+ * on a work-stealing pool of worker threads, and the output step returned by each worker is run back on the traversal
+ * thread in genomic order. Other tools reject {@code --threads} greater than 1 at startup.
  */
 public abstract class AssemblyRegionWalker extends GATKTool {
 
@@ -50,6 +60,13 @@ public abstract class AssemblyRegionWalker extends GATKTool {
     public static final String PROPAGATION_LONG_NAME = "max-prob-propagation-distance";
     public static final String PROFILE_OUT_LONG_NAME = "activity-profile-out";
     public static final String ASSEMBLY_REGION_OUT_LONG_NAME = "assembly-region-out";
+    public static final String THREADS_LONG_NAME = "threads";
+
+    /**
+     * Number of regions allowed to be outstanding per worker thread before the traversal thread waits for the
+     * oldest one to complete. Bounds the memory held by regions that finished out of order.
+     */
+    private static final int MAX_REGIONS_IN_FLIGHT_PER_THREAD = 4;
 
     @Advanced
     @Argument(fullName = MIN_ASSEMBLY_LONG_NAME, doc = "Minimum size of an assembly region", optional = true)
@@ -100,6 +117,39 @@ public abstract class AssemblyRegionWalker extends GATKTool {
 
     private PrintStream assemblyRegionOutStream;
 
+    /**
+     * Implemented by AssemblyRegionWalkers that can process regions concurrently, which allows them to be run with
+     * {@code --threads} greater than 1.
+     */
+    public interface ConcurrentRegionProcessing {
+        /**
+         * Process an individual AssemblyRegion on a worker thread. Only called when running with {@code --threads}
+         * greater than 1, in which case it replaces {@link AssemblyRegionWalker#apply}.
+         *
+         * Calls for different regions may run concurrently and complete in any order, so implementations must not
+         * touch shared mutable state (such as output writers). Instead, they return an output step, which the engine
+         * runs on the traversal thread in the same order the regions were produced. Random numbers drawn through
+         * {@link Utils#getRandomGenerator()} during the call come from a generator seeded from the region's position,
+         * so that the output doesn't depend on the number of threads or on their scheduling.
+         *
+         * @param region region to process (pre-marked as either active or inactive)
+         * @param referenceContext reference data overlapping the full extended span of the assembly region
+         * @param featureContext features overlapping the full extended span of the assembly region
+         * @return output step for this region, to be run on the traversal thread in genomic order
+         */
+        Runnable applyConcurrently( final AssemblyRegion region, final ReferenceContext referenceContext, final FeatureContext featureContext );
+    }
+
+    /**
+     * Number of worker threads used to process assembly regions. Values greater than 1 are only supported by tools
+     * that implement {@link ConcurrentRegionProcessing}. The output doesn't depend on the number of threads greater
+     * than 1, but random numbers (such as the jitter of very high QD values) are drawn per region rather than from a
+     * single sequence, so it can differ from a single-threaded run where they are used.
+     */
+    @Advanced
+    @Argument(fullName = THREADS_LONG_NAME, doc = "Number of threads to use for processing assembly regions concurrently", optional = true, minValue = 1)
+    protected int threads = 1;
+
     /**
      * @return Default value for the {@link #minAssemblyRegionSize} parameter, if none is provided on the command line
      */
@@ -171,6 +221,14 @@ public abstract class AssemblyRegionWalker extends GATKTool {
             throw new CommandLineException.BadArgumentValue("maxReadsPerAlignmentStart must be >= 0");
         }
 
+        if ( threads < 1 ) {
+            throw new CommandLineException.BadArgumentValue(THREADS_LONG_NAME, "must be >= 1");
+        }
+
+        if ( threads > 1 && ! (this instanceof ConcurrentRegionProcessing) ) {
+            throw new CommandLineException.BadArgumentValue(THREADS_LONG_NAME, "this tool does not support processing assembly regions on more than one thread");
+        }
+
         final List<SimpleInterval> intervals = hasUserSuppliedIntervals() ? userIntervals : IntervalUtils.getAllIntervalsForReference(getHeaderForReads().getSequenceDictionary());
         readShards = makeReadShards(intervals);
 
@@ -256,15 +314,25 @@ public abstract class AssemblyRegionWalker extends GATKTool {
         // meter to check the time more frequently (every 10 regions instead of every 1000 regions).
         progressMeter.setRecordsBetweenTimeChecks(10L);
 
-        for ( final MultiIntervalLocalReadShard readShard : readShards ) {
-            // Since reads in each shard are lazily fetched, we need to pass the filter and transformers to the window
-            // instead of filtering the reads directly here
-            readShard.setPreReadFilterTransformer(makePreReadFilterTransformer());
-            readShard.setReadFilter(countedFilter);
-            readShard.setDownsampler(createDownsampler());
-            readShard.setPostReadFilterTransformer(makePostReadFilterTransformer());
+        if ( threads > 1 ) {
+            logger.info("Processing assembly regions using " + threads + " threads");
+        }
+
+        try ( final OrderedParallelExecutor<Runnable> regionExecutor = threads > 1 ? new OrderedParallelExecutor<>(threads, threads * MAX_REGIONS_IN_FLIGHT_PER_THREAD, Runnable::run) : null ) {
+            for ( final MultiIntervalLocalReadShard readShard : readShards ) {
+                // Since reads in each shard are lazily fetched, we need to pass the filter and transformers to the window
+                // instead of filtering the reads directly here
+                readShard.setPreReadFilterTransformer(makePreReadFilterTransformer());
+                readShard.setReadFilter(countedFilter);
+                readShard.setDownsampler(createDownsampler());
+                readShard.setPostReadFilterTransformer(makePostReadFilterTransformer());
+
+                processReadShard(readShard, reference, features, regionExecutor);
+            }
 
-            processReadShard(readShard, reference, features);
+            if ( regionExecutor != null ) {
+                regionExecutor.drain();
+            }
         }
 
         logger.info(countedFilter.getSummaryLine());
@@ -277,8 +345,9 @@ public abstract class AssemblyRegionWalker extends GATKTool {
      * @param shard MultiIntervalLocalReadShard to process
      * @param reference Reference data source
      * @param features FeatureManager
+     * @param regionExecutor executor for concurrent region processing, or null to process each region on this thread
      */
-    private void processReadShard(MultiIntervalLocalReadShard shard, ReferenceDataSource reference, FeatureManager features ) {
+    private void processReadShard(MultiIntervalLocalReadShard shard, ReferenceDataSource reference, FeatureManager features, final OrderedParallelExecutor<Runnable> regionExecutor ) {
         final Iterator<AssemblyRegion> assemblyRegionIter = new AssemblyRegionIterator(shard, getHeaderForReads(), reference, features, assemblyRegionEvaluator(), minAssemblyRegionSize, maxAssemblyRegionSize, assemblyRegionPadding, activeProbThreshold, maxProbPropagationDistance, includeReadsWithDeletionsInIsActivePileups());
 
         // Call into the tool implementation to process each assembly region from this shard.
@@ -288,15 +357,45 @@ public abstract class AssemblyRegionWalker extends GATKTool {
             logger.debug("Processing assembly region at " + assemblyRegion.getSpan() + " isActive: " + assemblyRegion.isActive() + " numReads: " + assemblyRegion.getReads().size());
             writeAssemblyRegion(assemblyRegion);
 
-            apply(assemblyRegion,
-                    new ReferenceContext(reference, assemblyRegion.getExtendedSpan()),
-                    new FeatureContext(features, assemblyRegion.getExtendedSpan()));
+            if ( regionExecutor == null ) {
+                apply(assemblyRegion,
+                        new ReferenceContext(reference, assemblyRegion.getExtendedSpan()),
+                        new FeatureContext(features, assemblyRegion.getExtendedSpan()));
 
-            // For this traversal, the progress meter unit is the assembly region rather than the read shard
-            progressMeter.update(assemblyRegion.getSpan());
+                // For this traversal, the progress meter unit is the assembly region rather than the read shard
+                progressMeter.update(assemblyRegion.getSpan());
+            } else {
+                submitAssemblyRegion(assemblyRegion, reference, features, regionExecutor);
+            }
         }
     }
 
+    /**
+     * Hand a region off to the worker pool. Reference bases are fetched here on the traversal thread, since
+     * reference data sources are not thread-safe, and the region's reads are copied so that in-place modifications
+     * made by a worker can't leak into an overlapping region being processed concurrently.
+     */
+    private void submitAssemblyRegion(final AssemblyRegion assemblyRegion, final ReferenceDataSource reference, final FeatureManager features, final OrderedParallelExecutor<Runnable> regionExecutor) {
+        final SimpleInterval extendedSpan = assemblyRegion.getExtendedSpan();
+        final ReferenceBases referenceBases = new ReferenceBases(reference.queryAndPrefetch(extendedSpan).getBases(), extendedSpan);
+        final ReferenceContext referenceContext = new ReferenceContext(new ReferenceMemorySource(referenceBases, reference.getSequenceDictionary()), extendedSpan);
+        final FeatureContext featureContext = new FeatureContext(features, extendedSpan);
+
+        final List<GATKRead> readCopies = assemblyRegion.getReads().stream().map(GATKRead::copy).collect(Collectors.toList());
+        assemblyRegion.clearReads();
+        assemblyRegion.addAll(readCopies);
+
+        final ConcurrentRegionProcessing processor = (ConcurrentRegionProcessing) this;
+        regionExecutor.submit(() -> {
+            final Runnable emitOutput = Utils.runWithLocusRandomGenerator(assemblyRegion.getSpan(),
+                    () -> processor.applyConcurrently(assemblyRegion, referenceContext, featureContext));
+            return () -> {
+                emitOutput.run();
+                progressMeter.update(assemblyRegion.getSpan());
+            };
+        });
+    }
+
     private void writeAssemblyRegion(final AssemblyRegion region) {
         writeActivityProfile(region.getSupportingStates());
 
@@ -7,7 +7,9 @@ import org.broadinstitute.hellbender.utils.Utils;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -47,6 +49,12 @@ public class FeatureContext {
      */
     private final SimpleInterval interval;
 
+    /**
+     * Features overlapping our interval that were already queried for some FeatureInputs (see
+     * {@link #withPrefetchedFeatures}). Null if nothing was prefetched.
+     */
+    private final Map<FeatureInput<? extends Feature>, List<? extends Feature>> prefetchedFeatures;
+
     /**
      * Creates an empty FeatureContext with no backing data source. All queries on this context will
      * return an empty List.
@@ -64,8 +72,38 @@ public class FeatureContext {
      * @param interval Interval to constrain queries on this FeatureContext. Null if we have no known location.
      */
     public FeatureContext(final FeatureManager featureManager, final SimpleInterval interval) {
+        this(featureManager, interval, null);
+    }
+
+    private FeatureContext(final FeatureManager featureManager, final SimpleInterval interval,
+                           final Map<FeatureInput<? extends Feature>, List<? extends Feature>> prefetchedFeatures) {
         this.featureManager = featureManager;
         this.interval = interval;
+        this.prefetchedFeatures = prefetchedFeatures;
+    }
+
+    /**
+     * Returns a copy of this FeatureContext for which the Features overlapping our interval have already been
+     * fetched from the given FeatureInputs. Queries of those FeatureInputs over our interval (including queries
+     * constrained to a start position) are then answered from memory, so that the copy can be handed to a worker
+     * thread without the worker going back to the data sources, which would miss their forward-only caches when
+     * sites are processed out of order. Other queries still go to the backing FeatureManager.
+     *
+     * @param featureDescriptors FeatureInputs to prefetch. Null entries are ignored.
+     * @return a FeatureContext over the same interval with the Features from featureDescriptors prefetched
+     */
+    public FeatureContext withPrefetchedFeatures(final Collection<? extends FeatureInput<? extends Feature>> featureDescriptors) {
+        Utils.nonNull(featureDescriptors, "featureDescriptors cannot be null");
+        final Map<FeatureInput<? extends Feature>, List<? extends Feature>> prefetched = new HashMap<>();
+        if ( prefetchedFeatures != null ) {
+            prefetched.putAll(prefetchedFeatures);
+        }
+        for ( final FeatureInput<? extends Feature> featureDescriptor : featureDescriptors ) {
+            if ( featureDescriptor != null ) {
+                prefetched.put(featureDescriptor, getValues(featureDescriptor));
+            }
+        }
+        return new FeatureContext(featureManager, interval, prefetched);
     }
 
     /**
@@ -160,6 +198,12 @@ public class FeatureContext {
         if (featureManager == null || queryInterval == null || featureDescriptor == null) {
             return Collections.emptyList();
         }
+        if (prefetchedFeatures != null && queryInterval.equals(interval) && prefetchedFeatures.containsKey(featureDescriptor)) {
+            // No danger of a ClassCastException here, since the prefetched Features came from the same FeatureInput
+            @SuppressWarnings("unchecked")
+            final List<T> prefetched = (List<T>) prefetchedFeatures.get(featureDescriptor);
+            return new ArrayList<>(prefetched);
+        }
         return featureManager.getFeatures(featureDescriptor, queryInterval);
     }
 
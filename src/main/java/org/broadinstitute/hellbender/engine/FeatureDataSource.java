@@ -96,6 +96,12 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
      */
     private final FeatureCache<T> queryCache;
 
+    /**
+     * Cache of several windows, used instead of {@link #queryCache} if enabled via
+     * {@link #setRandomAccessCacheSize(int)} for access patterns that are not gradually increasing.
+     */
+    private RandomAccessFeatureCache<T> randomAccessQueryCache = null;
+
     /**
      * When we experience a cache miss (ie., a query interval not fully contained within our cache) and need
      * to re-populate the Feature cache from disk to satisfy a query, this controls the number of extra bases
@@ -553,6 +559,10 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
                                     "If it's a file, please index it using the bundled tool " + IndexFeatureFile.class.getSimpleName());
         }
 
+        if ( randomAccessQueryCache != null ) {
+            return queryRandomAccessCache(interval);
+        }
+
         // If the query can be satisfied using existing cache contents, prepare for retrieval
         // by discarding all Features at the beginning of the cache that end before the start
         // of our query interval.
@@ -568,6 +578,39 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
         return queryCache.getCachedFeaturesUpToStopPosition(interval.getEnd());
     }
 
+    /**
+     * Answer a query from the window of our random access cache that contains it, or add a window for it (with
+     * lookahead, as in {@link #refillQueryCache}) after a cache miss.
+     */
+    private List<T> queryRandomAccessCache( final SimpleInterval interval ) {
+        final List<T> cachedFeatures = randomAccessQueryCache.getCachedFeatures(interval);
+        if ( cachedFeatures != null ) {
+            return cachedFeatures;
+        }
+
+        closeOpenIterationIfNecessary();
+        final SimpleInterval queryInterval = new SimpleInterval(interval.getContig(), interval.getStart(), Math.addExact(interval.getEnd(), queryLookaheadBases));
+        try ( CloseableTribbleIterator<T> queryIter = featureReader.query(queryInterval.getContig(), queryInterval.getStart(), queryInterval.getEnd()) ) {
+            return randomAccessQueryCache.fill(queryIter, queryInterval, interval);
+        }
+        catch ( IOException e ) {
+            throw new GATKException("Error querying file " + featureInput + " over interval " + interval, e);
+        }
+    }
+
+    /**
+     * Cache the results of queries in several resident windows rather than in a single window that moves forward
+     * (see {@link RandomAccessFeatureCache}), so that queries that back up or jump between distant loci do not go
+     * to disk each time. The least recently used windows are evicted to keep the number of cached Features bounded.
+     *
+     * @param maxCachedFeatures maximum number of Features to keep in the windows other than the most recent one
+     *                          (0 to go back to the default cache, which is optimized for increasing queries)
+     */
+    public void setRandomAccessCacheSize( final int maxCachedFeatures ) {
+        Utils.validateArg(maxCachedFeatures >= 0, "maxCachedFeatures must be >= 0");
+        randomAccessQueryCache = maxCachedFeatures > 0 ? new RandomAccessFeatureCache<>(RandomAccessFeatureCache.DEFAULT_MAX_WINDOWS, maxCachedFeatures) : null;
+    }
+
     /**
      * Refill our cache from disk after a cache miss. Will prefetch Features overlapping an additional
      * queryLookaheadBases bases after the end of the provided interval, in addition to those overlapping
@@ -628,6 +671,9 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
 
         logger.debug(String.format("Cache statistics for FeatureInput %s:", featureInput));
         queryCache.printCacheStatistics();
+        if ( randomAccessQueryCache != null ) {
+            randomAccessQueryCache.printCacheStatistics(featureInput.getName());
+        }
 
         try {
             if ( featureReader != null ) {
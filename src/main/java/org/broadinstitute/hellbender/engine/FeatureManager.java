@@ -14,6 +14,7 @@ import org.broadinstitute.hellbender.cmdline.CommandLineProgram;
 import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.config.ConfigFactory;
 import org.broadinstitute.hellbender.utils.config.GATKConfig;
 
@@ -88,6 +89,12 @@ public final class FeatureManager implements AutoCloseable {
      */
     private final Map<FeatureInput<? extends Feature>, FeatureDataSource<? extends Feature>> featureSources;
 
+    /**
+     * Maximum number of Features in the random access cache of each FeatureDataSource, or 0 if they use the
+     * default cache (see {@link FeatureDataSource#setRandomAccessCacheSize(int)})
+     */
+    private int randomAccessCacheSize = 0;
+
     /**
      * Create a FeatureManager given a CommandLineProgram tool instance, discovering all FeatureInput
      * arguments in the tool and creating query-able FeatureDataSources for them. Uses the default
@@ -199,7 +206,22 @@ public final class FeatureManager implements AutoCloseable {
      */
     void addToFeatureSources(final int featureQueryLookahead, final FeatureInput<? extends Feature> featureInput, final Class<? extends Feature> featureType, final int cloudPrefetchBuffer, final int cloudIndexPrefetchBuffer, final Path reference) {
         // Create a new FeatureDataSource for this file, and add it to our query pool
-        featureSources.put(featureInput, new FeatureDataSource<>(featureInput, featureQueryLookahead, featureType, cloudPrefetchBuffer, cloudIndexPrefetchBuffer, reference));
+        final FeatureDataSource<? extends Feature> featureSource = new FeatureDataSource<>(featureInput, featureQueryLookahead, featureType, cloudPrefetchBuffer, cloudIndexPrefetchBuffer, reference);
+        featureSource.setRandomAccessCacheSize(randomAccessCacheSize);
+        featureSources.put(featureInput, featureSource);
+    }
+
+    /**
+     * Make all our FeatureDataSources, including those added later, cache query results in several windows that
+     * can be reused by queries in any order (see {@link FeatureDataSource#setRandomAccessCacheSize(int)}).
+     *
+     * @param maxCachedFeatures maximum number of Features cached by each data source (0 for the default cache,
+     *                          which is optimized for queries with increasing start positions)
+     */
+    public void setRandomAccessCacheSize( final int maxCachedFeatures ) {
+        Utils.validateArg(maxCachedFeatures >= 0, "maxCachedFeatures must be >= 0");
+        randomAccessCacheSize = maxCachedFeatures;
+        featureSources.values().forEach(featureSource -> featureSource.setRandomAccessCacheSize(maxCachedFeatures));
     }
 
     /**
@@ -293,13 +315,16 @@ public final class FeatureManager implements AutoCloseable {
      * FeatureManager was initialized with, or was not an @Argument-annotated field in the tool
      * (or parent classes).
      *
+     * Synchronized so that FeatureContexts handed to worker threads (eg., by a multithreaded
+     * {@link AssemblyRegionWalker}) can safely query the shared, non-thread-safe data sources.
+     *
      * @param featureDescriptor FeatureInput argument from our tool representing the Feature source to query
      * @param interval interval to query over (returned Features will overlap this interval)
      * @param <T> type of Feature in the source represented by featureDescriptor
      * @return A List of all Features in the backing data source for the provided FeatureInput that overlap
      *         the provided interval (may be empty if there are none, but never null)
      */
-    public <T extends Feature> List<T> getFeatures( final FeatureInput<T> featureDescriptor, final SimpleInterval interval ) {
+    public synchronized <T extends Feature> List<T> getFeatures( final FeatureInput<T> featureDescriptor, final SimpleInterval interval ) {
         final FeatureDataSource<T> dataSource = lookupDataSource(featureDescriptor);
 
         // No danger of a ClassCastException here, since we verified that the FeatureDataSource for this
@@ -338,7 +363,7 @@ public final class FeatureManager implements AutoCloseable {
      * @param <T> type of Feature in our FeatureInput
      * @return header for the provided FeatureInput
      */
-    public <T extends Feature> Object getHeader( final FeatureInput<T> featureDescriptor ) {
+    public synchronized <T extends Feature> Object getHeader( final FeatureInput<T> featureDescriptor ) {
         final FeatureDataSource<T> dataSource = lookupDataSource(featureDescriptor);
         return dataSource.getHeader();
     }
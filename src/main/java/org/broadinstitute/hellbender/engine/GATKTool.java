@@ -9,6 +9,7 @@ import htsjdk.tribble.Feature;
 import htsjdk.variant.variantcontext.writer.Options;
 import htsjdk.variant.variantcontext.writer.VariantContextWriter;
 import htsjdk.variant.vcf.VCFHeaderLine;
+import org.broadinstitute.barclay.argparser.Advanced;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.ArgumentCollection;
 import org.broadinstitute.barclay.argparser.CommandLinePluginDescriptor;
@@ -116,6 +117,45 @@ public abstract class GATKTool extends CommandLineProgram {
             optional = true)
     public boolean disableBamIndexCaching = false;
 
+    /**
+     * When positive, the reads of the traversal are inflated and decoded on background threads, up to this many
+     * batches of {@value ReadsDataSource#READ_AHEAD_BATCH_SIZE} reads ahead of the tool. This overlaps reading the
+     * input with the work of the tool, at the cost of holding the decoded batches in memory. The time the tool spent
+     * waiting for reads is logged at the end of the traversal.
+     *
+     * The reads are decoded ahead of the traversal only, but the BAM blocks are inflated on htsjdk's asynchronous IO
+     * threads for all the reads, including those of the queries made by the tool, as they share the same readers.
+     */
+    @Advanced
+    @Argument(fullName = StandardArgumentDefinitions.READ_AHEAD_QUEUE_DEPTH_LONG_NAME,
+            doc = "Number of batches of reads to decode ahead of the traversal on background threads (0 to disable).",
+            optional = true, minValue = 0)
+    public int readAheadQueueDepth = 0;
+
+    /**
+     * If true, the reference is read from a memory-mapped, 2-bit packed image of the fasta that is shared by all the
+     * threads of the tool (see {@link ReferenceImageSource}). Unless an up-to-date
+     * {@value ReferenceImageSource#IMAGE_EXTENSION} file was written next to the fasta, the image is built at startup
+     * on every run, which reads the whole fasta and takes time proportional to its size. Run ReferenceImageCreator
+     * once to write that file and skip this step.
+     */
+    @Advanced
+    @Argument(fullName = StandardArgumentDefinitions.USE_REFERENCE_IMAGE_LONG_NAME,
+            doc = "If true, read the reference from a memory-mapped image shared by all threads.", optional = true)
+    public boolean useReferenceImage = false;
+
+    /**
+     * When positive, queries on Feature inputs are cached in several windows, so that tools whose queries back up
+     * or jump between loci (eg., annotating against a data source, or traversing shards made of several intervals)
+     * do not re-query and re-decode the input each time. The least recently used windows are evicted once more than
+     * this many Features are cached per input.
+     */
+    @Advanced
+    @Argument(fullName = StandardArgumentDefinitions.RANDOM_ACCESS_FEATURE_CACHE_SIZE_LONG_NAME,
+            doc = "Maximum number of Features per input to keep in a cache for queries in any order (0 to use the default cache for increasing queries).",
+            optional = true, minValue = 0)
+    public int randomAccessFeatureCacheSize = 0;
+
     @Argument(fullName = StandardArgumentDefinitions.SITES_ONLY_LONG_NAME,
             doc = "If true, don't emit genotype fields when writing vcf file output.", optional = true)
     public boolean outputSitesOnlyVCFs = false;
@@ -361,7 +401,11 @@ public abstract class GATKTool extends CommandLineProgram {
      * May be overridden by traversals that require custom initialization of the reference data source.
      */
     void initializeReference() {
-        reference = referenceArguments.getReferencePath() != null ? ReferenceDataSource.of(referenceArguments.getReferencePath()) : null;
+        if (referenceArguments.getReferencePath() == null) {
+            reference = null;
+        } else {
+            reference = useReferenceImage ? ReferenceImageSource.of(referenceArguments.getReferencePath()) : ReferenceDataSource.of(referenceArguments.getReferencePath());
+        }
     }
 
     /**
@@ -384,8 +428,15 @@ public abstract class GATKTool extends CommandLineProgram {
                 factory = factory.enable(SamReaderFactory.Option.CACHE_FILE_BASED_INDEXES);
             }
 
+            if (readAheadQueueDepth > 0) {
+                // inflate BAM blocks on htsjdk's own background threads, the records are decoded on the read-ahead thread;
+                // this applies to queries too, as they go through the same readers as the traversal
+                factory = factory.setUseAsyncIo(true);
+            }
+
             reads = new ReadsDataSource(readArguments.getReadPaths(), readArguments.getReadIndexPaths(), factory, cloudPrefetchBuffer,
                 (cloudIndexPrefetchBuffer < 0 ? cloudPrefetchBuffer : cloudIndexPrefetchBuffer));
+            reads.setReadAheadQueueDepth(readAheadQueueDepth);
         }
         else {
             reads = null;
@@ -636,6 +687,9 @@ public abstract class GATKTool extends CommandLineProgram {
         initializeReads(); // Must be initialized after reference, in case we are dealing with CRAM and a reference is required
 
         initializeFeatures();
+        if ( features != null && randomAccessFeatureCacheSize > 0 ) {
+            features.setRandomAccessCacheSize(randomAccessFeatureCacheSize);
+        }
 
         initializeIntervals(); // Must be initialized after reference, reads and features, since intervals currently require a sequence dictionary from another data source
 
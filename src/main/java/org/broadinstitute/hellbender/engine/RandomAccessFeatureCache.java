@@ -0,0 +1,223 @@
+package org.broadinstitute.hellbender.engine;
+
+import htsjdk.tribble.Feature;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * RandomAccessFeatureCache: alternative to {@link FeatureCache} for {@link FeatureDataSource} queries that do not
+ * have gradually increasing start positions (eg., annotating variants against a data source whose records are
+ * scattered, or shards made of several intervals).
+ *
+ * Instead of a single window that can only move forward, this cache keeps several resident windows (each filled
+ * like the window of a {@link FeatureCache}, with lookahead after the query that produced the cache miss), and a
+ * query is a hit if any of them contains it. The features of each window are kept sorted by start position along
+ * with the length of the longest one, so that the features overlapping a query are found by binary search rather
+ * than by scanning the window.
+ *
+ * The least recently used windows are evicted when there are more than the maximum number of windows, or when the
+ * windows hold more than the maximum number of features in total (but the most recent window is always kept).
+ *
+ * Usage:
+ * -Get the cached features overlapping each query interval via {@link #getCachedFeatures(SimpleInterval)}
+ *
+ * -If it returns null (a cache miss), add a new window with {@link #fill(Iterator, SimpleInterval, SimpleInterval)},
+ *  which returns the Features overlapping the query interval.
+ *
+ * @param <CACHED_FEATURE> Type of Feature record we are caching
+ */
+class RandomAccessFeatureCache<CACHED_FEATURE extends Feature> {
+    private static final Logger logger = LogManager.getLogger(RandomAccessFeatureCache.class);
+
+    /**
+     * Default maximum number of resident windows
+     */
+    public static final int DEFAULT_MAX_WINDOWS = 64;
+
+    /**
+     * Resident windows, most recently used first
+     */
+    private final List<Window<CACHED_FEATURE>> windows = new ArrayList<>();
+
+    private final int maxWindows;
+
+    private final int maxCachedFeatures;
+
+    /**
+     * Total number of features in our windows
+     */
+    private int numCachedFeatures = 0;
+
+    private int numCacheHits = 0;
+
+    private int numCacheMisses = 0;
+
+    private int numEvictions = 0;
+
+    /**
+     * The features overlapping an interval, sorted by start position.
+     */
+    private static final class Window<F extends Feature> {
+        private final SimpleInterval interval;
+        private final List<F> features;
+        private final int[] starts;
+        private final int maxFeatureLength;
+
+        private Window( final SimpleInterval interval, final List<F> features ) {
+            this.interval = interval;
+            this.features = features;
+            this.starts = new int[features.size()];
+            int maxLength = 0;
+            for ( int i = 0; i < starts.length; i++ ) {
+                final F feature = features.get(i);
+                starts[i] = feature.getStart();
+                maxLength = Math.max(maxLength, feature.getEnd() - feature.getStart() + 1);
+            }
+            this.maxFeatureLength = maxLength;
+        }
+
+        private List<F> getOverlapping( final int start, final int end ) {
+            // no feature starting before this position is long enough to reach the start of the query
+            final int firstCandidate = firstIndexStartingAtOrAfter(start - maxFeatureLength + 1);
+
+            final List<F> overlapping = new ArrayList<>();
+            for ( int i = firstCandidate; i < starts.length && starts[i] <= end; i++ ) {
+                final F feature = features.get(i);
+                if ( feature.getEnd() >= start ) {
+                    overlapping.add(feature);
+                }
+            }
+            return overlapping;
+        }
+
+        // binary search for the leftmost feature in case several of them start at the same position
+        private int firstIndexStartingAtOrAfter( final int position ) {
+            int low = 0;
+            int high = starts.length;
+            while ( low < high ) {
+                final int middle = (low + high) >>> 1;
+                if ( starts[middle] < position ) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * Create an initially-empty RandomAccessFeatureCache
+     *
+     * @param maxWindows maximum number of resident windows (> 0)
+     * @param maxCachedFeatures maximum total number of features in all windows but the most recent (> 0)
+     */
+    public RandomAccessFeatureCache( final int maxWindows, final int maxCachedFeatures ) {
+        Utils.validateArg(maxWindows > 0, "maxWindows must be > 0");
+        Utils.validateArg(maxCachedFeatures > 0, "maxCachedFeatures must be > 0");
+        this.maxWindows = maxWindows;
+        this.maxCachedFeatures = maxCachedFeatures;
+    }
+
+    /**
+     * @return Number of resident windows
+     */
+    public int getNumWindows() {
+        return windows.size();
+    }
+
+    /**
+     * @return Total number of features in the resident windows
+     */
+    public int getNumCachedFeatures() {
+        return numCachedFeatures;
+    }
+
+    /**
+     * @return Number of times we called {@link #getCachedFeatures(SimpleInterval)} and it returned a result
+     */
+    public int getNumCacheHits() {
+        return numCacheHits;
+    }
+
+    /**
+     * @return Number of times we called {@link #getCachedFeatures(SimpleInterval)} and it returned null
+     */
+    public int getNumCacheMisses() {
+        return numCacheMisses;
+    }
+
+    /**
+     * Returns (but does not remove) all cached Features that overlap the provided interval, in the order in which
+     * they were added to the cache, if a resident window contains the interval.
+     *
+     * @param interval the query interval
+     * @return all cached Features that overlap the interval, or null if no resident window contains the interval
+     */
+    public List<CACHED_FEATURE> getCachedFeatures( final SimpleInterval interval ) {
+        for ( int i = 0; i < windows.size(); i++ ) {
+            final Window<CACHED_FEATURE> window = windows.get(i);
+            if ( window.interval.contains(interval) ) {
+                ++numCacheHits;
+                if ( i > 0 ) {
+                    // mark the window as the most recently used
+                    windows.remove(i);
+                    windows.add(0, window);
+                }
+                return window.getOverlapping(interval.getStart(), interval.getEnd());
+            }
+        }
+        ++numCacheMisses;
+        return null;
+    }
+
+    /**
+     * Add a window with the records from the provided iterator, which must be sorted by start position, as the
+     * most recently used window, and evict the least recently used windows if necessary.
+     *
+     * @param featureIter iterator from which to pull Features with which to populate the new window
+     * @param interval all Features from featureIter overlap this interval
+     * @param queryInterval the query interval that produced the cache miss, must be contained in interval
+     * @return all Features of the new window that overlap the query interval
+     */
+    public List<CACHED_FEATURE> fill( final Iterator<CACHED_FEATURE> featureIter, final SimpleInterval interval, final SimpleInterval queryInterval ) {
+        Utils.validateArg(interval.contains(queryInterval), "the new window must contain the query interval");
+        final List<CACHED_FEATURE> features = new ArrayList<>();
+        while ( featureIter.hasNext() ) {
+            features.add(featureIter.next());
+        }
+
+        final Window<CACHED_FEATURE> window = new Window<>(interval, features);
+        windows.add(0, window);
+        numCachedFeatures += features.size();
+
+        while ( windows.size() > 1 && (windows.size() > maxWindows || numCachedFeatures - features.size() > maxCachedFeatures) ) {
+            numCachedFeatures -= windows.remove(windows.size() - 1).features.size();
+            ++numEvictions;
+        }
+        return window.getOverlapping(queryInterval.getStart(), queryInterval.getEnd());
+    }
+
+    /**
+     * Print statistics about the cache hit rate for debugging.
+     * @param sourceName The source for the features in this cache.
+     */
+    public void printCacheStatistics(final String sourceName) {
+
+        final String sourceNameString = sourceName.isEmpty() ? "" : "for data source " + sourceName;
+
+        final int totalQueries = getNumCacheHits() + getNumCacheMisses();
+        logger.debug(String.format("Cache hit rate %s was %.2f%% (%d out of %d total queries, %d windows evicted)",
+                sourceNameString,
+                totalQueries > 0 ? ((double)getNumCacheHits() / totalQueries) * 100.0 : 0.0,
+                getNumCacheHits(),
+                totalQueries,
+                numEvictions));
+    }
+}
@@ -1,6 +1,7 @@
 package org.broadinstitute.hellbender.engine;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Iterators;
 import htsjdk.samtools.*;
 import htsjdk.samtools.util.CloseableIterator;
 import htsjdk.samtools.util.IOUtil;
@@ -14,6 +15,7 @@ import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
+import org.broadinstitute.hellbender.utils.iterators.ReadAheadIterator;
 import org.broadinstitute.hellbender.utils.iterators.SAMRecordToReadIterator;
 import org.broadinstitute.hellbender.utils.iterators.SamReaderQueryingIterator;
 import org.broadinstitute.hellbender.utils.nio.SeekableByteChannelPrefetcher;
@@ -78,6 +80,23 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
      */
     private boolean indicesAvailable;
 
+    /**
+     * Number of reads per batch decoded ahead of a traversal
+     */
+    public static final int READ_AHEAD_BATCH_SIZE = 1000;
+
+    /**
+     * Maximum number of batches of reads decoded ahead of a traversal on a background thread, 0 to decode the reads
+     * on the thread iterating over them. Queries are unaffected by this setting.
+     */
+    private int readAheadQueueDepth = 0;
+
+    /**
+     * The read-ahead iterator of the current traversal, if any. It must be stopped before the reader iterators it
+     * reads from are closed.
+     */
+    private ReadAheadIterator<GATKRead> readAheadIterator;
+
     /**
      * Initialize this data source with a single SAM/BAM file and validation stringency SILENT.
      *
@@ -306,6 +325,19 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
         return intervalsForTraversal != null || traverseUnmapped;
     }
 
+    /**
+     * Decode the reads of traversals initiated via {@link #iterator} on a background thread, up to the given number
+     * of batches of {@value #READ_AHEAD_BATCH_SIZE} reads ahead of the traversal. Calls to {@link #query} are not
+     * affected by this setting. To also inflate the BAM blocks on a separate thread, enable asynchronous IO in the
+     * {@link SamReaderFactory} this data source is created with.
+     *
+     * @param queueDepth maximum number of batches decoded ahead of the traversal, 0 to disable read-ahead
+     */
+    public void setReadAheadQueueDepth( final int queueDepth ) {
+        Utils.validateArg(queueDepth >= 0, "queueDepth must be non-negative");
+        this.readAheadQueueDepth = queueDepth;
+    }
+
     private void raiseExceptionForMissingIndex(String reason) {
         String commandsToIndex = backingPaths.entrySet().stream()
                 .filter(f -> !f.getKey().hasIndex())
@@ -327,7 +359,7 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
     @Override
     public Iterator<GATKRead> iterator() {
         logger.debug("Preparing readers for traversal");
-        return prepareIteratorsForTraversal(intervalsForTraversal, traverseUnmapped);
+        return prepareIteratorsForTraversal(intervalsForTraversal, traverseUnmapped, readAheadQueueDepth);
     }
 
     /**
@@ -355,7 +387,7 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
             raiseExceptionForMissingIndex("Cannot query reads data source by interval unless all files are indexed");
         }
 
-        return prepareIteratorsForTraversal(null, true);
+        return prepareIteratorsForTraversal(null, true, 0);
     }
 
     /**
@@ -378,16 +410,17 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
      * @return Iterator over all reads in this data source, limited to overlap with the supplied intervals
      */
     private Iterator<GATKRead> prepareIteratorsForTraversal( final List<SimpleInterval> queryIntervals ) {
-        return prepareIteratorsForTraversal(queryIntervals, false);
+        return prepareIteratorsForTraversal(queryIntervals, false, 0);
     }
 
     /**
      * Prepare iterators over all readers in response to a request for a complete iteration or query
      *
      * @param queryIntervals Intervals to bound the iteration (reads must overlap one of these intervals). If null, iteration is unbounded.
+     * @param readAheadQueueDepth number of batches of reads to decode ahead on a background thread, 0 for none
      * @return Iterator over all reads in this data source, limited to overlap with the supplied intervals
      */
-    private Iterator<GATKRead> prepareIteratorsForTraversal( final List<SimpleInterval> queryIntervals, final boolean queryUnmapped ) {
+    private Iterator<GATKRead> prepareIteratorsForTraversal( final List<SimpleInterval> queryIntervals, final boolean queryUnmapped, final int readAheadQueueDepth ) {
         // htsjdk requires that only one iterator be open at a time per reader, so close out
         // any previous iterations
         closePreviousIterationsIfNecessary();
@@ -421,6 +454,15 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
             startingIterator = new MergingSamRecordIterator(headerMerger, readers, true);
         }
 
+        if ( readAheadQueueDepth > 0 ) {
+            // decode the lazily-parsed fields of the records on the read-ahead thread as well
+            final Iterator<SAMRecord> decodingIterator = Iterators.transform(startingIterator, record -> {
+                record.eagerDecode();
+                return record;
+            });
+            readAheadIterator = new ReadAheadIterator<>(new SAMRecordToReadIterator(decodingIterator), readAheadQueueDepth, READ_AHEAD_BATCH_SIZE);
+            return readAheadIterator;
+        }
         return new SAMRecordToReadIterator(startingIterator);
     }
 
@@ -487,6 +529,11 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
      * Close any previously-opened iterations over our readers (htsjdk allows only one open iteration per reader).
      */
     private void closePreviousIterationsIfNecessary() {
+        // the read-ahead thread must be stopped before the iterators it reads from are closed
+        if ( readAheadIterator != null ) {
+            readAheadIterator.close();
+            readAheadIterator = null;
+        }
         for ( Map.Entry<SamReader, CloseableIterator<SAMRecord>> readerEntry : readers.entrySet() ) {
             CloseableIterator<SAMRecord> readerIterator = readerEntry.getValue();
             if ( readerIterator != null ) {
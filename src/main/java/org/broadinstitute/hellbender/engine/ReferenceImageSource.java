@@ -0,0 +1,436 @@
+package org.broadinstitute.hellbender.engine;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.io.CountingOutputStream;
+import htsjdk.samtools.SAMException;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.reference.ReferenceSequence;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Manages queries over a reference held in a memory-mapped image of its bases, packed 2 bits per base with the
+ * runs of any other base (eg., N) stored separately.
+ *
+ * Unlike {@link ReferenceFileSource}, a single instance of this class may be queried from any number of threads at
+ * once, and all threads of a JVM asking for the same fasta through {@link #of(Path)} share the same image, which the
+ * operating system pages in on demand. The image is read from {@code <fasta>}{@value #IMAGE_EXTENSION} if there is
+ * an up-to-date one next to the fasta (see {@link #writeImage} and the ReferenceImageCreator tool), and otherwise built
+ * into a temporary file, which reads the whole fasta.
+ *
+ * The image is mapped in a few chunks of up to 1GB rather than per contig, so that references with many contigs do
+ * not use up the mappings allowed per process. Every call to {@link #of(Path)} must be matched by a call to
+ * {@link #close}; the image stops being shared once all of them are closed.
+ *
+ * The bases are normalized as in {@link ReferenceFileSource} (upper-case, with IUPAC codes converted to N).
+ */
+public final class ReferenceImageSource implements ReferenceDataSource {
+    private static final Logger logger = LogManager.getLogger(ReferenceImageSource.class);
+
+    public static final String IMAGE_EXTENSION = ".refimage";
+
+    private static final int MAGIC = 0x52494d47; // "RIMG"
+    private static final int VERSION = 1;
+
+    // number of bases read from the fasta at a time while building an image, must be a multiple of 4
+    private static final int BUILD_CHUNK_SIZE = 1 << 20;
+
+    // log2 of the size of the chunks in which images are mapped
+    private static final int MAPPING_CHUNK_SHIFT = 30;
+
+    private static final byte[] BASES = {'A', 'C', 'G', 'T'};
+
+    // the sources opened through of() and not closed by all their callers yet, guarded by itself
+    private static final Map<Path, ReferenceImageSource> SHARED_SOURCES = new HashMap<>();
+
+    private final SAMSequenceDictionary sequenceDictionary;
+    private final Contig[] contigs;
+
+    // key in SHARED_SOURCES, image file to delete once the source is no longer shared (null if it is not temporary),
+    // and number of calls to of() that have not been matched by a close() yet
+    private Path sharedKey;
+    private Path temporaryImage;
+    private int numOpens = 0;
+
+    /**
+     * The packed bases of all contigs, mapped in chunks of 2^shift bytes. Only absolute reads are made from the
+     * mapped buffers, so they can be shared by all threads.
+     */
+    private static final class PackedBases {
+        private final ByteBuffer[] chunks;
+        private final int shift;
+        private final long mask;
+
+        private PackedBases(final ByteBuffer[] chunks, final int shift) {
+            this.chunks = chunks;
+            this.shift = shift;
+            this.mask = (1L << shift) - 1;
+        }
+
+        private byte get(final long offset) {
+            return chunks[(int) (offset >>> shift)].get((int) (offset & mask));
+        }
+    }
+
+    /**
+     * The exception runs of one contig, and where its packed bases start. A contig may span several mapped chunks.
+     */
+    private static final class Contig {
+        private final int length;
+        private final PackedBases packedBases;
+        private final long offset;
+        // exception runs, sorted and non-overlapping: 0-based start (inclusive), end (exclusive) and base
+        private final int[] exceptionStarts;
+        private final int[] exceptionEnds;
+        private final byte[] exceptionBases;
+
+        private Contig(final int length, final PackedBases packedBases, final long offset, final int[] exceptionStarts, final int[] exceptionEnds, final byte[] exceptionBases) {
+            this.length = length;
+            this.packedBases = packedBases;
+            this.offset = offset;
+            this.exceptionStarts = exceptionStarts;
+            this.exceptionEnds = exceptionEnds;
+            this.exceptionBases = exceptionBases;
+        }
+
+        private void getBases(final int start, final byte[] bases) {
+            final int end = start + bases.length;
+            for ( int pos = start; pos < end; pos++ ) {
+                bases[pos - start] = BASES[(packedBases.get(offset + (pos >>> 2)) >>> ((3 - (pos & 3)) << 1)) & 3];
+            }
+
+            // the first run that ends after the start of the query
+            final int found = Arrays.binarySearch(exceptionEnds, start);
+            for ( int i = found >= 0 ? found + 1 : -found - 1; i < exceptionStarts.length && exceptionStarts[i] < end; i++ ) {
+                Arrays.fill(bases, Math.max(exceptionStarts[i], start) - start, Math.min(exceptionEnds[i], end) - start, exceptionBases[i]);
+            }
+        }
+    }
+
+    /**
+     * Get the image source for a fasta, shared by all callers in this JVM until they have all closed it.
+     *
+     * The provided fasta file must have companion .fai and .dict files.
+     *
+     * @param fastaPath reference fasta Path
+     */
+    public static ReferenceImageSource of(final Path fastaPath) {
+        Utils.nonNull(fastaPath);
+        final Path key = fastaPath.toAbsolutePath().normalize();
+        synchronized ( SHARED_SOURCES ) {
+            final ReferenceImageSource source = SHARED_SOURCES.computeIfAbsent(key, ReferenceImageSource::open);
+            source.numOpens++;
+            return source;
+        }
+    }
+
+    private static ReferenceImageSource open(final Path fastaPath) {
+        final SAMSequenceDictionary dictionary;
+        try ( final ReferenceDataSource fasta = new ReferenceFileSource(fastaPath) ) {
+            dictionary = fasta.getSequenceDictionary();
+        }
+
+        final Path cachedImage = getImagePath(fastaPath);
+        if ( isUpToDate(cachedImage, fastaPath) ) {
+            logger.info("Using reference image " + cachedImage.toUri());
+            final ReferenceImageSource source = new ReferenceImageSource(cachedImage, dictionary, MAPPING_CHUNK_SHIFT);
+            source.sharedKey = fastaPath;
+            return source;
+        }
+
+        final Path image = IOUtils.createTempPath("reference", IMAGE_EXTENSION);
+        logger.info("Building reference image of " + fastaPath.toUri() + " (run ReferenceImageCreator to write " + cachedImage.toUri() + " and skip this step)");
+        writeImage(fastaPath, image);
+        final ReferenceImageSource source = new ReferenceImageSource(image, dictionary, MAPPING_CHUNK_SHIFT);
+        source.sharedKey = fastaPath;
+        source.temporaryImage = image;
+        return source;
+    }
+
+    /**
+     * @return the path at which {@link #of(Path)} looks for a prebuilt image of the given fasta
+     */
+    public static Path getImagePath(final Path fastaPath) {
+        return fastaPath.resolveSibling(fastaPath.getFileName().toString() + IMAGE_EXTENSION);
+    }
+
+    private static boolean isUpToDate(final Path image, final Path fastaPath) {
+        // images can only be mapped from the default file system
+        if ( image.getFileSystem() != FileSystems.getDefault() || ! Files.isReadable(image) ) {
+            return false;
+        }
+        try {
+            if ( Files.getLastModifiedTime(image).compareTo(Files.getLastModifiedTime(fastaPath)) >= 0 ) {
+                return true;
+            }
+            logger.warn("Ignoring reference image " + image.toUri() + " as it is older than " + fastaPath.toUri());
+            return false;
+        } catch ( final IOException e ) {
+            throw new UserException.CouldNotReadInputFile(image, e);
+        }
+    }
+
+    /**
+     * Write the image of a fasta.
+     *
+     * Images written to {@link #getImagePath} are used by all later runs, until the fasta is modified. The image is
+     * written to a temporary file next to imagePath and then renamed, so that other runs never see a partial image.
+     *
+     * @param fastaPath reference fasta Path, which must have companion .fai and .dict files
+     * @param imagePath path of the image to write
+     */
+    public static void writeImage(final Path fastaPath, final Path imagePath) {
+        Utils.nonNull(fastaPath);
+        Utils.nonNull(imagePath);
+        // not Files.createTempFile, which would make the image readable by its owner only
+        final Path partialImage = imagePath.resolveSibling(imagePath.getFileName().toString() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            writeImageContents(fastaPath, partialImage);
+            Files.move(partialImage, imagePath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch ( final IOException e ) {
+            throw new UserException.CouldNotCreateOutputFile(imagePath.toUri().toString(), "could not write the reference image", e);
+        } finally {
+            try {
+                Files.deleteIfExists(partialImage);
+            } catch ( final IOException e ) {
+                logger.warn("Could not delete the partial reference image " + partialImage.toUri(), e);
+            }
+        }
+    }
+
+    private static void writeImageContents(final Path fastaPath, final Path imagePath) throws IOException {
+        try ( final ReferenceDataSource fasta = new ReferenceFileSource(fastaPath);
+              final CountingOutputStream counter = new CountingOutputStream(new BufferedOutputStream(Files.newOutputStream(imagePath)));
+              final DataOutputStream out = new DataOutputStream(counter) ) {
+            final List<SAMSequenceRecord> sequences = fasta.getSequenceDictionary().getSequences();
+            final long[] offsets = new long[sequences.size()];
+            final List<List<int[]>> exceptions = new ArrayList<>(sequences.size());
+
+            // the packed bases of all contigs, then the header
+            for ( final SAMSequenceRecord sequence : sequences ) {
+                offsets[sequence.getSequenceIndex()] = counter.getCount();
+                exceptions.add(writePackedBases(fasta, sequence, out));
+            }
+
+            final long headerOffset = counter.getCount();
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(sequences.size());
+            for ( final SAMSequenceRecord sequence : sequences ) {
+                out.writeUTF(sequence.getSequenceName());
+                out.writeInt(sequence.getSequenceLength());
+                out.writeLong(offsets[sequence.getSequenceIndex()]);
+                final List<int[]> runs = exceptions.get(sequence.getSequenceIndex());
+                out.writeInt(runs.size());
+                for ( final int[] run : runs ) {
+                    out.writeInt(run[0]);
+                    out.writeInt(run[1]);
+                    out.writeByte(run[2]);
+                }
+            }
+            out.writeLong(headerOffset);
+        }
+    }
+
+    /**
+     * Write the packed bases of a contig, and return its exception runs as {start, end, base}.
+     */
+    private static List<int[]> writePackedBases(final ReferenceDataSource fasta, final SAMSequenceRecord sequence, final DataOutputStream out) throws IOException {
+        final int length = sequence.getSequenceLength();
+        final byte[] packed = new byte[BUILD_CHUNK_SIZE / 4];
+        final List<int[]> runs = new ArrayList<>();
+        int[] currentRun = null;
+
+        for ( int chunkStart = 0; chunkStart < length; chunkStart += BUILD_CHUNK_SIZE ) {
+            final int chunkEnd = Math.min(chunkStart + BUILD_CHUNK_SIZE, length);
+            final byte[] bases = fasta.queryAndPrefetch(sequence.getSequenceName(), chunkStart + 1, chunkEnd).getBases();
+            Arrays.fill(packed, (byte) 0);
+            for ( int i = 0; i < bases.length; i++ ) {
+                final int pos = chunkStart + i;
+                final int code = encode(bases[i]);
+                if ( code < 0 ) {
+                    if ( currentRun == null || currentRun[1] != pos || currentRun[2] != bases[i] ) {
+                        currentRun = new int[]{pos, pos, bases[i]};
+                        runs.add(currentRun);
+                    }
+                    currentRun[1] = pos + 1;
+                } else {
+                    packed[i >>> 2] |= code << ((3 - (i & 3)) << 1);
+                }
+            }
+            out.write(packed, 0, (bases.length + 3) / 4);
+        }
+        return runs;
+    }
+
+    private static int encode(final byte base) {
+        switch ( base ) {
+            case 'A': return 0;
+            case 'C': return 1;
+            case 'G': return 2;
+            case 'T': return 3;
+            default: return -1;
+        }
+    }
+
+    /**
+     * Map an image, which must match the given sequence dictionary, in chunks of 2^chunkShift bytes.
+     *
+     * The returned source is not shared, closing it does nothing.
+     */
+    @VisibleForTesting
+    ReferenceImageSource(final Path imagePath, final SAMSequenceDictionary sequenceDictionary, final int chunkShift) {
+        Utils.validateArg(chunkShift > 0 && chunkShift <= MAPPING_CHUNK_SHIFT, () -> "invalid mapping chunk shift " + chunkShift);
+        this.sequenceDictionary = sequenceDictionary;
+        this.contigs = new Contig[sequenceDictionary.size()];
+        try ( final FileChannel channel = FileChannel.open(imagePath, StandardOpenOption.READ) ) {
+            final ByteBuffer trailer = ByteBuffer.allocate(Long.BYTES);
+            channel.read(trailer, channel.size() - Long.BYTES);
+            trailer.flip();
+            final long headerOffset = trailer.getLong();
+            if ( headerOffset < 0 || headerOffset > channel.size() - Long.BYTES ) {
+                throw new UserException.CouldNotReadInputFile(imagePath, "not a reference image, or written by another version");
+            }
+
+            // the packed bases of all contigs come before the header; the mappings stay valid after the channel is closed
+            final long chunkSize = 1L << chunkShift;
+            final ByteBuffer[] chunks = new ByteBuffer[(int) ((headerOffset + chunkSize - 1) >>> chunkShift)];
+            for ( int i = 0; i < chunks.length; i++ ) {
+                final long chunkStart = i * chunkSize;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, chunkStart, Math.min(chunkSize, headerOffset - chunkStart));
+            }
+            final PackedBases packedBases = new PackedBases(chunks, chunkShift);
+            channel.position(headerOffset);
+
+            final DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            if ( in.readInt() != MAGIC || in.readInt() != VERSION ) {
+                throw new UserException.CouldNotReadInputFile(imagePath, "not a reference image, or written by another version");
+            }
+            final int numContigs = in.readInt();
+            if ( numContigs != contigs.length ) {
+                throw new UserException.CouldNotReadInputFile(imagePath, "the image does not match the sequence dictionary of the reference");
+            }
+            for ( int i = 0; i < numContigs; i++ ) {
+                final SAMSequenceRecord sequence = sequenceDictionary.getSequence(i);
+                final String name = in.readUTF();
+                final int length = in.readInt();
+                if ( ! name.equals(sequence.getSequenceName()) || length != sequence.getSequenceLength() ) {
+                    throw new UserException.CouldNotReadInputFile(imagePath, "the image does not match the sequence dictionary of the reference");
+                }
+                final long offset = in.readLong();
+                if ( offset < 0 || offset + (length + 3L) / 4 > headerOffset ) {
+                    throw new UserException.CouldNotReadInputFile(imagePath, "the image is truncated or corrupt");
+                }
+
+                final int numRuns = in.readInt();
+                final int[] starts = new int[numRuns];
+                final int[] ends = new int[numRuns];
+                final byte[] runBases = new byte[numRuns];
+                for ( int j = 0; j < numRuns; j++ ) {
+                    starts[j] = in.readInt();
+                    ends[j] = in.readInt();
+                    runBases[j] = in.readByte();
+                }
+                contigs[i] = new Contig(length, packedBases, offset, starts, ends, runBases);
+            }
+        } catch ( final IOException e ) {
+            throw new UserException.CouldNotReadInputFile(imagePath, e);
+        }
+    }
+
+    /**
+     * Start an iteration over the entire reference. Not yet supported!
+     *
+     * @return iterator over all bases in this reference
+     */
+    @Override
+    public Iterator<Byte> iterator() {
+        throw new UnsupportedOperationException("Iteration over entire reference not yet implemented");
+    }
+
+    /**
+     * Query a specific interval on this reference, and get back all bases spanning that interval at once.
+     * Call getBases() on the returned ReferenceSequence to get the actual reference bases. See the BaseUtils
+     * class for guidance on how to work with bases in this format.
+     *
+     * Safe to call from multiple threads at once.
+     *
+     * @param contig query interval contig
+     * @param start query interval start
+     * @param stop query interval stop (included)
+     * @return a ReferenceSequence containing all bases spanning the query interval, prefetched
+     */
+    @Override
+    public ReferenceSequence queryAndPrefetch( final String contig, final long start , final long stop) {
+        final int contigIndex = sequenceDictionary.getSequenceIndex(contig);
+        Utils.validateArg(contigIndex >= 0, () -> "Unknown contig " + contig);
+        final Contig image = contigs[contigIndex];
+        Utils.validateArg(start >= 1 && start <= image.length, () -> String.format("Query start %d is outside of contig %s", start, contig));
+        Utils.validateArg(stop >= start - 1, () -> String.format("Asking for stop<start (%d < %d)", stop, start));
+        if ( stop > image.length ) {
+            throw new SAMException("Query asks for data past end of contig. Query contig " + contig + " start:" + start + " stop:" + stop + " contigLength:" + image.length);
+        }
+
+        final byte[] bases = new byte[(int) (stop - start + 1)];
+        image.getBases((int) start - 1, bases);
+        return new ReferenceSequence(contig, contigIndex, bases);
+    }
+
+    /**
+     * Get the sequence dictionary for this reference
+     *
+     * @return SAMSequenceDictionary for this reference
+     */
+    @Override
+    public SAMSequenceDictionary getSequenceDictionary() {
+        return sequenceDictionary;
+    }
+
+    /**
+     * Release the source obtained from {@link #of(Path)}. Once all the callers have closed it, the next call to
+     * {@link #of(Path)} opens the image again, and the mapping is released when the source is no longer referenced.
+     */
+    @Override
+    public void close() {
+        synchronized ( SHARED_SOURCES ) {
+            if ( numOpens == 0 || --numOpens > 0 ) {
+                return;
+            }
+            SHARED_SOURCES.remove(sharedKey);
+        }
+        if ( temporaryImage != null ) {
+            // the mapping stays valid on systems that allow deleting a mapped file, the others delete it on exit
+            try {
+                Files.deleteIfExists(temporaryImage);
+            } catch ( final IOException e ) {
+                logger.debug("Could not delete the temporary reference image " + temporaryImage.toUri(), e);
+            }
+        }
+    }
+
+}
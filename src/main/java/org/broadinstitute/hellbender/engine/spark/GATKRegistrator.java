@@ -8,6 +8,7 @@ import de.javakaffee.kryoserializers.guava.ImmutableMapSerializer;
 import htsjdk.samtools.*;
 import org.apache.spark.serializer.KryoRegistrator;
 import org.bdgenomics.adam.serialization.ADAMKryoRegistrator;
+import org.broadinstitute.hellbender.tools.spark.transforms.markduplicates.DuplicateSetSummary;
 import org.broadinstitute.hellbender.tools.spark.transforms.markduplicates.MarkDuplicatesSparkUtils;
 import org.broadinstitute.hellbender.utils.read.SAMRecordToGATKReadAdapter;
 import org.broadinstitute.hellbender.utils.read.markduplicates.ReadsKey;
@@ -86,10 +87,11 @@ public class GATKRegistrator implements KryoRegistrator {
         kryo.register(SAMProgramRecord.class);
         kryo.register(SAMReadGroupRecord.class);
         kryo.register(EmptyFragment.class, new FieldSerializer(kryo, EmptyFragment.class));
-        kryo.register(Fragment.class, new FieldSerializer(kryo, Fragment.class));
+        kryo.register(Fragment.class, new Fragment.Serializer());
         kryo.register(Pair.class, new Pair.Serializer());
         kryo.register(Passthrough.class, new FieldSerializer(kryo, Passthrough.class));
         kryo.register(MarkDuplicatesSparkUtils.IndexPair.class, new FieldSerializer(kryo, MarkDuplicatesSparkUtils.IndexPair.class));
+        kryo.register(DuplicateSetSummary.class, new DuplicateSetSummary.Serializer());
         kryo.register(ReadsKey.class, new FieldSerializer(kryo, ReadsKey.class));
         kryo.register(ReadsKey.KeyForFragment.class, new FieldSerializer(kryo, ReadsKey.KeyForFragment.class));
         kryo.register(ReadsKey.KeyForPair.class, new FieldSerializer(kryo, ReadsKey.KeyForPair.class));
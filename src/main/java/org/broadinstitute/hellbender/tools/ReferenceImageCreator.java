@@ -0,0 +1,72 @@
+package org.broadinstitute.hellbender.tools;
+
+import org.broadinstitute.barclay.argparser.Argument;
+import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
+import org.broadinstitute.barclay.help.DocumentedFeature;
+import picard.cmdline.programgroups.ReferenceProgramGroup;
+import org.broadinstitute.hellbender.cmdline.CommandLineProgram;
+import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
+import org.broadinstitute.hellbender.engine.ReferenceImageSource;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
+
+import java.nio.file.Path;
+
+/**
+ * Create the memory-mapped image of a reference read by tools run with --use-reference-image
+ *
+ * <p>Without an up-to-date image next to the reference FASTA file, tools run with --use-reference-image build one
+ * in a temporary file at startup, which takes time proportional to the size of the reference on every run. This tool
+ * writes the image once, next to the FASTA file by default, where all later runs find it.</p>
+ *
+ * <h3>Input</h3>
+ *
+ * <ul>
+ *     <li>Reference FASTA file, with its .fai and .dict files</li>
+ * </ul>
+ *
+ * <h4>Output</h4>
+ *
+ * <ul>
+ *     <li>Image of the reference</li>
+ * </ul>
+ *
+ * <h3>Usage example</h3>
+ *
+ * <pre>
+ * gatk ReferenceImageCreator \
+ *     -I reference.fasta \
+ *     -O reference.fasta.refimage
+ * </pre>
+ *
+ */
+@DocumentedFeature
+@CommandLineProgramProperties(
+        summary = "Create the memory-mapped image of a reference read by tools run with --use-reference-image",
+        oneLineSummary = "Create the memory-mapped image of a reference read by tools run with --use-reference-image",
+        programGroup = ReferenceProgramGroup.class
+)
+public final class ReferenceImageCreator extends CommandLineProgram {
+
+    @Argument(fullName = StandardArgumentDefinitions.INPUT_LONG_NAME,
+            shortName = StandardArgumentDefinitions.INPUT_SHORT_NAME,
+            doc = "Input reference FASTA file location.")
+    private String referenceFastaLoc = null;
+
+    /**
+     * If not provided, the image is written next to the reference FASTA, with the extension ".refimage", which is
+     * the only place where tools look for it.
+     */
+    @Argument(fullName = StandardArgumentDefinitions.OUTPUT_LONG_NAME,
+            shortName = StandardArgumentDefinitions.OUTPUT_SHORT_NAME,
+            doc = "Output reference image file (ending in \"" + ReferenceImageSource.IMAGE_EXTENSION + "\").",
+            optional = true)
+    private String referenceImageOutputLoc = null;
+
+    @Override
+    protected final Object doWork() {
+        final Path fastaPath = IOUtils.getPath(referenceFastaLoc);
+        final Path imagePath = referenceImageOutputLoc == null ? ReferenceImageSource.getImagePath(fastaPath) : IOUtils.getPath(referenceImageOutputLoc);
+        ReferenceImageSource.writeImage(fastaPath, imagePath);
+        return null;
+    }
+}
@@ -29,6 +29,7 @@ import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
 import org.broadinstitute.hellbender.utils.recalibration.BaseRecalibrationEngine;
+import org.broadinstitute.hellbender.utils.recalibration.DenseRecalibrationTables;
 import org.broadinstitute.hellbender.utils.recalibration.RecalibrationArgumentCollection;
 import org.broadinstitute.hellbender.utils.recalibration.RecalibrationTables;
 import org.broadinstitute.hellbender.utils.recalibration.covariates.StandardCovariateList;
@@ -152,14 +153,16 @@ public class BaseRecalibratorSparkSharded extends SparkCommandLineProgram {
 
         // run BaseRecalibratorEngine.
         BaseRecalibratorEngineSparkWrapper recal = new BaseRecalibratorEngineSparkWrapper(readsHeaderBcast, refDictionaryBcast, bqsrArgs);
-        JavaRDD<RecalibrationTables> tables = readsWithContext.mapPartitions(s->recal.apply(s));
+        JavaRDD<DenseRecalibrationTables> counts = readsWithContext.mapPartitions(s->recal.apply(s));
 
-        final RecalibrationTables emptyRecalibrationTable = new RecalibrationTables(new StandardCovariateList(bqsrArgs, readsHeader));
-        final RecalibrationTables table = tables.treeAggregate(emptyRecalibrationTable,
-                RecalibrationTables::inPlaceCombine,
-                RecalibrationTables::inPlaceCombine,
-                Math.max(1, (int)(Math.log(tables.partitions().size()) / Math.log(2))));
+        final StandardCovariateList covariates = new StandardCovariateList(bqsrArgs, readsHeader);
+        final DenseRecalibrationTables emptyRecalibrationCounts = new DenseRecalibrationTables(covariates);
+        final DenseRecalibrationTables combinedCounts = counts.treeAggregate(emptyRecalibrationCounts,
+                DenseRecalibrationTables::inPlaceCombine,
+                DenseRecalibrationTables::inPlaceCombine,
+                Math.max(1, (int)(Math.log(counts.partitions().size()) / Math.log(2))));
 
+        final RecalibrationTables table = combinedCounts.toRecalibrationTables(covariates);
         BaseRecalibrationEngine.finalizeRecalibrationTables(table);
 
         try {
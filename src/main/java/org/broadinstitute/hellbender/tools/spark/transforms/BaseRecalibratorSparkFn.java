@@ -20,7 +20,7 @@ import java.util.Arrays;
 public final class BaseRecalibratorSparkFn {
 
     public static RecalibrationReport apply( final JavaPairRDD<GATKRead, ReadContextData> readsWithContext, final SAMFileHeader header, final SAMSequenceDictionary referenceDictionary, final RecalibrationArgumentCollection recalArgs ) {
-        JavaRDD<RecalibrationTables> unmergedTables = readsWithContext.mapPartitions(readWithContextIterator -> {
+        JavaRDD<DenseRecalibrationTables> unmergedTables = readsWithContext.mapPartitions(readWithContextIterator -> {
             final BaseRecalibrationEngine bqsr = new BaseRecalibrationEngine(recalArgs, header);
             bqsr.logCovariatesUsed();
 
@@ -32,20 +32,21 @@ public final class BaseRecalibratorSparkFn {
 
                 bqsr.processRead(readWithData._1(), refDS, variants);
             }
-            return Arrays.asList(bqsr.getRecalibrationTables()).iterator();
+            return Arrays.asList(bqsr.getRecalibrationCounts()).iterator();
         });
 
-        final RecalibrationTables emptyRecalibrationTable = new RecalibrationTables(new StandardCovariateList(recalArgs, header));
-        final RecalibrationTables combinedTables = unmergedTables.treeAggregate(emptyRecalibrationTable,
-                RecalibrationTables::inPlaceCombine,
-                RecalibrationTables::inPlaceCombine,
+        final StandardCovariateList covariates = new StandardCovariateList(recalArgs, header);
+        final DenseRecalibrationTables emptyRecalibrationCounts = new DenseRecalibrationTables(covariates);
+        final DenseRecalibrationTables combinedCounts = unmergedTables.treeAggregate(emptyRecalibrationCounts,
+                DenseRecalibrationTables::inPlaceCombine,
+                DenseRecalibrationTables::inPlaceCombine,
                 Math.max(1, (int)(Math.log(unmergedTables.partitions().size()) / Math.log(2))));
 
+        final RecalibrationTables combinedTables = combinedCounts.toRecalibrationTables(covariates);
         BaseRecalibrationEngine.finalizeRecalibrationTables(combinedTables);
 
         final QuantizationInfo quantizationInfo = new QuantizationInfo(combinedTables, recalArgs.QUANTIZING_LEVELS);
 
-        final StandardCovariateList covariates = new StandardCovariateList(recalArgs, header);
         return RecalUtils.createRecalibrationReport(recalArgs.generateReportTable(covariates.covariateNames()), quantizationInfo.generateReportTable(), RecalUtils.generateReportTables(combinedTables, covariates));
     }
 }
@@ -21,7 +21,7 @@ import java.util.Iterator;
 
 /**
  * A lightweight wrapper over BaseRecalibrationEngine to make it easier to use from Spark.
- * Takes in reads + contextual data (overlapping reference bases and variants), spits out RecalibrationTables.
+ * Takes in reads + contextual data (overlapping reference bases and variants), spits out DenseRecalibrationTables.
  */
 public final class BaseRecalibratorEngineSparkWrapper implements Serializable {
     private static final long serialVersionUID = 1L;
@@ -67,7 +67,7 @@ public final class BaseRecalibratorEngineSparkWrapper implements Serializable {
         }
     }
 
-    public Iterator<RecalibrationTables> apply(Iterator<ContextShard> shards) throws Exception {
+    public Iterator<DenseRecalibrationTables> apply(Iterator<ContextShard> shards) throws Exception {
         this.header = headerBcast.value();
         this.referenceSequenceDictionary = referenceSequenceDictionaryBcast.value();
         recalibrationEngine = new BaseRecalibrationEngine(recalArgs, header);
@@ -85,8 +85,8 @@ public final class BaseRecalibratorEngineSparkWrapper implements Serializable {
                 recalibrationEngine.processRead(read, refDS, variants);
             }
         }
-        ArrayList<RecalibrationTables> ret = new ArrayList<>();
-        ret.add(recalibrationEngine.getRecalibrationTables());
+        ArrayList<DenseRecalibrationTables> ret = new ArrayList<>();
+        ret.add(recalibrationEngine.getRecalibrationCounts());
         return ret.iterator();
     }
 
@@ -0,0 +1,410 @@
+package org.broadinstitute.hellbender.tools.spark.transforms.markduplicates;
+
+import com.esotericsoftware.kryo.DefaultSerializer;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.read.markduplicates.ReadEnds;
+import org.broadinstitute.hellbender.utils.read.markduplicates.sparkrecords.Fragment;
+import org.broadinstitute.hellbender.utils.read.markduplicates.sparkrecords.MarkDuplicatesSparkRecord;
+import org.broadinstitute.hellbender.utils.read.markduplicates.sparkrecords.Pair;
+import org.broadinstitute.hellbender.utils.read.markduplicates.sparkrecords.TransientFieldPhysicalLocation;
+import picard.sam.markduplicates.util.OpticalDuplicateFinder;
+import picard.sam.util.PhysicalLocation;
+import scala.Tuple2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Everything MarkDuplicatesSpark needs to know about the {@link MarkDuplicatesSparkRecord}s sharing a
+ * {@link org.broadinstitute.hellbender.utils.read.markduplicates.ReadsKey}, accumulated one record at a time.
+ *
+ * Only the non-duplicate of a duplicate set is reported (every other read of the set is marked as a duplicate by
+ * omission), so rather than grouping all the records of a key this keeps the best scoring fragment and pair, whether
+ * a mapped read with a mapped mate starts there, the passthrough reads, and the physical location and orientation of
+ * every pair in primitive arrays for the optical duplicate count. This lets the duplicate sets be built with
+ * combineByKey, which merges records before the shuffle and never holds a whole set of records in memory.
+ *
+ * The physical locations of records are transient and parsing them from the read names is costly, so they are only
+ * parsed when they are needed: when two fragments or two pairs are compared, and for the optical duplicate count once
+ * a set has more than one pair. A set with a single record, the most common case, is never parsed. The records are
+ * not otherwise modified.
+ *
+ * Summaries are what MarkDuplicatesSpark shuffles, so they have a compact {@link Serializer} that writes the records
+ * without class information and only the used part of the location arrays, as variable length integers.
+ */
+@DefaultSerializer(DuplicateSetSummary.Serializer.class)
+public final class DuplicateSetSummary {
+    // This comparator represents the tiebreaking for PairedEnds duplicate marking.
+    // We compare first on score, followed by unclipped start position (which is reversed here because of the expected ordering)
+    private static final Comparator<TransientFieldPhysicalLocation> PAIRED_ENDS_SCORE_COMPARATOR = Comparator.comparing(TransientFieldPhysicalLocation::getScore)
+            .thenComparing(MarkDuplicatesSparkUtils.TransientFieldPhysicalLocationComparator.INSTANCE.reversed());
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    // a fragment overlapping a read with a mapped mate is always a duplicate
+    private boolean hasEmptyFragment = false;
+    private Fragment bestFragment;
+
+    private Pair bestPair;
+    private int bestPairIndex = -1;
+    private int numPairs = 0;
+    // the location arrays below are only filled once there is more than one pair, a single pair is just bestPair
+    private short[] pairReadGroups = new short[0];
+    private short[] pairTiles = new short[0];
+    private int[] pairXs = new int[0];
+    private int[] pairYs = new int[0];
+    private byte[] pairOrientations = new byte[0];
+
+    private final List<MarkDuplicatesSparkUtils.IndexPair<String>> passthroughs = new ArrayList<>(0);
+
+    // whether the physical locations of the best records have been parsed, which is lost with serialization
+    private boolean bestFragmentLocated = false;
+    private boolean bestPairLocated = false;
+
+    DuplicateSetSummary() { }
+
+    /**
+     * Add a newly created record, whose physical location has not been lost to serialization yet.
+     *
+     * @return this summary
+     */
+    DuplicateSetSummary add(final MarkDuplicatesSparkRecord record, final OpticalDuplicateFinder finder) {
+        Utils.nonNull(record);
+        switch (record.getType()) {
+            case EMPTY_FRAGMENT:
+                hasEmptyFragment = true;
+                bestFragment = null;
+                break;
+            case FRAGMENT:
+                if (!hasEmptyFragment) {
+                    final Fragment fragment = (Fragment) record;
+                    if (bestFragment == null) {
+                        bestFragment = fragment;
+                        bestFragmentLocated = false;
+                    } else {
+                        locateBestFragment(finder);
+                        finder.addLocationInformation(fragment.getName(), fragment);
+                        if (PAIRED_ENDS_SCORE_COMPARATOR.compare(fragment, bestFragment) > 0) {
+                            bestFragment = fragment;
+                        }
+                    }
+                }
+                break;
+            case PAIR:
+                final Pair pair = (Pair) record;
+                if (numPairs == 0) {
+                    bestPair = pair;
+                    bestPairIndex = 0;
+                    bestPairLocated = false;
+                    numPairs = 1;
+                } else {
+                    addSinglePairLocation(finder);
+                    locateBestPair(finder);
+                    finder.addLocationInformation(pair.getName(), pair);
+                    addPairLocation(pair);
+                    if (PAIRED_ENDS_SCORE_COMPARATOR.compare(pair, bestPair) > 0) {
+                        bestPair = pair;
+                        bestPairIndex = numPairs - 1;
+                    }
+                }
+                break;
+            case PASSTHROUGH:
+                passthroughs.add(new MarkDuplicatesSparkUtils.IndexPair<>(record.getName(), record.getPartitionIndex()));
+                break;
+            default:
+                throw new GATKException.ShouldNeverReachHereException("Unknown record type " + record.getType());
+        }
+        return this;
+    }
+
+    /**
+     * Add all the records of other, which may have been serialized, to this summary.
+     *
+     * @return this summary
+     */
+    DuplicateSetSummary merge(final DuplicateSetSummary other, final OpticalDuplicateFinder finder) {
+        Utils.nonNull(other);
+        if (other.hasEmptyFragment) {
+            hasEmptyFragment = true;
+            bestFragment = null;
+        } else if (!hasEmptyFragment && other.bestFragment != null) {
+            if (bestFragment == null) {
+                bestFragment = other.bestFragment;
+                bestFragmentLocated = other.bestFragmentLocated;
+            } else {
+                locateBestFragment(finder);
+                other.locateBestFragment(finder);
+                if (PAIRED_ENDS_SCORE_COMPARATOR.compare(other.bestFragment, bestFragment) > 0) {
+                    bestFragment = other.bestFragment;
+                }
+            }
+        }
+
+        if (numPairs == 0 && other.numPairs == 1) {
+            bestPair = other.bestPair;
+            bestPairIndex = 0;
+            bestPairLocated = other.bestPairLocated;
+            numPairs = 1;
+        } else if (other.numPairs > 0) {
+            addSinglePairLocation(finder);
+            other.addSinglePairLocation(finder);
+            if (bestPair == null) {
+                bestPair = other.bestPair;
+                bestPairIndex = other.bestPairIndex;
+                bestPairLocated = other.bestPairLocated;
+            } else {
+                locateBestPair(finder);
+                other.locateBestPair(finder);
+                if (PAIRED_ENDS_SCORE_COMPARATOR.compare(other.bestPair, bestPair) > 0) {
+                    bestPair = other.bestPair;
+                    bestPairIndex = numPairs + other.bestPairIndex;
+                }
+            }
+            ensurePairCapacity(numPairs + other.numPairs);
+            System.arraycopy(other.pairReadGroups, 0, pairReadGroups, numPairs, other.numPairs);
+            System.arraycopy(other.pairTiles, 0, pairTiles, numPairs, other.numPairs);
+            System.arraycopy(other.pairXs, 0, pairXs, numPairs, other.numPairs);
+            System.arraycopy(other.pairYs, 0, pairYs, numPairs, other.numPairs);
+            System.arraycopy(other.pairOrientations, 0, pairOrientations, numPairs, other.numPairs);
+            numPairs += other.numPairs;
+        }
+
+        passthroughs.addAll(other.passthroughs);
+        return this;
+    }
+
+    private void locateBestFragment(final OpticalDuplicateFinder finder) {
+        if (!bestFragmentLocated) {
+            finder.addLocationInformation(bestFragment.getName(), bestFragment);
+            bestFragmentLocated = true;
+        }
+    }
+
+    private void locateBestPair(final OpticalDuplicateFinder finder) {
+        if (!bestPairLocated) {
+            finder.addLocationInformation(bestPair.getName(), bestPair);
+            bestPairLocated = true;
+        }
+    }
+
+    /**
+     * Fill in the location arrays for a set with a single pair, before a second pair is added to it
+     */
+    private void addSinglePairLocation(final OpticalDuplicateFinder finder) {
+        if (numPairs == 1) {
+            locateBestPair(finder);
+            numPairs = 0;
+            addPairLocation(bestPair);
+        }
+    }
+
+    private void addPairLocation(final Pair pair) {
+        ensurePairCapacity(numPairs + 1);
+        pairReadGroups[numPairs] = pair.getReadGroup();
+        pairTiles[numPairs] = pair.getTile();
+        pairXs[numPairs] = pair.getX();
+        pairYs[numPairs] = pair.getY();
+        pairOrientations[numPairs] = pair.getOrientationForOpticalDuplicates();
+        numPairs++;
+    }
+
+    private void ensurePairCapacity(final int capacity) {
+        if (pairTiles.length < capacity) {
+            final int newCapacity = Math.max(capacity, Math.max(INITIAL_CAPACITY, 2 * pairTiles.length));
+            pairReadGroups = Arrays.copyOf(pairReadGroups, newCapacity);
+            pairTiles = Arrays.copyOf(pairTiles, newCapacity);
+            pairXs = Arrays.copyOf(pairXs, newCapacity);
+            pairYs = Arrays.copyOf(pairYs, newCapacity);
+            pairOrientations = Arrays.copyOf(pairOrientations, newCapacity);
+        }
+    }
+
+    /**
+     * @return the name and partition of every non-duplicate of this set, along with the number of optical duplicates
+     *         of the best pair or -1 for reads that are not pairs
+     */
+    List<Tuple2<MarkDuplicatesSparkUtils.IndexPair<String>, Integer>> getNonDuplicates(final OpticalDuplicateFinder finder) {
+        final List<Tuple2<MarkDuplicatesSparkUtils.IndexPair<String>, Integer>> nonDuplicates = new ArrayList<>(passthroughs.size() + 2);
+
+        // If there are any non-fragment placeholders at this site, everything is a duplicate, otherwise keep the best score
+        if (bestFragment != null && !hasEmptyFragment) {
+            nonDuplicates.add(new Tuple2<>(new MarkDuplicatesSparkUtils.IndexPair<>(bestFragment.getName(), bestFragment.getPartitionIndex()), -1));
+        }
+
+        if (numPairs > 0) {
+            // save ourselves the trouble when there are no optical duplicates to worry about
+            final int numOpticalDuplicates = numPairs == 1 ? 0 : countOpticalDuplicates(finder);
+            nonDuplicates.add(new Tuple2<>(new MarkDuplicatesSparkUtils.IndexPair<>(bestPair.getName(), bestPair.getPartitionIndex()), numOpticalDuplicates));
+        }
+
+        // Emit the passthrough reads as non-duplicates.
+        passthroughs.forEach(passthrough -> nonDuplicates.add(new Tuple2<>(passthrough, -1)));
+        return nonDuplicates;
+    }
+
+    private int countOpticalDuplicates(final OpticalDuplicateFinder finder) {
+        final List<PhysicalLocation> locations = new ArrayList<>(numPairs);
+        boolean hasFR = false;
+        boolean hasRF = false;
+        for (int i = 0; i < numPairs; i++) {
+            locations.add(new PairLocation(pairReadGroups[i], pairTiles[i], pairXs[i], pairYs[i]));
+            hasFR |= pairOrientations[i] == ReadEnds.FR;
+            hasRF |= pairOrientations[i] == ReadEnds.RF;
+        }
+        final PhysicalLocation best = locations.get(bestPairIndex);
+
+        // Split by orientation and count duplicates in each group separately.
+        //todo do we not have to split the reporting of these by orientation?
+        if (hasFR && hasRF) {
+            return countOpticalDuplicates(finder, withOrientation(locations, ReadEnds.FR), best)
+                    + countOpticalDuplicates(finder, withOrientation(locations, ReadEnds.RF), best);
+        } else {
+            return countOpticalDuplicates(finder, locations, best);
+        }
+    }
+
+    private List<PhysicalLocation> withOrientation(final List<PhysicalLocation> locations, final byte orientation) {
+        final List<PhysicalLocation> result = new ArrayList<>();
+        for (int i = 0; i < numPairs; i++) {
+            if (pairOrientations[i] == orientation) {
+                result.add(locations.get(i));
+            }
+        }
+        return result;
+    }
+
+    private static int countOpticalDuplicates(final OpticalDuplicateFinder finder, final List<PhysicalLocation> locations, final PhysicalLocation best) {
+        final boolean[] opticalDuplicateFlags = finder.findOpticalDuplicates(locations, best);
+        int numOpticalDuplicates = 0;
+        for (final boolean b : opticalDuplicateFlags) {
+            if (b) {
+                numOpticalDuplicates++;
+            }
+        }
+        return numOpticalDuplicates;
+    }
+
+    /**
+     * Serializer which writes only the fields of the summary and its records that duplicate marking needs
+     */
+    public static final class Serializer extends com.esotericsoftware.kryo.Serializer<DuplicateSetSummary> {
+        @Override
+        public void write(final Kryo kryo, final Output output, final DuplicateSetSummary summary) {
+            output.writeBoolean(summary.hasEmptyFragment);
+            output.writeBoolean(summary.bestFragment != null);
+            if (summary.bestFragment != null) {
+                kryo.writeObject(output, summary.bestFragment);
+            }
+
+            output.writeInt(summary.numPairs, true);
+            if (summary.numPairs > 0) {
+                kryo.writeObject(output, summary.bestPair);
+            }
+            if (summary.numPairs > 1) {
+                output.writeInt(summary.bestPairIndex, true);
+                for (int i = 0; i < summary.numPairs; i++) {
+                    output.writeShort(summary.pairReadGroups[i]);
+                    output.writeShort(summary.pairTiles[i]);
+                    // unparsable read names leave a location of -1
+                    output.writeInt(summary.pairXs[i], false);
+                    output.writeInt(summary.pairYs[i], false);
+                    output.writeByte(summary.pairOrientations[i]);
+                }
+            }
+
+            output.writeInt(summary.passthroughs.size(), true);
+            for (final MarkDuplicatesSparkUtils.IndexPair<String> passthrough : summary.passthroughs) {
+                output.writeString(passthrough.getValue());
+                output.writeInt(passthrough.getIndex(), true);
+            }
+        }
+
+        @Override
+        public DuplicateSetSummary read(final Kryo kryo, final Input input, final Class<DuplicateSetSummary> klass) {
+            final DuplicateSetSummary summary = new DuplicateSetSummary();
+            summary.hasEmptyFragment = input.readBoolean();
+            if (input.readBoolean()) {
+                summary.bestFragment = kryo.readObject(input, Fragment.class);
+            }
+
+            final int numPairs = input.readInt(true);
+            if (numPairs > 0) {
+                summary.bestPair = kryo.readObject(input, Pair.class);
+                summary.bestPairIndex = 0;
+            }
+            if (numPairs > 1) {
+                summary.bestPairIndex = input.readInt(true);
+                summary.ensurePairCapacity(numPairs);
+                for (int i = 0; i < numPairs; i++) {
+                    summary.pairReadGroups[i] = input.readShort();
+                    summary.pairTiles[i] = input.readShort();
+                    summary.pairXs[i] = input.readInt(false);
+                    summary.pairYs[i] = input.readInt(false);
+                    summary.pairOrientations[i] = input.readByte();
+                }
+            }
+            summary.numPairs = numPairs;
+
+            final int numPassthroughs = input.readInt(true);
+            for (int i = 0; i < numPassthroughs; i++) {
+                final String name = input.readString();
+                summary.passthroughs.add(new MarkDuplicatesSparkUtils.IndexPair<>(name, input.readInt(true)));
+            }
+            return summary;
+        }
+    }
+
+    /**
+     * The physical location of a pair, rebuilt from the primitive arrays only when optical duplicates are counted.
+     */
+    private static final class PairLocation implements PhysicalLocation {
+        private short readGroup;
+        private short tile;
+        private int x;
+        private int y;
+        private short libraryId = -1;
+
+        PairLocation(final short readGroup, final short tile, final int x, final int y) {
+            this.readGroup = readGroup;
+            this.tile = tile;
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public short getReadGroup() { return readGroup; }
+
+        @Override
+        public void setReadGroup(final short readGroup) { this.readGroup = readGroup; }
+
+        @Override
+        public short getTile() { return tile; }
+
+        @Override
+        public void setTile(final short tile) { this.tile = tile; }
+
+        @Override
+        public int getX() { return x; }
+
+        @Override
+        public void setX(final int x) { this.x = x; }
+
+        @Override
+        public int getY() { return y; }
+
+        @Override
+        public void setY(final int y) { this.y = y; }
+
+        @Override
+        public short getLibraryId() { return libraryId; }
+
+        @Override
+        public void setLibraryId(final short libraryId) { this.libraryId = libraryId; }
+    }
+}
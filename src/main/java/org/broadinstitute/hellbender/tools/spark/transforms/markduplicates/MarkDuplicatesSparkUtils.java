@@ -36,10 +36,6 @@ public class MarkDuplicatesSparkUtils {
 
     // Used to set an attribute on the GATKRead marking this read as an optical duplicate.
     public static final String OPTICAL_DUPLICATE_TOTAL_ATTRIBUTE_NAME = "OD";
-    // This comparator represents the tiebreaking for PairedEnds duplicate marking.
-    // We compare first on score, followed by unclipped start position (which is reversed here because of the expected ordering)
-    private static final Comparator<TransientFieldPhysicalLocation> PAIRED_ENDS_SCORE_COMPARATOR = Comparator.comparing(TransientFieldPhysicalLocation::getScore)
-            .thenComparing(TransientFieldPhysicalLocationComparator.INSTANCE.reversed());
 
     /**
      * Wrapper object used for storing an object and some type of index information.
@@ -83,11 +79,11 @@ public class MarkDuplicatesSparkUtils {
      *   (c) Label each read with alignment information: Library, reference index,
      *       stranded unclipped start and reverse strand.
      *   (d) Unmapped Pairs, Templates of entirely non-primary reads, etc are passed through as unmarked reads
-     * (4) GroupByKey: Group MarkDuplicatesSparkRecord that share alignment information. These pairs
-     *     are duplicates of each other.
-     * (5) markDuplicatePairs:
-     *   (a) For each group created by (4), sort the pairs by score and mark all but the
-     *       highest scoring as duplicates.
+     * (4) CombineByKey: Summarize the MarkDuplicatesSparkRecord that share alignment information, which are
+     *     duplicates of each other, into a {@link DuplicateSetSummary}. The summaries are combined before the shuffle
+     *     and only keep the highest scoring fragment and pair, so the records of a set are never all held in memory.
+     * (5) For each summary created by (4):
+     *   (a) Emit the highest scoring pair or fragment, all the others are marked as duplicates.
      *   (b) Determine which duplicates are optical duplicates and increase the overall count.
      */
     static JavaPairRDD<IndexPair<String>, Integer> transformToDuplicateNames(final SAMFileHeader header, final MarkDuplicatesScoringStrategy scoringStrategy, final OpticalDuplicateFinder finder, final JavaRDD<GATKRead>  reads, final int numReducers) {
@@ -168,9 +164,12 @@ public class MarkDuplicatesSparkUtils {
             return out.iterator();
         });
 
-        final JavaPairRDD<ReadsKey, Iterable<MarkDuplicatesSparkRecord>> keyedPairs = pairedEnds.groupByKey(); //TODO evaluate replacing this with a smart aggregate by key.
+        final JavaPairRDD<ReadsKey, DuplicateSetSummary> duplicateSets = pairedEnds.combineByKey(
+                record -> new DuplicateSetSummary().add(record, finder),
+                (summary, record) -> summary.add(record, finder),
+                (summary, other) -> summary.merge(other, finder));
 
-        return markDuplicateRecords(keyedPairs, finder);
+        return duplicateSets.flatMapToPair(duplicateSet -> duplicateSet._2().getNonDuplicates(finder).iterator());
     }
 
     /**
@@ -296,123 +295,6 @@ public class MarkDuplicatesSparkUtils {
         };
     }
 
-    /**
-     * Primary landing point for MarkDuplicateSparkRecords:
-     *  - Handles separating out hashed keys into into groups by start position/readgroup
-     *  - Further separates out MarkDuplicatesSparkRecord by their record objects
-     *  - Farms out to methods which handles each group
-     *  - Collects the results and returns an iterator
-     */
-    @SuppressWarnings("unchecked")
-    private static JavaPairRDD<IndexPair<String>, Integer> markDuplicateRecords(final JavaPairRDD<ReadsKey, Iterable<MarkDuplicatesSparkRecord>> keyedPairs,
-                                                                                final OpticalDuplicateFinder finder) {
-        return keyedPairs.flatMapToPair(keyedPair -> {
-            Iterable<MarkDuplicatesSparkRecord> pairGroups = keyedPair._2();
-
-            final List<Tuple2<IndexPair<String>, Integer>> nonDuplicates = Lists.newArrayList();
-            final Map<MarkDuplicatesSparkRecord.Type, List<MarkDuplicatesSparkRecord>> stratifiedByType = splitByType(pairGroups);
-
-            // Each key corresponds to either fragments or paired ends, not a mixture of both.
-            final List<MarkDuplicatesSparkRecord> emptyFragments = stratifiedByType.get(MarkDuplicatesSparkRecord.Type.EMPTY_FRAGMENT);
-            final List<MarkDuplicatesSparkRecord> fragments = stratifiedByType.get(MarkDuplicatesSparkRecord.Type.FRAGMENT);
-            final List<Pair> pairs = (List<Pair>)(List)stratifiedByType.get(MarkDuplicatesSparkRecord.Type.PAIR);
-            final List<MarkDuplicatesSparkRecord> passthroughs = stratifiedByType.get(MarkDuplicatesSparkRecord.Type.PASSTHROUGH);
-
-            //empty MarkDuplicatesSparkRecord signify that a pair has a mate somewhere else
-            // If there are any non-fragment placeholders at this site, mark everything as duplicates, otherwise compute the best score
-            if (Utils.isNonEmpty(fragments) && !Utils.isNonEmpty(emptyFragments)) {
-                final Tuple2<IndexPair<String>, Integer> bestFragment = handleFragments(fragments, finder);
-                nonDuplicates.add(bestFragment);
-            }
-
-            if (Utils.isNonEmpty(pairs)) {
-                nonDuplicates.add(handlePairs(pairs, finder));
-            }
-
-            if (Utils.isNonEmpty(passthroughs)) {
-                nonDuplicates.addAll(handlePassthroughs(passthroughs));
-            }
-
-            return nonDuplicates.iterator();
-        });
-    }
-
-    /**
-     * split MarkDuplicatesSparkRecord into groups by their type
-     */
-    private static Map<MarkDuplicatesSparkRecord.Type, List<MarkDuplicatesSparkRecord>> splitByType(Iterable<MarkDuplicatesSparkRecord> duplicateGroup) {
-        final EnumMap<MarkDuplicatesSparkRecord.Type, List<MarkDuplicatesSparkRecord>> byType = new EnumMap<>(MarkDuplicatesSparkRecord.Type.class);
-        for(MarkDuplicatesSparkRecord pair: duplicateGroup) {
-            byType.compute(pair.getType(), (key, value) -> {
-                if (value == null) {
-                    final ArrayList<MarkDuplicatesSparkRecord> pairedEnds = new ArrayList<>();
-                    pairedEnds.add(pair);
-                    return pairedEnds;
-                } else {
-                    value.add(pair);
-                    return value;
-                }
-            });
-        }
-        return byType;
-    }
-
-    private static List<Tuple2<IndexPair<String>,Integer>> handlePassthroughs(List<MarkDuplicatesSparkRecord> passthroughs) {
-        // Emit the passthrough reads as non-duplicates.
-        return passthroughs.stream()
-                .map(pair -> new Tuple2<>(new IndexPair<>(pair.getName(), pair.getPartitionIndex()), -1))
-                .collect(Collectors.toList());
-    }
-
-    private static Tuple2<IndexPair<String>, Integer> handlePairs(List<Pair> pairs, OpticalDuplicateFinder finder) {
-        // save ourselves the trouble when there are no optical duplicates to worry about
-        if (pairs.size() == 1) {
-            return (new Tuple2<>(new IndexPair<>(pairs.get(0).getName(), pairs.get(0).getPartitionIndex()), 0));
-        }
-
-        final Pair bestPair = pairs.stream()
-                .peek(pair -> finder.addLocationInformation(pair.getName(), pair))
-                .max(PAIRED_ENDS_SCORE_COMPARATOR)
-                .orElseThrow(() -> new GATKException.ShouldNeverReachHereException("There was no best pair because the stream was empty, but it shouldn't have been empty."));
-
-        // Split by orientation and count duplicates in each group separately.
-        final Map<Byte, List<Pair>> groupByOrientation = pairs.stream()
-                .collect(Collectors.groupingBy(Pair::getOrientationForOpticalDuplicates));
-        final int numOpticalDuplicates;
-        //todo do we not have to split the reporting of these by orientation?
-        if (groupByOrientation.containsKey(ReadEnds.FR) && groupByOrientation.containsKey(ReadEnds.RF)) {
-            final List<Pair> peFR = new ArrayList<>(groupByOrientation.get(ReadEnds.FR));
-            final List<Pair> peRF = new ArrayList<>(groupByOrientation.get(ReadEnds.RF));
-            numOpticalDuplicates = countOpticalDuplicates(finder, peFR, bestPair) + countOpticalDuplicates(finder, peRF, bestPair);
-        } else {
-            numOpticalDuplicates = countOpticalDuplicates(finder, pairs, bestPair);
-        }
-        return (new Tuple2<>(new IndexPair<>(bestPair.getName(), bestPair.getPartitionIndex()), numOpticalDuplicates));
-    }
-
-    private static int countOpticalDuplicates(OpticalDuplicateFinder finder, List<Pair> scored, Pair best) {
-        final boolean[] opticalDuplicateFlags = finder.findOpticalDuplicates(scored, best);
-        int numOpticalDuplicates = 0;
-        for (final boolean b : opticalDuplicateFlags) {
-            if (b) {
-                numOpticalDuplicates++;
-            }
-        }
-        return numOpticalDuplicates;
-    }
-
-    /**
-     * If there are fragments with no non-fragments overlapping at a site, select the best one according to PAIRED_ENDS_SCORE_COMPARATOR
-     */
-    private static Tuple2<IndexPair<String>, Integer> handleFragments(List<MarkDuplicatesSparkRecord> duplicateFragmentGroup, OpticalDuplicateFinder finder) {
-        return duplicateFragmentGroup.stream()
-                .map(f -> (Fragment)f)
-                .peek(f -> finder.addLocationInformation(f.getName(), f))
-                .max(PAIRED_ENDS_SCORE_COMPARATOR)
-                .map(best -> new Tuple2<>(new IndexPair<>(best.getName(), best.getPartitionIndex()), -1))
-                .orElse(null);
-    }
-
     static JavaPairRDD<String, GATKDuplicationMetrics> generateMetrics(final SAMFileHeader header, final JavaRDD<GATKRead> reads) {
         return reads.mapToPair(read -> {
                     final String library = LibraryIdGenerator.getLibraryName(header, read.getReadGroup());
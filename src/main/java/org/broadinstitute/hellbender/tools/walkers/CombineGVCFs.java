@@ -113,8 +113,13 @@ public final class CombineGVCFs extends MultiVariantWalkerGroupedOnStart {
     protected DbsnpArgumentCollection dbsnp = new DbsnpArgumentCollection();
 
     // State that gets accumulated between calls of apply()
-    private final LinkedList<VariantContext> variantContextsOverlappingCurrentMerge = new LinkedList<>();
+    private final List<VariantContext> variantContextsOverlappingCurrentMerge = new ArrayList<>();
     private final Set<String> samples = new HashSet<>();
+    // the number of contexts in variantContextsOverlappingCurrentMerge with each sample
+    private final Map<String, Integer> sampleCounts = new HashMap<>();
+    // samples removed from the set above that are still in some of the contexts being merged, to be restored along
+    // with the samples of the next new contexts
+    private final Set<String> samplesToRestore = new HashSet<>();
     private SimpleInterval prevPos = null;
     private byte refAfterPrevPos;
     private ReferenceContext storedReferenceContext;
@@ -214,10 +219,13 @@ public final class CombineGVCFs extends MultiVariantWalkerGroupedOnStart {
      * @param intervalToClose
      */
     private void resizeReferenceIfNeeded(SimpleInterval intervalToClose) {
-        final int leftEdge = storedReferenceContext.getInterval().getStart() - intervalToClose.getStart();
-        final int rightEdge = intervalToClose.getEnd() - storedReferenceContext.getInterval().getEnd();
+        final int leftEdge = Math.max(1, storedReferenceContext.getInterval().getStart() - intervalToClose.getStart());
+        final int rightEdge = Math.max(1, intervalToClose.getEnd() - storedReferenceContext.getInterval().getEnd());
 
-        storedReferenceContext.setWindow(Math.max(1, leftEdge), Math.max(1, rightEdge));
+        // setting the window discards the bases already fetched, even if it doesn't change
+        if ( leftEdge != storedReferenceContext.numWindowLeadingBases() || rightEdge != storedReferenceContext.numWindowTrailingBases() ) {
+            storedReferenceContext.setWindow(leftEdge, rightEdge);
+        }
     }
 
 
@@ -284,8 +292,31 @@ public final class CombineGVCFs extends MultiVariantWalkerGroupedOnStart {
                 }
             }
             variantContextsOverlappingCurrentMerge.addAll(variantContexts);
-            for(final VariantContext vc : variantContextsOverlappingCurrentMerge){
-                samples.addAll(vc.getSampleNames());
+            for (final VariantContext vc : variantContexts) {
+                for (final String sample : vc.getSampleNames()) {
+                    sampleCounts.merge(sample, 1, Integer::sum);
+                    samples.add(sample);
+                }
+            }
+            // samples is now the set of samples of all the contexts being merged again
+            samples.addAll(samplesToRestore);
+            samplesToRestore.clear();
+        }
+    }
+
+    /**
+     * Remove the samples of a context that is no longer being merged from {@link #samples}, even if other contexts
+     * being merged have them until the next new contexts are merged.
+     */
+    private void removeSamples(final VariantContext vc) {
+        samples.removeAll(vc.getSampleNames());
+        for (final String sample : vc.getSampleNames()) {
+            if (sampleCounts.merge(sample, -1, Integer::sum) == 0) {
+                // no context being merged has the sample any more, even if one did when it was last removed
+                sampleCounts.remove(sample);
+                samplesToRestore.remove(sample);
+            } else {
+                samplesToRestore.add(sample);
             }
         }
     }
@@ -327,9 +358,12 @@ public final class CombineGVCFs extends MultiVariantWalkerGroupedOnStart {
         // will be advanced one base
         final byte refNextBase = (forceOutputAtCurrentPosition) ? (refBases.length > 1 ? refBases[1] : (byte)'N' ): refBase;
 
-        final List<VariantContext> stoppedVCs = new ArrayList<>(variantContextsOverlappingCurrentMerge.size());
+        final int numOverlapping = variantContextsOverlappingCurrentMerge.size();
+        final List<VariantContext> stoppedVCs = new ArrayList<>(numOverlapping);
+        final boolean[] ended = new boolean[numOverlapping];
+        boolean anyEnded = false;
 
-        for (int i = variantContextsOverlappingCurrentMerge.size() - 1; i >= 0; i-- ) {
+        for (int i = numOverlapping - 1; i >= 0; i-- ) {
             final VariantContext vc = variantContextsOverlappingCurrentMerge.get(i);
             //the VC for the previous state will be stopped if its position is previous to the current position or it we've moved to a new contig
             if ( vc.getStart() <= pos.getStart() || !vc.contigsMatch(pos)) {
@@ -339,10 +373,22 @@ public final class CombineGVCFs extends MultiVariantWalkerGroupedOnStart {
                 // if it was ending anyways, then remove it from the future state
                 // or if ending vc is the same sample as a starting VC, then remove it from the future state
                 if((vc.getEnd() == pos.getStart()) || (variantContexts.size() > 0 && !forceOutputAtCurrentPosition && newSamples.containsAll(vc.getSampleNames()))) {
-                    samples.removeAll(vc.getSampleNames());
-                    variantContextsOverlappingCurrentMerge.remove(i);
+                    removeSamples(vc);
+                    ended[i] = true;
+                    anyEnded = true;
+                }
+            }
+        }
+
+        // remove the ended contexts in a single pass rather than one at a time, as there may be hundreds of them
+        if ( anyEnded ) {
+            int numRemaining = 0;
+            for (int i = 0; i < numOverlapping; i++) {
+                if ( !ended[i] ) {
+                    variantContextsOverlappingCurrentMerge.set(numRemaining++, variantContextsOverlappingCurrentMerge.get(i));
                 }
             }
+            variantContextsOverlappingCurrentMerge.subList(numRemaining, numOverlapping).clear();
         }
 
         //output the stopped variantContexts if there is no previous output (state.prevPos == null) or our current position is past
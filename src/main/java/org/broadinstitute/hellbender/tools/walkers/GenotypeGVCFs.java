@@ -14,16 +14,20 @@ import org.broadinstitute.hellbender.tools.walkers.annotator.*;
 import org.broadinstitute.hellbender.tools.walkers.annotator.allelespecific.AS_RMSMappingQuality;
 import org.broadinstitute.hellbender.tools.walkers.genotyper.*;
 import org.broadinstitute.hellbender.tools.walkers.genotyper.afcalc.GeneralPloidyFailOverAFCalculatorProvider;
+import org.broadinstitute.hellbender.utils.OrderedParallelExecutor;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.genotyper.IndexedSampleList;
 import org.broadinstitute.hellbender.utils.genotyper.SampleList;
+import org.broadinstitute.hellbender.utils.reference.ReferenceBases;
 import org.broadinstitute.hellbender.utils.variant.GATKVCFConstants;
 import org.broadinstitute.hellbender.utils.variant.GATKVCFHeaderLines;
 import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 /**
  * Perform joint genotyping on one or more samples pre-called with HaplotypeCaller
@@ -72,6 +76,13 @@ import java.util.*;
  *   <li>Cannot take multiple GVCF files in one command.</li>
  * </ul>
  *
+ * <h3>Multithreading</h3>
+ * <p>With {@code --threads} greater than 1, the input is still read on a single thread, but the sites are genotyped
+ * and annotated in batches on that many threads. The sites are written in their input order, and the random numbers
+ * used in annotating a site (the jitter of QD values above 35) are drawn from a generator seeded from its position, so
+ * the output doesn't depend on the number of threads. It is the same as that of a single-threaded run except for
+ * these jittered values.</p>
+ *
  * <h3>Special note on ploidy</h3>
  * <p>This tool is able to handle any ploidy (or mix of ploidies) intelligently; there is no need to specify ploidy
  * for non-diploid organisms.</p>
@@ -86,8 +97,13 @@ public final class GenotypeGVCFs extends VariantWalker {
     public static final String PHASED_HOM_VAR_STRING = "1|1";
     public static final String ONLY_OUTPUT_CALLS_STARTING_IN_INTERVALS_FULL_NAME = "only-output-calls-starting-in-intervals";
     public static final String ALL_SITES_LONG_NAME = "include-non-variant-sites";
+    public static final String THREADS_LONG_NAME = "threads";
     private static final String GVCF_BLOCK = "GVCFBlock";
 
+    // sites are handed to the worker threads in batches of consecutive sites of this size
+    private static final int SITES_PER_BATCH = 100;
+    private static final int MAX_BATCHES_IN_FLIGHT_PER_THREAD = 4;
+
     @Argument(fullName = StandardArgumentDefinitions.OUTPUT_LONG_NAME, shortName = StandardArgumentDefinitions.OUTPUT_SHORT_NAME,
             doc="File to which variants should be written", optional=false)
     private File outputFile;
@@ -115,18 +131,29 @@ public final class GenotypeGVCFs extends VariantWalker {
     @ArgumentCollection
     private final DbsnpArgumentCollection dbsnp = new DbsnpArgumentCollection();
 
-    // the genotyping engine
-    private GenotypingEngine<?> genotypingEngine;
-    // the annotation engine
-    private VariantAnnotatorEngine annotationEngine;
+    /**
+     * Sites are still read, and the reference bases around them fetched, on a single thread, but they are genotyped
+     * and annotated on this many worker threads, each with its own genotyping and annotation engines. The output
+     * doesn't depend on the number of threads greater than 1, and only differs from a single-threaded run in the
+     * jitter of QD values above 35, which is drawn per site rather than from a single sequence.
+     */
+    @Advanced
+    @Argument(fullName = THREADS_LONG_NAME, doc = "Number of threads to use for genotyping sites concurrently", optional = true, minValue = 1)
+    private int threads = 1;
 
-    private ReferenceConfidenceVariantContextMerger merger;
+    // the genotyping and annotation engines used on the traversal thread, and by the first worker when multithreaded
+    private SiteGenotyper genotyper;
 
     private VariantContextWriter vcfWriter;
 
     /** these are used when {@link #onlyOutputCallsStartingInIntervals) is true */
     private List<SimpleInterval> intervals;
 
+    // only used when running with more than one thread
+    private BlockingQueue<SiteGenotyper> idleGenotypers;
+    private OrderedParallelExecutor<List<VariantContext>> batchExecutor;
+    private List<Site> currentBatch;
+
     @Override
     public boolean requiresReference() {
         return true;
@@ -154,14 +181,22 @@ public final class GenotypeGVCFs extends VariantWalker {
 
         final SampleList samples = new IndexedSampleList(inputVCFHeader.getGenotypeSamples()); //todo should this be getSampleNamesInOrder?
 
-        annotationEngine = new VariantAnnotatorEngine(makeVariantAnnotations(), dbsnp.dbsnp, Collections.emptyList(), false);
-
-        // We only want the engine to generate the AS_QUAL key if we are using AlleleSpecific annotations.
-        genotypingEngine = new MinimalGenotypingEngine(createUAC(), samples, new GeneralPloidyFailOverAFCalculatorProvider(genotypeArgs), annotationEngine.isRequestedReducibleRawKey(GATKVCFConstants.AS_QUAL_KEY));
-
-        merger = new ReferenceConfidenceVariantContextMerger(annotationEngine, getHeaderForVariants());
+        genotyper = new SiteGenotyper(samples);
 
         setupVCFWriter(inputVCFHeader, samples);
+
+        if ( threads > 1 ) {
+            logger.info("Genotyping sites using " + threads + " threads");
+            // the engines are not thread-safe, so each worker has its own
+            final List<SiteGenotyper> genotypers = new ArrayList<>(threads);
+            genotypers.add(genotyper);
+            for ( int i = 1; i < threads; i++ ) {
+                genotypers.add(new SiteGenotyper(samples));
+            }
+            idleGenotypers = new ArrayBlockingQueue<>(threads, false, genotypers);
+            batchExecutor = new OrderedParallelExecutor<>(threads, threads * MAX_BATCHES_IN_FLIGHT_PER_THREAD, results -> results.forEach(vcfWriter::add));
+            currentBatch = new ArrayList<>(SITES_PER_BATCH);
+        }
     }
 
     private static boolean annotationShouldBeSkippedForHomRefSites(VariantAnnotation annotation) {
@@ -175,8 +210,8 @@ public final class GenotypeGVCFs extends VariantWalker {
         // Remove GCVFBlocks
         headerLines.removeIf(vcfHeaderLine -> vcfHeaderLine.getKey().startsWith(GVCF_BLOCK));
 
-        headerLines.addAll(annotationEngine.getVCFAnnotationDescriptions(false));
-        headerLines.addAll(genotypingEngine.getAppropriateVCFInfoHeaders());
+        headerLines.addAll(genotyper.annotationEngine.getVCFAnnotationDescriptions(false));
+        headerLines.addAll(genotyper.genotypingEngine.getAppropriateVCFInfoHeaders());
 
         // add headers for annotations added by this tool
         headerLines.add(GATKVCFHeaderLines.getInfoLine(GATKVCFConstants.MLE_ALLELE_COUNT_KEY));
@@ -197,35 +232,93 @@ public final class GenotypeGVCFs extends VariantWalker {
     @Override
     public void apply(VariantContext variant, ReadsContext reads, ReferenceContext ref, FeatureContext features) {
         ref.setWindow(10, 10); //TODO this matches the gatk3 behavior but may be unnecessary
-        final VariantContext mergedVC = merger.merge(Collections.singletonList(variant), variant, includeNonVariants ? ref.getBase() : null, true, false);
-        final VariantContext regenotypedVC = regenotypeVC(mergedVC, ref, features, includeNonVariants);
+        if ( batchExecutor == null ) {
+            final VariantContext result = genotypeSite(genotyper, variant, ref, features);
+            if ( result != null ) {
+                vcfWriter.add(result);
+            }
+            return;
+        }
+
+        // the reference source can only be used on the traversal thread, so the bases of the window are fetched here.
+        // The dbSNP records at the site are fetched here too: the batches run out of order, so queries from the workers
+        // would miss the forward-only feature cache and go back to disk while holding the FeatureManager lock.
+        final SimpleInterval window = ref.getWindow();
+        final ReferenceBases windowBases = new ReferenceBases(ref.getBases(), window);
+        final ReferenceContext windowRef = new ReferenceContext(ReferenceDataSource.of(windowBases, getReferenceDictionary()), ref.getInterval(), window);
+        final FeatureContext siteFeatures = features.withPrefetchedFeatures(Collections.singletonList(dbsnp.dbsnp));
+        currentBatch.add(new Site(variant, windowRef, siteFeatures));
+        if ( currentBatch.size() >= SITES_PER_BATCH ) {
+            submitCurrentBatch();
+        }
+    }
+
+    private void submitCurrentBatch() {
+        final List<Site> batch = currentBatch;
+        currentBatch = new ArrayList<>(SITES_PER_BATCH);
+        batchExecutor.submit(() -> {
+            // there are as many genotypers as pool threads, so one is always idle when a batch starts running
+            final SiteGenotyper worker = idleGenotypers.take();
+            try {
+                final List<VariantContext> results = new ArrayList<>(batch.size());
+                for ( final Site site : batch ) {
+                    final VariantContext result = Utils.runWithLocusRandomGenerator(site.variant,
+                            () -> genotypeSite(worker, site.variant, site.ref, site.features));
+                    if ( result != null ) {
+                        results.add(result);
+                    }
+                }
+                return results;
+            } finally {
+                idleGenotypers.put(worker);
+            }
+        });
+    }
+
+    @Override
+    public Object onTraversalSuccess() {
+        if ( batchExecutor != null ) {
+            if ( ! currentBatch.isEmpty() ) {
+                submitCurrentBatch();
+            }
+            batchExecutor.drain();
+        }
+        return null;
+    }
+
+    /**
+     * Merge, re-genotype and re-annotate a single site
+     * @return the VariantContext to output, or null if there is nothing to output for this site
+     */
+    private VariantContext genotypeSite(final SiteGenotyper genotyper, final VariantContext variant, final ReferenceContext ref, final FeatureContext features) {
+        final VariantContext mergedVC = genotyper.merger.merge(Collections.singletonList(variant), variant, includeNonVariants ? ref.getBase() : null, true, false);
+        final VariantContext regenotypedVC = regenotypeVC(genotyper, mergedVC, ref, features, includeNonVariants);
         if (regenotypedVC != null) {
             final SimpleInterval variantStart = new SimpleInterval(regenotypedVC.getContig(), regenotypedVC.getStart(), regenotypedVC.getStart());
             if (!onlyOutputCallsStartingInIntervals || intervals.stream().anyMatch(interval -> interval.contains    (variantStart))) {
-                vcfWriter.add(regenotypedVC);
+                return regenotypedVC;
             }
         }
+        return null;
     }
 
-
-
     /**
      * Re-genotype (and re-annotate) a combined genomic VC
      * @return a new VariantContext or null if the site turned monomorphic and we don't want such sites
      */
-    private VariantContext  regenotypeVC(final VariantContext originalVC, final ReferenceContext ref, final FeatureContext features, boolean includeNonVariants) {
+    private VariantContext  regenotypeVC(final SiteGenotyper genotyper, final VariantContext originalVC, final ReferenceContext ref, final FeatureContext features, boolean includeNonVariants) {
         Utils.nonNull(originalVC);
 
         final VariantContext result;
         if ( originalVC.isVariant()  && originalVC.getAttributeAsInt(VCFConstants.DEPTH_KEY,0) > 0 ) {
             // only re-genotype polymorphic sites
-            final VariantContext regenotypedVC = calculateGenotypes(originalVC);
+            final VariantContext regenotypedVC = calculateGenotypes(genotyper, originalVC);
             if (isProperlyPolymorphic(regenotypedVC)) {
                 // Note that reversetrimAlleles must be performed after the annotations are finalized because the reducible annotation data maps
                 // were generated and keyed on the un reverseTrimmed alleles from the starting VariantContexts. Thus reversing the order will make
                 // it difficult to recover the data mapping due to the keyed alleles no longer being present in the variant context.
                 final VariantContext withGenotypingAnnotations = addGenotypingAnnotations(originalVC.getAttributes(), regenotypedVC);
-                final VariantContext withAnnotations = annotationEngine.finalizeAnnotations(withGenotypingAnnotations, originalVC);
+                final VariantContext withAnnotations = genotyper.annotationEngine.finalizeAnnotations(withGenotypingAnnotations, originalVC);
                 result = GATKVariantContextUtils.reverseTrimAlleles(withAnnotations);
             } else if (includeNonVariants) {
                 result = originalVC;
@@ -244,18 +337,18 @@ public final class GenotypeGVCFs extends VariantWalker {
         // We could theoretically make 2 passes to re-create the genotypes, but that gets extremely expensive with large sample sizes.
         if (result.isPolymorphicInSamples()) {
             // For polymorphic sites we need to make sure e.g. the SB tag is sent to the annotation engine and then removed later.
-            final VariantContext reannotated = annotationEngine.annotateContext(result, features, ref, null, a -> true);
+            final VariantContext reannotated = genotyper.annotationEngine.annotateContext(result, features, ref, null, a -> true);
             return new VariantContextBuilder(reannotated).genotypes(cleanupGenotypeAnnotations(reannotated, false)).make();
         } else if (includeNonVariants) {
             // For monomorphic sites we need to make sure e.g. the hom ref genotypes are created and only then are passed to the annotation engine.
             final VariantContext reannotated = new VariantContextBuilder(result).genotypes(cleanupGenotypeAnnotations(result, true)).make();
-            return annotationEngine.annotateContext(reannotated, features, ref, null, GenotypeGVCFs::annotationShouldBeSkippedForHomRefSites);
+            return genotyper.annotationEngine.annotateContext(reannotated, features, ref, null, GenotypeGVCFs::annotationShouldBeSkippedForHomRefSites);
         } else {
             return null;
         }
     }
 
-    private VariantContext calculateGenotypes(VariantContext vc){
+    private VariantContext calculateGenotypes(final SiteGenotyper genotyper, VariantContext vc){
         /*
          * Query the VariantContext for the appropriate model.  If type == MIXED, one would want to use model = BOTH.
          * However GenotypingEngine.getAlleleFrequencyPriors throws an exception if you give it anything but a SNP or INDEL model.
@@ -263,7 +356,7 @@ public final class GenotypeGVCFs extends VariantWalker {
         final GenotypeLikelihoodsCalculationModel model = vc.getType() == VariantContext.Type.INDEL
                 ? GenotypeLikelihoodsCalculationModel.INDEL
                 : GenotypeLikelihoodsCalculationModel.SNP;
-        return genotypingEngine.calculateGenotypes(vc, model, null);
+        return genotyper.genotypingEngine.calculateGenotypes(vc, model, null);
     }
 
     /**
@@ -401,8 +494,44 @@ public final class GenotypeGVCFs extends VariantWalker {
 
     @Override
     public void closeTool() {
+        if ( batchExecutor != null ) {
+            batchExecutor.close();
+        }
         if ( vcfWriter != null) {
             vcfWriter.close();
         }
     }
+
+    /**
+     * The engines used to genotype and annotate sites on one thread
+     */
+    private final class SiteGenotyper {
+        private final VariantAnnotatorEngine annotationEngine;
+        private final GenotypingEngine<?> genotypingEngine;
+        private final ReferenceConfidenceVariantContextMerger merger;
+
+        private SiteGenotyper(final SampleList samples) {
+            annotationEngine = new VariantAnnotatorEngine(makeVariantAnnotations(), dbsnp.dbsnp, Collections.emptyList(), false);
+
+            // We only want the engine to generate the AS_QUAL key if we are using AlleleSpecific annotations.
+            genotypingEngine = new MinimalGenotypingEngine(createUAC(), samples, new GeneralPloidyFailOverAFCalculatorProvider(genotypeArgs), annotationEngine.isRequestedReducibleRawKey(GATKVCFConstants.AS_QUAL_KEY));
+
+            merger = new ReferenceConfidenceVariantContextMerger(annotationEngine, getHeaderForVariants());
+        }
+    }
+
+    /**
+     * A site waiting to be genotyped by a worker thread
+     */
+    private static final class Site {
+        private final VariantContext variant;
+        private final ReferenceContext ref;
+        private final FeatureContext features;
+
+        private Site(final VariantContext variant, final ReferenceContext ref, final FeatureContext features) {
+            this.variant = variant;
+            this.ref = ref;
+            this.features = features;
+        }
+    }
 }
@@ -69,12 +69,21 @@ public final class ReferenceConfidenceVariantContextMerger {
 
         // In this list we hold the mapping of each variant context alleles.
         final List<VCWithNewAlleles> vcAndNewAllelePairs = new ArrayList<>(vcs.size());
+        final List<AlleleRemap> alleleRemaps = new ArrayList<>(vcs.size());
+
+        // With many samples most of the input records have the same alleles (eg., all the reference blocks), so the
+        // remapped alleles and the PL/AD index maps derived from them are computed once per distinct allele list
+        final Map<List<Allele>, AlleleRemap> startingRemapsByAlleles = new HashMap<>();
+        final Map<List<Allele>, AlleleRemap> spanningRemapsByAlleles = new HashMap<>();
 
         // cycle through and add info from the other vcs
         for ( final VariantContext vc : vcs ) {
             // if this context doesn't start at the current location then it must be a spanning event (deletion or ref block)
             final boolean isSpanningEvent = loc.getStart() != vc.getStart();
-            vcAndNewAllelePairs.add(new VCWithNewAlleles(vc, isSpanningEvent ? replaceWithNoCallsAndDels(vc) : remapAlleles(vc, refAllele), isSpanningEvent));
+            final AlleleRemap alleleRemap = (isSpanningEvent ? spanningRemapsByAlleles : startingRemapsByAlleles).computeIfAbsent(vc.getAlleles(),
+                    alleles -> new AlleleRemap(isSpanningEvent ? replaceWithNoCallsAndDels(vc) : remapAlleles(vc, refAllele)));
+            vcAndNewAllelePairs.add(new VCWithNewAlleles(vc, alleleRemap.remappedAlleles, isSpanningEvent));
+            alleleRemaps.add(alleleRemap);
         }
 
         final List<Allele> allelesList = collectTargetAlleles(vcAndNewAllelePairs, refAllele, removeNonRefSymbolicAllele);
@@ -85,11 +94,11 @@ public final class ReferenceConfidenceVariantContextMerger {
 
         final GenotypesContext genotypes = GenotypesContext.create();
 
-        for ( final VCWithNewAlleles vcWithNewAlleles : vcAndNewAllelePairs ) {
+        for ( int i = 0; i < vcAndNewAllelePairs.size(); i++ ) {
+            final VCWithNewAlleles vcWithNewAlleles = vcAndNewAllelePairs.get(i);
             final VariantContext vc = vcWithNewAlleles.getVc();
-            final List<Allele> remappedAlleles = vcWithNewAlleles.getNewAlleles();
 
-            genotypes.addAll(mergeRefConfidenceGenotypes(vc, remappedAlleles, allelesList, samplesAreUniquified));
+            mergeRefConfidenceGenotypes(vc, alleleRemaps.get(i), allelesList, samplesAreUniquified, genotypes);
             depth += calculateVCDepth(vc);
 
             if ( loc.getStart() != vc.getStart() ) {
@@ -192,6 +201,23 @@ public final class ReferenceConfidenceVariantContextMerger {
         return result;
     }
 
+    /**
+     * The remapped alleles shared by all the input records with the same alleles at a site, along with the index maps
+     * used to merge their genotypes, which only depend on the remapped alleles, the final alleles and the ploidy.
+     */
+    private static final class AlleleRemap {
+        private final List<Allele> remappedAlleles;
+        // both computed lazily, the first time they are needed for a genotype with likelihoods
+        private int[] indexesOfRelevantAlleles;
+        private int[][] genotypeIndexMapsByPloidy = new int[GATKVariantContextUtils.DEFAULT_PLOIDY + 1][];
+        // if set, there is more than one spanning deletion to choose from, and the choice depends on each genotype's likelihoods
+        private Boolean dependsOnLikelihoods;
+
+        private AlleleRemap(final List<Allele> remappedAlleles) {
+            this.remappedAlleles = remappedAlleles;
+        }
+    }
+
     @VisibleForTesting
     protected static class VCWithNewAlleles {
         private final VariantContext vc;
@@ -445,21 +471,18 @@ public final class ReferenceConfidenceVariantContextMerger {
      * Merge into the context a new genotype represented by the given VariantContext for the provided list of target alleles.
      * This method assumes that none of the alleles in the VC overlaps with any of the alleles in the set.
      *  @param vc                    the Variant Context for the sample
-     * @param remappedAlleles       the list of remapped alleles for the sample
+     * @param alleleRemap           the remapped alleles for the sample, and the index maps derived from them
      * @param targetAlleles         the list of target alleles
      * @param samplesAreUniquified  true if sample names have been uniquified
+     * @param mergedGenotypes       the merged genotypes, to which the genotypes of the sample are added
      */
-    private GenotypesContext mergeRefConfidenceGenotypes(final VariantContext vc,
-                                                           final List<Allele> remappedAlleles,
-                                                           final List<Allele> targetAlleles,
-                                                           final boolean samplesAreUniquified) {
-        final GenotypesContext mergedGenotypes = GenotypesContext.create();
-        final int maximumPloidy = vc.getMaxPloidy(GATKVariantContextUtils.DEFAULT_PLOIDY);
-        // the map is different depending on the ploidy, so in order to keep this method flexible (mixed ploidies)
-        // we need to get a map done (lazily inside the loop) for each ploidy, up to the maximum possible.
-        final int[][] genotypeIndexMapsByPloidy = new int[maximumPloidy + 1][];
-        final int maximumAlleleCount = Math.max(remappedAlleles.size(),targetAlleles.size());
-        int[] perSampleIndexesOfRelevantAlleles;
+    private void mergeRefConfidenceGenotypes(final VariantContext vc,
+                                             final AlleleRemap alleleRemap,
+                                             final List<Allele> targetAlleles,
+                                             final boolean samplesAreUniquified,
+                                             final GenotypesContext mergedGenotypes) {
+        final List<Allele> remappedAlleles = alleleRemap.remappedAlleles;
+        final int maximumAlleleCount = Math.max(remappedAlleles.size(), targetAlleles.size());
 
         for ( final Genotype g : vc.getGenotypes() ) {
             final String name;
@@ -472,19 +495,47 @@ public final class ReferenceConfidenceVariantContextMerger {
             final GenotypeBuilder genotypeBuilder = new GenotypeBuilder(g).alleles(GATKVariantContextUtils.noCallAlleles(g.getPloidy()));
             genotypeBuilder.name(name);
             if (g.hasPL()) {
-                // lazy initialization of the genotype index map by ploidy.
-                perSampleIndexesOfRelevantAlleles = getIndexesOfRelevantAlleles(remappedAlleles, targetAlleles, vc.getStart(), g);
-                final int[] genotypeIndexMapByPloidy = genotypeIndexMapsByPloidy[ploidy] == null
-                            ? calculators.getInstance(ploidy, maximumAlleleCount).genotypeIndexMap(perSampleIndexesOfRelevantAlleles, calculators) //probably horribly slow
-                            : genotypeIndexMapsByPloidy[ploidy];
+                if ( alleleRemap.dependsOnLikelihoods == null ) {
+                    alleleRemap.dependsOnLikelihoods = dependsOnLikelihoods(remappedAlleles, targetAlleles);
+                }
+
+                final int[] perSampleIndexesOfRelevantAlleles;
+                final int[] genotypeIndexMapByPloidy;
+                if ( alleleRemap.dependsOnLikelihoods ) {
+                    perSampleIndexesOfRelevantAlleles = getIndexesOfRelevantAlleles(remappedAlleles, targetAlleles, vc.getStart(), g);
+                    genotypeIndexMapByPloidy = calculators.getThreadLocalInstance(ploidy, maximumAlleleCount).genotypeIndexMap(perSampleIndexesOfRelevantAlleles, calculators);
+                } else {
+                    if ( alleleRemap.indexesOfRelevantAlleles == null ) {
+                        alleleRemap.indexesOfRelevantAlleles = getIndexesOfRelevantAlleles(remappedAlleles, targetAlleles, vc.getStart(), g);
+                    }
+                    perSampleIndexesOfRelevantAlleles = alleleRemap.indexesOfRelevantAlleles;
+                    if ( alleleRemap.genotypeIndexMapsByPloidy.length <= ploidy ) {
+                        alleleRemap.genotypeIndexMapsByPloidy = Arrays.copyOf(alleleRemap.genotypeIndexMapsByPloidy, ploidy + 1);
+                    }
+                    if ( alleleRemap.genotypeIndexMapsByPloidy[ploidy] == null ) {
+                        alleleRemap.genotypeIndexMapsByPloidy[ploidy] = calculators.getThreadLocalInstance(ploidy, maximumAlleleCount).genotypeIndexMap(perSampleIndexesOfRelevantAlleles, calculators);
+                    }
+                    genotypeIndexMapByPloidy = alleleRemap.genotypeIndexMapsByPloidy[ploidy];
+                }
                 final int[] PLs = generatePL(g, genotypeIndexMapByPloidy);
                 final int[] AD = g.hasAD() ? generateAD(g.getAD(), perSampleIndexesOfRelevantAlleles) : null;
                 genotypeBuilder.PL(PLs).AD(AD);
             }
             mergedGenotypes.add(genotypeBuilder.make());
         }
+    }
 
-        return mergedGenotypes;
+    /**
+     * @return true if {@link #getIndexesOfRelevantAlleles} must pick the best of several spanning deletions, which depends
+     * on the likelihoods of each genotype
+     */
+    private static boolean dependsOnLikelihoods(final List<Allele> remappedAlleles, final List<Allele> targetAlleles) {
+        for ( int i = 1; i < targetAlleles.size(); i++ ) {
+            if ( targetAlleles.get(i) == Allele.SPAN_DEL ) {
+                return Collections.frequency(remappedAlleles, Allele.SPAN_DEL) > 1;
+            }
+        }
+        return false;
     }
 
     /**
@@ -597,7 +648,7 @@ public final class ReferenceConfidenceVariantContextMerger {
         if ( ploidy == 1 )
             return i;
 
-        final GenotypeLikelihoodCalculator calculator = calculators.getInstance(ploidy, numAlleles);
+        final GenotypeLikelihoodCalculator calculator = calculators.getThreadLocalInstance(ploidy, numAlleles);
         final int[] alleleIndexes = new int[ploidy];
         Arrays.fill(alleleIndexes, i);
         return calculator.allelesToIndex(alleleIndexes);
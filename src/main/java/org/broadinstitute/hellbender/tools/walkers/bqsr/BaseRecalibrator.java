@@ -1,8 +1,10 @@
 package org.broadinstitute.hellbender.tools.walkers.bqsr;
 
 import htsjdk.tribble.Feature;
+import org.apache.commons.lang3.tuple.Pair;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.broadinstitute.barclay.argparser.Advanced;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.ArgumentCollection;
 import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
@@ -13,6 +15,7 @@ import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilterLibrary;
 import org.broadinstitute.hellbender.engine.filters.WellformedReadFilter;
 import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.OrderedParallelExecutor;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.recalibration.BaseRecalibrationEngine;
@@ -26,6 +29,8 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 /**
  * First pass of the base quality score recalibration.
@@ -87,6 +92,11 @@ public final class BaseRecalibrator extends ReadWalker {
             "(such as read group, reported quality score, machine cycle, and nucleotide context).";
 
     public static final String KNOWN_SITES_ARG_FULL_NAME = "known-sites";
+    public static final String THREADS_LONG_NAME = "threads";
+
+    // reads are handed to the worker threads in batches of consecutive reads of this size
+    private static final int READS_PER_BATCH = 1000;
+    private static final int MAX_BATCHES_IN_FLIGHT_PER_THREAD = 4;
 
     protected static final Logger logger = LogManager.getLogger(BaseRecalibrator.class);
 
@@ -115,6 +125,17 @@ public final class BaseRecalibrator extends ReadWalker {
     @Argument(shortName = StandardArgumentDefinitions.OUTPUT_SHORT_NAME, fullName = StandardArgumentDefinitions.OUTPUT_LONG_NAME, doc = "The output recalibration table file to create", optional = false)
     private File recalTableFile = null;
 
+    /**
+     * Reads are still traversed, and their known sites looked up, on a single thread, but they are counted on this many
+     * worker threads, each into its own recalibration tables. The tables of all threads are summed before they are
+     * finalized. Without BAQ all the counts are whole numbers, so the output is the same as a single-threaded run, but
+     * with --enable-baq the fractional error counts are added in a different order, so the output can differ from a
+     * single-threaded one by floating-point rounding.
+     */
+    @Advanced
+    @Argument(fullName = THREADS_LONG_NAME, doc = "Number of threads to use for counting reads concurrently", optional = true, minValue = 1)
+    private int threads = 1;
+
     private BaseRecalibrationEngine recalibrationEngine;
 
     private ReferenceDataSource referenceDataSource; // datasource for the reference. We're using a different one from the engine itself to avoid messing with its caches.
@@ -124,6 +145,12 @@ public final class BaseRecalibrator extends ReadWalker {
      */
     private QuantizationInfo quantizationInfo = null;
 
+    // only used when running with more than one thread
+    private List<RecalibrationWorker> workers;
+    private BlockingQueue<RecalibrationWorker> idleWorkers;
+    private OrderedParallelExecutor<Void> batchExecutor;
+    private List<Pair<GATKRead, List<Feature>>> currentBatch;
+
     @Override
     public boolean requiresReference() {
         return true;
@@ -143,7 +170,26 @@ public final class BaseRecalibrator extends ReadWalker {
 
         recalibrationEngine = new BaseRecalibrationEngine(recalArgs, getHeaderForReads());
         recalibrationEngine.logCovariatesUsed();
-        referenceDataSource = ReferenceDataSource.of(referenceArguments.getReferencePath());
+        referenceDataSource = openReference();
+
+        if ( threads > 1 ) {
+            logger.info("Counting reads using " + threads + " threads");
+            // each worker has its own engine (and therefore its own tables) as the tables are not thread-safe, and
+            // its own reference source unless the reference image, which all threads can share, is used
+            workers = new ArrayList<>(threads);
+            workers.add(new RecalibrationWorker(recalibrationEngine, referenceDataSource));
+            for ( int i = 1; i < threads; i++ ) {
+                workers.add(new RecalibrationWorker(new BaseRecalibrationEngine(recalArgs, getHeaderForReads()), openReference()));
+            }
+            idleWorkers = new ArrayBlockingQueue<>(threads, false, workers);
+            // the order in which batches complete does not matter, as the tables are summed in the end
+            batchExecutor = new OrderedParallelExecutor<>(threads, threads * MAX_BATCHES_IN_FLIGHT_PER_THREAD, result -> {});
+            currentBatch = new ArrayList<>(READS_PER_BATCH);
+        }
+    }
+
+    private ReferenceDataSource openReference() {
+        return useReferenceImage ? ReferenceImageSource.of(referenceArguments.getReferencePath()) : ReferenceDataSource.of(referenceArguments.getReferencePath());
     }
 
     @Override
@@ -182,11 +228,44 @@ public final class BaseRecalibrator extends ReadWalker {
      */
     @Override
     public void apply( GATKRead read, ReferenceContext ref, FeatureContext featureContext ) {
-        recalibrationEngine.processRead(read, referenceDataSource, featureContext.getValues(knownSites));
+        if ( batchExecutor == null ) {
+            recalibrationEngine.processRead(read, referenceDataSource, featureContext.getValues(knownSites));
+            return;
+        }
+
+        // the features have to be queried here, as the feature sources can only be used on the traversal thread
+        currentBatch.add(Pair.of(read, featureContext.getValues(knownSites)));
+        if ( currentBatch.size() >= READS_PER_BATCH ) {
+            submitCurrentBatch();
+        }
+    }
+
+    private void submitCurrentBatch() {
+        final List<Pair<GATKRead, List<Feature>>> batch = currentBatch;
+        currentBatch = new ArrayList<>(READS_PER_BATCH);
+        batchExecutor.submit(() -> {
+            // there are as many workers as pool threads, so one is always idle when a batch starts running
+            final RecalibrationWorker worker = idleWorkers.take();
+            try {
+                for ( final Pair<GATKRead, List<Feature>> readAndKnownSites : batch ) {
+                    worker.engine.processRead(readAndKnownSites.getLeft(), worker.reference, readAndKnownSites.getRight());
+                }
+            } finally {
+                idleWorkers.put(worker);
+            }
+            return null;
+        });
     }
 
     @Override
     public Object onTraversalSuccess() {
+        if ( batchExecutor != null ) {
+            if ( ! currentBatch.isEmpty() ) {
+                submitCurrentBatch();
+            }
+            batchExecutor.drain();
+            workers.stream().filter(worker -> worker.engine != recalibrationEngine).forEach(worker -> recalibrationEngine.combine(worker.engine));
+        }
         recalibrationEngine.finalizeData();
 
         logger.info("Calculating quantized quality scores...");
@@ -217,4 +296,31 @@ public final class BaseRecalibrator extends ReadWalker {
             throw new UserException.CouldNotCreateOutputFile(recalTableFile, e);
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public void closeTool() {
+        if ( batchExecutor != null ) {
+            batchExecutor.close();
+        }
+        if ( workers != null ) {
+            // the first worker uses referenceDataSource; the shared reference image has to be closed once per opening
+            workers.subList(1, workers.size()).forEach(worker -> worker.reference.close());
+        }
+        if ( referenceDataSource != null ) {
+            referenceDataSource.close();
+        }
+    }
+
+    /**
+     * The engine and reference source used by a worker thread
+     */
+    private static final class RecalibrationWorker {
+        private final BaseRecalibrationEngine engine;
+        private final ReferenceDataSource reference;
+
+        private RecalibrationWorker(final BaseRecalibrationEngine engine, final ReferenceDataSource reference) {
+            this.engine = engine;
+            this.reference = reference;
+        }
+    }
+}
@@ -23,7 +23,7 @@ public final class GenotypeLikelihoodCalculator {
      * Offset table for this calculator.
      *
      * <p>
-     *     This is a shallow copy of {@link GenotypeLikelihoodCalculators#alleleFirstGenotypeOffsetByPloidy} when the calculator was created
+     *     This is the offset table shared by {@link GenotypeLikelihoodCalculators} when the calculator was created
      *     thus it follows the same format as that array. Please refer to its documentation.
      * </p>
      *
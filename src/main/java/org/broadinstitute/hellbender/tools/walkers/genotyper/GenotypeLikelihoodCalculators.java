@@ -7,6 +7,8 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Genotype likelihood calculator utility.
@@ -15,20 +17,18 @@ import java.util.Arrays;
  *     This class provide genotype likelihood calculators with any number of alleles able given an arbitrary ploidy and allele
  *     count (number of distinct alleles).
  * </p>
+ *
+ * <p>
+ *     The genotype tables used by the calculators are immutable and shared by all the instances of this class, in all
+ *     threads: they are only built once for the largest ploidy and allele count requested so far, and replaced
+ *     by larger ones when needed. Thus this class is thread-safe, but the calculators it returns are not, as they
+ *     have their own buffers.
+ * </p>
  */
 public final class GenotypeLikelihoodCalculators {
 
     private static final Logger logger = LogManager.getLogger(GenotypeLikelihoodCalculators.class);
 
-    /**
-     * The current maximum ploidy supported by the tables.
-     * <p>
-     *     Its initial value indicates the initial capacity of the shared {@link #genotypeTableByPloidy}. Feel free
-     *     to change it to anything reasonable that is non-negative.
-     * </p>
-     */
-    private int maximumPloidy = 2; // its initial value is the initial capacity of the shared tables.
-
     /**
      * Maximum possible number of genotypes that this calculator can handle.
      */
@@ -40,32 +40,65 @@ public final class GenotypeLikelihoodCalculators {
     static final int GENOTYPE_COUNT_OVERFLOW = -1;
 
     /**
-     * The current maximum allele index supported by the tables.
+     * Maximum number of calculators kept for reuse by each thread, see {@link #getThreadLocalInstance}.
+     */
+    private static final int MAXIMUM_CALCULATORS_PER_THREAD = 64;
+
+    /**
+     * Tables for the largest ploidy and allele count requested so far, shared by all instances.
+     *
      * <p>
-     *     Its initial value indicates the initial capacity of the shared {@link #alleleFirstGenotypeOffsetByPloidy} table.
-     *     Feel free to change it to anything reasonable that is non-negative.
+     *     Their initial capacity is ploidy 2 and allele index 1. Feel free to change it to anything reasonable that is
+     *     non-negative.
      * </p>
      */
-    private int maximumAllele = 1; // its initial value is the initial capacity of the shared tables.
+    private static volatile GenotypeTables tables = new GenotypeTables(2, 1);
 
     /**
-     * Shared copy of the offset table as described in {@link #buildGenotypeAlleleCountsTable(int, int, int[][])}.
-     *
-     * This reference holds the largest requested so far in terms of maximum-allele and maximum-ploidy.
+     * Calculators reused by each thread, by ploidy and allele count, the least recently used first.
      */
-    private int[][] alleleFirstGenotypeOffsetByPloidy =
-            buildAlleleFirstGenotypeOffsetTable(maximumPloidy, maximumAllele);
+    private static final ThreadLocal<Map<Long, GenotypeLikelihoodCalculator>> threadLocalCalculators = ThreadLocal.withInitial(() ->
+            new LinkedHashMap<Long, GenotypeLikelihoodCalculator>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
 
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<Long, GenotypeLikelihoodCalculator> eldest) {
+                    return size() > MAXIMUM_CALCULATORS_PER_THREAD;
+                }
+            });
 
     /**
-     * Shared table of genotypes give the ploidy sorted by their index in the likelihood array.
-     *
-     * <p>
-     *  Its format is described in {@link #buildGenotypeAlleleCountsTable(int, int, int[][])}.
-     * </p>
+     * Immutable offset and genotype tables supporting up to a maximum ploidy and allele index.
      */
-    private GenotypeAlleleCounts[][] genotypeTableByPloidy =
-            buildGenotypeAlleleCountsTable(maximumPloidy,maximumAllele,alleleFirstGenotypeOffsetByPloidy);
+    private static final class GenotypeTables {
+        private final int maximumPloidy;
+        private final int maximumAllele;
+
+        /**
+         * Offset table as described in {@link GenotypeLikelihoodCalculators#buildAlleleFirstGenotypeOffsetTable(int, int)}.
+         */
+        private final int[][] alleleFirstGenotypeOffsetByPloidy;
+
+        /**
+         * Table of genotypes give the ploidy sorted by their index in the likelihood array.
+         *
+         * <p>
+         *  Its format is described in {@link GenotypeLikelihoodCalculators#buildGenotypeAlleleCountsTable(int, int, int[][])}.
+         * </p>
+         */
+        private final GenotypeAlleleCounts[][] genotypeTableByPloidy;
+
+        private GenotypeTables(final int maximumPloidy, final int maximumAllele) {
+            this.maximumPloidy = maximumPloidy;
+            this.maximumAllele = maximumAllele;
+            alleleFirstGenotypeOffsetByPloidy = buildAlleleFirstGenotypeOffsetTable(maximumPloidy, maximumAllele);
+            genotypeTableByPloidy = buildGenotypeAlleleCountsTable(maximumPloidy, maximumAllele, alleleFirstGenotypeOffsetByPloidy);
+        }
+
+        private boolean supports(final int ploidy, final int allele) {
+            return ploidy <= maximumPloidy && allele <= maximumAllele;
+        }
+    }
 
     public GenotypeLikelihoodCalculators(){
 
@@ -258,47 +291,92 @@ public final class GenotypeLikelihoodCalculators {
      * @return never {@code null}.
      */
     public GenotypeLikelihoodCalculator getInstance(final int ploidy, final int alleleCount) {
+        final GenotypeTables sharedTables = tablesWithGenotypeCount(ploidy, alleleCount);
+
+        // At this point the tables must have at least the requested capacity, likely to be much more.
+        return new GenotypeLikelihoodCalculator(ploidy, alleleCount, sharedTables.alleleFirstGenotypeOffsetByPloidy, sharedTables.genotypeTableByPloidy);
+    }
+
+    /**
+     * Returns an instance given its ploidy and the number of alleles, reusing the one returned by a previous call with
+     * the same ploidy and number of alleles on the current thread if possible.
+     *
+     * <p>
+     *     This spares the setup of a new calculator for each genotype or site, but the result must only be used by
+     *     the current thread, and should not be kept beyond the current computation: use {@link #getInstance} instead
+     *     to keep a calculator.
+     * </p>
+     *
+     * @param alleleCount the required allele-count.
+     * @param ploidy the required ploidy-count.
+     *
+     * @throws IllegalArgumentException if either {@code ploidy} or {@code alleleCount} is negative, or the resulting number of genotypes is too large.
+     *
+     * @return never {@code null}.
+     */
+    public GenotypeLikelihoodCalculator getThreadLocalInstance(final int ploidy, final int alleleCount) {
         checkPloidyAndMaximumAllele(ploidy, alleleCount);
+        final Map<Long, GenotypeLikelihoodCalculator> calculators = threadLocalCalculators.get();
+        final long key = ((long) ploidy << 32) | alleleCount;
+        GenotypeLikelihoodCalculator result = calculators.get(key);
+        if (result == null) {
+            result = getInstance(ploidy, alleleCount);
+            calculators.put(key, result);
+        }
+        return result;
+    }
 
-        if (calculateGenotypeCountUsingTables(ploidy, alleleCount) == GENOTYPE_COUNT_OVERFLOW) {
-            final double largeGenotypeCount = Math.pow(10, MathUtils.log10BinomialCoefficient(ploidy + alleleCount - 1, alleleCount - 1));
-            throw new IllegalArgumentException(String.format("the number of genotypes is too large for ploidy %d and allele %d: approx. %.0f", ploidy, alleleCount, largeGenotypeCount));
+    /**
+     * Returns the shared tables, expanded if necessary to support the given ploidy and allele count.
+     *
+     * @throws IllegalArgumentException if either {@code ploidy} or {@code alleleCount} is negative, or the resulting number of genotypes is too large.
+     */
+    private static GenotypeTables tablesWithGenotypeCount(final int ploidy, final int alleleCount) {
+        checkPloidyAndMaximumAllele(ploidy, alleleCount);
+        // don't grow the shared tables to find out that there are too many genotypes, when it's clear beforehand
+        if (alleleCount > 0 && MathUtils.log10BinomialCoefficient(ploidy + alleleCount - 1, alleleCount - 1) > Math.log10(Integer.MAX_VALUE) + 1) {
+            throw genotypeCountOverflow(ploidy, alleleCount);
         }
+        final GenotypeTables result = ensureCapacity(alleleCount, ploidy);
+        if (result.alleleFirstGenotypeOffsetByPloidy[ploidy][alleleCount] == GENOTYPE_COUNT_OVERFLOW) {
+            throw genotypeCountOverflow(ploidy, alleleCount);
+        }
+        return result;
+    }
 
-        // At this point the tables must have at least the requested capacity, likely to be much more.
-        return new GenotypeLikelihoodCalculator(ploidy, alleleCount, alleleFirstGenotypeOffsetByPloidy, genotypeTableByPloidy);
+    private static IllegalArgumentException genotypeCountOverflow(final int ploidy, final int alleleCount) {
+        final double largeGenotypeCount = Math.pow(10, MathUtils.log10BinomialCoefficient(ploidy + alleleCount - 1, alleleCount - 1));
+        return new IllegalArgumentException(String.format("the number of genotypes is too large for ploidy %d and allele %d: approx. %.0f", ploidy, alleleCount, largeGenotypeCount));
     }
 
     /**
-     * Update of shared tables
+     * Returns the shared tables, replacing them first with larger ones if they don't support the requested maximums.
      *
      * @param requestedMaximumAllele the new requested maximum allele maximum.
      * @param requestedMaximumPloidy the new requested ploidy maximum.
      */
-    private void ensureCapacity(final int requestedMaximumAllele, final int requestedMaximumPloidy) {
-
-        final boolean needsToExpandAlleleCapacity = requestedMaximumAllele > maximumAllele;
-        final boolean needsToExpandPloidyCapacity = requestedMaximumPloidy > maximumPloidy;
-
-        // Double check with the lock on to avoid double work.
-        if (!needsToExpandAlleleCapacity && !needsToExpandPloidyCapacity) {
-            return;
+    private static GenotypeTables ensureCapacity(final int requestedMaximumAllele, final int requestedMaximumPloidy) {
+        final GenotypeTables current = tables;
+        if (current.supports(requestedMaximumPloidy, requestedMaximumAllele)) {
+            return current;
         }
 
-        final int newMaximumPloidy = Math.max(maximumPloidy, requestedMaximumPloidy);
-        final int newMaximumAllele = Math.max(maximumAllele, requestedMaximumAllele);
+        synchronized (GenotypeLikelihoodCalculators.class) {
+            // Double check with the lock on to avoid double work.
+            final GenotypeTables old = tables;
+            if (old.supports(requestedMaximumPloidy, requestedMaximumAllele)) {
+                return old;
+            }
 
-        logger.debug("Expanding capacity ploidy:" + maximumPloidy + "->" + newMaximumPloidy + " allele:" +  maximumAllele +"->" + newMaximumAllele );
+            final int newMaximumPloidy = Math.max(old.maximumPloidy, requestedMaximumPloidy);
+            final int newMaximumAllele = Math.max(old.maximumAllele, requestedMaximumAllele);
 
-        // Update tables first.
-        alleleFirstGenotypeOffsetByPloidy = buildAlleleFirstGenotypeOffsetTable(newMaximumPloidy,newMaximumAllele);
-        genotypeTableByPloidy = buildGenotypeAlleleCountsTable(newMaximumPloidy,newMaximumAllele,alleleFirstGenotypeOffsetByPloidy);
+            logger.debug("Expanding capacity ploidy:" + old.maximumPloidy + "->" + newMaximumPloidy + " allele:" +  old.maximumAllele +"->" + newMaximumAllele );
 
-        if (needsToExpandAlleleCapacity) {
-            maximumAllele = requestedMaximumAllele;
-        }
-        if (needsToExpandPloidyCapacity) {
-            maximumPloidy = requestedMaximumPloidy;
+            // the old tables are left as they are, as calculators created before may still be using them
+            final GenotypeTables expanded = new GenotypeTables(newMaximumPloidy, newMaximumAllele);
+            tables = expanded;
+            return expanded;
         }
     }
 
@@ -338,13 +416,7 @@ public final class GenotypeLikelihoodCalculators {
      * @return the number of genotypes given ploidy and allele count (0 or greater).
      */
     public int genotypeCount(final int ploidy, final int alleleCount) {
-
-        final int result = calculateGenotypeCountUsingTables(ploidy, alleleCount);
-        if (result == GENOTYPE_COUNT_OVERFLOW) {
-            final double largeGenotypeCount = Math.pow(10, MathUtils.log10BinomialCoefficient(ploidy + alleleCount - 1, alleleCount - 1));
-            throw new IllegalArgumentException(String.format("the number of genotypes is too large for ploidy %d and allele %d: approx. %.0f", ploidy, alleleCount, largeGenotypeCount));
-        }
-        return result;
+        return tablesWithGenotypeCount(ploidy, alleleCount).alleleFirstGenotypeOffsetByPloidy[ploidy][alleleCount];
     }
 
     /**
@@ -379,12 +451,4 @@ public final class GenotypeLikelihoodCalculators {
         }
         throw new GATKException("Code should never reach here.");
     }
-
-    private int calculateGenotypeCountUsingTables(int ploidy, int alleleCount) {
-        checkPloidyAndMaximumAllele(ploidy, alleleCount);
-        if (ploidy > maximumPloidy || alleleCount > maximumAllele) {
-            ensureCapacity(alleleCount, ploidy);
-        }
-        return alleleFirstGenotypeOffsetByPloidy[ploidy][alleleCount];
-    }
-}
\ No newline at end of file
+}
@@ -269,7 +269,7 @@ public final class GeneralPloidyExactAFCalculator extends ExactAFCalculator {
             final int[] currentCount = set.getACcounts().getCounts();
             final double denom =  -MathUtils.log10MultinomialCoefficient(newPloidy, currentCount);
 
-            final GenotypeLikelihoodCalculator glCalc = GL_CALCS.getInstance(ploidy2, numAlleles);
+            final GenotypeLikelihoodCalculator glCalc = GL_CALCS.getThreadLocalInstance(ploidy2, numAlleles);
             for (int PLIndex = 0; PLIndex < glCalc.genotypeCount(); PLIndex++) {
                 final GenotypeAlleleCounts alleleCounts = glCalc.genotypeAlleleCountsAt(PLIndex);
 
@@ -44,6 +44,7 @@ public final class AssemblyResultSet {
     private boolean wasTrimmed = false;
     private final CountSet kmerSizes;
     private SortedSet<VariantContext> variationEvents;
+    private final Map<Integer,Long> assemblyNanosByKmerSize;
     private boolean debug;
     private static final Logger logger = LogManager.getLogger(AssemblyResultSet.class);
 
@@ -55,6 +56,7 @@ public final class AssemblyResultSet {
         haplotypes = new LinkedHashSet<>(10);
         assemblyResultByHaplotype = new LinkedHashMap<>(10);
         kmerSizes = new CountSet(4);
+        assemblyNanosByKmerSize = new LinkedHashMap<>(4);
     }
 
     /**
@@ -93,6 +95,7 @@ public final class AssemblyResultSet {
         result.setRegionForGenotyping(trimmedAssemblyRegion);
         result.setFullReferenceWithPadding(fullReferenceWithPadding);
         result.setPaddedReferenceLoc(paddedReferenceLoc);
+        result.assemblyNanosByKmerSize.putAll(assemblyNanosByKmerSize);
         if (result.refHaplotype == null) {
             throw new IllegalStateException("missing reference haplotype in the trimmed set");
         }
@@ -440,6 +443,28 @@ public final class AssemblyResultSet {
         return assemblyResult.getThreadingGraph();
     }
 
+    /**
+     * Records the time spent building, pruning and cleaning up the graph for a kmerSize, whether or not that produced
+     * an assembly result.
+     *
+     * @param kmerSize the kmerSize attempted.
+     * @param nanos elapsed wall-clock time in nanoseconds.
+     */
+    public void addAssemblyTime(final int kmerSize, final long nanos) {
+        ParamUtils.isPositive(kmerSize, "kmerSize must be positive");
+        ParamUtils.isPositiveOrZero(nanos, "nanos cannot be negative");
+        assemblyNanosByKmerSize.merge(kmerSize, nanos, Long::sum);
+    }
+
+    /**
+     * Returns the graph construction time of each kmerSize attempted, in the order they were attempted.
+     *
+     * @return never {@code null}, an unmodifiable map from kmerSize to nanoseconds.
+     */
+    public Map<Integer,Long> getAssemblyNanosByKmerSize() {
+        return Collections.unmodifiableMap(assemblyNanosByKmerSize);
+    }
+
     /**
      * Checks whether this assembly result set was trimmed.
      *
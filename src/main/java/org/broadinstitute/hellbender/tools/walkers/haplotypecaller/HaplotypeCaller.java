@@ -4,6 +4,7 @@ import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.reference.ReferenceSequenceFile;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import org.broadinstitute.barclay.argparser.Advanced;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.ArgumentCollection;
 import org.broadinstitute.barclay.argparser.CommandLineException;
@@ -14,15 +15,19 @@ import org.broadinstitute.hellbender.cmdline.argumentcollections.ReferenceInputA
 import org.broadinstitute.hellbender.cmdline.programgroups.ShortVariantDiscoveryProgramGroup;
 import org.broadinstitute.hellbender.engine.*;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
+import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.tools.walkers.annotator.*;
 import org.broadinstitute.hellbender.utils.fasta.CachingIndexedFastaSequenceFile;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.util.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
 import org.broadinstitute.hellbender.utils.variant.HomoSapiensConstants;
 import java.nio.file.Path;
@@ -133,6 +138,9 @@ import java.nio.file.Path;
  *     is automatically set to 0. This cannot be overridden by the command line. The threshold can be set manually
  *     to the desired level in the next step of the workflow (GenotypeGVCFs)</li>
  *     <li>We recommend using a list of intervals to speed up analysis. See <a href='https://software.broadinstitute.org/gatk/documentation/article?id=4133'>this document</a> for details.</li>
+ *     <li>Assembly regions can be processed concurrently with `--threads N`. The output doesn't depend on the number of
+ *     threads, but random numbers (such as the jitter of QD values above 35) are drawn per region rather than from a
+ *     single sequence, so it can differ from a single-threaded run where they are used. This mode cannot currently be combined with `-bamout`.</li>
  * </ul>
  *
  */
@@ -142,7 +150,7 @@ import java.nio.file.Path;
         programGroup = ShortVariantDiscoveryProgramGroup.class
 )
 @DocumentedFeature
-public final class HaplotypeCaller extends AssemblyRegionWalker {
+public final class HaplotypeCaller extends AssemblyRegionWalker implements AssemblyRegionWalker.ConcurrentRegionProcessing {
 
     //NOTE: many of these settings are referenced by HaplotypeCallerSpark
     public static final int DEFAULT_MIN_ASSEMBLY_REGION_SIZE = 50;
@@ -160,10 +168,35 @@ public final class HaplotypeCaller extends AssemblyRegionWalker {
     @Argument(fullName = StandardArgumentDefinitions.OUTPUT_LONG_NAME, shortName = StandardArgumentDefinitions.OUTPUT_SHORT_NAME, doc = "File to which variants should be written")
     public String outputVCF = null;
 
+    /**
+     * Totals over the whole run of the time spent in each stage (activity evaluation, assembly and each of its kmer sizes,
+     * read likelihoods, genotyping, reference confidence and output writing) and of counters such as the number of
+     * haplotypes and PairHMM cells, written at the end of the traversal.
+     */
+    @Advanced
+    @Argument(fullName = "profiling-output", doc = "File to which per-stage timings and counters should be written at the end of the run (JSON if the name ends in .json, otherwise TSV)", optional = true)
+    public File profilingOutput = null;
+
+    /**
+     * One row per assembly region with the same timings and counters as --profiling-output, to find pathological loci.
+     * When running on more than one thread rows are written as regions complete, which is not necessarily in genomic order.
+     */
+    @Advanced
+    @Argument(fullName = "per-region-profiling-output", doc = "TSV file to which the timings and counters of every assembly region should be written", optional = true)
+    public File perRegionProfilingOutput = null;
+
     private VariantContextWriter vcfWriter;
 
     private HaplotypeCallerEngine hcEngine;
 
+    private HaplotypeCallerProfiler profiler;
+
+    /**
+     * Engines for the worker threads when running with more than one thread. HaplotypeCallerEngine is not thread-safe,
+     * so each region borrows an engine for the duration of its callRegion() and returns it afterwards.
+     */
+    private BlockingQueue<HaplotypeCallerEngine> workerEngines;
+
     @Override
     protected int defaultMinAssemblyRegionSize() { return DEFAULT_MIN_ASSEMBLY_REGION_SIZE; }
 
@@ -226,12 +259,41 @@ public final class HaplotypeCaller extends AssemblyRegionWalker {
                 hcArgs.dbsnp.dbsnp, hcArgs.comps,  hcArgs.emitReferenceConfidence != ReferenceConfidenceMode.NONE);
         hcEngine = new HaplotypeCallerEngine(hcArgs, createOutputBamIndex, createOutputBamMD5, getHeaderForReads(), referenceReader, variantAnnotatorEngine);
 
+        if ( threads > 1 ) {
+            initializeWorkerEngines();
+        }
+
+        if ( profilingOutput != null || perRegionProfilingOutput != null ) {
+            profiler = new HaplotypeCallerProfiler(perRegionProfilingOutput);
+            hcEngine.setProfiler(profiler);
+            if ( workerEngines != null ) {
+                workerEngines.forEach(engine -> engine.setProfiler(profiler));
+            }
+        }
+
         // The HC engine will make the right kind (VCF or GVCF) of writer for us
         final SAMSequenceDictionary sequenceDictionary = getHeaderForReads().getSequenceDictionary();
         vcfWriter = hcEngine.makeVCFWriter(outputVCF, sequenceDictionary, createOutputVariantIndex, createOutputVariantMD5, outputSitesOnlyVCFs);
         hcEngine.writeHeader(vcfWriter, sequenceDictionary, getDefaultToolVCFHeaderLines());
     }
 
+    /**
+     * Create one independent engine (with its own reference reader, annotation engine and likelihood calculation
+     * engine) per worker thread. The engine created in {@link #onTraversalStart} remains in use on the traversal
+     * thread for active region determination.
+     */
+    private void initializeWorkerEngines() {
+        if ( hcArgs.bamOutputPath != null ) {
+            throw new CommandLineException.BadArgumentValue(THREADS_LONG_NAME, "-bamout is not supported when running with more than one thread");
+        }
+        workerEngines = new ArrayBlockingQueue<>(threads);
+        for ( int i = 0; i < threads; i++ ) {
+            final VariantAnnotatorEngine workerAnnotatorEngine = new VariantAnnotatorEngine(makeVariantAnnotations(),
+                    hcArgs.dbsnp.dbsnp, hcArgs.comps,  hcArgs.emitReferenceConfidence != ReferenceConfidenceMode.NONE);
+            workerEngines.add(new HaplotypeCallerEngine(hcArgs, false, false, getHeaderForReads(), getReferenceReader(referenceArguments), workerAnnotatorEngine));
+        }
+    }
+
     private static CachingIndexedFastaSequenceFile getReferenceReader(ReferenceInputArgumentCollection referenceArguments) {
         final CachingIndexedFastaSequenceFile referenceReader;
         final Path reference = IOUtils.getPath(referenceArguments.getReferenceFileName());
@@ -245,7 +307,44 @@ public final class HaplotypeCaller extends AssemblyRegionWalker {
 
     @Override
     public void apply(final AssemblyRegion region, final ReferenceContext referenceContext, final FeatureContext featureContext ) {
-        hcEngine.callRegion(region, featureContext).forEach(vcfWriter::add);
+        writeCalls(hcEngine.callRegion(region, featureContext));
+    }
+
+    private void writeCalls(final List<VariantContext> calls) {
+        if ( profiler == null ) {
+            calls.forEach(vcfWriter::add);
+        } else {
+            final long startTime = System.nanoTime();
+            calls.forEach(vcfWriter::add);
+            profiler.recordOutput(calls.size(), System.nanoTime() - startTime);
+        }
+    }
+
+    @Override
+    public Runnable applyConcurrently(final AssemblyRegion region, final ReferenceContext referenceContext, final FeatureContext featureContext ) {
+        final HaplotypeCallerEngine workerEngine;
+        try {
+            workerEngine = workerEngines.take();
+        } catch ( final InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new GATKException("Interrupted while waiting for a HaplotypeCallerEngine", e);
+        }
+
+        final List<VariantContext> calls;
+        try {
+            calls = workerEngine.callRegion(region, featureContext);
+        } finally {
+            workerEngines.add(workerEngine);
+        }
+        return () -> writeCalls(calls);
+    }
+
+    @Override
+    public Object onTraversalSuccess() {
+        if ( profilingOutput != null ) {
+            profiler.writeSummary(profilingOutput);
+        }
+        return null;
     }
 
     @Override
@@ -257,5 +356,13 @@ public final class HaplotypeCaller extends AssemblyRegionWalker {
         if ( hcEngine != null ) {
             hcEngine.shutdown();
         }
+
+        if ( workerEngines != null ) {
+            workerEngines.forEach(HaplotypeCallerEngine::shutdown);
+        }
+
+        if ( profiler != null ) {
+            profiler.close();
+        }
     }
 }
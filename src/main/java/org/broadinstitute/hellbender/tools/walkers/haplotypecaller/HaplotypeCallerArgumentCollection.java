@@ -22,6 +22,7 @@ public class HaplotypeCallerArgumentCollection extends AssemblyBasedCallerArgume
 
     public static final String MAX_MNP_DISTANCE_LONG_NAME = "max-mnp-distance";
     public static final String MAX_MNP_DISTANCE_SHORT_NAME = "mnp-dist";
+    public static final String ASYNC_OUTPUT_WRITER_LONG_NAME = "async-output-writer";
 
     /**
      * You can use this argument to specify that HC should process a single sample out of a multisample BAM file. This
@@ -135,4 +136,13 @@ public class HaplotypeCallerArgumentCollection extends AssemblyBasedCallerArgume
     @Argument(fullName = MAX_MNP_DISTANCE_LONG_NAME, shortName = MAX_MNP_DISTANCE_SHORT_NAME,
             doc = "Two or more phased substitutions separated by this distance or less are merged into MNPs.", optional = true)
     public int maxMnpDistance = 0;
+
+    /**
+     * If set, the output VCF or GVCF is encoded, compressed and indexed on a background thread, so that calling does
+     * not wait on writing the output. This is most useful in GVCF mode with a block-compressed (.g.vcf.gz) output,
+     * where compression takes a large share of the run time. The output is identical either way.
+     */
+    @Advanced
+    @Argument(fullName = ASYNC_OUTPUT_WRITER_LONG_NAME, doc = "Write the output VCF or GVCF on a background thread", optional = true)
+    public boolean asyncOutputWriter = false;
 }
@@ -95,6 +95,9 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
 
     private SmithWatermanAligner aligner;
 
+    // optional, shared with the other engines of a multithreaded run
+    private HaplotypeCallerProfiler profiler = null;
+
     public static final byte MIN_TAIL_QUALITY_WITH_ERROR_CORRECTION = 6;
 
     /**
@@ -342,9 +345,11 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
         Utils.nonNull(outputVCF);
         Utils.nonNull(readsDictionary);
 
-        final List<Options> options = new ArrayList<>(2);
+        final List<Options> options = new ArrayList<>(3);
         if (createOutputVariantIndex) {options.add(Options.INDEX_ON_THE_FLY);}
         if (sitesOnlyMode) {options.add(Options.DO_NOT_WRITE_GENOTYPES);}
+        // the GVCF block merging stays on the calling thread, only the writing itself is handed off
+        if (hcArgs.asyncOutputWriter) {options.add(Options.USE_ASYNC_IO);}
 
         VariantContextWriter writer = GATKVariantContextUtils.createVCFWriter(
                 new File(outputVCF),
@@ -440,6 +445,16 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
      */
     @Override
     public ActivityProfileState isActive( final AlignmentContext context, final ReferenceContext ref, final FeatureContext features ) {
+        if ( profiler == null ) {
+            return evaluateActivity(context, ref, features);
+        }
+        final long startTime = System.nanoTime();
+        final ActivityProfileState state = evaluateActivity(context, ref, features);
+        profiler.recordActivity(System.nanoTime() - startTime);
+        return state;
+    }
+
+    private ActivityProfileState evaluateActivity( final AlignmentContext context, final ReferenceContext ref, final FeatureContext features ) {
 
         if ( hcArgs.genotypingOutputMode == GenotypingOutputMode.GENOTYPE_GIVEN_ALLELES ) {
             final VariantContext vcFromAllelesRod = GenotypingGivenAllelesUtils.composeGivenAllelesVariantContextFromRod(features, ref.getInterval(), false, hcArgs.genotypeFilteredAlleles, logger, hcArgs.alleles);
@@ -499,6 +514,16 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
      * @return List of variants discovered in the region (may be empty)
      */
     public List<VariantContext> callRegion(final AssemblyRegion region, final FeatureContext features) {
+        final HaplotypeCallerProfiler.RegionProfile profile = new HaplotypeCallerProfiler.RegionProfile(region);
+        final List<VariantContext> calls = callRegion(region, features, profile);
+        if ( profiler != null ) {
+            profile.finish(calls.size());
+            profiler.recordRegion(profile);
+        }
+        return calls;
+    }
+
+    private List<VariantContext> callRegion(final AssemblyRegion region, final FeatureContext features, final HaplotypeCallerProfiler.RegionProfile profile) {
         if ( hcArgs.justDetermineActiveRegions ) {
             // we're benchmarking ART and/or the active region determination code in the HC, just leave without doing any work
             return NO_CALLS;
@@ -515,7 +540,7 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
 
         if( ! region.isActive() ) {
             // Not active so nothing to do!
-            return referenceModelForNoVariation(region, true, VCpriors);
+            return referenceModelForNoVariation(region, true, VCpriors, profile);
         }
 
         final List<VariantContext> givenAlleles = new ArrayList<>();
@@ -524,15 +549,19 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
 
             // No alleles found in this region so nothing to do!
             if ( givenAlleles.isEmpty() ) {
-                return referenceModelForNoVariation(region, true, VCpriors);
+                return referenceModelForNoVariation(region, true, VCpriors, profile);
             }
         } else if( region.size() == 0 ) {
             // No reads here so nothing to do!
-            return referenceModelForNoVariation(region, true, VCpriors);
+            return referenceModelForNoVariation(region, true, VCpriors, profile);
         }
 
         // run the local assembler, getting back a collection of information on how we should proceed
+        final long assemblyStartTime = System.nanoTime();
         final AssemblyResultSet untrimmedAssemblyResult =  AssemblyBasedCallerUtils.assembleReads(region, givenAlleles, hcArgs, readsHeader, samplesList, logger, referenceReader, assemblyEngine, aligner);
+        profile.addStageTime(HaplotypeCallerProfiler.Stage.ASSEMBLY, System.nanoTime() - assemblyStartTime);
+        profile.setAssembly(untrimmedAssemblyResult);
+        profile.setNumHaplotypes(untrimmedAssemblyResult.getHaplotypeCount());
 
         final SortedSet<VariantContext> allVariationEvents = untrimmedAssemblyResult.getVariationEvents(hcArgs.maxMnpDistance);
         // TODO - line bellow might be unnecessary : it might be that assemblyResult will always have those alleles anyway
@@ -542,7 +571,7 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
         final AssemblyRegionTrimmer.Result trimmingResult = trimmer.trim(region, allVariationEvents);
 
         if ( ! trimmingResult.isVariationPresent() && ! hcArgs.disableOptimizations ) {
-            return referenceModelForNoVariation(region, false, VCpriors);
+            return referenceModelForNoVariation(region, false, VCpriors, profile);
         }
 
         final AssemblyResultSet assemblyResult =
@@ -561,7 +590,7 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
         // abort early if something is out of the acceptable range
         // TODO is this ever true at this point??? perhaps GGA. Need to check.
         if( ! assemblyResult.isVariationPresent() && ! hcArgs.disableOptimizations ) {
-            return referenceModelForNoVariation(region, false, VCpriors);
+            return referenceModelForNoVariation(region, false, VCpriors, profile);
         }
 
         // For sure this is not true if gVCF is on.
@@ -572,7 +601,7 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
         // TODO is this ever true at this point??? perhaps GGA. Need to check.
         if ( regionForGenotyping.size() == 0 && ! hcArgs.disableOptimizations ) {
             // no reads remain after filtering so nothing else to do!
-            return referenceModelForNoVariation(region, false, VCpriors);
+            return referenceModelForNoVariation(region, false, VCpriors, profile);
         }
 
         // evaluate each sample's reads against all haplotypes
@@ -580,12 +609,15 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
         final Map<String,List<GATKRead>> reads = splitReadsBySample(regionForGenotyping.getReads());
 
         // Calculate the likelihoods: CPU intensive part.
+        final long likelihoodsStartTime = System.nanoTime();
         final ReadLikelihoods<Haplotype> readLikelihoods =
                 likelihoodCalculationEngine.computeReadLikelihoods(assemblyResult, samplesList, reads);
 
         // Realign reads to their best haplotype.
         final Map<GATKRead, GATKRead> readRealignments = AssemblyBasedCallerUtils.realignReadsToTheirBestHaplotype(readLikelihoods, assemblyResult.getReferenceHaplotype(), assemblyResult.getPaddedReferenceLoc(), aligner);
         readLikelihoods.changeReads(readRealignments);
+        profile.addStageTime(HaplotypeCallerProfiler.Stage.LIKELIHOODS, System.nanoTime() - likelihoodsStartTime);
+        profile.addPairHMMCells(countPairHMMCells(haplotypes, reads));
 
         // Note: we used to subset down at this point to only the "best" haplotypes in all samples for genotyping, but there
         //  was a bad interaction between that selection and the marginalization that happens over each event when computing
@@ -593,6 +625,7 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
         //  haplotype containing C as reference (and vice versa).  Now this is fine if all possible haplotypes are included
         //  in the genotyping, but we lose information if we select down to a few haplotypes.  [EB]
 
+        final long genotypingStartTime = System.nanoTime();
         final HaplotypeCallerGenotypingEngine.CalledHaplotypes calledHaplotypes = genotypingEngine.assignGenotypeLikelihoods(
                 haplotypes,
                 readLikelihoods,
@@ -605,6 +638,7 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
                 emitReferenceConfidence(),
                 hcArgs.maxMnpDistance,
                 readsHeader);
+        profile.addStageTime(HaplotypeCallerProfiler.Stage.GENOTYPING, System.nanoTime() - genotypingStartTime);
 
         if ( haplotypeBAMWriter.isPresent() ) {
             final Set<Haplotype> calledHaplotypeSet = new HashSet<>(calledHaplotypes.getCalledHaplotypes());
@@ -622,22 +656,24 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
         if ( emitReferenceConfidence() ) {
             if ( !containsCalls(calledHaplotypes) ) {
                 // no called all of the potential haplotypes
-                return referenceModelForNoVariation(region, false, VCpriors);
+                return referenceModelForNoVariation(region, false, VCpriors, profile);
             }
             else {
                 final List<VariantContext> result = new LinkedList<>();
                 // output left-flanking non-variant section:
                 if (trimmingResult.hasLeftFlankingRegion()) {
-                    result.addAll(referenceModelForNoVariation(trimmingResult.nonVariantLeftFlankRegion(), false, VCpriors));
+                    result.addAll(referenceModelForNoVariation(trimmingResult.nonVariantLeftFlankRegion(), false, VCpriors, profile));
                 }
                 // output variant containing region.
+                final long refConfidenceStartTime = System.nanoTime();
                 result.addAll(referenceConfidenceModel.calculateRefConfidence(assemblyResult.getReferenceHaplotype(),
                         calledHaplotypes.getCalledHaplotypes(), assemblyResult.getPaddedReferenceLoc(), regionForGenotyping,
                         readLikelihoods, genotypingEngine.getPloidyModel(), calledHaplotypes.getCalls(), hcArgs.genotypeArgs.supportVariants != null,
                         VCpriors));
+                profile.addStageTime(HaplotypeCallerProfiler.Stage.REFERENCE_CONFIDENCE, System.nanoTime() - refConfidenceStartTime);
                 // output right-flanking non-variant section:
                 if (trimmingResult.hasRightFlankingRegion()) {
-                    result.addAll(referenceModelForNoVariation(trimmingResult.nonVariantRightFlankRegion(), false, VCpriors));
+                    result.addAll(referenceModelForNoVariation(trimmingResult.nonVariantRightFlankRegion(), false, VCpriors, profile));
                 }
                 return result;
             }
@@ -651,6 +687,15 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
         }
     }
 
+    /**
+     * @return the number of PairHMM matrix cells needed to compare every read to every haplotype
+     */
+    private static long countPairHMMCells(final List<Haplotype> haplotypes, final Map<String, List<GATKRead>> readsBySample) {
+        final long haplotypeBases = haplotypes.stream().mapToLong(Haplotype::length).sum();
+        final long readBases = readsBySample.values().stream().flatMap(List::stream).mapToLong(GATKRead::getLength).sum();
+        return haplotypeBases * readBases;
+    }
+
     private boolean containsCalls(final HaplotypeCallerGenotypingEngine.CalledHaplotypes calledHaplotypes) {
         return calledHaplotypes.getCalls().stream()
                 .flatMap(call -> call.getGenotypes().stream())
@@ -663,10 +708,13 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
      *
      * @param region the region to return a no-variation result
      * @param needsToBeFinalized should the region be finalized before computing the ref model (should be false if already done)
+     * @param profile the profile of the region being called
      * @return a list of variant contexts (can be empty) to emit for this ref region
      */
-    private List<VariantContext> referenceModelForNoVariation(final AssemblyRegion region, final boolean needsToBeFinalized, final List<VariantContext> VCpriors) {
+    private List<VariantContext> referenceModelForNoVariation(final AssemblyRegion region, final boolean needsToBeFinalized, final List<VariantContext> VCpriors,
+                                                              final HaplotypeCallerProfiler.RegionProfile profile) {
         if ( emitReferenceConfidence() ) {
+            final long startTime = System.nanoTime();
             //TODO - why the activeRegion cannot manage its own one-time finalization and filtering?
             //TODO - perhaps we can remove the last parameter of this method and the three lines bellow?
             if ( needsToBeFinalized ) {
@@ -677,9 +725,11 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
             final SimpleInterval paddedLoc = region.getExtendedSpan();
             final Haplotype refHaplotype = AssemblyBasedCallerUtils.createReferenceHaplotype(region, paddedLoc, referenceReader);
             final List<Haplotype> haplotypes = Collections.singletonList(refHaplotype);
-            return referenceConfidenceModel.calculateRefConfidence(refHaplotype, haplotypes,
+            final List<VariantContext> result = referenceConfidenceModel.calculateRefConfidence(refHaplotype, haplotypes,
                     paddedLoc, region, createDummyStratifiedReadMap(refHaplotype, samplesList, region),
                     genotypingEngine.getPloidyModel(), Collections.emptyList(), hcArgs.genotypeArgs.supportVariants != null, VCpriors);
+            profile.addStageTime(HaplotypeCallerProfiler.Stage.REFERENCE_CONFIDENCE, System.nanoTime() - startTime);
+            return result;
         }
         else {
             return NO_CALLS;
@@ -700,12 +750,24 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
                                      splitReadsBySample(samples, region.getReads()));
     }
 
+    /**
+     * Record the timings and counters of this engine in profiler
+     *
+     * @param profiler the profiler to record to, possibly shared with other engines; {@code null} to stop profiling
+     */
+    public void setProfiler(final HaplotypeCallerProfiler profiler) {
+        this.profiler = profiler;
+    }
+
     /**
      * Shutdown this HC engine, closing resources as appropriate
      */
     public void shutdown() {
         likelihoodCalculationEngine.close();
         aligner.close();
+        if ( assemblyEngine != null ) {
+            assemblyEngine.close();
+        }
         if ( haplotypeBAMWriter.isPresent() ) {
             haplotypeBAMWriter.get().close();
         }
@@ -0,0 +1,302 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
+
+import org.broadinstitute.hellbender.engine.AssemblyRegion;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.tsv.DataLine;
+import org.broadinstitute.hellbender.utils.tsv.TableColumnCollection;
+import org.broadinstitute.hellbender.utils.tsv.TableWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Per-stage timings and counters of {@link HaplotypeCallerEngine}, so that we can tell where the time of a run goes and
+ * which loci are pathological without resorting to an external profiler.
+ *
+ * <p>
+ *     Totals are accumulated over all the engines sharing a profiler (one per worker thread when running multithreaded),
+ *     and can be written at the end of the traversal with {@link #writeSummary}. If a per-region output is given, the
+ *     {@link RegionProfile} of each region is also written to it as a row as soon as the region is done. Rows come in
+ *     genomic order only when running on a single thread.
+ * </p>
+ *
+ * <p>
+ *     Recording only costs a few {@link System#nanoTime()} calls and counter updates per region, and one per locus for
+ *     the activity evaluation.
+ * </p>
+ */
+public final class HaplotypeCallerProfiler implements AutoCloseable {
+
+    /**
+     * Stages of the processing of a region, as timed by {@link HaplotypeCallerEngine#callRegion}.
+     */
+    public enum Stage {
+        /** local assembly, from read error correction to the haplotypes of all kmer sizes */
+        ASSEMBLY("assembly"),
+        /** PairHMM read likelihoods against the assembled haplotypes, and realignment to the best haplotype */
+        LIKELIHOODS("likelihoods"),
+        /** genotyping and annotation of the called events */
+        GENOTYPING("genotyping"),
+        /** reference confidence model, i.e. the records that end up in GVCF blocks */
+        REFERENCE_CONFIDENCE("reference_confidence");
+
+        private final String columnPrefix;
+
+        Stage(final String columnPrefix) {
+            this.columnPrefix = columnPrefix;
+        }
+    }
+
+    private final LongAdder activityLoci = new LongAdder();
+    private final LongAdder activityNanos = new LongAdder();
+    private final LongAdder regions = new LongAdder();
+    private final LongAdder activeRegions = new LongAdder();
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder haplotypes = new LongAdder();
+    private final LongAdder pairHMMCells = new LongAdder();
+    private final LongAdder regionNanos = new LongAdder();
+    private final LongAdder[] stageNanos = new LongAdder[Stage.values().length];
+    private final Map<Integer, LongAdder> assemblyNanosByKmerSize = new ConcurrentSkipListMap<>();
+    private final LongAdder outputRecords = new LongAdder();
+    private final LongAdder outputNanos = new LongAdder();
+
+    private final RegionProfileTableWriter regionWriter;
+
+    /**
+     * @param perRegionOutput file to write a row per region to, or {@code null} to only keep the totals
+     */
+    public HaplotypeCallerProfiler(final File perRegionOutput) {
+        for ( int i = 0; i < stageNanos.length; i++ ) {
+            stageNanos[i] = new LongAdder();
+        }
+        if ( perRegionOutput == null ) {
+            regionWriter = null;
+        } else {
+            try {
+                regionWriter = new RegionProfileTableWriter(perRegionOutput);
+            } catch ( final IOException e ) {
+                throw new UserException.CouldNotCreateOutputFile(perRegionOutput, e);
+            }
+        }
+    }
+
+    /**
+     * Record the evaluation of the activity of a single locus.
+     */
+    public void recordActivity(final long nanos) {
+        activityLoci.increment();
+        activityNanos.add(nanos);
+    }
+
+    /**
+     * Add the profile of a finished region to the totals, and write it to the per-region output if there is one.
+     */
+    public void recordRegion(final RegionProfile profile) {
+        Utils.nonNull(profile);
+        regions.increment();
+        if ( profile.active ) {
+            activeRegions.increment();
+        }
+        reads.add(profile.numReads);
+        haplotypes.add(profile.numHaplotypes);
+        pairHMMCells.add(profile.pairHMMCells);
+        regionNanos.add(profile.totalNanos);
+        for ( final Stage stage : Stage.values() ) {
+            stageNanos[stage.ordinal()].add(profile.stageNanos[stage.ordinal()]);
+        }
+        profile.assemblyNanosByKmerSize.forEach((kmerSize, nanos) ->
+                assemblyNanosByKmerSize.computeIfAbsent(kmerSize, k -> new LongAdder()).add(nanos));
+
+        if ( regionWriter != null ) {
+            synchronized ( regionWriter ) {
+                try {
+                    regionWriter.writeRecord(profile);
+                } catch ( final IOException e ) {
+                    throw new UserException.CouldNotCreateOutputFile("Could not write the profile of region " + profile.interval, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Record the writing of the output records of a region (which includes the merging of reference confidence records
+     * into GVCF blocks).
+     */
+    public void recordOutput(final int numRecords, final long nanos) {
+        outputRecords.add(numRecords);
+        outputNanos.add(nanos);
+    }
+
+    /**
+     * @return the totals recorded so far, keyed by metric name in a fixed order. Times are in seconds.
+     */
+    public Map<String, Number> getSummary() {
+        final Map<String, Number> summary = new LinkedHashMap<>();
+        summary.put("regions", regions.sum());
+        summary.put("active_regions", activeRegions.sum());
+        summary.put("reads", reads.sum());
+        summary.put("haplotypes", haplotypes.sum());
+        summary.put("pairhmm_cells", pairHMMCells.sum());
+        summary.put("output_records", outputRecords.sum());
+        summary.put("activity_loci", activityLoci.sum());
+        summary.put("activity_seconds", seconds(activityNanos.sum()));
+        summary.put("region_seconds", seconds(regionNanos.sum()));
+        for ( final Stage stage : Stage.values() ) {
+            summary.put(stage.columnPrefix + "_seconds", seconds(stageNanos[stage.ordinal()].sum()));
+        }
+        assemblyNanosByKmerSize.forEach((kmerSize, nanos) -> summary.put("assembly_k" + kmerSize + "_seconds", seconds(nanos.sum())));
+        summary.put("output_seconds", seconds(outputNanos.sum()));
+        return summary;
+    }
+
+    /**
+     * Write the totals to a file, as JSON if its name ends in .json and as a metric/value TSV table otherwise.
+     */
+    public void writeSummary(final File output) {
+        Utils.nonNull(output);
+        final Map<String, Number> summary = getSummary();
+        try ( final PrintWriter writer = new PrintWriter(output) ) {
+            if ( output.getName().endsWith(".json") ) {
+                writer.println(summary.entrySet().stream()
+                        .map(e -> "  \"" + e.getKey() + "\": " + e.getValue())
+                        .collect(Collectors.joining(",\n", "{\n", "\n}")));
+            } else {
+                writer.println("metric\tvalue");
+                summary.forEach((metric, value) -> writer.println(metric + '\t' + value));
+            }
+        } catch ( final IOException e ) {
+            throw new UserException.CouldNotCreateOutputFile(output, e);
+        }
+    }
+
+    /**
+     * Close the per-region output, if any.
+     */
+    @Override
+    public void close() {
+        if ( regionWriter != null ) {
+            try {
+                regionWriter.close();
+            } catch ( final IOException e ) {
+                throw new UserException.CouldNotCreateOutputFile("Could not close the per-region profiling output", e);
+            }
+        }
+    }
+
+    private static double seconds(final long nanos) {
+        return nanos / 1e9;
+    }
+
+    private static double milliseconds(final long nanos) {
+        return nanos / 1e6;
+    }
+
+    /**
+     * Timings and counters of the processing of a single region by {@link HaplotypeCallerEngine#callRegion}.
+     */
+    public static final class RegionProfile {
+        private final SimpleInterval interval;
+        private final boolean active;
+        private final int numReads;
+        private final long startTime;
+        private final long[] stageNanos = new long[Stage.values().length];
+        private Map<Integer, Long> assemblyNanosByKmerSize = Collections.emptyMap();
+        private int numHaplotypes;
+        private long pairHMMCells;
+        private int numOutputRecords;
+        private long totalNanos;
+
+        RegionProfile(final AssemblyRegion region) {
+            interval = region.getSpan();
+            active = region.isActive();
+            numReads = region.getReads().size();
+            startTime = System.nanoTime();
+        }
+
+        void addStageTime(final Stage stage, final long nanos) {
+            stageNanos[stage.ordinal()] += nanos;
+        }
+
+        void setAssembly(final AssemblyResultSet assemblyResult) {
+            assemblyNanosByKmerSize = assemblyResult.getAssemblyNanosByKmerSize();
+        }
+
+        void setNumHaplotypes(final int numHaplotypes) {
+            this.numHaplotypes = numHaplotypes;
+        }
+
+        void addPairHMMCells(final long cells) {
+            pairHMMCells += cells;
+        }
+
+        void finish(final int numOutputRecords) {
+            this.numOutputRecords = numOutputRecords;
+            totalNanos = System.nanoTime() - startTime;
+        }
+
+        public SimpleInterval getInterval() { return interval; }
+
+        public boolean isActive() { return active; }
+
+        public int getNumReads() { return numReads; }
+
+        public long getStageNanos(final Stage stage) { return stageNanos[stage.ordinal()]; }
+
+        /**
+         * @return the graph construction time of each kmer size attempted, in the order they were attempted
+         */
+        public Map<Integer, Long> getAssemblyNanosByKmerSize() { return assemblyNanosByKmerSize; }
+
+        public int getNumHaplotypes() { return numHaplotypes; }
+
+        /**
+         * @return the number of PairHMM matrix cells computed, that is the sum over all reads and haplotypes of the product
+         * of their lengths
+         */
+        public long getPairHMMCells() { return pairHMMCells; }
+
+        public int getNumOutputRecords() { return numOutputRecords; }
+
+        public long getTotalNanos() { return totalNanos; }
+    }
+
+    private static final class RegionProfileTableWriter extends TableWriter<RegionProfile> {
+        private static final TableColumnCollection COLUMNS = new TableColumnCollection(
+                "contig", "start", "end", "active", "reads", "haplotypes", "pairhmm_cells",
+                "assembly_ms", "assembly_ms_by_kmer_size", "likelihoods_ms", "genotyping_ms", "reference_confidence_ms",
+                "total_ms", "output_records");
+
+        private RegionProfileTableWriter(final File output) throws IOException {
+            super(output, COLUMNS);
+        }
+
+        @Override
+        protected void composeLine(final RegionProfile profile, final DataLine dataLine) {
+            dataLine.append(profile.interval.getContig())
+                    .append(profile.interval.getStart())
+                    .append(profile.interval.getEnd())
+                    .append(String.valueOf(profile.active))
+                    .append(profile.numReads)
+                    .append(profile.numHaplotypes)
+                    .append(profile.pairHMMCells)
+                    .append(milliseconds(profile.getStageNanos(Stage.ASSEMBLY)))
+                    .append(profile.assemblyNanosByKmerSize.isEmpty() ? "." : profile.assemblyNanosByKmerSize.entrySet().stream()
+                            .map(e -> e.getKey() + ":" + milliseconds(e.getValue()))
+                            .collect(Collectors.joining(",")))
+                    .append(milliseconds(profile.getStageNanos(Stage.LIKELIHOODS)))
+                    .append(milliseconds(profile.getStageNanos(Stage.GENOTYPING)))
+                    .append(milliseconds(profile.getStageNanos(Stage.REFERENCE_CONFIDENCE)))
+                    .append(milliseconds(profile.totalNanos))
+                    .append(profile.numOutputRecords);
+        }
+    }
+}
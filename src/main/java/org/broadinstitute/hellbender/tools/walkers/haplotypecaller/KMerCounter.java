@@ -16,6 +16,12 @@ public final class KMerCounter {
      * A map of for each kmer to its num occurrences in addKmers
      */
     private final Map<Kmer, CountedKmer> countsByKMer = new HashMap<>();
+
+    /**
+     * The entries of countsByKMer whose kmers can be packed, indexed by their {@link PackedKmer} code, so that
+     * counting a kmer that was already seen doesn't need a Kmer object
+     */
+    private final PackedKmerMap<CountedKmer> countsByPackedKMer = new PackedKmerMap<>();
     private final int kmerLength;
 
     /**
@@ -67,6 +73,7 @@ public final class KMerCounter {
      */
     public void clear() {
         countsByKMer.clear();
+        countsByPackedKMer.clear();
     }
 
     /**
@@ -83,10 +90,41 @@ public final class KMerCounter {
         if ( countFromMap == null ) {
             countFromMap = new CountedKmer(kmer);
             countsByKMer.put(kmer, countFromMap);
+            if ( PackedKmer.canPack(kmerLength) ) {
+                final long packed = PackedKmer.pack(kmer.bases(), 0, kmerLength);
+                if ( packed != PackedKmer.NOT_PACKABLE ) {
+                    countsByPackedKMer.put(packed, countFromMap);
+                }
+            }
         }
         countFromMap.count += kmerCount;
     }
 
+    /**
+     * Add the kmer bases[start, start + kmerLength) that occurred kmerCount times
+     *
+     * Equivalent to {@code addKmer(new Kmer(bases, start, kmerLength), kmerCount)}, but only creates a Kmer the
+     * first time a kmer is seen (or when it cannot be packed).
+     *
+     * @param bases the bases containing the kmer; must not be modified afterwards, as new kmers are backed by it
+     * @param start the start of the kmer in bases
+     * @param kmerCount the number of occurrences
+     */
+    public void addKmer(final byte[] bases, final int start, final int kmerCount) {
+        Utils.nonNull(bases, "bases cannot be null");
+        Utils.validateArg( start >= 0 && start + kmerLength <= bases.length, "kmer must be within bases");
+        Utils.validateArg( kmerCount >= 0, "kmerCount must be non-negative");
+
+        if ( PackedKmer.canPack(kmerLength) ) {
+            final CountedKmer countFromMap = countsByPackedKMer.get(PackedKmer.pack(bases, start, kmerLength));
+            if ( countFromMap != null ) {
+                countFromMap.count += kmerCount;
+                return;
+            }
+        }
+        addKmer(new Kmer(bases, start, kmerLength), kmerCount);
+    }
+
     @Override
     public String toString() {
         final StringBuilder b = new StringBuilder("KMerCounter{");
@@ -38,6 +38,16 @@ public final class LikelihoodEngineArgumentCollection implements Serializable {
     @Argument(fullName = "pair-hmm-implementation", shortName = "pairHMM", doc = "The PairHMM implementation to use for genotype likelihood calculations", optional = true)
     public PairHMM.Implementation pairHMM = PairHMM.Implementation.FASTEST_AVAILABLE;
 
+    /**
+     * Overlapping or adjacent active regions often evaluate the same reads against haplotypes with identical bases.
+     * When this is greater than zero, PairHMM results are cached across regions, keyed by the full read and haplotype
+     * content, and reused instead of being recomputed. The cache evicts least recently used results once its estimated
+     * memory footprint exceeds this size. Cache hit and miss counts are logged at the end of the run.
+     */
+    @Advanced
+    @Argument(fullName = "pair-hmm-result-cache-size", doc = "Maximum memory (in megabytes) used to cache PairHMM results across active regions; 0 disables the cache", optional = true, minValue = 0)
+    public int pairHMMResultCacheSizeMb = 0;
+
     /**
      * When calculating the likelihood of variants, we can try to correct for PCR errors that cause indel artifacts.
      * The correction is based on the reference context, and acts specifically around repetitive sequences that tend
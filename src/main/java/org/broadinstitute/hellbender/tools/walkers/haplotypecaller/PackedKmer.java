@@ -0,0 +1,108 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
+
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.Arrays;
+
+/**
+ * 2-bit encoding of short kmers into a primitive long, so that kmer-keyed lookups don't need a {@link Kmer} object
+ * per position.
+ *
+ * Only kmers of at most {@link #MAX_LENGTH} bases consisting solely of upper-case A, C, G and T can be packed. Two
+ * packable kmers of the same length have the same code if and only if their bases are identical, so the code can
+ * stand in for {@link Kmer#equals(Object)}. Any other kmer (containing Ns, lower-case or IUPAC bases) is reported as
+ * {@link #NOT_PACKABLE} and must be handled through {@link Kmer} by the caller.
+ */
+public final class PackedKmer {
+
+    /**
+     * Longest kmer that can be packed: 2 bits per base, keeping the sign bit clear so that codes are never negative.
+     */
+    public static final int MAX_LENGTH = 31;
+
+    /**
+     * Returned for kmers that cannot be packed. Never a valid code.
+     */
+    public static final long NOT_PACKABLE = -1L;
+
+    private static final byte[] BASE_CODES = new byte[256];
+    private static final byte[] CODE_BASES = {'A', 'C', 'G', 'T'};
+
+    static {
+        Arrays.fill(BASE_CODES, (byte) -1);
+        for (int i = 0; i < CODE_BASES.length; i++) {
+            BASE_CODES[CODE_BASES[i]] = (byte) i;
+        }
+    }
+
+    private PackedKmer() {}
+
+    /**
+     * @return {@code true} if kmers of this length can be packed (provided their bases allow it)
+     */
+    public static boolean canPack(final int length) {
+        return length > 0 && length <= MAX_LENGTH;
+    }
+
+    /**
+     * Pack the kmer {@code bases[start, start + length)}.
+     *
+     * @param length must satisfy {@link #canPack(int)}
+     * @return the code of the kmer, or {@link #NOT_PACKABLE} if it contains bases other than A, C, G and T
+     */
+    public static long pack(final byte[] bases, final int start, final int length) {
+        Utils.validateArg(canPack(length), "kmer length must be between 1 and MAX_LENGTH");
+        long code = 0;
+        for (int i = start; i < start + length; i++) {
+            final int baseCode = BASE_CODES[bases[i] & 0xFF];
+            if (baseCode < 0) {
+                return NOT_PACKABLE;
+            }
+            code = (code << 2) | baseCode;
+        }
+        return code;
+    }
+
+    /**
+     * Code of the kmer at {@code start}, given the code of the kmer at {@code start - 1}, so that sliding along a
+     * sequence costs a shift per position instead of a full {@link #pack}.
+     *
+     * @param previous code of the kmer at {@code start - 1}, or {@link #NOT_PACKABLE} (in which case the kmer is
+     *                 packed from scratch)
+     * @param length must satisfy {@link #canPack(int)}
+     * @return the code of the kmer {@code bases[start, start + length)}, or {@link #NOT_PACKABLE}
+     */
+    public static long roll(final long previous, final byte[] bases, final int start, final int length) {
+        if (previous == NOT_PACKABLE) {
+            return pack(bases, start, length);
+        }
+        final int baseCode = BASE_CODES[bases[start + length - 1] & 0xFF];
+        if (baseCode < 0) {
+            return NOT_PACKABLE;
+        }
+        return ((previous << 2) | baseCode) & mask(length);
+    }
+
+    /**
+     * Inverse of {@link #pack}.
+     *
+     * @param code a valid code
+     * @param length the length of the packed kmer
+     * @return a new array with the bases of the kmer
+     */
+    public static byte[] unpack(final long code, final int length) {
+        Utils.validateArg(code >= 0, () -> "invalid kmer code " + code);
+        Utils.validateArg(canPack(length), () -> "cannot unpack kmers of length " + length);
+        final byte[] result = new byte[length];
+        long remaining = code;
+        for (int i = length - 1; i >= 0; i--) {
+            result[i] = CODE_BASES[(int) (remaining & 3)];
+            remaining >>>= 2;
+        }
+        return result;
+    }
+
+    private static long mask(final int length) {
+        return (1L << (2 * length)) - 1;
+    }
+}
@@ -0,0 +1,212 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
+
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Open-addressing hash map from {@link PackedKmer} codes to values.
+ *
+ * Keys are stored in a primitive long[] probed linearly, so lookups and insertions don't allocate (the tables only
+ * grow when the map gets more than half full). Iteration order is unspecified.
+ *
+ * @param <V> the value type; {@code null} values are not allowed
+ */
+public final class PackedKmerMap<V> {
+
+    private static final long EMPTY = PackedKmer.NOT_PACKABLE;
+    private static final int DEFAULT_INITIAL_CAPACITY = 64;
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+
+    public PackedKmerMap() {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize number of entries the map should hold before it needs to grow
+     */
+    public PackedKmerMap(final int expectedSize) {
+        Utils.validateArg(expectedSize >= 0, "expectedSize must be non-negative");
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    private static int tableSizeFor(final int expectedSize) {
+        // keep the load factor at most 1/2
+        return Math.max(4, Integer.highestOneBit(Math.max(1, expectedSize) * 2 - 1) << 1);
+    }
+
+    private void allocate(final int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = new Object[capacity];
+        mask = capacity - 1;
+        size = 0;
+    }
+
+    // finalization step of MurmurHash3, so that kmers differing in a few bases spread over the whole table
+    private int slot(final long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+
+    private int indexOf(final long key) {
+        int i = slot(key);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * @param key a kmer code; {@link PackedKmer#NOT_PACKABLE} is never present
+     * @return the value for key, or {@code null} if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public V get(final long key) {
+        if (key < 0) {
+            return null;
+        }
+        final int i = indexOf(key);
+        return i < 0 ? null : (V) values[i];
+    }
+
+    public boolean containsKey(final long key) {
+        return key >= 0 && indexOf(key) >= 0;
+    }
+
+    /**
+     * Associate value with key, replacing any previous value.
+     *
+     * @param key a valid kmer code (non-negative)
+     * @param value a non-null value
+     * @return the previous value for key, or {@code null} if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V put(final long key, final V value) {
+        Utils.validateArg(key >= 0, "key must be a valid kmer code");
+        Utils.nonNull(value, "value cannot be null");
+        int i = slot(key);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                final V previous = (V) values[i];
+                values[i] = value;
+                return previous;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        return null;
+    }
+
+    /**
+     * @return the removed value, or {@code null} if key was not present
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(final long key) {
+        if (key < 0) {
+            return null;
+        }
+        int i = indexOf(key);
+        if (i < 0) {
+            return null;
+        }
+        final V previous = (V) values[i];
+        size--;
+        // backward-shift deletion: move later entries of the probe sequence into the hole so that lookups, which stop
+        // at the first empty slot, still find them
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (keys[j] == EMPTY) {
+                break;
+            }
+            final int home = slot(keys[j]);
+            // the entry at j can fill the hole at i only if its home slot is not cyclically within (i, j]
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        keys[i] = EMPTY;
+        values[i] = null;
+        return previous;
+    }
+
+    private void rehash(final int newCapacity) {
+        final long[] oldKeys = keys;
+        final Object[] oldValues = values;
+        allocate(newCapacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int j = slot(oldKeys[i]);
+                while (keys[j] != EMPTY) {
+                    j = (j + 1) & mask;
+                }
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+                size++;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Remove all entries, keeping the current capacity.
+     */
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(keys, EMPTY);
+            Arrays.fill(values, null);
+            size = 0;
+        }
+    }
+
+    /**
+     * Apply action to every value in the map, in unspecified order.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachValue(final Consumer<? super V> action) {
+        Utils.nonNull(action);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                action.accept((V) values[i]);
+            }
+        }
+    }
+
+    /**
+     * @return a new list with the values in the map, in unspecified order
+     */
+    public List<V> values() {
+        final List<V> result = new ArrayList<>(size);
+        forEachValue(result::add);
+        return result;
+    }
+}
@@ -13,6 +13,8 @@ import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.genotyper.*;
 import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
 import org.broadinstitute.hellbender.utils.pairhmm.PairHMM;
+import org.broadinstitute.hellbender.utils.pairhmm.PairHMMBatch;
+import org.broadinstitute.hellbender.utils.pairhmm.PairHMMResultCache;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.ReadUtils;
 import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
@@ -126,6 +128,28 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
                                               final double log10globalReadMismappingRate,
                                               final PCRErrorModel pcrErrorModel,
                                               final byte baseQualityScoreThreshold) {
+        this( constantGCP, arguments, hmmType, log10globalReadMismappingRate, pcrErrorModel, baseQualityScoreThreshold, 0L );
+    }
+
+    /**
+     * Create a new PairHMMLikelihoodCalculationEngine using provided parameters and hmm to do its calculations
+     *
+     * @param constantGCP the gap continuation penalty to use with the PairHMM
+     * @param hmmType the type of the HMM to use
+     * @param log10globalReadMismappingRate the global mismapping probability, in log10(prob) units.
+     * @param pcrErrorModel model to correct for PCR indel artifacts
+     * @param baseQualityScoreThreshold Base qualities below this threshold will be reduced to the minimum usable base
+     *                                  quality.
+     * @param resultCacheMaxBytes approximate memory budget for caching PairHMM results across calls to
+     *                            {@link #computeReadLikelihoods}; 0 disables the cache.
+     */
+    public PairHMMLikelihoodCalculationEngine(final byte constantGCP,
+                                              final PairHMMNativeArguments arguments,
+                                              final PairHMM.Implementation hmmType,
+                                              final double log10globalReadMismappingRate,
+                                              final PCRErrorModel pcrErrorModel,
+                                              final byte baseQualityScoreThreshold,
+                                              final long resultCacheMaxBytes) {
         Utils.nonNull(hmmType, "hmmType is null");
         Utils.nonNull(pcrErrorModel, "pcrErrorModel is null");
         if (constantGCP < 0){
@@ -134,10 +158,16 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
         if (log10globalReadMismappingRate > 0){
             throw new IllegalArgumentException("log10globalReadMismappingRate must be negative");
         }
+        if (resultCacheMaxBytes < 0){
+            throw new IllegalArgumentException("resultCacheMaxBytes must be non-negative");
+        }
         this.constantGCP = constantGCP;
         this.log10globalReadMismappingRate = log10globalReadMismappingRate;
         this.pcrErrorModel = pcrErrorModel;
         this.pairHMM = hmmType.makeNewHMM(arguments);
+        if (resultCacheMaxBytes > 0) {
+            pairHMM.setResultCache(new PairHMMResultCache(resultCacheMaxBytes));
+        }
 
         initializePCRErrorModel();
 
@@ -178,9 +208,15 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
 
         // Add likelihoods for each sample's reads to our result
         final ReadLikelihoods<Haplotype> result = new ReadLikelihoods<>(samples, haplotypes, perSampleReadList);
+        // Queue the reads of all samples so that they can be evaluated together against the shared haplotypes
+        final PairHMMBatch batch = new PairHMMBatch();
         final int sampleCount = result.numberOfSamples();
         for (int i = 0; i < sampleCount; i++) {
-            computeReadLikelihoods(result.sampleMatrix(i));
+            addReadLikelihoodsToBatch(result.sampleMatrix(i), batch);
+        }
+        pairHMM.computeLog10Likelihoods(batch);
+        for (int i = 0; i < sampleCount; i++) {
+            writeDebugLikelihoods(result.sampleMatrix(i));
         }
 
         result.normalizeLikelihoods(log10globalReadMismappingRate);
@@ -242,16 +278,14 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
         pairHMM.initialize(haplotypes, perSampleReadList, readMaxLength, haplotypeMaxLength);
     }
 
-    private void computeReadLikelihoods(final LikelihoodMatrix<Haplotype> likelihoods) {
+    private void addReadLikelihoodsToBatch(final LikelihoodMatrix<Haplotype> likelihoods, final PairHMMBatch batch) {
         // Modify the read qualities by applying the PCR error model and capping the minimum base,insertion,deletion qualities
         final List<GATKRead> processedReads = modifyReadQualities(likelihoods.reads());
 
         final Map<GATKRead, byte[]> gapContinuationPenalties = buildGapContinuationPenalties(processedReads, constantGCP);
 
-        // Run the PairHMM to calculate the log10 likelihood of each (processed) reads' arising from each haplotype
-        pairHMM.computeLog10Likelihoods(likelihoods, processedReads, gapContinuationPenalties);
-
-        writeDebugLikelihoods(likelihoods);
+        // The PairHMM will calculate the log10 likelihood of each (processed) reads' arising from each haplotype
+        batch.add(likelihoods, processedReads, gapContinuationPenalties);
     }
 
     /**
@@ -139,7 +139,7 @@ public final class ReadErrorCorrector {
 
         final byte[] readBases = read.getBases();
         for (int offset = 0; offset <= readBases.length-kmerLength; offset++ )  {
-            countsByKMer.addKmer(new Kmer(readBases,offset,kmerLength),1);
+            countsByKMer.addKmer(readBases, offset, 1);
         }
     }
 
@@ -111,6 +111,14 @@ public final class ReadThreadingAssemblerArgumentCollection implements Serializa
     @Argument(fullName="min-pruning", doc = "Minimum support to not prune paths in the graph", optional = true)
     public int minPruneFactor = 2;
 
+    /**
+     * Build, prune and search the graphs for the different kmer sizes of an assembly region concurrently on this many
+     * threads. The assembled haplotypes are identical to (and in the same order as) a single-threaded run.
+     */
+    @Advanced
+    @Argument(fullName="assembly-threads", doc="Number of threads used to assemble the kmer sizes of a region concurrently", optional = true, minValue = 1)
+    public int assemblyThreads = 1;
+
     @Hidden
     @Argument(fullName="debug-graph-transformations", doc="Write DOT formatted graph files out of the assembler for only this graph size", optional = true)
     public boolean debugGraphTransformations = false;
@@ -6,9 +6,11 @@ import htsjdk.samtools.CigarOperator;
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.variant.variantcontext.Allele;
 import htsjdk.variant.variantcontext.VariantContext;
+import org.apache.commons.lang3.tuple.Pair;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.broadinstitute.hellbender.engine.AssemblyRegion;
+import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.AssemblyResult;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.AssemblyResultSet;
@@ -26,6 +28,11 @@ import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 public final class ReadThreadingAssembler {
     private static final Logger logger = LogManager.getLogger(ReadThreadingAssembler.class);
@@ -65,6 +72,9 @@ public final class ReadThreadingAssembler {
     private File debugGraphOutputPath = null;  //Where to write debug graphs, if unset it defaults to the current working dir
     private File graphOutputPath = null;
 
+    private int numAssemblyThreads = 1;
+    private ForkJoinPool assemblyPool = null;  // created on first use and shared by all the regions this assembler handles
+
     public ReadThreadingAssembler(final int maxAllowedPathsForReadThreadingAssembler, final List<Integer> kmerSizes, final boolean dontIncreaseKmerSizesForCycles, final boolean allowNonUniqueKmersInRef, final int numPruningSamples) {
         Utils.validateArg( maxAllowedPathsForReadThreadingAssembler >= 1, "numBestHaplotypesPerGraph should be >= 1 but got " + maxAllowedPathsForReadThreadingAssembler);
         this.kmerSizes = kmerSizes;
@@ -137,7 +147,7 @@ public final class ReadThreadingAssembler {
         resultSet.add(refHaplotype);
         final Map<SeqGraph,AssemblyResult> assemblyResultByGraph = new HashMap<>();
         // create the graphs by calling our subclass assemble method
-        for ( final AssemblyResult result : assemble(correctedReads, refHaplotype, givenHaplotypes, header, aligner) ) {
+        for ( final AssemblyResult result : assemble(correctedReads, refHaplotype, givenHaplotypes, header, aligner, resultSet) ) {
             if ( result.getStatus() == AssemblyResult.Status.ASSEMBLED_SOME_VARIATION ) {
                 // do some QC on the graph
                 sanityCheckGraph(result.getGraph(), refHaplotype);
@@ -196,17 +206,16 @@ public final class ReadThreadingAssembler {
         final Collection<KBestHaplotypeFinder> finders = new ArrayList<>(graphs.size());
         int failedCigars = 0;
 
-        for( final SeqGraph graph : graphs ) {
-            final SeqVertex source = graph.getReferenceSourceVertex();
-            final SeqVertex sink = graph.getReferenceSinkVertex();
-            Utils.validateArg( source != null && sink != null, () -> "Both source and sink cannot be null but got " + source + " and sink " + sink + " for graph " + graph);
-            final KBestHaplotypeFinder haplotypeFinder = new KBestHaplotypeFinder(graph,source,sink);
-            finders.add(haplotypeFinder);
-            final Iterator<KBestHaplotype> bestHaplotypes = haplotypeFinder.iterator(numBestHaplotypesPerGraph);
-
-            while (bestHaplotypes.hasNext()) {
-                final KBestHaplotype kBestHaplotype = bestHaplotypes.next();
-                final Haplotype h = kBestHaplotype.haplotype();
+        // the path search of each graph is independent of the others, so it may run concurrently; the paths are then
+        // aligned and merged in graph order, so that the result doesn't depend on the number of threads
+        final List<SeqGraph> graphList = new ArrayList<>(graphs);
+        final List<Pair<KBestHaplotypeFinder, List<Haplotype>>> bestHaplotypesByGraph = mapInOrder(graphList, this::findBestHaplotypes);
+
+        for( int i = 0; i < graphList.size(); i++ ) {
+            final SeqGraph graph = graphList.get(i);
+            finders.add(bestHaplotypesByGraph.get(i).getLeft());
+
+            for( final Haplotype h : bestHaplotypesByGraph.get(i).getRight() ) {
                 if( !returnHaplotypes.contains(h) ) {
                     final Cigar cigar = CigarUtils.calculateCigar(refHaplotype.getBases(), h.getBases(), aligner);
 
@@ -273,6 +282,59 @@ public final class ReadThreadingAssembler {
         return new ArrayList<>(returnHaplotypes);
 
     }
+
+    /**
+     * Enumerate the best paths from the reference source to the reference sink of a graph
+     *
+     * @param graph the graph to search
+     * @return the finder used for the search and the haplotypes of the (at most numBestHaplotypesPerGraph) best paths, best first
+     */
+    private Pair<KBestHaplotypeFinder, List<Haplotype>> findBestHaplotypes(final SeqGraph graph) {
+        final SeqVertex source = graph.getReferenceSourceVertex();
+        final SeqVertex sink = graph.getReferenceSinkVertex();
+        Utils.validateArg( source != null && sink != null, () -> "Both source and sink cannot be null but got " + source + " and sink " + sink + " for graph " + graph);
+        final KBestHaplotypeFinder haplotypeFinder = new KBestHaplotypeFinder(graph,source,sink);
+        final List<Haplotype> haplotypes = new ArrayList<>();
+        haplotypeFinder.iterator(numBestHaplotypesPerGraph).forEachRemaining(kBestHaplotype -> haplotypes.add(kBestHaplotype.haplotype()));
+        return Pair.of(haplotypeFinder, haplotypes);
+    }
+
+    /**
+     * Apply task to each of the inputs, concurrently on the assembly pool if more than one assembly thread was requested.
+     * Debug graph transformations always run sequentially, because the graphs of all kmer sizes are written to the same files.
+     *
+     * @return the results of task, in the order of the inputs
+     */
+    private <T, R> List<R> mapInOrder(final List<T> inputs, final Function<T, R> task) {
+        if ( numAssemblyThreads == 1 || debugGraphTransformations || inputs.size() < 2 ) {
+            return inputs.stream().map(task).collect(Collectors.toList());
+        }
+
+        if ( assemblyPool == null ) {
+            assemblyPool = new ForkJoinPool(numAssemblyThreads);
+        }
+        final List<ForkJoinTask<R>> tasks = new ArrayList<>(inputs.size());
+        for ( final T input : inputs ) {
+            tasks.add(assemblyPool.submit(() -> task.apply(input)));
+        }
+
+        final List<R> results = new ArrayList<>(inputs.size());
+        for ( final ForkJoinTask<R> future : tasks ) {
+            try {
+                results.add(future.get());
+            } catch ( final InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                throw new GATKException("Interrupted while waiting for assembly", e);
+            } catch ( final ExecutionException e ) {
+                if ( e.getCause() instanceof RuntimeException ) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new GATKException("Assembly failed", e.getCause());
+            }
+        }
+        return results;
+    }
+
     /**
      * We use CigarOperator.N as the signal that an incomplete or too divergent bubble was found during bubble traversal
      * @param c the cigar to test
@@ -382,11 +444,33 @@ public final class ReadThreadingAssembler {
      */
     @VisibleForTesting
     List<AssemblyResult> assemble(final List<GATKRead> reads, final Haplotype refHaplotype, final List<Haplotype> givenHaplotypes, final SAMFileHeader header, final SmithWatermanAligner aligner) {
+        return assemble(reads, refHaplotype, givenHaplotypes, header, aligner, new AssemblyResultSet());
+    }
+
+    /**
+     * As {@link #assemble(List, Haplotype, List, SAMFileHeader, SmithWatermanAligner)}, recording the time spent on each
+     * kmer size in resultSet
+     */
+    private List<AssemblyResult> assemble(final List<GATKRead> reads, final Haplotype refHaplotype, final List<Haplotype> givenHaplotypes, final SAMFileHeader header, final SmithWatermanAligner aligner,
+                                          final AssemblyResultSet resultSet) {
         final List<AssemblyResult> results = new LinkedList<>();
 
-        // first, try using the requested kmer sizes
-        for ( final int kmerSize : kmerSizes ) {
-            addResult(results, createGraph(reads, refHaplotype, kmerSize, givenHaplotypes, dontIncreaseKmerSizesForCycles, allowNonUniqueKmersInRef, header, aligner));
+        // first, try using the requested kmer sizes. Every kmer size gets its own graph, so these can be built concurrently,
+        // except for the Smith-Waterman alignments of dangling branch recovery: aligners are not required to be thread-safe.
+        final SmithWatermanAligner sharedAligner = numAssemblyThreads == 1 ? aligner :
+                (ref, alt, parameters, overhangStrategy) -> {
+                    synchronized ( aligner ) {
+                        return aligner.align(ref, alt, parameters, overhangStrategy);
+                    }
+                };
+        final List<Pair<AssemblyResult, Long>> timedResults = mapInOrder(kmerSizes, kmerSize -> {
+            final long startTime = System.nanoTime();
+            final AssemblyResult result = createGraph(reads, refHaplotype, kmerSize, givenHaplotypes, dontIncreaseKmerSizesForCycles, allowNonUniqueKmersInRef, header, sharedAligner);
+            return Pair.of(result, System.nanoTime() - startTime);
+        });
+        for ( int i = 0; i < kmerSizes.size(); i++ ) {
+            resultSet.addAssemblyTime(kmerSizes.get(i), timedResults.get(i).getRight());
+            addResult(results, timedResults.get(i).getLeft());
         }
 
         // if none of those worked, iterate over larger sizes if allowed to do so
@@ -396,7 +480,9 @@ public final class ReadThreadingAssembler {
             while ( results.isEmpty() && numIterations <= MAX_KMER_ITERATIONS_TO_ATTEMPT ) {
                 // on the last attempt we will allow low complexity graphs
                 final boolean lastAttempt = numIterations == MAX_KMER_ITERATIONS_TO_ATTEMPT;
+                final long startTime = System.nanoTime();
                 addResult(results, createGraph(reads, refHaplotype, kmerSize, givenHaplotypes, lastAttempt, lastAttempt, header, aligner));
+                resultSet.addAssemblyTime(kmerSize, System.nanoTime() - startTime);
                 kmerSize += KMER_SIZE_ITERATION_INCREASE;
                 numIterations++;
             }
@@ -624,6 +710,34 @@ public final class ReadThreadingAssembler {
         this.minDanglingBranchLength = minDanglingBranchLength;
     }
 
+    public int getNumAssemblyThreads() {
+        return numAssemblyThreads;
+    }
+
+    /**
+     * Set the number of threads used to build and search the graphs of the different kmer sizes of a region concurrently.
+     * The assembly results don't depend on this setting.
+     */
+    public void setNumAssemblyThreads( final int numAssemblyThreads ) {
+        Utils.validateArg(numAssemblyThreads >= 1, () -> "numAssemblyThreads must be >= 1 but got " + numAssemblyThreads);
+        if ( assemblyPool != null && numAssemblyThreads != this.numAssemblyThreads ) {
+            assemblyPool.shutdown();
+            assemblyPool = null;
+        }
+        this.numAssemblyThreads = numAssemblyThreads;
+    }
+
+    /**
+     * Shut down the threads of the assembly pool, if any. The assembler can still be used afterwards, and creates a
+     * new pool if it needs one.
+     */
+    public void close() {
+        if ( assemblyPool != null ) {
+            assemblyPool.shutdown();
+            assemblyPool = null;
+        }
+    }
+
     @VisibleForTesting
     void setJustReturnRawGraph(final boolean justReturnRawGraph) {
         this.justReturnRawGraph = justReturnRawGraph;
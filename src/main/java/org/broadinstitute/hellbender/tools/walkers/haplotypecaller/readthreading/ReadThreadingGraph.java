@@ -9,6 +9,8 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.broadinstitute.gatk.nativebindings.smithwaterman.SWOverhangStrategy;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.Kmer;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.PackedKmer;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.PackedKmerMap;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.graphs.BaseGraph;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.graphs.KmerSearchableGraph;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.graphs.MultiSampleEdge;
@@ -61,10 +63,22 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
     private Set<Kmer> nonUniqueKmers;
 
     /**
-     * A map from kmers -> their corresponding vertex in the graph
+     * The non-unique kmers that can be packed (see {@link PackedKmer}), indexed by their code
+     */
+    private final PackedKmerMap<Kmer> packedNonUniqueKmers = new PackedKmerMap<>();
+
+    /**
+     * A map from kmers -> their corresponding vertex in the graph, for kmers that cannot be packed
      */
     private final Map<Kmer, MultiDeBruijnVertex> uniqueKmers = new LinkedHashMap<>();
 
+    /**
+     * A map from packed kmers -> their corresponding vertex in the graph. Every kmer of at most
+     * {@link PackedKmer#MAX_LENGTH} A/C/G/T bases lives here rather than in uniqueKmers, so that threading
+     * sequences through the graph doesn't need to create a Kmer object for each position.
+     */
+    private final PackedKmerMap<MultiDeBruijnVertex> packedUniqueKmers = new PackedKmerMap<>();
+
     private final boolean debugGraphTransformations;
     private final byte minBaseQualityToUseInAssembly;
 
@@ -75,6 +89,7 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
     // state variables, initialized in resetToInitialState()
     // --------------------------------------------------------------------------------
     private Kmer refSource;
+    private long packedRefSource = PackedKmer.NOT_PACKABLE;
 
     /**
      * Constructs an empty read-threading-grpah provided the kmerSize.
@@ -157,8 +172,11 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
     private void resetToInitialState() {
         pending.clear();
         nonUniqueKmers = null;
+        packedNonUniqueKmers.clear();
         uniqueKmers.clear();
+        packedUniqueKmers.clear();
         refSource = null;
+        packedRefSource = PackedKmer.NOT_PACKABLE;
         alreadyBuilt = false;
     }
 
@@ -243,6 +261,7 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
                 throw new IllegalStateException("Found two refSources! prev: " + refSource + ", new: " + startingVertex);
             }
             refSource = new Kmer(seqForKmers.sequence, seqForKmers.start, kmerSize);
+            packedRefSource = packKmer(seqForKmers.sequence, seqForKmers.start);
         }
 
         // loop over all of the bases in sequence, extending the graph by one base at each point, as appropriate
@@ -266,9 +285,10 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
             return 0;
         }
 
+        long packed = PackedKmer.NOT_PACKABLE;
         for ( int i = seqForKmers.start; i < seqForKmers.stop - kmerSize; i++ ) {
-            final Kmer kmer1 = new Kmer(seqForKmers.sequence, i, kmerSize);
-            if ( isThreadingStart(kmer1) ) {
+            packed = PackedKmer.canPack(kmerSize) ? PackedKmer.roll(packed, seqForKmers.sequence, i, kmerSize) : PackedKmer.NOT_PACKABLE;
+            if ( isThreadingStart(seqForKmers.sequence, i, packed) ) {
                 return i;
             }
         }
@@ -282,14 +302,28 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
      * @see #setThreadingStartOnlyAtExistingVertex(boolean)
      * @see #getThreadingStartOnlyAtExistingVertex()
      *
-     * @param kmer the query kmer.
+     * @param sequence the sequence containing the query kmer.
+     * @param start the start of the query kmer in sequence.
+     * @param packed the packed query kmer, as returned by {@link #packKmer}.
      * @return {@code true} if we can start thread the sequence at this kmer, {@code false} otherwise.
      */
-    private boolean isThreadingStart(final Kmer kmer) {
-        Utils.nonNull(kmer);
+    private boolean isThreadingStart(final byte[] sequence, final int start, final long packed) {
+        if ( packed != PackedKmer.NOT_PACKABLE ) {
+            return startThreadingOnlyAtExistingVertex ? packedUniqueKmers.containsKey(packed) : !packedNonUniqueKmers.containsKey(packed);
+        }
+        final Kmer kmer = new Kmer(sequence, start, kmerSize);
         return startThreadingOnlyAtExistingVertex ? uniqueKmers.containsKey(kmer) : !nonUniqueKmers.contains(kmer);
     }
 
+    /**
+     * Get the packed code of the kmer in sequence starting at start
+     *
+     * @return the code, or {@link PackedKmer#NOT_PACKABLE} if the kmer must be looked up as a {@link Kmer}
+     */
+    private long packKmer(final byte[] sequence, final int start) {
+        return PackedKmer.canPack(kmerSize) ? PackedKmer.pack(sequence, start, kmerSize) : PackedKmer.NOT_PACKABLE;
+    }
+
     /**
      * Changes the threading start location policy.
      *
@@ -312,6 +346,12 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
         // determine the kmer size we'll use, and capture the set of nonUniques for that kmer size
         final NonUniqueResult result = determineKmerSizeAndNonUniques(kmerSize, kmerSize);
         nonUniqueKmers = result.nonUniques;
+        for ( final Kmer kmer : nonUniqueKmers ) {
+            final long packed = packKmer(kmer.bases(), 0);
+            if ( packed != PackedKmer.NOT_PACKABLE ) {
+                packedNonUniqueKmers.put(packed, kmer);
+            }
+        }
 
         if ( DEBUG_NON_UNIQUE_CALC ) {
             logger.info("using " + kmerSize + " kmer size for this assembly with the following non-uniques");
@@ -338,6 +378,7 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
         for (final MultiDeBruijnVertex v : uniqueKmers.values()) {
             v.setAdditionalInfo(v.getAdditionalInfo() + '+');
         }
+        packedUniqueKmers.forEachValue(v -> v.setAdditionalInfo(v.getAdditionalInfo() + '+'));
     }
 
 
@@ -346,8 +387,12 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
         final boolean result = super.removeVertex(V);
         if (result) {
             final byte[] sequence = V.getSequence();
-            final Kmer kmer = new Kmer(sequence);
-            uniqueKmers.remove(kmer);
+            final long packed = sequence.length == kmerSize ? packKmer(sequence, 0) : PackedKmer.NOT_PACKABLE;
+            if ( packed != PackedKmer.NOT_PACKABLE ) {
+                packedUniqueKmers.remove(packed);
+            } else {
+                uniqueKmers.remove(new Kmer(sequence));
+            }
         }
         return result;
     }
@@ -372,7 +417,7 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
      * @return true if the graph has low complexity, false otherwise
      */
     public boolean isLowComplexity() {
-        return nonUniqueKmers.size() * 4 > uniqueKmers.size();
+        return nonUniqueKmers.size() * 4 > uniqueKmers.size() + packedUniqueKmers.size();
     }
 
     @Override
@@ -1016,6 +1061,10 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
      * @return a non-null collection of non-unique kmers in sequence
      */
     static Collection<Kmer> determineNonUniqueKmers(final SequenceForKmers seqForKmers, final int kmerSize) {
+        if ( PackedKmer.canPack(kmerSize) ) {
+            return determineNonUniquePackableKmers(seqForKmers, kmerSize);
+        }
+
         // count up occurrences of kmers within each read
         final Set<Kmer> allKmers = new LinkedHashSet<>();
         final List<Kmer> nonUniqueKmers = new ArrayList<>();
@@ -1029,6 +1078,46 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
         return nonUniqueKmers;
     }
 
+    /**
+     * Same as {@link #determineNonUniqueKmers} for kmer sizes that can be packed: duplicates among the packable kmers
+     * are found by sorting their codes, and only the (rare) kmers with non-ACGT bases are hashed as Kmer objects.
+     * The result holds the same kmers, with the same multiplicities, but not necessarily in the same order.
+     */
+    private static Collection<Kmer> determineNonUniquePackableKmers(final SequenceForKmers seqForKmers, final int kmerSize) {
+        final int stopPosition = seqForKmers.stop - kmerSize;
+        if ( stopPosition < 0 ) {
+            return Collections.emptyList();
+        }
+
+        final List<Kmer> nonUniqueKmers = new ArrayList<>();
+        final long[] codes = new long[stopPosition + 1];
+        int numberOfCodes = 0;
+        Set<Kmer> unpackableKmers = null;
+        long packed = PackedKmer.NOT_PACKABLE;
+        for (int i = 0; i <= stopPosition; i++) {
+            packed = PackedKmer.roll(packed, seqForKmers.sequence, i, kmerSize);
+            if ( packed != PackedKmer.NOT_PACKABLE ) {
+                codes[numberOfCodes++] = packed;
+            } else {
+                if ( unpackableKmers == null ) {
+                    unpackableKmers = new HashSet<>();
+                }
+                final Kmer kmer = new Kmer(seqForKmers.sequence, i, kmerSize);
+                if ( !unpackableKmers.add(kmer) ) {
+                    nonUniqueKmers.add(kmer);
+                }
+            }
+        }
+
+        Arrays.sort(codes, 0, numberOfCodes);
+        for (int i = 1; i < numberOfCodes; i++) {
+            if ( codes[i] == codes[i - 1] ) {
+                nonUniqueKmers.add(new Kmer(PackedKmer.unpack(codes[i], kmerSize)));
+            }
+        }
+        return nonUniqueKmers;
+    }
+
     @Override
     public SeqGraph toSequenceGraph() {
         buildGraphIfNecessary();
@@ -1061,18 +1150,24 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
      * @return a non-null vertex
      */
     private MultiDeBruijnVertex getOrCreateKmerVertex(final byte[] sequence, final int start) {
-        final Kmer kmer = new Kmer(sequence, start, kmerSize);
-        final MultiDeBruijnVertex vertex = getUniqueKmerVertex(kmer, true);
-        return ( vertex != null ) ? vertex : createVertex(kmer);
+        final long packed = packKmer(sequence, start);
+        final MultiDeBruijnVertex vertex = getUniqueKmerVertex(sequence, start, packed, true);
+        return ( vertex != null ) ? vertex : createVertex(sequence, start, packed);
     }
 
     /**
-     * Get the unique vertex for kmer, or null if not possible.
+     * Get the unique vertex for the kmer in sequence starting at start, or null if not possible.
      *
+     * @param packed the packed kmer, as returned by {@link #packKmer}
      * @param allowRefSource if true, we will allow kmer to match the reference source vertex
      * @return a vertex for kmer, or null if it's not unique
      */
-    private MultiDeBruijnVertex getUniqueKmerVertex(final Kmer kmer, final boolean allowRefSource) {
+    private MultiDeBruijnVertex getUniqueKmerVertex(final byte[] sequence, final int start, final long packed, final boolean allowRefSource) {
+        if ( packed != PackedKmer.NOT_PACKABLE ) {
+            return ! allowRefSource && packed == packedRefSource ? null : packedUniqueKmers.get(packed);
+        }
+
+        final Kmer kmer = new Kmer(sequence, start, kmerSize);
         if ( ! allowRefSource && kmer.equals(refSource) ) {
             return null;
         }
@@ -1086,11 +1181,13 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
      *
      * kmer must not have a entry in unique kmers, or an error will be thrown
      *
-     * @param kmer the kmer we want to create a vertex for
+     * @param sequence the sequence containing the kmer we want to create a vertex for
+     * @param start the start of the kmer in sequence
+     * @param packed the packed kmer, as returned by {@link #packKmer}
      * @return the non-null created vertex
      */
-    private MultiDeBruijnVertex createVertex(final Kmer kmer) {
-        final MultiDeBruijnVertex newVertex = new MultiDeBruijnVertex(kmer.bases());
+    private MultiDeBruijnVertex createVertex(final byte[] sequence, final int start, final long packed) {
+        final MultiDeBruijnVertex newVertex = new MultiDeBruijnVertex(Arrays.copyOfRange(sequence, start, start + kmerSize));
         final int prevSize = vertexSet().size();
         addVertex(newVertex);
 
@@ -1100,9 +1197,17 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
         }
 
         // add the vertex to the unique kmer map, if it is in fact unique
-        if ( ! nonUniqueKmers.contains(kmer) && ! uniqueKmers.containsKey(kmer) ) // TODO -- not sure this last test is necessary
-        {
-            uniqueKmers.put(kmer, newVertex);
+        if ( packed != PackedKmer.NOT_PACKABLE ) {
+            if ( ! packedNonUniqueKmers.containsKey(packed) && ! packedUniqueKmers.containsKey(packed) ) // TODO -- not sure this last test is necessary
+            {
+                packedUniqueKmers.put(packed, newVertex);
+            }
+        } else {
+            final Kmer kmer = new Kmer(newVertex.getSequence());
+            if ( ! nonUniqueKmers.contains(kmer) && ! uniqueKmers.containsKey(kmer) ) // TODO -- not sure this last test is necessary
+            {
+                uniqueKmers.put(kmer, newVertex);
+            }
         }
 
         return newVertex;
@@ -1133,15 +1238,15 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
         }
 
         // none of our outgoing edges had our unique suffix base, so we check for an opportunity to merge back in
-        final Kmer kmer = new Kmer(sequence, kmerStart, kmerSize);
-        final MultiDeBruijnVertex uniqueMergeVertex = getUniqueKmerVertex(kmer, false);
+        final long packed = packKmer(sequence, kmerStart);
+        final MultiDeBruijnVertex uniqueMergeVertex = getUniqueKmerVertex(sequence, kmerStart, packed, false);
 
         if ( isRef && uniqueMergeVertex != null ) {
             throw new IllegalStateException("Found a unique vertex to merge into the reference graph " + prevVertex + " -> " + uniqueMergeVertex);
         }
 
         // either use our unique merge vertex, or create a new one in the chain
-        final MultiDeBruijnVertex nextVertex = uniqueMergeVertex == null ? createVertex(kmer) : uniqueMergeVertex;
+        final MultiDeBruijnVertex nextVertex = uniqueMergeVertex == null ? createVertex(sequence, kmerStart, packed) : uniqueMergeVertex;
         addEdge(prevVertex, nextVertex, ((MyEdgeFactory)getEdgeFactory()).createEdge(isRef, count));
         return nextVertex;
     }
@@ -1207,7 +1312,8 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
 
     @Override
     public MultiDeBruijnVertex findKmer(final Kmer k) {
-        return uniqueKmers.get(k);
+        final long packed = k.length() == kmerSize ? packKmer(k.bases(), 0) : PackedKmer.NOT_PACKABLE;
+        return packed != PackedKmer.NOT_PACKABLE ? packedUniqueKmers.get(packed) : uniqueKmers.get(k);
     }
 
 
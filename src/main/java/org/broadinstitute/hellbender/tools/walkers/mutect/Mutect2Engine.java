@@ -244,6 +244,7 @@ public final class Mutect2Engine implements AssemblyRegionEvaluator {
     public void shutdown() {
         likelihoodCalculationEngine.close();
         aligner.close();
+        assemblyEngine.close();
         haplotypeBAMWriter.ifPresent(writer -> writer.close());
     }
 
@@ -10,6 +10,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import Jama.Matrix;
 
@@ -59,7 +60,10 @@ class GaussianMixtureModel {
 
     }
 
-    public void initializeRandomModel( final List<VariantDatum> data, final int numKMeansIterations ) {
+    /**
+     * @param pool pool on which to process blocks of the data concurrently, or null to process the data on the calling thread
+     */
+    public void initializeRandomModel( final List<VariantDatum> data, final int numKMeansIterations, final ForkJoinPool pool ) {
 
         // initialize random Gaussian means // BUGBUG: this is broken up this way to match the order of calls to rand.nextDouble() in the old code
         for( final MultivariateGaussian gaussian : gaussians ) {
@@ -68,7 +72,7 @@ class GaussianMixtureModel {
 
         // initialize means using K-means algorithm
         logger.info( "Initializing model with " + numKMeansIterations + " k-means iterations..." );
-        initializeMeansUsingKMeans( data, numKMeansIterations );
+        initializeMeansUsingKMeans( data, numKMeansIterations, pool );
 
         // initialize uniform mixture coefficients, random covariance matrices, and initial hyperparameters
         for( final MultivariateGaussian gaussian : gaussians ) {
@@ -81,23 +85,18 @@ class GaussianMixtureModel {
         }
     }
 
-    private void initializeMeansUsingKMeans( final List<VariantDatum> data, final int numIterations ) {
+    private void initializeMeansUsingKMeans( final List<VariantDatum> data, final int numIterations, final ForkJoinPool pool ) {
 
         int ttt = 0;
         while( ttt++ < numIterations ) {
             // E step: assign each variant to the nearest cluster
-            for( final VariantDatum datum : data ) {
-                double minDistance = Double.MAX_VALUE;
-                MultivariateGaussian minGaussian = null;
-                datum.assignment = minGaussian;
-                for( final MultivariateGaussian gaussian : gaussians ) {
-                    final double dist = gaussian.calculateDistanceFromMeanSquared( datum );
-                    if( dist < minDistance ) {
-                        minDistance = dist;
-                        minGaussian = gaussian;
-                    }
-                }
-                datum.assignment = minGaussian;
+            if( pool == null ) {
+                data.forEach(this::assignToNearestGaussian);
+            } else {
+                VariantDataBlocks.forEach(pool, data.size(), (from, to) -> {
+                    data.subList(from, to).forEach(this::assignToNearestGaussian);
+                    return null;
+                });
             }
 
             // M step: update gaussian means based on assigned variants
@@ -120,32 +119,70 @@ class GaussianMixtureModel {
         }
     }
 
-    public void expectationStep( final List<VariantDatum> data ) {
+    private void assignToNearestGaussian( final VariantDatum datum ) {
+        double minDistance = Double.MAX_VALUE;
+        MultivariateGaussian minGaussian = null;
+        datum.assignment = minGaussian;
+        for( final MultivariateGaussian gaussian : gaussians ) {
+            final double dist = gaussian.calculateDistanceFromMeanSquared( datum );
+            if( dist < minDistance ) {
+                minDistance = dist;
+                minGaussian = gaussian;
+            }
+        }
+        datum.assignment = minGaussian;
+    }
+
+    /**
+     * @param pool pool on which to process blocks of the data concurrently, or null to process the data on the calling thread
+     */
+    public void expectationStep( final List<VariantDatum> data, final ForkJoinPool pool ) {
 
         for( final MultivariateGaussian gaussian : gaussians ) {
             gaussian.precomputeDenominatorForVariationalBayes( getSumHyperParameterLambda() );
         }
 
-        for( final VariantDatum datum : data ) {
+        if( pool == null ) {
+            assignPVarInGaussians( data, 0, data.size() );
+        } else {
+            VariantDataBlocks.forEach(pool, data.size(), (from, to) -> {
+                assignPVarInGaussians( data, from, to );
+                return null;
+            });
+        }
+    }
+
+    private void assignPVarInGaussians( final List<VariantDatum> data, final int from, final int to ) {
+        for( int datumIndex = from; datumIndex < to; datumIndex++ ) {
+            final VariantDatum datum = data.get(datumIndex);
             final double[] pVarInGaussianLog10 = gaussians.stream().mapToDouble(g -> g.evaluateDatumLog10(datum)).toArray();
             final double[] pVarInGaussianNormalized = MathUtils.normalizeLog10DeleteMePlease( pVarInGaussianLog10, false);
             int gaussianIndex = 0;
             for( final MultivariateGaussian gaussian : gaussians ) {
-                gaussian.assignPVarInGaussian( pVarInGaussianNormalized[gaussianIndex++] );
+                gaussian.assignPVarInGaussian( datumIndex, pVarInGaussianNormalized[gaussianIndex++] );
             }
         }
     }
 
-    public void maximizationStep( final List<VariantDatum> data ) {
-        gaussians.forEach(g -> g.maximizeGaussian( data, empiricalMu, empiricalSigma, shrinkage, dirichletParameter, priorCounts));
+    /**
+     * The sums over the data are reduced block by block when a pool is given, so the model can differ from the one
+     * computed on the calling thread by floating-point rounding, but not with the number of threads of the pool.
+     *
+     * @param pool pool on which to process blocks of the data concurrently, or null to process the data on the calling thread
+     */
+    public void maximizationStep( final List<VariantDatum> data, final ForkJoinPool pool ) {
+        gaussians.forEach(g -> g.maximizeGaussian( data, empiricalMu, empiricalSigma, shrinkage, dirichletParameter, priorCounts, pool));
     }
 
     private double getSumHyperParameterLambda() {
         return gaussians.stream().mapToDouble(g -> g.hyperParameter_lambda).sum();
     }
 
-    public void evaluateFinalModelParameters( final List<VariantDatum> data ) {
-        gaussians.forEach(g -> g.evaluateFinalModelParameters(data));
+    /**
+     * @param pool pool on which to process blocks of the data concurrently, or null to process the data on the calling thread
+     */
+    public void evaluateFinalModelParameters( final List<VariantDatum> data, final ForkJoinPool pool ) {
+        gaussians.forEach(g -> g.evaluateFinalModelParameters(data, pool));
         normalizePMixtureLog10();
     }
 
@@ -190,12 +227,23 @@ class GaussianMixtureModel {
         return MathUtils.log10sumLog10(values);
     }
 
-    public double evaluateDatum( final VariantDatum datum ) {
+    /**
+     * @return true if the datum is missing annotations, in which case {@link #evaluateDatum} draws random values for
+     * them and must be called in data order for the results to be reproducible
+     */
+    public static boolean hasMissingAnnotations( final VariantDatum datum ) {
         for( final boolean isNull : datum.isNull ) {
             if( isNull ) {
-                return evaluateDatumMarginalized( datum );
+                return true;
             }
         }
+        return false;
+    }
+
+    public double evaluateDatum( final VariantDatum datum ) {
+        if( hasMissingAnnotations( datum ) ) {
+            return evaluateDatumMarginalized( datum );
+        }
         // Fill an array with the log10 probability coming from each Gaussian and then use MathUtils to sum them up correctly
         final double[] pVarInGaussianLog10 = new double[gaussians.size()];
         int gaussianIndex = 0;
@@ -9,6 +9,7 @@ import org.broadinstitute.hellbender.utils.collections.ExpandingArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 import Jama.Matrix;
 
@@ -23,13 +24,11 @@ class MultivariateGaussian {
     private double cachedDenomLog10;
     private Matrix cachedSigmaInverse;
     final private double[] pVarInGaussian;
-    int pVarInGaussianIndex;
 
     public MultivariateGaussian( final int numVariants, final int numAnnotations  ) {
         mu = new double[numAnnotations];
         sigma = new Matrix(numAnnotations, numAnnotations);
         pVarInGaussian = new double[numVariants];
-        pVarInGaussianIndex = 0;
     }
 
     public void zeroOutMu() {
@@ -140,28 +139,26 @@ class MultivariateGaussian {
         return (( -0.5 * sumKernel ) / Math.log(10.0)) + cachedDenomLog10; // This is the definition of a Gaussian PDF Log10
     }
 
-    public void assignPVarInGaussian( final double pVar ) {
-        pVarInGaussian[pVarInGaussianIndex++] = pVar;
+    public void assignPVarInGaussian( final int datumIndex, final double pVar ) {
+        pVarInGaussian[datumIndex] = pVar;
     }
 
     public void resetPVarInGaussian() {
         Arrays.fill(pVarInGaussian, 0.0);
-        pVarInGaussianIndex = 0;
     }
 
+    /**
+     * @param pool pool on which to sum over blocks of the data concurrently, or null to sum over the data on the calling thread
+     */
     public void maximizeGaussian(final List<VariantDatum> data, final double[] empiricalMu, final Matrix empiricalSigma,
-                                 final double SHRINKAGE, final double DIRICHLET_PARAMETER, final double DEGREES_OF_FREEDOM ) {
+                                 final double SHRINKAGE, final double DIRICHLET_PARAMETER, final double DEGREES_OF_FREEDOM,
+                                 final ForkJoinPool pool ) {
         sumProb = 1E-10;
         final Matrix wishart = new Matrix(mu.length, mu.length);
         zeroOutMu();
         zeroOutSigma();
 
-        int datumIndex = 0;
-        for( final VariantDatum datum : data ) {
-            final double prob = pVarInGaussian[datumIndex++];
-            sumProb += prob;
-            incrementMu( datum, prob );
-        }
+        incrementSumProbAndMu( data, pool );
         divideEqualsMu( sumProb );
 
         final double shrinkageFactor = (SHRINKAGE * sumProb) / (SHRINKAGE + sumProb);
@@ -172,18 +169,7 @@ class MultivariateGaussian {
             }
         }
 
-        datumIndex = 0;
-        final Matrix pVarSigma = new Matrix(mu.length, mu.length);
-        for( final VariantDatum datum : data ) {
-            final double prob = pVarInGaussian[datumIndex++];
-            for( int iii = 0; iii < mu.length; iii++ ) {
-                double deltaMu = prob * (datum.annotations[iii]-mu[iii]);
-                for( int jjj = 0; jjj < mu.length; jjj++ ) {
-                    pVarSigma.set(iii, jjj, deltaMu * (datum.annotations[jjj]-mu[jjj]));
-                }
-            }
-            sigma.plusEquals( pVarSigma );
-        }
+        incrementSigma( data, pool );
 
         sigma.plusEquals( empiricalSigma );
         sigma.plusEquals( wishart );
@@ -199,32 +185,90 @@ class MultivariateGaussian {
         resetPVarInGaussian(); // clean up some memory
     }
 
-    public void evaluateFinalModelParameters( final List<VariantDatum> data ) {
+    /**
+     * @param pool pool on which to sum over blocks of the data concurrently, or null to sum over the data on the calling thread
+     */
+    public void evaluateFinalModelParameters( final List<VariantDatum> data, final ForkJoinPool pool ) {
         sumProb = 0.0;
         zeroOutMu();
         zeroOutSigma();
 
-        int datumIndex = 0;
-        for( final VariantDatum datum : data ) {
-            final double prob = pVarInGaussian[datumIndex++];
-            sumProb += prob;
-            incrementMu( datum, prob );
-        }
+        incrementSumProbAndMu( data, pool );
         divideEqualsMu( sumProb );
 
-        datumIndex = 0;
-        final Matrix pVarSigma = new Matrix(mu.length, mu.length);
-        for( final VariantDatum datum : data ) {
-            final double prob = pVarInGaussian[datumIndex++];
-            for( int iii = 0; iii < mu.length; iii++ ) {
+        incrementSigma( data, pool );
+        sigma.timesEquals( 1.0 / sumProb );
+
+        resetPVarInGaussian(); // clean up some memory
+    }
+
+    // adds the probabilities of the data to sumProb, and the data weighted by these probabilities to mu
+    private void incrementSumProbAndMu( final List<VariantDatum> data, final ForkJoinPool pool ) {
+        if ( pool == null ) {
+            int datumIndex = 0;
+            for( final VariantDatum datum : data ) {
+                final double prob = pVarInGaussian[datumIndex++];
+                sumProb += prob;
+                incrementMu( datum, prob );
+            }
+            return;
+        }
+
+        // the sums of each block are in the first mu.length elements, and its sum of probabilities in the last one
+        final List<double[]> blockSums = VariantDataBlocks.mapInOrder(pool, data.size(), (from, to) -> {
+            final double[] sums = new double[mu.length + 1];
+            for( int datumIndex = from; datumIndex < to; datumIndex++ ) {
+                final double prob = pVarInGaussian[datumIndex];
+                final double[] annotations = data.get(datumIndex).annotations;
                 for( int jjj = 0; jjj < mu.length; jjj++ ) {
-                    pVarSigma.set(iii, jjj, prob * (datum.annotations[iii]-mu[iii]) * (datum.annotations[jjj]-mu[jjj]));
+                    sums[jjj] += prob * annotations[jjj];
                 }
+                sums[mu.length] += prob;
+            }
+            return sums;
+        });
+        for( final double[] sums : blockSums ) {
+            for( int jjj = 0; jjj < mu.length; jjj++ ) {
+                mu[jjj] += sums[jjj];
             }
-            sigma.plusEquals( pVarSigma );
+            sumProb += sums[mu.length];
         }
-        sigma.timesEquals( 1.0 / sumProb );
+    }
 
-        resetPVarInGaussian(); // clean up some memory
+    // adds the weighted scatter matrix of the data around mu to sigma
+    private void incrementSigma( final List<VariantDatum> data, final ForkJoinPool pool ) {
+        if ( pool == null ) {
+            int datumIndex = 0;
+            final Matrix pVarSigma = new Matrix(mu.length, mu.length);
+            for( final VariantDatum datum : data ) {
+                final double prob = pVarInGaussian[datumIndex++];
+                for( int iii = 0; iii < mu.length; iii++ ) {
+                    double deltaMu = prob * (datum.annotations[iii]-mu[iii]);
+                    for( int jjj = 0; jjj < mu.length; jjj++ ) {
+                        pVarSigma.set(iii, jjj, deltaMu * (datum.annotations[jjj]-mu[jjj]));
+                    }
+                }
+                sigma.plusEquals( pVarSigma );
+            }
+            return;
+        }
+
+        final List<double[][]> blockSums = VariantDataBlocks.mapInOrder(pool, data.size(), (from, to) -> {
+            final double[][] sums = new double[mu.length][mu.length];
+            for( int datumIndex = from; datumIndex < to; datumIndex++ ) {
+                final double prob = pVarInGaussian[datumIndex];
+                final double[] annotations = data.get(datumIndex).annotations;
+                for( int iii = 0; iii < mu.length; iii++ ) {
+                    final double deltaMu = prob * (annotations[iii]-mu[iii]);
+                    for( int jjj = 0; jjj < mu.length; jjj++ ) {
+                        sums[iii][jjj] += deltaMu * (annotations[jjj]-mu[jjj]);
+                    }
+                }
+            }
+            return sums;
+        });
+        for( final double[][] sums : blockSums ) {
+            sigma.plusEquals( new Matrix(sums, mu.length, mu.length) );
+        }
     }
-}
\ No newline at end of file
+}
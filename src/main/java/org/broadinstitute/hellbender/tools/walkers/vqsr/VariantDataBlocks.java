@@ -0,0 +1,67 @@
+package org.broadinstitute.hellbender.tools.walkers.vqsr;
+
+import org.broadinstitute.hellbender.exceptions.GATKException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/*
+ * Splits the data of a model into blocks of consecutive data that are processed concurrently on a ForkJoinPool.
+ * The blocks have a fixed size, so that the partial results of the blocks, combined in block order, don't depend
+ * on the number of threads.
+ * Package private because it's not usable outside of VQSR.
+ */
+final class VariantDataBlocks {
+
+    static final int DATA_PER_BLOCK = 4096;
+
+    /**
+     * Computes the partial result of the data in [from, to)
+     */
+    @FunctionalInterface
+    interface BlockTask<R> {
+        R apply( final int from, final int to );
+    }
+
+    private VariantDataBlocks() {}
+
+    /**
+     * Apply task to each block of the numData data concurrently on the pool.
+     *
+     * @return the results of task, in block order
+     */
+    static <R> List<R> mapInOrder( final ForkJoinPool pool, final int numData, final BlockTask<R> task ) {
+        final List<ForkJoinTask<R>> tasks = new ArrayList<>(numData / DATA_PER_BLOCK + 1);
+        for ( int from = 0; from < numData; from += DATA_PER_BLOCK ) {
+            final int blockStart = from;
+            final int blockEnd = Math.min(numData, from + DATA_PER_BLOCK);
+            tasks.add(pool.submit(() -> task.apply(blockStart, blockEnd)));
+        }
+
+        final List<R> results = new ArrayList<>(tasks.size());
+        for ( final ForkJoinTask<R> future : tasks ) {
+            try {
+                results.add(future.get());
+            } catch ( final InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                throw new GATKException("Interrupted while waiting for the variant data to be processed", e);
+            } catch ( final ExecutionException e ) {
+                if ( e.getCause() instanceof RuntimeException ) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new GATKException("Processing the variant data failed", e.getCause());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Run task on each block of the numData data concurrently on the pool, and wait for all of them to finish.
+     */
+    static void forEach( final ForkJoinPool pool, final int numData, final BlockTask<Void> task ) {
+        mapInOrder(pool, numData, task);
+    }
+}
@@ -165,6 +165,8 @@ public class VariantRecalibrator extends MultiVariantWalker {
 
     private static final String PLOT_TRANCHES_RSCRIPT = "plot_Tranches.R";
 
+    public static final String THREADS_LONG_NAME = "threads";
+
     @ArgumentCollection
     final private VariantRecalibratorArgumentCollection VRAC = new VariantRecalibratorArgumentCollection();
 
@@ -360,6 +362,17 @@ public class VariantRecalibrator extends MultiVariantWalker {
     @VisibleForTesting
     protected int max_attempts = 1;
 
+    /**
+     * Variants are still read on a single thread, but the Gaussian mixture models are fit (the k-means initialization
+     * and the expectation and maximization steps) and the variants scored on this many threads, each handling blocks
+     * of consecutive variants. The scores of the variants under a given model are the same as in a single-threaded run,
+     * but the models themselves can differ from single-threaded ones by floating-point rounding, because their sums
+     * over the variants are accumulated block by block.
+     */
+    @Advanced
+    @Argument(fullName = THREADS_LONG_NAME, doc = "Number of threads to use for building and evaluating the models", optional = true, minValue = 1)
+    private int threads = 1;
+
     /////////////////////////////
     // Debug Arguments
     /////////////////////////////
@@ -400,6 +413,7 @@ public class VariantRecalibrator extends MultiVariantWalker {
     public void onTraversalStart() {
 
         dataManager = new VariantDataManager( new ArrayList<>(USE_ANNOTATIONS), VRAC );
+        engine.setNumThreads( threads );
 
         if (RSCRIPT_FILE != null) {
             rScriptExecutor = new RScriptExecutor();
@@ -720,6 +734,7 @@ public class VariantRecalibrator extends MultiVariantWalker {
 
     @Override
     public void closeTool(){
+        engine.close();
         if (recalWriter != null) {
             recalWriter.close();
         }
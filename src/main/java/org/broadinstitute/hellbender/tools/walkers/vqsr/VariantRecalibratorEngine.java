@@ -6,6 +6,7 @@ import org.apache.logging.log4j.LogManager;
 import org.broadinstitute.hellbender.utils.Utils;
 
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 public class VariantRecalibratorEngine {
 
@@ -21,6 +22,9 @@ public class VariantRecalibratorEngine {
 
     private final static double MIN_PROB_CONVERGENCE = 2E-3;
 
+    private int numThreads = 1;
+    private ForkJoinPool pool = null;  // created on first use and shared by all the models this engine builds and evaluates
+
     /////////////////////////////
     // Public Methods to interface with the Engine
     /////////////////////////////
@@ -29,6 +33,45 @@ public class VariantRecalibratorEngine {
         this.VRAC = VRAC;
     }
 
+    /**
+     * Set the number of threads used to build and evaluate the models on blocks of the data concurrently.
+     * The evaluation of the data doesn't depend on this setting, see {@link GaussianMixtureModel#maximizationStep}
+     * for the models.
+     */
+    public void setNumThreads( final int numThreads ) {
+        Utils.validateArg(numThreads >= 1, () -> "numThreads must be >= 1 but got " + numThreads);
+        if ( pool != null && numThreads != this.numThreads ) {
+            pool.shutdown();
+            pool = null;
+        }
+        this.numThreads = numThreads;
+    }
+
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    /**
+     * Shut down the threads of this engine, if any.
+     */
+    public void close() {
+        if ( pool != null ) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    // the pool to hand to the model, or null when the data are to be processed on the calling thread
+    private ForkJoinPool getPool() {
+        if ( numThreads == 1 ) {
+            return null;
+        }
+        if ( pool == null ) {
+            pool = new ForkJoinPool(numThreads);
+        }
+        return pool;
+    }
+
     public GaussianMixtureModel generateModel(final List<VariantDatum> data, final int maxGaussians ) {
         if( data == null || data.isEmpty() ) {
             throw new IllegalArgumentException("No data found.");
@@ -60,8 +103,10 @@ public class VariantRecalibratorEngine {
         }
 
         logger.info("Evaluating full set of " + data.size() + " variants...");
-        for( final VariantDatum datum : data ) {
-            final double thisLod = evaluateDatum( datum, model );
+        final double[] lods = evaluateCompleteDataConcurrently( data, model );
+        for( int datumIndex = 0; datumIndex < data.size(); datumIndex++ ) {
+            final VariantDatum datum = data.get(datumIndex);
+            final double thisLod = (lods == null || GaussianMixtureModel.hasMissingAnnotations(datum)) ? evaluateDatum( datum, model ) : lods[datumIndex];
             if( Double.isNaN(thisLod) ) {
                 logger.warn("Evaluate datum returned a NaN.");
                 model.failedToConverge = true;
@@ -77,7 +122,20 @@ public class VariantRecalibratorEngine {
     }
 
     public void calculateWorstPerformingAnnotation( final List<VariantDatum> data, final GaussianMixtureModel goodModel, final GaussianMixtureModel badModel ) {
-        for( final VariantDatum datum : data ) {
+        final ForkJoinPool pool = getPool();
+        if( pool == null ) {
+            calculateWorstPerformingAnnotation( data, 0, data.size(), goodModel, badModel );
+        } else {
+            VariantDataBlocks.forEach(pool, data.size(), (from, to) -> {
+                calculateWorstPerformingAnnotation( data, from, to, goodModel, badModel );
+                return null;
+            });
+        }
+    }
+
+    private static void calculateWorstPerformingAnnotation( final List<VariantDatum> data, final int from, final int to,
+                                                            final GaussianMixtureModel goodModel, final GaussianMixtureModel badModel ) {
+        for( final VariantDatum datum : data.subList(from, to) ) {
             int worstAnnotation = -1;
             double minProb = Double.MAX_VALUE;
             double worstValue = -1;
@@ -101,19 +159,20 @@ public class VariantRecalibratorEngine {
 
     private void variationalBayesExpectationMaximization( final GaussianMixtureModel model, final List<VariantDatum> data ) {
 
-        model.initializeRandomModel( data, VRAC.NUM_KMEANS_ITERATIONS );
+        final ForkJoinPool pool = getPool();
+        model.initializeRandomModel( data, VRAC.NUM_KMEANS_ITERATIONS, pool );
 
         // The VBEM loop
         model.normalizePMixtureLog10();
-        model.expectationStep( data );
+        model.expectationStep( data, pool );
         double currentChangeInMixtureCoefficients;
         int iteration = 0;
         logger.info("Finished iteration " + iteration + ".");
         while( iteration < VRAC.MAX_ITERATIONS ) {
             iteration++;
-            model.maximizationStep( data );
+            model.maximizationStep( data, pool );
             currentChangeInMixtureCoefficients = model.normalizePMixtureLog10();
-            model.expectationStep( data );
+            model.expectationStep( data, pool );
             if( iteration % 5 == 0 ) { // cut down on the number of output lines so that users can read the warning messages
                 logger.info("Finished iteration " + iteration + ". \tCurrent change in mixture coefficients = " + String.format("%.5f", currentChangeInMixtureCoefficients));
             }
@@ -123,13 +182,37 @@ public class VariantRecalibratorEngine {
             }
         }
 
-        model.evaluateFinalModelParameters( data );
+        model.evaluateFinalModelParameters( data, pool );
     }
 
     /////////////////////////////
     // Private Methods used for evaluating data given a GaussianMixtureModel
     /////////////////////////////
 
+    /**
+     * Evaluate the data that have all their annotations concurrently, as their evaluation doesn't draw random numbers.
+     *
+     * @return the log10 probabilities of the data that have all their annotations (the others are left to 0.0), or
+     * null if the data are to be evaluated on the calling thread
+     */
+    private double[] evaluateCompleteDataConcurrently( final List<VariantDatum> data, final GaussianMixtureModel model ) {
+        final ForkJoinPool pool = getPool();
+        if( pool == null ) {
+            return null;
+        }
+        final double[] lods = new double[data.size()];
+        VariantDataBlocks.forEach(pool, data.size(), (from, to) -> {
+            for( int datumIndex = from; datumIndex < to; datumIndex++ ) {
+                final VariantDatum datum = data.get(datumIndex);
+                if( !GaussianMixtureModel.hasMissingAnnotations(datum) ) {
+                    lods[datumIndex] = evaluateDatum( datum, model );
+                }
+            }
+            return null;
+        });
+        return lods;
+    }
+
     private double evaluateDatum( final VariantDatum datum, final GaussianMixtureModel model ) {
         return model.evaluateDatum( datum );
     }
@@ -42,10 +42,17 @@ public final class BQSRReadTransformer implements ReadTransformer {
 
     private static final int BASE_SUBSTITUTION_INDEX = EventType.BASE_SUBSTITUTION.ordinal();
 
-    //Note: varargs allocates a new array every time. We'll pre-allocate one array and reuse it to avoid object allocation for every base of every read.
-    private final RecalDatum[] empiricalQualCovsArgs;
     private final boolean useOriginalBaseQualities;
 
+    // The terms of hierarchicalBayesianQualityEstimate for substitutions only depend on the read group and quality keys,
+    // plus the key of one covariate for the covariate terms, so apply() computes each of them once and looks them up for
+    // every other base with the same keys. Rows are allocated the first time a (read group, quality) pair is seen,
+    // which bounds the memory to the size of the recalibration tables. NaN marks the terms not computed yet.
+    private final int qualDimension;
+    private final int[] covariateDimensions;
+    private final double[][] conditionalPriorCache;   // [read group][quality]
+    private final double[][][] covariateDeltaCache;   // [additional covariate][read group * qualDimension + quality][covariate key]
+
     private byte[] staticQuantizedMapping;
     private final CovariateKeyCache keyCache;
 
@@ -95,8 +102,14 @@ public final class BQSRReadTransformer implements ReadTransformer {
         totalCovariateCount = covariates.size();
         specialCovariateCount = covariates.numberOfSpecialCovariates();
 
-        //Note: We pre-create the varargs arrays that will be used in the calls. Otherwise we're spending a lot of time allocating those int[] objects
-        empiricalQualCovsArgs = new RecalDatum[totalCovariateCount - specialCovariateCount];
+        final int numReadGroups = recalibrationTables.getQualityScoreTable().getDimensions()[0];
+        qualDimension = recalibrationTables.getQualityScoreTable().getDimensions()[1];
+        covariateDimensions = new int[totalCovariateCount - specialCovariateCount];
+        for (int i = specialCovariateCount; i < totalCovariateCount; i++) {
+            covariateDimensions[i - specialCovariateCount] = recalibrationTables.getTable(i).getDimensions()[2];
+        }
+        conditionalPriorCache = new double[numReadGroups][];
+        covariateDeltaCache = new double[covariateDimensions.length][numReadGroups * qualDimension][];
         keyCache = new CovariateKeyCache();//one cache per transformer
     }
 
@@ -148,11 +161,8 @@ public final class BQSRReadTransformer implements ReadTransformer {
         read.clearAttribute(ReadUtils.BQSR_BASE_INSERTION_QUALITIES);
         read.clearAttribute(ReadUtils.BQSR_BASE_DELETION_QUALITIES);
 
-        // get the keyset for this base using the error model
-        final int[][] fullReadKeySet = readCovariates.getKeySet(EventType.BASE_SUBSTITUTION);
-
         // the rg key is constant over the whole read, the global deltaQ is too
-        final int rgKey = fullReadKeySet[0][0];
+        final int rgKey = readCovariates.getKey(0, BASE_SUBSTITUTION_INDEX, 0);
 
         final RecalDatum empiricalQualRG = recalibrationTables.getReadGroupTable().get2Keys(rgKey, BASE_SUBSTITUTION_INDEX);
 
@@ -167,6 +177,12 @@ public final class BQSRReadTransformer implements ReadTransformer {
         final NestedIntegerArray<RecalDatum> qualityScoreTable = recalibrationTables.getQualityScoreTable();
         final List<Byte> quantizedQuals = quantizationInfo.getQuantizedQuals();
 
+        if (conditionalPriorCache[rgKey] == null) {
+            conditionalPriorCache[rgKey] = new double[qualDimension];
+            Arrays.fill(conditionalPriorCache[rgKey], Double.NaN);
+        }
+        final double[] conditionalPriors = conditionalPriorCache[rgKey];
+
         //Note: this loop is under very heavy use in applyBQSR. Keep it slim.
         for (int offset = 0; offset < readLength; offset++) { // recalibrate all bases in the read
 
@@ -174,18 +190,23 @@ public final class BQSRReadTransformer implements ReadTransformer {
             if (quals[offset] < preserveQLessThan) {
                 continue;
             }
-            Arrays.fill(empiricalQualCovsArgs, null);  //clear the array
-            final int[] keySet = fullReadKeySet[offset];
-
+            final int qualKey = readCovariates.getKey(offset, BASE_SUBSTITUTION_INDEX, 1);
 
-            final RecalDatum empiricalQualQS = qualityScoreTable.get3Keys(keySet[0], keySet[1], BASE_SUBSTITUTION_INDEX);
+            // same computation as hierarchicalBayesianQualityEstimate, with each term looked up once computed
+            double conditionalPrior2 = conditionalPriors[qualKey];
+            if (Double.isNaN(conditionalPrior2)) {
+                final RecalDatum empiricalQualQS = qualityScoreTable.get3Keys(rgKey, qualKey, BASE_SUBSTITUTION_INDEX);
+                conditionalPrior2 = conditionalPriors[qualKey] = conditionalPrior(epsilon, empiricalQualRG, empiricalQualQS);
+            }
 
+            double deltaQCovariates = 0.0;
             for (int i = specialCovariateCount; i < totalCovariateCount; i++) {
-                if (keySet[i] >= 0) {
-                    empiricalQualCovsArgs[i - specialCovariateCount] = recalibrationTables.getTable(i).get4Keys(keySet[0], keySet[1], keySet[i], BASE_SUBSTITUTION_INDEX);
+                final int covariateKey = readCovariates.getKey(offset, BASE_SUBSTITUTION_INDEX, i);
+                if (covariateKey >= 0) {
+                    deltaQCovariates += getCovariateDelta(i, rgKey, qualKey, covariateKey, conditionalPrior2);
                 }
             }
-            final double recalibratedQualDouble = hierarchicalBayesianQualityEstimate(epsilon, empiricalQualRG, empiricalQualQS, empiricalQualCovsArgs);
+            final double recalibratedQualDouble = conditionalPrior2 + deltaQCovariates;
 
             final byte recalibratedQualityScore = quantizedQuals.get(getRecalibratedQual(recalibratedQualDouble));
 
@@ -196,6 +217,25 @@ public final class BQSRReadTransformer implements ReadTransformer {
         return read;
     }
 
+    /**
+     * @return the term of the covariate at index covariateIndex in the table list in hierarchicalBayesianQualityEstimate,
+     * computed the first time it is needed for these keys
+     */
+    private double getCovariateDelta(final int covariateIndex, final int rgKey, final int qualKey, final int covariateKey, final double conditionalPrior2) {
+        final int additionalIndex = covariateIndex - specialCovariateCount;
+        final int row = rgKey * qualDimension + qualKey;
+        double[] deltas = covariateDeltaCache[additionalIndex][row];
+        if (deltas == null) {
+            deltas = covariateDeltaCache[additionalIndex][row] = new double[covariateDimensions[additionalIndex]];
+            Arrays.fill(deltas, Double.NaN);
+        }
+        if (Double.isNaN(deltas[covariateKey])) {
+            final RecalDatum empiricalQualCov = recalibrationTables.getTable(covariateIndex).get4Keys(rgKey, qualKey, covariateKey, BASE_SUBSTITUTION_INDEX);
+            deltas[covariateKey] = empiricalQualCov == null ? 0.0 : empiricalQualCov.getEmpiricalQuality(conditionalPrior2) - conditionalPrior2;
+        }
+        return deltas[covariateKey];
+    }
+
     // recalibrated quality is bound between 1 and MAX_QUAL
     private byte getRecalibratedQual(final double recalibratedQualDouble) {
         return boundQual(fastRound(recalibratedQualDouble), MAX_RECALIBRATED_Q_SCORE);
@@ -205,11 +245,8 @@ public final class BQSRReadTransformer implements ReadTransformer {
                                                               final RecalDatum empiricalQualRG,
                                                               final RecalDatum empiricalQualQS,
                                                               final RecalDatum... empiricalQualCovs ) {
-        final double globalDeltaQ = empiricalQualRG == null ? 0.0 : empiricalQualRG.getEmpiricalQuality(epsilon) - epsilon;
-        final double deltaQReported = empiricalQualQS == null ? 0.0 : empiricalQualQS.getEmpiricalQuality(globalDeltaQ + epsilon) - (globalDeltaQ + epsilon);
-
         double deltaQCovariates = 0.0;
-        final double conditionalPrior2 = deltaQReported + globalDeltaQ + epsilon;
+        final double conditionalPrior2 = conditionalPrior(epsilon, empiricalQualRG, empiricalQualQS);
         for( final RecalDatum empiricalQualCov : empiricalQualCovs ) {
             if (empiricalQualCov != null) {
                 deltaQCovariates += empiricalQualCov.getEmpiricalQuality(conditionalPrior2) - conditionalPrior2;
@@ -219,6 +256,16 @@ public final class BQSRReadTransformer implements ReadTransformer {
         return conditionalPrior2 + deltaQCovariates;
     }
 
+    /**
+     * @return the prior of the covariate terms of hierarchicalBayesianQualityEstimate, i.e. the estimate from the read
+     * group and quality score only
+     */
+    private static double conditionalPrior(final double epsilon, final RecalDatum empiricalQualRG, final RecalDatum empiricalQualQS) {
+        final double globalDeltaQ = empiricalQualRG == null ? 0.0 : empiricalQualRG.getEmpiricalQuality(epsilon) - epsilon;
+        final double deltaQReported = empiricalQualQS == null ? 0.0 : empiricalQualQS.getEmpiricalQuality(globalDeltaQ + epsilon) - (globalDeltaQ + epsilon);
+        return deltaQReported + globalDeltaQ + epsilon;
+    }
+
     /**
      * Constructs an array that maps particular quantized values to a rounded value in staticQuantizedQuals
      *
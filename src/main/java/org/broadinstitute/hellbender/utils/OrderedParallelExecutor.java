@@ -0,0 +1,110 @@
+package org.broadinstitute.hellbender.utils;
+
+import org.broadinstitute.hellbender.exceptions.GATKException;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+/**
+ * Runs tasks concurrently on a work-stealing {@link ForkJoinPool} while handing their results to a consumer
+ * strictly in submission order.
+ *
+ * Results are held in a bounded reorder buffer: once {@code maxTasksInFlight} tasks are outstanding, {@link #submit}
+ * blocks on the oldest task before accepting a new one, so a single slow task cannot cause unbounded buffering
+ * of later results. Results of tasks at the head of the buffer that have already completed are delivered eagerly
+ * on every submission.
+ *
+ * The consumer is always invoked on the thread calling {@link #submit} or {@link #drain}, so it does not need to be
+ * thread-safe. This class itself is not thread-safe: all calls must come from a single producer thread.
+ *
+ * @param <T> type of the task results
+ */
+public final class OrderedParallelExecutor<T> implements AutoCloseable {
+
+    private final ForkJoinPool pool;
+    private final int maxTasksInFlight;
+    private final Consumer<T> consumer;
+    private final Deque<ForkJoinTask<T>> tasksInFlight;
+
+    /**
+     * @param numThreads number of worker threads, must be >= 1
+     * @param maxTasksInFlight maximum number of submitted tasks whose results have not yet been consumed, must be >= numThreads
+     * @param consumer receives the result of each task, in submission order, on the producer thread
+     */
+    public OrderedParallelExecutor(final int numThreads, final int maxTasksInFlight, final Consumer<T> consumer) {
+        Utils.validateArg(numThreads >= 1, "numThreads must be at least 1");
+        Utils.validateArg(maxTasksInFlight >= numThreads, "maxTasksInFlight must be at least numThreads");
+        this.pool = new ForkJoinPool(numThreads);
+        this.maxTasksInFlight = maxTasksInFlight;
+        this.consumer = Utils.nonNull(consumer);
+        this.tasksInFlight = new ArrayDeque<>(maxTasksInFlight);
+    }
+
+    /**
+     * Schedule a task for execution. Blocks if the reorder buffer is full until the oldest outstanding task
+     * has completed and its result has been consumed.
+     *
+     * @param task task to run on the worker pool
+     */
+    public void submit(final Callable<T> task) {
+        Utils.nonNull(task);
+        while ( tasksInFlight.size() >= maxTasksInFlight ) {
+            consumeOldest();
+        }
+        tasksInFlight.addLast(pool.submit(task));
+
+        while ( ! tasksInFlight.isEmpty() && tasksInFlight.peekFirst().isDone() ) {
+            consumeOldest();
+        }
+    }
+
+    /**
+     * Wait for all outstanding tasks to complete and consume their results in submission order.
+     */
+    public void drain() {
+        while ( ! tasksInFlight.isEmpty() ) {
+            consumeOldest();
+        }
+    }
+
+    /**
+     * @return number of tasks submitted whose results have not yet been consumed
+     */
+    public int numTasksInFlight() {
+        return tasksInFlight.size();
+    }
+
+    private void consumeOldest() {
+        final ForkJoinTask<T> oldest = tasksInFlight.removeFirst();
+        final T result;
+        try {
+            result = oldest.get();
+        } catch ( final InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new GATKException("Interrupted while waiting for a task to complete", e);
+        } catch ( final ExecutionException e ) {
+            // rethrow unchecked exceptions as-is so that UserExceptions etc. surface the same way they would single-threaded
+            if ( e.getCause() instanceof RuntimeException ) {
+                throw (RuntimeException)e.getCause();
+            }
+            throw new GATKException("Problem running task", e.getCause());
+        }
+        consumer.accept(result);
+    }
+
+    /**
+     * Discard any outstanding tasks and shut down the worker pool. Call {@link #drain} first to consume
+     * all pending results.
+     */
+    @Override
+    public void close() {
+        tasksInFlight.forEach(task -> task.cancel(true));
+        tasksInFlight.clear();
+        pool.shutdownNow();
+    }
+}
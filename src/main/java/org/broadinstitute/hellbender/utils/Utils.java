@@ -4,6 +4,7 @@ import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.Iterators;
 import com.google.common.primitives.Ints;
 import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.util.Locatable;
 import htsjdk.tribble.util.ParsingUtils;
 import htsjdk.variant.variantcontext.VariantContext;
 import org.apache.commons.lang3.ArrayUtils;
@@ -58,7 +59,41 @@ public final class Utils {
     private static final Random randomGenerator = new Random(GATK_RANDOM_SEED);
     private static final RandomDataGenerator randomDataGenerator = new RandomDataGenerator(new Well19937c(GATK_RANDOM_SEED));
 
-    public static Random getRandomGenerator() { return randomGenerator; }
+    /**
+     * Generator that replaces the static one on a thread for the duration of {@link #runWithLocusRandomGenerator}
+     */
+    private static final ThreadLocal<Random> threadRandomGenerator = new ThreadLocal<>();
+
+    public static Random getRandomGenerator() {
+        final Random threadGenerator = threadRandomGenerator.get();
+        return threadGenerator != null ? threadGenerator : randomGenerator;
+    }
+
+    /**
+     * Run task on the calling thread with {@link #getRandomGenerator()} returning a generator seeded from the position
+     * of locus instead of the static generator. The random numbers drawn by the task then depend only on where it is,
+     * and not on what other threads draw or in which order, so that units of work processed concurrently (eg., the
+     * regions of a multithreaded traversal) give the same results whatever the number of threads and their scheduling.
+     *
+     * @param locus position of the unit of work the task processes
+     * @param task the task, which may itself call this method
+     * @return the result of task
+     */
+    public static <T> T runWithLocusRandomGenerator(final Locatable locus, final Supplier<T> task) {
+        nonNull(locus);
+        nonNull(task);
+        final Random previous = threadRandomGenerator.get();
+        threadRandomGenerator.set(new Random((GATK_RANDOM_SEED * 31 + locus.getContig().hashCode()) * 31 + locus.getStart()));
+        try {
+            return task.get();
+        } finally {
+            if ( previous == null ) {
+                threadRandomGenerator.remove();
+            } else {
+                threadRandomGenerator.set(previous);
+            }
+        }
+    }
     public static RandomDataGenerator getRandomDataGenerator() { return randomDataGenerator; }
 
     public static void resetRandomGenerator() {
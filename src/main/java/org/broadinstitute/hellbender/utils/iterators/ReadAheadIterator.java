@@ -0,0 +1,185 @@
+package org.broadinstitute.hellbender.utils.iterators;
+
+import htsjdk.samtools.util.CloseableIterator;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pulls the elements of an iterator on a background thread into a bounded queue of batches, so that the work done by
+ * the wrapped iterator (eg., decoding reads) overlaps with the work done by the consumer.
+ *
+ * The wrapped iterator is only ever used by the background thread, and is never interrupted since interrupting NIO
+ * reads would close the underlying channel: {@link #close} signals the background thread and waits for it to stop,
+ * after which the wrapped iterator may be closed or reused by the caller. Exceptions thrown by the wrapped iterator
+ * are rethrown to the consumer once the elements read before them have been consumed.
+ *
+ * The time the consumer spent waiting for the background thread is logged when this iterator is closed.
+ */
+public final class ReadAheadIterator<T> implements CloseableIterator<T> {
+    private static final Logger logger = LogManager.getLogger(ReadAheadIterator.class);
+
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    // marks the end of the elements; compared by identity
+    private final List<T> endOfElements = new ArrayList<>(0);
+
+    private final Iterator<T> source;
+    private final int batchSize;
+    private final BlockingQueue<List<T>> queue;
+    private final Thread readAheadThread;
+
+    private volatile boolean closed = false;
+    private volatile Throwable sourceError = null;
+
+    private List<T> currentBatch = Collections.emptyList();
+    private int positionInBatch = 0;
+    private boolean exhausted = false;
+
+    private long waitNanos = 0;
+    private long numBatches = 0;
+
+    /**
+     * @param source iterator to read ahead, must not be used by the caller until this iterator is closed
+     * @param queueDepth maximum number of batches read ahead of the consumer
+     * @param batchSize number of elements per batch
+     */
+    public ReadAheadIterator(final Iterator<T> source, final int queueDepth, final int batchSize) {
+        this.source = Utils.nonNull(source);
+        Utils.validateArg(queueDepth > 0, "queueDepth must be positive");
+        Utils.validateArg(batchSize > 0, "batchSize must be positive");
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(queueDepth);
+
+        readAheadThread = new Thread(this::readAhead, "ReadAhead");
+        readAheadThread.setDaemon(true);
+        readAheadThread.start();
+    }
+
+    private void readAhead() {
+        List<T> batch = new ArrayList<>(batchSize);
+        try {
+            while ( ! closed && source.hasNext() ) {
+                batch.add(source.next());
+                if ( batch.size() == batchSize ) {
+                    enqueue(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        } catch ( final Throwable e ) {
+            sourceError = e;
+        } finally {
+            if ( ! batch.isEmpty() ) {
+                enqueue(batch);
+            }
+            enqueue(endOfElements);
+        }
+    }
+
+    private void enqueue(final List<T> batch) {
+        try {
+            while ( ! closed && ! queue.offer(batch, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS) ) {
+                // the consumer is behind, check again whether we were closed
+            }
+        } catch ( final InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            closed = true;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if ( positionInBatch < currentBatch.size() ) {
+            return true;
+        }
+        if ( exhausted ) {
+            return false;
+        }
+        Utils.validate(! closed, "Cannot iterate after close");
+
+        final long start = System.nanoTime();
+        final List<T> batch;
+        try {
+            batch = queue.take();
+        } catch ( final InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new GATKException("Interrupted while waiting for the read-ahead thread", e);
+        }
+        waitNanos += System.nanoTime() - start;
+
+        if ( batch == endOfElements ) {
+            exhausted = true;
+            currentBatch = Collections.emptyList();
+            positionInBatch = 0;
+            rethrowSourceError();
+            return false;
+        }
+        numBatches++;
+        currentBatch = batch;
+        positionInBatch = 0;
+        return true;
+    }
+
+    private void rethrowSourceError() {
+        final Throwable e = sourceError;
+        if ( e == null ) {
+            return;
+        }
+        if ( e instanceof RuntimeException ) {
+            throw (RuntimeException) e;
+        }
+        if ( e instanceof Error ) {
+            throw (Error) e;
+        }
+        throw new GATKException("Exception while reading ahead", e);
+    }
+
+    @Override
+    public T next() {
+        if ( ! hasNext() ) {
+            throw new NoSuchElementException("No more elements");
+        }
+        return currentBatch.get(positionInBatch++);
+    }
+
+    /**
+     * @return total time, in nanoseconds, that the consumer spent waiting for the background thread
+     */
+    public long getWaitNanos() {
+        return waitNanos;
+    }
+
+    /**
+     * Stop the background thread and wait for it to finish. The wrapped iterator is not closed.
+     */
+    @Override
+    public void close() {
+        if ( closed ) {
+            return;
+        }
+        closed = true;
+        // unblock the background thread if it is waiting for room in the queue
+        queue.clear();
+        try {
+            readAheadThread.join();
+        } catch ( final InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new GATKException("Interrupted while stopping the read-ahead thread", e);
+        }
+        queue.clear();
+
+        if ( numBatches > 0 ) {
+            logger.info(String.format("Waited %.3f seconds for %d read-ahead batches", waitNanos / 1e9, numBatches));
+        }
+    }
+}
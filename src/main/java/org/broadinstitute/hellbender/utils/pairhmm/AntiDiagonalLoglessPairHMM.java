@@ -0,0 +1,170 @@
+package org.broadinstitute.hellbender.utils.pairhmm;
+
+import org.broadinstitute.hellbender.utils.QualityUtils;
+
+import static org.broadinstitute.hellbender.utils.pairhmm.LoglessPairHMM.INITIAL_CONDITION;
+import static org.broadinstitute.hellbender.utils.pairhmm.LoglessPairHMM.INITIAL_CONDITION_LOG10;
+import static org.broadinstitute.hellbender.utils.pairhmm.LoglessPairHMM.TRISTATE_CORRECTION;
+
+/**
+ * Pure Java implementation of the LOGLESS_CACHING PairHMM that sweeps the read x haplotype matrices along
+ * anti-diagonals instead of row by row.
+ *
+ * All cells on an anti-diagonal depend only on the two previous anti-diagonals, so the inner loop has no loop-carried
+ * dependency. The haplotype is stored reversed, so that the haplotype bases of an anti-diagonal are read in increasing
+ * order like everything else, and the choice between the match and mismatch priors is made with integer arithmetic
+ * instead of a branch. The inner loop is thus a straight sequence of unit-stride loads, multiplies and adds, which is
+ * the shape that the JIT's auto-vectorizer requires; whether it actually vectorizes it depends on the JVM version and
+ * the hardware. Only three anti-diagonals per state are kept, so memory use is linear rather than quadratic in the
+ * read and haplotype lengths.
+ *
+ * Every cell is computed with exactly the same floating point operations, in the same order, as in
+ * {@link LoglessPairHMM}, and the final sum over the last row is accumulated in the same order, so both
+ * implementations produce the same likelihoods. Unlike {@link LoglessPairHMM} it does not reuse partial results
+ * between haplotypes sharing a prefix, so {@code hapStartIndex} is ignored. See PairHMMBenchmark for a comparison
+ * of their speed.
+ */
+public final class AntiDiagonalLoglessPairHMM extends PairHMM {
+
+    // per read position (1-based, position 0 unused) prior and transition probabilities
+    private double[] matchPrior;
+    private double[] mismatchPrior;
+    private double[] matchToMatch;
+    private double[] indelToMatch;
+    private double[] matchToInsertion;
+    private double[] insertionToInsertion;
+    private double[] matchToDeletion;
+    private double[] deletionToDeletion;
+
+    // read bases (same 1-based indexing) as unsigned values, and 1 where the read base is an N, which matches anything
+    private int[] readBaseValues;
+    private int[] readWildcards;
+
+    // haplotype bases in reverse order, as unsigned values, and 1 where the haplotype base is an N
+    private int[] reversedHaplotypeBases;
+    private int[] reversedHaplotypeWildcards;
+
+    // rotating anti-diagonals indexed by read position: [0] = two diagonals back, [1] = previous, [2] = current
+    private double[][] match;
+    private double[][] insertion;
+    private double[][] deletion;
+
+    private final double[] transitionScratch = new double[PairHMMModel.TRANS_PROB_ARRAY_LENGTH];
+
+    @Override
+    public void initialize(final int readMaxLength, final int haplotypeMaxLength) {
+        super.initialize(readMaxLength, haplotypeMaxLength);
+
+        matchPrior = new double[paddedMaxReadLength];
+        mismatchPrior = new double[paddedMaxReadLength];
+        matchToMatch = new double[paddedMaxReadLength];
+        indelToMatch = new double[paddedMaxReadLength];
+        matchToInsertion = new double[paddedMaxReadLength];
+        insertionToInsertion = new double[paddedMaxReadLength];
+        matchToDeletion = new double[paddedMaxReadLength];
+        deletionToDeletion = new double[paddedMaxReadLength];
+        readBaseValues = new int[paddedMaxReadLength];
+        readWildcards = new int[paddedMaxReadLength];
+        reversedHaplotypeBases = new int[haplotypeMaxLength];
+        reversedHaplotypeWildcards = new int[haplotypeMaxLength];
+
+        match = new double[3][paddedMaxReadLength];
+        insertion = new double[3][paddedMaxReadLength];
+        deletion = new double[3][paddedMaxReadLength];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected double subComputeReadLikelihoodGivenHaplotypeLog10(final byte[] haplotypeBases,
+                                                                 final byte[] readBases,
+                                                                 final byte[] readQuals,
+                                                                 final byte[] insertionGOP,
+                                                                 final byte[] deletionGOP,
+                                                                 final byte[] overallGCP,
+                                                                 final int hapStartIndex,
+                                                                 final boolean recacheReadValues,
+                                                                 final int nextHapStartIndex) {
+        if ( ! constantsAreInitialized || recacheReadValues ) {
+            initializeReadValues(readBases, readQuals, insertionGOP, deletionGOP, overallGCP);
+            constantsAreInitialized = true;
+        }
+
+        final int readLength = readBases.length;
+        final int haplotypeLength = haplotypeBases.length;
+        for (int j = 0; j < haplotypeLength; j++) {
+            final byte base = haplotypeBases[haplotypeLength - 1 - j];
+            reversedHaplotypeBases[j] = base & 0xFF;
+            reversedHaplotypeWildcards[j] = base == (byte) 'N' ? 1 : 0;
+        }
+        // free deletions in the beginning: value of the first row of the deletion matrix
+        final double initialValue = INITIAL_CONDITION / haplotypeLength;
+
+        double[] m2 = match[0], m1 = match[1], m0 = match[2];
+        double[] i2 = insertion[0], i1 = insertion[1], i0 = insertion[2];
+        double[] d2 = deletion[0], d1 = deletion[1], d0 = deletion[2];
+
+        double finalSumProbabilities = 0.0;
+        for (int diagonal = 0; diagonal <= readLength + haplotypeLength; diagonal++) {
+            // boundary cells: row 0 (i = 0, j = diagonal) and column 0 (i = diagonal, j = 0)
+            if (diagonal <= haplotypeLength) {
+                m0[0] = 0.0;
+                i0[0] = 0.0;
+                d0[0] = initialValue;
+            }
+            if (diagonal >= 1 && diagonal <= readLength) {
+                m0[diagonal] = 0.0;
+                i0[diagonal] = 0.0;
+                d0[diagonal] = 0.0;
+            }
+
+            // interior cells (i, j = diagonal - i) with 1 <= i <= readLength and 1 <= j <= haplotypeLength
+            final int iStart = Math.max(1, diagonal - haplotypeLength);
+            final int iEnd = Math.min(readLength, diagonal - 1);
+            // cell (i, j) compares read base i with haplotype base j = diagonal - i, which is reversed base haplotypeLength - diagonal + i
+            final int reversedOffset = haplotypeLength - diagonal;
+            for (int i = iStart; i <= iEnd; i++) {
+                final int y = reversedHaplotypeBases[reversedOffset + i];
+                // 1 if the bases are equal or either is an N, 0 otherwise; (x ^ y) - 1 is negative only if x == y
+                final int isMatch = (((readBaseValues[i] ^ y) - 1) >>> 31) | readWildcards[i] | reversedHaplotypeWildcards[reversedOffset + i];
+                // exactly one of the two terms is zero, so this is exactly the selected prior
+                final double prior = matchPrior[i] * isMatch + mismatchPrior[i] * (1 - isMatch);
+                m0[i] = prior * ( m2[i - 1] * matchToMatch[i] + i2[i - 1] * indelToMatch[i] + d2[i - 1] * indelToMatch[i] );
+                i0[i] = m1[i - 1] * matchToInsertion[i] + i1[i - 1] * insertionToInsertion[i];
+                d0[i] = m1[i] * matchToDeletion[i] + d1[i] * deletionToDeletion[i];
+            }
+
+            // the last row is reached in increasing haplotype order, as in the row-wise implementation
+            if (iEnd == readLength && iStart <= iEnd) {
+                finalSumProbabilities += m0[readLength] + i0[readLength];
+            }
+
+            // rotate: current becomes previous, previous becomes two back, and the oldest is reused
+            final double[] mt = m2; m2 = m1; m1 = m0; m0 = mt;
+            final double[] it = i2; i2 = i1; i1 = i0; i0 = it;
+            final double[] dt = d2; d2 = d1; d1 = d0; d0 = dt;
+        }
+
+        return Math.log10(finalSumProbabilities) - INITIAL_CONDITION_LOG10;
+    }
+
+    private void initializeReadValues(final byte[] bases, final byte[] readQuals, final byte[] insertionGOP, final byte[] deletionGOP, final byte[] overallGCP) {
+        for (int i = 0; i < readQuals.length; i++) {
+            readBaseValues[i + 1] = bases[i] & 0xFF;
+            readWildcards[i + 1] = bases[i] == (byte) 'N' ? 1 : 0;
+
+            final byte qual = readQuals[i];
+            matchPrior[i + 1] = QualityUtils.qualToProb(qual);
+            mismatchPrior[i + 1] = QualityUtils.qualToErrorProb(qual) / (doNotUseTristateCorrection ? 1.0 : TRISTATE_CORRECTION);
+
+            PairHMMModel.qualToTransProbs(transitionScratch, insertionGOP[i], deletionGOP[i], overallGCP[i]);
+            matchToMatch[i + 1] = transitionScratch[PairHMMModel.matchToMatch];
+            indelToMatch[i + 1] = transitionScratch[PairHMMModel.indelToMatch];
+            matchToInsertion[i + 1] = transitionScratch[PairHMMModel.matchToInsertion];
+            insertionToInsertion[i + 1] = transitionScratch[PairHMMModel.insertionToInsertion];
+            matchToDeletion[i + 1] = transitionScratch[PairHMMModel.matchToDeletion];
+            deletionToDeletion[i + 1] = transitionScratch[PairHMMModel.deletionToDeletion];
+        }
+    }
+}
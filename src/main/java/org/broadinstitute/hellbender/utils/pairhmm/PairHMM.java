@@ -51,6 +51,12 @@ public abstract class PairHMM implements Closeable{
             logger.info("Using the non-hardware-accelerated Java LOGLESS_CACHING PairHMM implementation");
             return hmm;
         }),
+        /* Pure Java version of LOGLESS_CACHING that sweeps anti-diagonals, avoiding loop-carried dependencies in the inner loop. No native code required */
+        ANTIDIAGONAL_LOGLESS_CACHING(args -> {
+            final AntiDiagonalLoglessPairHMM hmm = new AntiDiagonalLoglessPairHMM();
+            logger.info("Using the non-hardware-accelerated Java ANTIDIAGONAL_LOGLESS_CACHING PairHMM implementation");
+            return hmm;
+        }),
         /* Optimized AVX implementation of LOGLESS_CACHING called through JNI. Throws if AVX is not available */
         AVX_LOGLESS_CACHING(args -> {
             // Constructor will throw a UserException if AVX is not available
@@ -139,6 +145,37 @@ public abstract class PairHMM implements Closeable{
     protected long threadLocalPairHMMComputeTimeDiff = 0;
     protected long startTime = 0;
 
+    // optional cache of results carried across calls to computeLog10Likelihoods; null if disabled
+    protected PairHMMResultCache resultCache = null;
+
+    /**
+     * Enable caching of computed likelihoods across calls to {@link #computeLog10Likelihoods}, so that reads
+     * re-evaluated against haplotypes with identical bases (e.g. in overlapping assembly regions) are not rescored.
+     *
+     * @param resultCache the cache to consult, or {@code null} to disable caching
+     */
+    public void setResultCache(final PairHMMResultCache resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    /**
+     * @return the cache of results in use, or {@code null} if caching is disabled
+     */
+    public PairHMMResultCache getResultCache() {
+        return resultCache;
+    }
+
+    /**
+     * @return cache keys for the given haplotypes, in the same order
+     */
+    protected static PairHMMResultCache.HaplotypeKey[] makeHaplotypeKeys(final List<? extends Allele> haplotypes) {
+        final PairHMMResultCache.HaplotypeKey[] result = new PairHMMResultCache.HaplotypeKey[haplotypes.size()];
+        for (int a = 0; a < result.length; a++) {
+            result[a] = new PairHMMResultCache.HaplotypeKey(haplotypes.get(a).getBases());
+        }
+        return result;
+    }
+
     /**
      * Initialize this PairHMM, making it suitable to run against a read and haplotype with given lengths
      *
@@ -229,6 +266,7 @@ public abstract class PairHMM implements Closeable{
         final List<Haplotype> alleles = logLikelihoods.alleles();
         final int alleleCount = alleles.size();
         mLogLikelihoodArray = new double[readCount * alleleCount];
+        final PairHMMResultCache.HaplotypeKey[] haplotypeKeys = resultCache == null ? null : makeHaplotypeKeys(alleles);
         int idx = 0;
         int readIndex = 0;
         for(final GATKRead read : processedReads){
@@ -237,15 +275,27 @@ public abstract class PairHMM implements Closeable{
             final byte[] readInsQuals = ReadUtils.getBaseInsertionQualities(read);
             final byte[] readDelQuals = ReadUtils.getBaseDeletionQualities(read);
             final byte[] overallGCP = gcp.get(read);
+            final PairHMMResultCache.ReadKey readKey = resultCache == null ? null
+                    : new PairHMMResultCache.ReadKey(readBases, readQuals, readInsQuals, readDelQuals, overallGCP);
 
             // peek at the next haplotype in the list (necessary to get nextHaplotypeBases, which is required for caching in the array implementation)
             final boolean isFirstHaplotype = true;
             for (int a = 0; a < alleleCount; a++) {
-                final Allele allele = alleles.get(a);
-                final byte[] alleleBases = allele.getBases();
-                final byte[] nextAlleleBases = a == alleles.size() - 1 ? null : alleles.get(a + 1).getBases();
-                final double lk = computeReadLikelihoodGivenHaplotypeLog10(alleleBases,
-                        readBases, readQuals, readInsQuals, readDelQuals, overallGCP, isFirstHaplotype, nextAlleleBases);
+                // every haplotype is computed with recacheReadValues set, so skipping cached cells does not affect the others
+                final double cached = readKey == null ? Double.NaN : resultCache.get(readKey, haplotypeKeys[a]);
+                final double lk;
+                if (!Double.isNaN(cached)) {
+                    lk = cached;
+                } else {
+                    final Allele allele = alleles.get(a);
+                    final byte[] alleleBases = allele.getBases();
+                    final byte[] nextAlleleBases = a == alleles.size() - 1 ? null : alleles.get(a + 1).getBases();
+                    lk = computeReadLikelihoodGivenHaplotypeLog10(alleleBases,
+                            readBases, readQuals, readInsQuals, readDelQuals, overallGCP, isFirstHaplotype, nextAlleleBases);
+                    if (readKey != null) {
+                        resultCache.put(readKey, haplotypeKeys[a], lk);
+                    }
+                }
                 logLikelihoods.set(a, readIndex, lk);
                 mLogLikelihoodArray[idx++] = lk;
             }
@@ -259,6 +309,22 @@ public abstract class PairHMM implements Closeable{
         }
     }
 
+    /**
+     * Compute the log10 likelihoods for every entry of a batch, as if {@link #computeLog10Likelihoods(LikelihoodMatrix, List, Map)}
+     * had been called on each entry in turn. Implementations with a high per-call overhead override this to evaluate
+     * entries that share haplotypes in a single call.
+     *
+     * The contents of {@link #getLogLikelihoodArray()} are unspecified after this call.
+     *
+     * @param batch the computations to perform
+     */
+    public void computeLog10Likelihoods(final PairHMMBatch batch) {
+        Utils.nonNull(batch, "batch is null");
+        for (final PairHMMBatch.Entry entry : batch.getEntries()) {
+            computeLog10Likelihoods(entry.getLikelihoods(), entry.getProcessedReads(), entry.getGapContinuationPenalties());
+        }
+    }
+
     /**
      * Compute the total probability of read arising from haplotypeBases given base substitution, insertion, and deletion
      * probabilities.
@@ -377,5 +443,7 @@ public abstract class PairHMM implements Closeable{
     public void close() {
         if(doProfiling)
             logger.info("Total compute time in PairHMM computeLogLikelihoods() : "+(pairHMMComputeTime*1e-9));
+        if (resultCache != null)
+            logger.info("PairHMM result cache : " + resultCache.summary());
     }
 }
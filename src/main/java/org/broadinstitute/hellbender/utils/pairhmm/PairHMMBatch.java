@@ -0,0 +1,98 @@
+package org.broadinstitute.hellbender.utils.pairhmm;
+
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.genotyper.LikelihoodMatrix;
+import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+
+import java.util.*;
+
+/**
+ * Accumulates several read-vs-haplotype likelihood computations (e.g. one per sample, or one per assembly region)
+ * so that a {@link PairHMM} can evaluate them together with {@link PairHMM#computeLog10Likelihoods(PairHMMBatch)}.
+ *
+ * Hardware-accelerated implementations pay a fixed overhead per native call, which dominates when each matrix only
+ * holds a handful of reads. Entries whose matrices share the same haplotypes are submitted as a single native batch
+ * and the results are scattered back into the respective {@link LikelihoodMatrix} objects. Entries with different
+ * haplotypes cannot share a native call, since the kernel evaluates every read against every haplotype it is given.
+ */
+public final class PairHMMBatch {
+
+    /**
+     * One pending computation: the destination matrix, the (processed) reads to evaluate in the matrix read order,
+     * and the gap continuation penalties for those reads.
+     */
+    public static final class Entry {
+        private final LikelihoodMatrix<Haplotype> likelihoods;
+        private final List<GATKRead> processedReads;
+        private final Map<GATKRead, byte[]> gcp;
+
+        private Entry(final LikelihoodMatrix<Haplotype> likelihoods, final List<GATKRead> processedReads, final Map<GATKRead, byte[]> gcp) {
+            this.likelihoods = likelihoods;
+            this.processedReads = processedReads;
+            this.gcp = gcp;
+        }
+
+        public LikelihoodMatrix<Haplotype> getLikelihoods() { return likelihoods; }
+
+        public List<GATKRead> getProcessedReads() { return processedReads; }
+
+        public Map<GATKRead, byte[]> getGapContinuationPenalties() { return gcp; }
+    }
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    /**
+     * Queue a computation. Nothing is computed until the batch is handed to a {@link PairHMM}.
+     *
+     * @param likelihoods where to store the log10 likelihoods; position [a][r] corresponds to {@code processedReads[r]}
+     *                    and {@code likelihoods.alleles()[a]}
+     * @param processedReads the reads to evaluate
+     * @param gcp gap continuation penalties for each of the processed reads
+     */
+    public void add(final LikelihoodMatrix<Haplotype> likelihoods, final List<GATKRead> processedReads, final Map<GATKRead, byte[]> gcp) {
+        Utils.nonNull(likelihoods, "likelihoods is null");
+        Utils.nonNull(processedReads, "processedReads is null");
+        Utils.nonNull(gcp, "gcp is null");
+        if (!processedReads.isEmpty()) {
+            entries.add(new Entry(likelihoods, processedReads, gcp));
+        }
+    }
+
+    /**
+     * @return the queued entries, in the order they were added
+     */
+    public List<Entry> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * @return the queued entries grouped by the haplotypes of their matrices, preserving the order in which each
+     * group was first seen and the order of entries within each group
+     */
+    public Collection<List<Entry>> groupByHaplotypes() {
+        final Map<List<Haplotype>, List<Entry>> result = new LinkedHashMap<>();
+        for (final Entry entry : entries) {
+            result.computeIfAbsent(entry.likelihoods.alleles(), k -> new ArrayList<>()).add(entry);
+        }
+        return result.values();
+    }
+
+    /**
+     * @return the total number of reads queued
+     */
+    public int numberOfReads() {
+        return entries.stream().mapToInt(e -> e.processedReads.size()).sum();
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * Discard all queued entries.
+     */
+    public void clear() {
+        entries.clear();
+    }
+}
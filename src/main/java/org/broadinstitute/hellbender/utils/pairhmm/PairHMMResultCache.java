@@ -0,0 +1,227 @@
+package org.broadinstitute.hellbender.utils.pairhmm;
+
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded least-recently-used cache of PairHMM log10 likelihoods keyed by the full content of the read
+ * (bases, base qualities, insertion and deletion qualities and gap continuation penalties) and of the haplotype bases.
+ *
+ * Overlapping or adjacent assembly regions frequently re-evaluate the same reads against haplotypes with identical
+ * bases, so keeping results across calls to {@link PairHMM#computeLog10Likelihoods} lets the PairHMM skip those cells.
+ * Since the PairHMM result is a pure function of these inputs, a cache hit returns exactly the value that would
+ * have been computed.
+ *
+ * The cache is bounded by an estimate of the memory retained by its entries; when the budget is exceeded the least
+ * recently used entries are evicted. Keys reference the caller's arrays rather than copying them, so callers must not
+ * modify arrays after they have been used as keys.
+ *
+ * This class is not thread-safe: each PairHMM instance should own its own cache.
+ */
+public final class PairHMMResultCache {
+
+    // rough per-entry overhead of the map entry, key objects, array headers and the boxed value
+    private static final long ENTRY_OVERHEAD_BYTES = 160;
+
+    private final long maxBytes;
+    private final LinkedHashMap<Key, Double> results = new LinkedHashMap<>(16, 0.75f, true);
+    private long currentBytes = 0;
+
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    /**
+     * @param maxBytes approximate upper bound on the memory retained by cached entries, must be > 0
+     */
+    public PairHMMResultCache(final long maxBytes) {
+        Utils.validateArg(maxBytes > 0, () -> "maxBytes must be > 0 but got " + maxBytes);
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Content of a read as seen by the PairHMM, with its hash code computed once so that it can be
+     * looked up against many haplotypes cheaply.
+     */
+    public static final class ReadKey {
+        private final byte[] bases;
+        private final byte[] quals;
+        private final byte[] insertionGOP;
+        private final byte[] deletionGOP;
+        private final byte[] overallGCP;
+        private final int hashCode;
+
+        public ReadKey(final byte[] bases, final byte[] quals, final byte[] insertionGOP, final byte[] deletionGOP, final byte[] overallGCP) {
+            this.bases = Utils.nonNull(bases);
+            this.quals = Utils.nonNull(quals);
+            this.insertionGOP = Utils.nonNull(insertionGOP);
+            this.deletionGOP = Utils.nonNull(deletionGOP);
+            this.overallGCP = Utils.nonNull(overallGCP);
+            int hash = Arrays.hashCode(bases);
+            hash = 31 * hash + Arrays.hashCode(quals);
+            hash = 31 * hash + Arrays.hashCode(insertionGOP);
+            hash = 31 * hash + Arrays.hashCode(deletionGOP);
+            hash = 31 * hash + Arrays.hashCode(overallGCP);
+            this.hashCode = hash;
+        }
+
+        private long sizeInBytes() {
+            return (long) bases.length + quals.length + insertionGOP.length + deletionGOP.length + overallGCP.length;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ReadKey)) {
+                return false;
+            }
+            final ReadKey other = (ReadKey) o;
+            return hashCode == other.hashCode
+                    && Arrays.equals(bases, other.bases)
+                    && Arrays.equals(quals, other.quals)
+                    && Arrays.equals(insertionGOP, other.insertionGOP)
+                    && Arrays.equals(deletionGOP, other.deletionGOP)
+                    && Arrays.equals(overallGCP, other.overallGCP);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * Haplotype bases with their hash code computed once.
+     */
+    public static final class HaplotypeKey {
+        private final byte[] bases;
+        private final int hashCode;
+
+        public HaplotypeKey(final byte[] bases) {
+            this.bases = Utils.nonNull(bases);
+            this.hashCode = Arrays.hashCode(bases);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof HaplotypeKey)) {
+                return false;
+            }
+            final HaplotypeKey other = (HaplotypeKey) o;
+            return hashCode == other.hashCode && Arrays.equals(bases, other.bases);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static final class Key {
+        private final ReadKey read;
+        private final HaplotypeKey haplotype;
+
+        private Key(final ReadKey read, final HaplotypeKey haplotype) {
+            this.read = read;
+            this.haplotype = haplotype;
+        }
+
+        private long sizeInBytes() {
+            return ENTRY_OVERHEAD_BYTES + read.sizeInBytes() + haplotype.bases.length;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return read.equals(other.read) && haplotype.equals(other.haplotype);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * read.hashCode + haplotype.hashCode;
+        }
+    }
+
+    /**
+     * Look up a previously computed likelihood, updating the hit/miss counters.
+     *
+     * @return the cached log10 likelihood, or {@link Double#NaN} if none is cached
+     */
+    public double get(final ReadKey read, final HaplotypeKey haplotype) {
+        final Double result = results.get(new Key(read, haplotype));
+        if (result == null) {
+            misses++;
+            return Double.NaN;
+        }
+        hits++;
+        return result;
+    }
+
+    /**
+     * Look up a previously computed likelihood without updating the hit/miss counters, for callers that only use
+     * the results of a group of lookups together and report them with {@link #countLookups}.
+     *
+     * @return the cached log10 likelihood, or {@link Double#NaN} if none is cached
+     */
+    public double peek(final ReadKey read, final HaplotypeKey haplotype) {
+        final Double result = results.get(new Key(read, haplotype));
+        return result == null ? Double.NaN : result;
+    }
+
+    /**
+     * Add lookups made with {@link #peek} to the hit/miss counters.
+     */
+    public void countLookups(final long numHits, final long numMisses) {
+        Utils.validateArg(numHits >= 0 && numMisses >= 0, "the numbers of hits and misses must be >= 0");
+        hits += numHits;
+        misses += numMisses;
+    }
+
+    /**
+     * Record a computed likelihood, evicting least recently used entries if the memory budget is exceeded.
+     */
+    public void put(final ReadKey read, final HaplotypeKey haplotype, final double log10Likelihood) {
+        final Key key = new Key(read, haplotype);
+        if (results.put(key, log10Likelihood) == null) {
+            currentBytes += key.sizeInBytes();
+        }
+        final Iterator<Map.Entry<Key, Double>> it = results.entrySet().iterator();
+        while (currentBytes > maxBytes && it.hasNext()) {
+            currentBytes -= it.next().getKey().sizeInBytes();
+            it.remove();
+            evictions++;
+        }
+    }
+
+    public long getHits() { return hits; }
+
+    public long getMisses() { return misses; }
+
+    public long getEvictions() { return evictions; }
+
+    public int size() { return results.size(); }
+
+    /**
+     * @return a one-line summary of the cache effectiveness, suitable for logging
+     */
+    public String summary() {
+        final long lookups = hits + misses;
+        return String.format("%d hits, %d misses (%.2f%% hit rate), %d evictions, %d entries (~%.1f MB)",
+                hits, misses, lookups == 0 ? 0.0 : 100.0 * hits / lookups, evictions, results.size(), currentBytes / (1024.0 * 1024.0));
+    }
+}
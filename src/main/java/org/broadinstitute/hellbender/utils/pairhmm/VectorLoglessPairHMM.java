@@ -10,11 +10,13 @@ import org.broadinstitute.gatk.nativebindings.pairhmm.PairHMMNativeArguments;
 import org.broadinstitute.gatk.nativebindings.pairhmm.PairHMMNativeBinding;
 import org.broadinstitute.gatk.nativebindings.pairhmm.ReadDataHolder;
 import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.genotyper.LikelihoodMatrix;
 import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.ReadUtils;
 
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -127,49 +129,161 @@ public final class VectorLoglessPairHMM extends LoglessPairHMM {
         if (doProfiling) {
             startTime = System.nanoTime();
         }
-        int readListSize = processedReads.size();
-        int numHaplotypes = logLikelihoods.numberOfAlleles();
-        ReadDataHolder[] readDataArray = new ReadDataHolder[readListSize];
-        int idx = 0;
-        for (GATKRead read : processedReads) {
-            readDataArray[idx] = new ReadDataHolder();
-            readDataArray[idx].readBases = read.getBases();
-            readDataArray[idx].readQuals = read.getBaseQualities();
-            readDataArray[idx].insertionGOP = ReadUtils.getBaseInsertionQualities(read);
-            readDataArray[idx].deletionGOP = ReadUtils.getBaseDeletionQualities(read);
-            readDataArray[idx].overallGCP = gcp.get(read);
-            ++idx;
+        //Since the order of haplotypes in the List<Haplotype> and alleleHaplotypeMap is different,
+        //get idx of each haplotype in the list passed to initialize and use this idx to get the right likelihoodValue
+        final int[] nativeHaplotypeIndex = new int[logLikelihoods.numberOfAlleles()];
+        for (int h = 0; h < nativeHaplotypeIndex.length; h++) {
+            nativeHaplotypeIndex[h] = haplotypeToHaplotypeListIdxMap.get(logLikelihoods.getAllele(h));
         }
+        mLogLikelihoodArray = new double[processedReads.size() * mHaplotypeDataArray.length];      //to store results
+        final PairHMMBatch batch = new PairHMMBatch();
+        batch.add(logLikelihoods, processedReads, gcp);
+        final long setupEndTime = computeLikelihoods(batch.getEntries(), mHaplotypeDataArray, nativeHaplotypeIndex, mLogLikelihoodArray);
 
-        mLogLikelihoodArray = new double[readListSize * numHaplotypes];      //to store results
         if (doProfiling) {
-            threadLocalSetupTimeDiff = (System.nanoTime() - startTime);
+            threadLocalSetupTimeDiff = (setupEndTime - startTime);
+            threadLocalPairHMMComputeTimeDiff = (System.nanoTime() - startTime);
+            pairHMMComputeTime += threadLocalPairHMMComputeTimeDiff;
+            pairHMMSetupTime += threadLocalSetupTimeDiff;
         }
-        //for(reads)
-        //   for(haplotypes)
-        //       compute_full_prob()
-        pairHmm.computeLikelihoods(readDataArray, mHaplotypeDataArray, mLogLikelihoodArray);
-
-        int readIdx = 0;
-        for (int r = 0; r < readListSize; r++) {
-            int hapIdx = 0;
-            for (final Haplotype haplotype : logLikelihoods.alleles()) {
-
-                //Since the order of haplotypes in the List<Haplotype> and alleleHaplotypeMap is different,
-                //get idx of current haplotype in the list and use this idx to get the right likelihoodValue
-                final int idxInsideHaplotypeList = haplotypeToHaplotypeListIdxMap.get(haplotype);
-                logLikelihoods.set(hapIdx, r, mLogLikelihoodArray[readIdx + idxInsideHaplotypeList]);
-                ++hapIdx;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * All entries that share the same haplotypes are sent to the native code in a single call, regardless of the
+     * haplotypes passed to {@link #initialize}.
+     */
+    @Override
+    public void computeLog10Likelihoods(final PairHMMBatch batch) {
+        Utils.nonNull(batch, "batch is null");
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (doProfiling) {
+            startTime = System.nanoTime();
+        }
+        long setupTime = 0;
+        for (final List<PairHMMBatch.Entry> group : batch.groupByHaplotypes()) {
+            final List<Haplotype> haplotypes = group.get(0).getLikelihoods().alleles();
+            final HaplotypeDataHolder[] haplotypeData = new HaplotypeDataHolder[haplotypes.size()];
+            final int[] nativeHaplotypeIndex = new int[haplotypes.size()];
+            for (int h = 0; h < haplotypeData.length; h++) {
+                haplotypeData[h] = new HaplotypeDataHolder();
+                haplotypeData[h].haplotypeBases = haplotypes.get(h).getBases();
+                nativeHaplotypeIndex[h] = h;
             }
-            readIdx += numHaplotypes;
+            final long groupStartTime = doProfiling ? System.nanoTime() : 0;
+            final long groupSetupEndTime = computeLikelihoods(group, haplotypeData, nativeHaplotypeIndex, null);
+            setupTime += groupSetupEndTime - groupStartTime;
         }
+        mLogLikelihoodArray = null;
+
         if (doProfiling) {
+            threadLocalSetupTimeDiff = setupTime;
             threadLocalPairHMMComputeTimeDiff = (System.nanoTime() - startTime);
             pairHMMComputeTime += threadLocalPairHMMComputeTimeDiff;
             pairHMMSetupTime += threadLocalSetupTimeDiff;
         }
     }
 
+    /**
+     * Evaluates all reads of the given entries, which must share the same haplotypes, against those haplotypes in one
+     * native call and scatters the results into the entries' matrices. Reads whose likelihoods are all in the result
+     * cache are not sent to the native code.
+     *
+     * @param entries the computations to perform
+     * @param haplotypeData the haplotypes to pass to the native code
+     * @param nativeHaplotypeIndex for each allele index of the entries' matrices, the index of the corresponding haplotype in {@code haplotypeData}
+     * @param allResults if not {@code null}, also receives every likelihood at [readIndex * haplotypeData.length + nativeIndex],
+     *                   where readIndex counts reads across all entries
+     * @return if profiling, the time (from {@link System#nanoTime()}) at which the data for the native call was ready
+     */
+    private long computeLikelihoods(final List<PairHMMBatch.Entry> entries, final HaplotypeDataHolder[] haplotypeData,
+                                    final int[] nativeHaplotypeIndex, final double[] allResults) {
+        final int numHaplotypes = nativeHaplotypeIndex.length;
+        final int numNativeHaplotypes = haplotypeData.length;
+        final PairHMMResultCache.HaplotypeKey[] haplotypeKeys = resultCache == null ? null : makeHaplotypeKeys(entries.get(0).getLikelihoods().alleles());
+
+        // reads to send to the native code, and where their results go (entry, read within entry, read across entries)
+        final List<ReadDataHolder> readData = new ArrayList<>();
+        final List<PairHMMResultCache.ReadKey> readKeys = new ArrayList<>();
+        final List<int[]> destinations = new ArrayList<>();
+        int globalReadIndex = 0;
+        for (int e = 0; e < entries.size(); e++) {
+            final PairHMMBatch.Entry entry = entries.get(e);
+            final List<GATKRead> processedReads = entry.getProcessedReads();
+            for (int r = 0; r < processedReads.size(); r++, globalReadIndex++) {
+                final GATKRead read = processedReads.get(r);
+                final ReadDataHolder holder = new ReadDataHolder();
+                holder.readBases = read.getBases();
+                holder.readQuals = read.getBaseQualities();
+                holder.insertionGOP = ReadUtils.getBaseInsertionQualities(read);
+                holder.deletionGOP = ReadUtils.getBaseDeletionQualities(read);
+                holder.overallGCP = entry.getGapContinuationPenalties().get(read);
+
+                // with a result cache, only reads with at least one uncached haplotype are sent to the native code
+                final PairHMMResultCache.ReadKey readKey = resultCache == null ? null : new PairHMMResultCache.ReadKey(
+                        holder.readBases, holder.readQuals, holder.insertionGOP, holder.deletionGOP, holder.overallGCP);
+                if (readKey != null && setCachedLikelihoods(readKey, haplotypeKeys, entry.getLikelihoods(), r, nativeHaplotypeIndex, allResults, globalReadIndex * numNativeHaplotypes)) {
+                    continue;
+                }
+                readData.add(holder);
+                readKeys.add(readKey);
+                destinations.add(new int[]{e, r, globalReadIndex});
+            }
+        }
+
+        final long setupEndTime = doProfiling ? System.nanoTime() : 0;
+        if (readData.isEmpty()) {
+            return setupEndTime;
+        }
+
+        final double[] computedLikelihoods = new double[readData.size() * numNativeHaplotypes];
+        //for(reads)
+        //   for(haplotypes)
+        //       compute_full_prob()
+        pairHmm.computeLikelihoods(readData.toArray(new ReadDataHolder[readData.size()]), haplotypeData, computedLikelihoods);
+
+        for (int i = 0; i < readData.size(); i++) {
+            final int[] destination = destinations.get(i);
+            final LikelihoodMatrix<Haplotype> likelihoods = entries.get(destination[0]).getLikelihoods();
+            for (int h = 0; h < numHaplotypes; h++) {
+                final double lk = computedLikelihoods[i * numNativeHaplotypes + nativeHaplotypeIndex[h]];
+                likelihoods.set(h, destination[1], lk);
+                if (allResults != null) {
+                    allResults[destination[2] * numNativeHaplotypes + nativeHaplotypeIndex[h]] = lk;
+                }
+                if (resultCache != null) {
+                    resultCache.put(readKeys.get(i), haplotypeKeys[h], lk);
+                }
+            }
+        }
+        return setupEndTime;
+    }
+
+    // fills in the likelihoods of a read from the cache if all of them are cached, returning whether that was the case;
+    // otherwise the read is computed against every haplotype, so all its lookups count as misses
+    private boolean setCachedLikelihoods(final PairHMMResultCache.ReadKey readKey, final PairHMMResultCache.HaplotypeKey[] haplotypeKeys,
+                                         final LikelihoodMatrix<Haplotype> likelihoods, final int readIndex,
+                                         final int[] nativeHaplotypeIndex, final double[] allResults, final int allResultsOffset) {
+        final double[] cached = new double[haplotypeKeys.length];
+        for (int h = 0; h < haplotypeKeys.length; h++) {
+            cached[h] = resultCache.peek(readKey, haplotypeKeys[h]);
+            if (Double.isNaN(cached[h])) {
+                resultCache.countLookups(0, haplotypeKeys.length);
+                return false;
+            }
+        }
+        resultCache.countLookups(haplotypeKeys.length, 0);
+        for (int h = 0; h < haplotypeKeys.length; h++) {
+            likelihoods.set(h, readIndex, cached[h]);
+            if (allResults != null) {
+                allResults[allResultsOffset + nativeHaplotypeIndex[h]] = cached[h];
+            }
+        }
+        return true;
+    }
 
     @Override
     public void close() {
@@ -60,6 +60,11 @@ public final class BaseRecalibrationEngine implements Serializable {
 
     private RecalibrationArgumentCollection recalArgs;
 
+    /**
+     * Counts accumulated by processRead, turned into recalTables by finalizeData
+     */
+    private DenseRecalibrationTables recalCounts;
+
     private RecalibrationTables recalTables;
 
     private SAMFileHeader readsHeader;
@@ -95,7 +100,7 @@ public final class BaseRecalibrationEngine implements Serializable {
         if ( numReadGroups < 1 ) {
             throw new UserException("Number of read groups must be >= 1, but is " + numReadGroups);
         }
-        recalTables = new RecalibrationTables(covariates, numReadGroups);
+        recalCounts = new DenseRecalibrationTables(covariates, numReadGroups);
         keyCache = new CovariateKeyCache();
         cachedEventTypes = recalArgs.computeIndelBQSRTables ? EventType.values() : new EventType[]{EventType.BASE_SUBSTITUTION};
     }
@@ -147,6 +152,19 @@ public final class BaseRecalibrationEngine implements Serializable {
         numReadsProcessed++;
     }
 
+    /**
+     * Add the counts collected by another engine, e.g. one that processed other reads on another thread, to the
+     * counts of this engine.
+     *
+     * Neither engine may have been finalized yet.
+     */
+    public void combine( final BaseRecalibrationEngine other ) {
+        Utils.nonNull(other);
+        Utils.validate(!finalized && !other.finalized, "Cannot combine engines after finalizeData() has been called");
+        recalCounts.combine(other.recalCounts);
+        numReadsProcessed += other.numReadsProcessed;
+    }
+
     /**
      * Finalize, if appropriate, all derived data in recalibrationTables.
      *
@@ -157,6 +175,8 @@ public final class BaseRecalibrationEngine implements Serializable {
      */
     public void finalizeData() {
         Utils.validate(!finalized, "FinalizeData() has already been called");
+        recalTables = recalCounts.toRecalibrationTables(covariates);
+        recalCounts = null;
         finalizeRecalibrationTables(recalTables);
         finalized = true;
     }
@@ -207,10 +227,14 @@ public final class BaseRecalibrationEngine implements Serializable {
     }
 
     /**
-     * Get a possibly not-final recalibration table, to deal with distributed execution.
+     * Get the counts collected so far by this engine, to be combined with the counts of other engines in distributed
+     * execution and then turned into tables with {@link DenseRecalibrationTables#toRecalibrationTables}.
+     *
+     * It is an error to call this function after finalizeData has been called
      */
-    public RecalibrationTables getRecalibrationTables() {
-        return recalTables;
+    public DenseRecalibrationTables getRecalibrationCounts() {
+        Utils.validate(!finalized, "Cannot get the recalibration counts after finalizeData() has been called");
+        return recalCounts;
     }
 
     /**
@@ -244,7 +268,7 @@ public final class BaseRecalibrationEngine implements Serializable {
 
         final GATKRead read = recalInfo.getRead();
         final ReadCovariates readCovariates = recalInfo.getCovariatesValues();
-        final NestedIntegerArray<RecalDatum> qualityScoreTable = recalTables.getQualityScoreTable();
+        final DenseRecalibrationTables counts = recalCounts;
 
         final int nCovariates = covariates.size();
         final int nSpecialCovariates = covariates.numberOfSpecialCovariates();
@@ -253,20 +277,18 @@ public final class BaseRecalibrationEngine implements Serializable {
             if( ! recalInfo.skip(offset) ) {
                 for (int idx = 0; idx < cachedEventTypes.length; idx++) { //Note: we loop explicitly over cached values for speed
                     final EventType eventType = cachedEventTypes[idx];
-                    final int[] keys = readCovariates.getKeySet(offset, eventType);
                     final int eventIndex = eventType.ordinal();
-                    final byte qual = recalInfo.getQual(eventType, offset);
                     final double isError = recalInfo.getErrorFraction(eventType, offset);
 
-                    final int key0 = keys[0];
-                    final int key1 = keys[1];
+                    final int key0 = readCovariates.getKey(offset, eventIndex, 0);
+                    final int key1 = readCovariates.getKey(offset, eventIndex, 1);
 
-                    RecalUtils.incrementDatumOrPutIfNecessary3keys(qualityScoreTable, qual, isError, key0, key1, eventIndex);
+                    counts.incrementQualityScoreTable(key0, key1, eventIndex, isError);
 
                     for (int i = nSpecialCovariates; i < nCovariates; i++) {
-                        final int keyi = keys[i];
+                        final int keyi = readCovariates.getKey(offset, eventIndex, i);
                         if (keyi >= 0) {
-                            RecalUtils.incrementDatumOrPutIfNecessary4keys(recalTables.getTable(i), qual, isError, key0, key1, keyi, eventIndex);
+                            counts.incrementAdditionalTable(i - nSpecialCovariates, key0, key1, keyi, eventIndex, isError);
                         }
                     }
                 }
@@ -0,0 +1,205 @@
+package org.broadinstitute.hellbender.utils.recalibration;
+
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.collections.NestedIntegerArray;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.Covariate;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.StandardCovariateList;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Observation and error counts of base recalibration, kept in flat primitive arrays instead of the trees of
+ * {@link RecalDatum} of {@link RecalibrationTables}.
+ *
+ * <p>
+ *     This is what {@link BaseRecalibrationEngine} accumulates into: counting a base is a couple of array increments
+ *     with no object lookup or allocation, and partial tables (e.g. of Spark partitions) are merged with an element-wise
+ *     add. Once all the data has been collected, {@link #toRecalibrationTables} turns the counts into the usual
+ *     {@link RecalibrationTables} for finalization and reporting.
+ * </p>
+ *
+ * <p>
+ *     The read group x quality score table is a single dense array, strided by quality score then event type.
+ *     The additional covariate tables are much larger and mostly empty for most read group and quality score
+ *     combinations, so each of them is an array of (read group, quality score) rows, strided by covariate key
+ *     then event type, which are only allocated once a base is counted in them.
+ * </p>
+ *
+ * <p>
+ *     Errors are stored scaled by the same multiplier as in {@link RecalDatum}, and added in the same order, so the
+ *     resulting tables are identical to the ones built by incrementing {@link RecalDatum}s directly.
+ * </p>
+ */
+public final class DenseRecalibrationTables implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int numReadGroups;
+    private final int qualDimension;
+    private final int eventDimension = EventType.values().length;
+    private final int[] covariateDimensions;
+
+    private final long[] qualityScoreObservations;
+    private final double[] qualityScoreErrors;
+
+    // indexed by additional covariate, then (read group, quality score) row
+    private final long[][][] additionalObservations;
+    private final double[][][] additionalErrors;
+
+    public DenseRecalibrationTables(final StandardCovariateList covariates) {
+        this(covariates, covariates.getReadGroupCovariate().maximumKeyValue() + 1);
+    }
+
+    public DenseRecalibrationTables(final StandardCovariateList covariates, final int numReadGroups) {
+        Utils.nonNull(covariates);
+        Utils.validateArg(numReadGroups >= 0, "numReadGroups must be non-negative");
+        this.numReadGroups = numReadGroups;
+        this.qualDimension = covariates.getQualityScoreCovariate().maximumKeyValue() + 1;
+
+        final List<Covariate> additionalCovariates = covariates.getAdditionalCovariates();
+        covariateDimensions = new int[additionalCovariates.size()];
+        for ( int i = 0; i < covariateDimensions.length; i++ ) {
+            covariateDimensions[i] = additionalCovariates.get(i).maximumKeyValue() + 1;
+        }
+
+        qualityScoreObservations = new long[numReadGroups * qualDimension * eventDimension];
+        qualityScoreErrors = new double[qualityScoreObservations.length];
+        additionalObservations = new long[covariateDimensions.length][numReadGroups * qualDimension][];
+        additionalErrors = new double[covariateDimensions.length][numReadGroups * qualDimension][];
+    }
+
+    /**
+     * Count a base in the read group x quality score table.
+     *
+     * @param isError error value (possibly fractional, e.g. with BAQ) of this base
+     */
+    public void incrementQualityScoreTable(final int readGroupKey, final int qualKey, final int eventIndex, final double isError) {
+        final int index = (readGroupKey * qualDimension + qualKey) * eventDimension + eventIndex;
+        qualityScoreObservations[index]++;
+        qualityScoreErrors[index] += isError * RecalDatum.MULTIPLIER;
+    }
+
+    /**
+     * Count a base in the table of an additional covariate.
+     *
+     * @param covariateIndex index of the covariate among the additional covariates of {@link StandardCovariateList}
+     * @param isError error value (possibly fractional, e.g. with BAQ) of this base
+     */
+    public void incrementAdditionalTable(final int covariateIndex, final int readGroupKey, final int qualKey,
+                                         final int covariateKey, final int eventIndex, final double isError) {
+        final int row = readGroupKey * qualDimension + qualKey;
+        long[] observations = additionalObservations[covariateIndex][row];
+        if ( observations == null ) {
+            observations = additionalObservations[covariateIndex][row] = new long[covariateDimensions[covariateIndex] * eventDimension];
+            additionalErrors[covariateIndex][row] = new double[observations.length];
+        }
+        final int index = covariateKey * eventDimension + eventIndex;
+        observations[index]++;
+        additionalErrors[covariateIndex][row][index] += isError * RecalDatum.MULTIPLIER;
+    }
+
+    /**
+     * Add all the counts of other into these tables.
+     *
+     * @return these tables
+     */
+    public DenseRecalibrationTables combine(final DenseRecalibrationTables other) {
+        Utils.nonNull(other);
+        Utils.validateArg(numReadGroups == other.numReadGroups && qualDimension == other.qualDimension
+                && Arrays.equals(covariateDimensions, other.covariateDimensions),
+                "Attempting to merge DenseRecalibrationTables with different dimensions");
+
+        addInto(qualityScoreObservations, qualityScoreErrors, other.qualityScoreObservations, other.qualityScoreErrors);
+        for ( int cov = 0; cov < covariateDimensions.length; cov++ ) {
+            for ( int row = 0; row < numReadGroups * qualDimension; row++ ) {
+                final long[] otherObservations = other.additionalObservations[cov][row];
+                if ( otherObservations == null ) {
+                    continue;
+                }
+                if ( additionalObservations[cov][row] == null ) {
+                    additionalObservations[cov][row] = otherObservations.clone();
+                    additionalErrors[cov][row] = other.additionalErrors[cov][row].clone();
+                } else {
+                    addInto(additionalObservations[cov][row], additionalErrors[cov][row], otherObservations, other.additionalErrors[cov][row]);
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Combines the right tables into the left tables, in-place (without making a copy)
+     *
+     * @return modified version of left with the contents of right incorporated into it
+     */
+    public static DenseRecalibrationTables inPlaceCombine(final DenseRecalibrationTables left, final DenseRecalibrationTables right) {
+        Utils.nonNull(left);
+        return left.combine(right);
+    }
+
+    private static void addInto(final long[] observations, final double[] errors, final long[] otherObservations, final double[] otherErrors) {
+        for ( int i = 0; i < observations.length; i++ ) {
+            observations[i] += otherObservations[i];
+            errors[i] += otherErrors[i];
+        }
+    }
+
+    /**
+     * @return true if no base has been counted
+     */
+    public boolean isEmpty() {
+        for ( final long observations : qualityScoreObservations ) {
+            if ( observations > 0 ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Build the {@link RecalibrationTables} holding these counts, with a {@link RecalDatum} for each non-empty cell.
+     * The reported quality of each datum is its quality score key. The read group table is left empty, as it is
+     * derived from the quality score table by {@link BaseRecalibrationEngine#finalizeRecalibrationTables}.
+     *
+     * @param covariates the covariates these tables were created with
+     */
+    public RecalibrationTables toRecalibrationTables(final StandardCovariateList covariates) {
+        Utils.nonNull(covariates);
+        final RecalibrationTables tables = new RecalibrationTables(covariates, numReadGroups);
+        Utils.validateArg(covariates.getAdditionalCovariates().size() == covariateDimensions.length,
+                "The covariates do not match the ones these tables were created with");
+
+        final NestedIntegerArray<RecalDatum> qualityScoreTable = tables.getQualityScoreTable();
+        for ( int rg = 0; rg < numReadGroups; rg++ ) {
+            for ( int qual = 0; qual < qualDimension; qual++ ) {
+                for ( int event = 0; event < eventDimension; event++ ) {
+                    final int index = (rg * qualDimension + qual) * eventDimension + event;
+                    if ( qualityScoreObservations[index] > 0 ) {
+                        qualityScoreTable.put(RecalDatum.fromScaledCounts(qualityScoreObservations[index], qualityScoreErrors[index], (byte) qual), rg, qual, event);
+                    }
+                }
+            }
+        }
+
+        final List<NestedIntegerArray<RecalDatum>> additionalTables = tables.getAdditionalTables();
+        for ( int cov = 0; cov < covariateDimensions.length; cov++ ) {
+            final NestedIntegerArray<RecalDatum> table = additionalTables.get(cov);
+            for ( int row = 0; row < numReadGroups * qualDimension; row++ ) {
+                final long[] observations = additionalObservations[cov][row];
+                if ( observations == null ) {
+                    continue;
+                }
+                final double[] errors = additionalErrors[cov][row];
+                final int rg = row / qualDimension;
+                final int qual = row % qualDimension;
+                for ( int index = 0; index < observations.length; index++ ) {
+                    if ( observations[index] > 0 ) {
+                        table.put(RecalDatum.fromScaledCounts(observations[index], errors[index], (byte) qual), rg, qual, index / eventDimension, index % eventDimension);
+                    }
+                }
+            }
+        }
+        return tables;
+    }
+}
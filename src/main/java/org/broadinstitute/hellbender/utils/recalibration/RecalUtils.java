@@ -520,10 +520,11 @@ public final class RecalUtils {
      * @param header              SAM header for the read
      * @param covariates The list of requested covariates.
      * @param recordIndelValues   should we compute covariates for indel BQSR?
-     * @return a matrix with all the covariates calculated for every base in the read
+     * @param keyCache            the cache whose key buffer is reused to hold the covariates
+     * @return a matrix with all the covariates calculated for every base in the read, only valid until keyCache is used again
      */
     public static ReadCovariates computeCovariates(final GATKRead read, final SAMFileHeader header, final StandardCovariateList covariates, final boolean recordIndelValues, final CovariateKeyCache keyCache) {
-        final ReadCovariates readCovariates = new ReadCovariates(read.getLength(), covariates.size(), keyCache);
+        final ReadCovariates readCovariates = keyCache.getReadCovariates(read.getLength(), covariates.size());
         computeCovariates(read, header, covariates, readCovariates, recordIndelValues);
         return readCovariates;
     }
@@ -2,8 +2,6 @@ package org.broadinstitute.hellbender.utils.recalibration.covariates;
 
 import com.google.common.annotations.VisibleForTesting;
 import htsjdk.samtools.SAMFileHeader;
-import it.unimi.dsi.fastutil.ints.IntArrayList;
-import it.unimi.dsi.fastutil.ints.IntList;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.broadinstitute.barclay.argparser.CommandLineException;
@@ -57,44 +55,58 @@ public final class ContextCovariate implements Covariate {
 
     @Override
     public void recordValues(final GATKRead read, final SAMFileHeader header, final ReadCovariates values, final boolean recordIndelValues) {
+        final int readLength = read.getLength();
+        final byte[] bases = read.getBasesNoCopy();
+        final byte[] quals = read.getBaseQualitiesNoCopy();
+
+        // Rather than making a copy of the read with Ns written over the low quality tails (and reverse complementing
+        // it for negative strand reads) as getStrandedClippedBytes does, we find the bounds of the unclipped bases and
+        // treat the bases outside of them as Ns while streaming over the read in stranded order.
+        int firstUnclipped = 0;
+        int lastUnclipped = readLength - 1;
+        while ( lastUnclipped >= 0 && quals[lastUnclipped] <= lowQualTail ) {
+            lastUnclipped--;
+        }
+        while ( firstUnclipped < readLength && quals[firstUnclipped] <= lowQualTail ) {
+            firstUnclipped++;
+        }
 
-        final int originalReadLength = read.getLength();
-
-        // store the original bases and then write Ns over low quality ones
-        final byte[] strandedClippedBases = getStrandedClippedBytes(read, lowQualTail);  //Note: this makes a copy of the read
-
-        //Note: we're using a non-standard library here because boxing came up on profiling as taking 20% of time in applyBQSR.
-        //IntList avoids boxing
-        final IntList mismatchKeys = contextWith(strandedClippedBases, mismatchesContextSize, mismatchesKeyMask);
-
-        final int readLengthAfterClipping = strandedClippedBases.length;
-
-        // this is necessary to ensure that we don't keep historical data in the ReadCovariates values
-        // since the context covariate may not span the entire set of values in read covariates
-        // due to the clipping of the low quality bases
-        if ( readLengthAfterClipping != originalReadLength) {
-            // don't bother zeroing out if we are going to overwrite the whole array
-            for ( int i = 0; i < originalReadLength; i++ ){
-                // this base has been clipped off, so zero out the covariate values here
+        // if the entire read is clipped there is no context at all, so zero out the covariate values
+        if ( firstUnclipped > lastUnclipped ) {
+            for ( int i = 0; i < readLength; i++ ) {
                 values.addCovariate(0, 0, 0, i);
             }
+            return;
         }
 
         final boolean negativeStrand = read.isReverseStrand();
-
-        //Note: duplicated the loop to avoid checking recordIndelValues on each iteration
-        if (recordIndelValues) {
-            final IntList indelKeys = contextWith(strandedClippedBases, indelsContextSize, indelsKeyMask);
-            for (int i = 0; i < readLengthAfterClipping; i++) {
-                final int readOffset = getStrandedOffset(negativeStrand, i, readLengthAfterClipping);
-                final int indelKey = indelKeys.getInt(i);
-                values.addCovariate(mismatchKeys.getInt(i), indelKey, indelKey, readOffset);
-            }
-        } else {
-            for (int i = 0; i < readLengthAfterClipping; i++) {
-                final int readOffset = getStrandedOffset(negativeStrand, i, readLengthAfterClipping);
-                values.addCovariate(mismatchKeys.getInt(i), 0, 0, readOffset);
+        final int mismatchesNewBaseShift = 2 * (mismatchesContextSize - 1) + LENGTH_BITS;
+        final int indelsNewBaseShift = 2 * (indelsContextSize - 1) + LENGTH_BITS;
+
+        // the keys of the contexts ending at the current base, valid once we have seen enough consecutive ACGT bases
+        int mismatchKey = 0;
+        int indelKey = 0;
+        int numRegularBases = 0;
+        for ( int i = 0; i < readLength; i++ ) {
+            final int readOffset = getStrandedOffset(negativeStrand, i, readLength);
+            final int baseIndex = readOffset < firstUnclipped || readOffset > lastUnclipped ? -1 :
+                    BaseUtils.simpleBaseToBaseIndex(negativeStrand ? BaseUtils.simpleComplement(bases[readOffset]) : bases[readOffset]);
+
+            if ( baseIndex == -1 ) { // non-ACGT bases reset the contexts
+                numRegularBases = 0;
+                mismatchKey = 0;
+                indelKey = 0;
+            } else {
+                // push this base's contribution onto the key: shift everything 2 bits, mask out the non-context bits, and add the new base and the length in
+                numRegularBases++;
+                mismatchKey = ((mismatchKey >> 2) & mismatchesKeyMask) | (baseIndex << mismatchesNewBaseShift) | mismatchesContextSize;
+                indelKey = ((indelKey >> 2) & indelsKeyMask) | (baseIndex << indelsNewBaseShift) | indelsContextSize;
             }
+
+            final int mismatch = numRegularBases >= mismatchesContextSize ? mismatchKey : -1;
+            //Note: the indel keys are computed anyway, as it is cheaper than checking recordIndelValues on each iteration
+            final int indel = recordIndelValues ? (numRegularBases >= indelsContextSize ? indelKey : -1) : 0;
+            values.addCovariate(mismatch, indel, indel, readOffset);
         }
     }
 
@@ -153,72 +165,6 @@ public final class ContextCovariate implements Covariate {
         return mask << LENGTH_BITS;
     }
 
-    /**
-     * calculates the context of a base independent of the covariate mode (mismatch, insertion or deletion)
-     *
-     * @param bases       the bases in the read to build the context from
-     * @param contextSize context size to use building the context
-     * @param mask        mask for pulling out just the context bits
-     */
-    private static IntList contextWith(final byte[] bases, final int contextSize, final int mask) {
-
-        final int readLength = bases.length;
-
-        //Note: we use a specialized collection to avoid the cost of boxing and unboxing that otherwise comes up on the profiler.
-        final IntList keys = new IntArrayList(readLength);
-
-        // the first contextSize-1 bases will not have enough previous context
-        for (int i = 1; i < contextSize && i <= readLength; i++) {
-            keys.add(-1);
-        }
-
-        if (readLength < contextSize) {
-            return keys;
-        }
-
-        final int newBaseOffset = 2 * (contextSize - 1) + LENGTH_BITS;
-
-        // get (and add) the key for the context starting at the first base
-        int currentKey = keyFromContext(bases, 0, contextSize);
-        keys.add(currentKey);
-
-        // if the first key was -1 then there was an N in the context; figure out how many more consecutive contexts it affects
-        int currentNPenalty = 0;
-        if (currentKey == -1) {
-            currentKey = 0;
-            currentNPenalty = contextSize - 1;
-            int offset = newBaseOffset;
-            while (bases[currentNPenalty] != 'N') {
-                final int baseIndex = BaseUtils.simpleBaseToBaseIndex(bases[currentNPenalty]);
-                currentKey |= (baseIndex << offset);
-                offset -= 2;
-                currentNPenalty--;
-            }
-        }
-
-        for (int currentIndex = contextSize; currentIndex < readLength; currentIndex++) {
-            final int baseIndex = BaseUtils.simpleBaseToBaseIndex(bases[currentIndex]);
-            if (baseIndex == -1) { // ignore non-ACGT bases
-                currentNPenalty = contextSize;
-                currentKey = 0; // reset the key
-            } else {
-                // push this base's contribution onto the key: shift everything 2 bits, mask out the non-context bits, and add the new base and the length in
-                currentKey = (currentKey >> 2) & mask;
-                currentKey |= (baseIndex << newBaseOffset);
-                currentKey |= contextSize;
-            }
-
-            if (currentNPenalty == 0) {
-                keys.add(currentKey);
-            } else {
-                currentNPenalty--;
-                keys.add(-1);
-            }
-        }
-
-        return keys;
-    }
-
     public static int keyFromContext(final String dna) {
         return keyFromContext(dna.getBytes(), 0, dna.length());
     }
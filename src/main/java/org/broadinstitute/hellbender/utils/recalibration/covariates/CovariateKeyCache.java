@@ -1,41 +1,35 @@
 package org.broadinstitute.hellbender.utils.recalibration.covariates;
 
-import org.broadinstitute.hellbender.utils.LRUCache;
-import org.broadinstitute.hellbender.utils.Utils;
-
 /*
- * Use an LRU cache to keep cache of keys (int[][][]) arrays for each read length we've seen.
- * The cache allows us to avoid the expense of recreating these arrays for every read.  The LRU
- * keeps the total number of cached arrays to less than LRU_CACHE_SIZE.
+ * Keeps the key buffer (and a ReadCovariates view of it) that is reused for the covariates of every read, so that
+ * computing covariates does not allocate once the buffer has grown to fit the longest read seen. As with any reused
+ * buffer, a cache must only be used by a single thread, and the keys of a read are only valid until the next read.
  */
 public final class CovariateKeyCache {
 
-    /**
-     * How big should we let the LRU cache grow
-     */
-    private static final int LRU_CACHE_SIZE = 500;
-
-    private final LRUCache<Integer, int[][][]> keysCache = new LRUCache<>(LRU_CACHE_SIZE);
+    private int[] keys = new int[0];
 
-    /**
-     * Get the cached value for the given readlength or null is no value is cached.
-     */
-    public int[][][] get(final int readLength) {
-        return keysCache.get(readLength);
-    }
+    private ReadCovariates readCovariates;
 
     /**
-     * Store the given array in the cache.
+     * Get the ReadCovariates of this cache, ready to hold the keys of a read of the given length.
      */
-    public void put(final int readLength, final int[][][] keys) {
-        Utils.nonNull(keys);
-        keysCache.put(readLength, keys);
+    public ReadCovariates getReadCovariates(final int readLength, final int numberOfCovariates) {
+        if ( readCovariates == null ) {
+            readCovariates = new ReadCovariates(readLength, numberOfCovariates, this);
+        } else {
+            readCovariates.reset(readLength, numberOfCovariates, this);
+        }
+        return readCovariates;
     }
 
     /**
-     * Returns the size of this cache.
+     * Get the key buffer, grown to at least the given size if necessary.
      */
-    public int size() {
-        return keysCache.size();
+    int[] getKeysBuffer(final int minSize) {
+        if ( keys.length < minSize ) {
+            keys = new int[minSize];
+        }
+        return keys;
     }
 }
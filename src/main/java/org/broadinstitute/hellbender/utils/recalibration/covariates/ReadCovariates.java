@@ -1,20 +1,31 @@
 package org.broadinstitute.hellbender.utils.recalibration.covariates;
 
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.recalibration.EventType;
 
+import java.util.Arrays;
+
 /**
  * The object temporarily held by a read that describes all of its covariates.
+ *
+ * The keys are stored in a single flat array, strided by read offset, then event type, then covariate, which is
+ * borrowed from a {@link CovariateKeyCache} and reused for every read computed with the same cache. The keys are
+ * therefore only valid until the next read is computed with that cache.
  */
 public final class ReadCovariates {
-    private static final Logger logger = LogManager.getLogger(ReadCovariates.class);
+
+    private static final int NUM_EVENTS = EventType.values().length;
+    private static final int SUBSTITUTION_INDEX = EventType.BASE_SUBSTITUTION.ordinal();
+    private static final int INSERTION_INDEX = EventType.BASE_INSERTION.ordinal();
+    private static final int DELETION_INDEX = EventType.BASE_DELETION.ordinal();
 
     /**
-     * Our keys, indexed by event type x read length x covariate
+     * Our keys, indexed by read offset x event type x covariate
      */
-    private final int[][][] keys;
+    private int[] keys;
+
+    private int readLength;
+    private int numberOfCovariates;
 
     /**
      * The index of the current covariate, used by addCovariate
@@ -22,20 +33,22 @@ public final class ReadCovariates {
     private int currentCovariateIndex = 0;
 
     /**
-     * Use an LRU cache to keep cache of keys (int[][][]) arrays for each read length we've seen.
-     * The cache allows us to avoid the expense of recreating these arrays for every read.  The LRU
-     * keeps the total number of cached arrays to less than LRU_CACHE_SIZE.
+     * The keys array is taken from keysCache, which keeps a single buffer large enough for the longest read it has
+     * seen, so creating a ReadCovariates does not allocate any key storage once that buffer has grown.
      */
     public ReadCovariates(final int readLength, final int numberOfCovariates, final CovariateKeyCache keysCache) {
+        reset(readLength, numberOfCovariates, keysCache);
+    }
+
+    /**
+     * Point this object at the keys of a new read, reusing the buffer of keysCache.
+     */
+    void reset(final int readLength, final int numberOfCovariates, final CovariateKeyCache keysCache) {
         Utils.nonNull(keysCache);
-        final int[][][] cachedKeys = keysCache.get(readLength);
-        if ( cachedKeys == null ) {
-            if ( logger.isDebugEnabled() ) logger.debug("Keys cache miss for length " + readLength + " cache size " + keysCache.size());
-            keys = new int[EventType.values().length][readLength][numberOfCovariates];
-            keysCache.put(readLength, keys);
-        } else {
-            keys = cachedKeys;
-        }
+        this.readLength = readLength;
+        this.numberOfCovariates = numberOfCovariates;
+        this.keys = keysCache.getKeysBuffer(readLength * NUM_EVENTS * numberOfCovariates);
+        this.currentCovariateIndex = 0;
     }
 
     public void setCovariateIndex(final int index) {
@@ -45,9 +58,7 @@ public final class ReadCovariates {
     /**
      * Update the keys for mismatch, insertion, and deletion for the current covariate at read offset
      *
-     * NOTE: no checks are performed on the number of covariates, for performance reasons.  If the count increases
-     * after the keysCache has been accessed, this method will throw an ArrayIndexOutOfBoundsException.  This currently
-     * only occurs in the testing harness, and we don't anticipate that it will become a part of normal runs.
+     * NOTE: no checks are performed on the number of covariates, for performance reasons.
      *
      * @param mismatch the mismatch key value
      * @param insertion the insertion key value
@@ -55,24 +66,45 @@ public final class ReadCovariates {
      * @param readOffset the read offset, must be >= 0 and <= the read length used to create this ReadCovariates
      */
     public void addCovariate(final int mismatch, final int insertion, final int deletion, final int readOffset) {
-        keys[EventType.BASE_SUBSTITUTION.ordinal()][readOffset][currentCovariateIndex] = mismatch;
-        keys[EventType.BASE_INSERTION.ordinal()][readOffset][currentCovariateIndex] = insertion;
-        keys[EventType.BASE_DELETION.ordinal()][readOffset][currentCovariateIndex] = deletion;
+        final int offsetStart = readOffset * NUM_EVENTS * numberOfCovariates + currentCovariateIndex;
+        keys[offsetStart + SUBSTITUTION_INDEX * numberOfCovariates] = mismatch;
+        keys[offsetStart + INSERTION_INDEX * numberOfCovariates] = insertion;
+        keys[offsetStart + DELETION_INDEX * numberOfCovariates] = deletion;
     }
 
     /**
-     * Get the keys for all covariates at read position for error model
+     * Get the key of one covariate at read position for error model. This is what hot loops should use, as it does
+     * not allocate anything.
+     *
+     * @param readPosition offset in the read
+     * @param eventIndex ordinal of the {@link EventType} of the error model
+     * @param covariateIndex index of the covariate in the {@link StandardCovariateList}
+     */
+    public int getKey(final int readPosition, final int eventIndex, final int covariateIndex) {
+        return keys[(readPosition * NUM_EVENTS + eventIndex) * numberOfCovariates + covariateIndex];
+    }
+
+    /**
+     * Get a copy of the keys for all covariates at read position for error model
      *
      * @param readPosition
      * @param errorModel
      * @return
      */
     public int[] getKeySet(final int readPosition, final EventType errorModel) {
-        return keys[errorModel.ordinal()][readPosition];
+        final int start = (readPosition * NUM_EVENTS + errorModel.ordinal()) * numberOfCovariates;
+        return Arrays.copyOfRange(keys, start, start + numberOfCovariates);
     }
 
+    /**
+     * Get a copy of the keys for all covariates at every read position for error model
+     */
     public int[][] getKeySet(final EventType errorModel) {
-        return keys[errorModel.ordinal()];
+        final int[][] keySets = new int[readLength][];
+        for ( int i = 0; i < readLength; i++ ) {
+            keySets[i] = getKeySet(i, errorModel);
+        }
+        return keySets;
     }
 
     // ----------------------------------------------------------------------
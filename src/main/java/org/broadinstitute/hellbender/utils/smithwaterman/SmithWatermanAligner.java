@@ -69,7 +69,15 @@ public interface SmithWatermanAligner extends Closeable {
         /**
          * use the pure java implementation of Smith-Waterman, works on all hardware
          */
-        JAVA(SmithWatermanJavaAligner::getInstance);
+        JAVA(SmithWatermanJavaAligner::getInstance),
+
+        /**
+         * use the pure java implementation of Smith-Waterman restricted to a band around the diagonal, which is faster
+         * for near-identical sequences and falls back to the full computation when the alignment ends near the band's
+         * edge or goes through it. A better alignment outside of the band can still be missed, so the results may
+         * differ from those of {@link #JAVA}, mostly when the best alignment has a long overhang.
+         */
+        JAVA_BANDED(() -> SmithWatermanJavaAligner.getBandedInstance(SmithWatermanJavaAligner.DEFAULT_BAND_WIDTH));
 
         private final Supplier<SmithWatermanAligner> alignerSupplier;
 
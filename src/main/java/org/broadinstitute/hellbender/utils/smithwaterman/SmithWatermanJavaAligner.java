@@ -16,13 +16,38 @@ import java.util.List;
 /**
  * Pairwise discrete smith-waterman alignment implemented in pure java
  *
+ * The scoring and back track matrices are stored as flat arrays in a per-thread workspace that grows to the largest
+ * alignment seen by the thread and is reused afterwards, so aligning does not allocate matrices.
+ *
+ * Instances created with {@link #getBandedInstance(int)} only fill the cells within a fixed distance of the diagonals
+ * joining the two corners of the matrix, which is the only part that matters for near-identical sequences such as a
+ * haplotype against the reference. If the best alignment found ends near the edge of the band or goes through it,
+ * a better one may lie outside of it, so the alignment is recomputed over the full matrix. An alignment outside of the
+ * band that scores better without coming near its edge is still missed, so the results can differ from those of
+ * {@link #getInstance()} when the best alignment has a long overhang or is otherwise far from those diagonals.
+ *
  * ************************************************************************
  * ****                    IMPORTANT NOTE:                             ****
  * ****  This class assumes that all bytes come from UPPERCASED chars! ****
  * ************************************************************************
  */
 public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
-    private static final SmithWatermanJavaAligner ALIGNER = new SmithWatermanJavaAligner();
+    /**
+     * Default band width used by {@link SmithWatermanAligner.Implementation#JAVA_BANDED}
+     */
+    public static final int DEFAULT_BAND_WIDTH = 32;
+
+    private static final int NO_BAND = -1;
+
+    private static final SmithWatermanJavaAligner ALIGNER = new SmithWatermanJavaAligner(NO_BAND);
+
+    // workspaces larger than this many matrix cells (4 MB, as each cell takes an int in each of the two matrices)
+    // are not kept around after the alignment
+    private static final long MAX_RETAINED_MATRIX_CELLS = 1 << 19;
+
+    private static final ThreadLocal<Workspace> WORKSPACE = ThreadLocal.withInitial(Workspace::new);
+
+    private final int bandWidth;
     private long totalComputeTime = 0;
 
     /**
@@ -32,6 +57,17 @@ public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
         return ALIGNER;
     }
 
+    /**
+     * return an aligner that restricts the computation to a band around the diagonal, falling back to a full
+     * alignment when the result ends near or goes through the edge of the band
+     *
+     * @param bandWidth number of diagonals on each side of the ones joining the corners of the matrix to compute, must be > 0
+     */
+    public static SmithWatermanJavaAligner getBandedInstance(final int bandWidth) {
+        Utils.validateArg(bandWidth > 0, () -> "bandWidth must be > 0 but got " + bandWidth);
+        return new SmithWatermanJavaAligner(bandWidth);
+    }
+
     /**
      * The state of a trace step through the matrix
      */
@@ -46,7 +82,78 @@ public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
      * Create a new SW pairwise aligner, this has no state so instead of creating new instances, we create a singleton which is
      * accessible via {@link #getInstance}
      */
-    private SmithWatermanJavaAligner(){}
+    private SmithWatermanJavaAligner(final int bandWidth){
+        this.bandWidth = bandWidth;
+    }
+
+    /**
+     * Reusable per-thread buffers for the Smith-Waterman and back track matrices, stored row-major with one row per
+     * reference position, and for the gap bookkeeping vectors.
+     */
+    private static final class Workspace {
+        private int[] sw = new int[0];
+        private int[] btrack = new int[0];
+        private int[] bestGapV = new int[0];
+        private int[] gapSizeV = new int[0];
+        private int[] bestGapH = new int[0];
+        private int[] gapSizeH = new int[0];
+
+        // set by calculateCigar: whether the alignment ended near the edge of the band or went through it
+        private boolean touchedBandEdge;
+
+        private void ensureCapacity(final int nrow, final int ncol) {
+            final long cells = (long) nrow * ncol;
+            Utils.validateArg(cells <= Integer.MAX_VALUE, () -> "sequences of lengths " + (nrow - 1) + " and " + (ncol - 1) + " are too long to align");
+            if (sw.length < cells) {
+                sw = new int[(int) cells];
+                btrack = new int[(int) cells];
+            }
+            if (bestGapV.length < ncol + 1) {
+                bestGapV = new int[ncol + 1];
+                gapSizeV = new int[ncol + 1];
+            }
+            if (bestGapH.length < nrow + 1) {
+                bestGapH = new int[nrow + 1];
+                gapSizeH = new int[nrow + 1];
+            }
+        }
+    }
+
+    /**
+     * The cells computed for an alignment: those whose diagonal index {@code i - j} lies in {@code [lo, hi]}.
+     */
+    private static final class Band {
+        private final int lo;
+        private final int hi;
+        // the number of diagonals on each side of the band that are considered near its edge
+        private final int margin;
+        private final boolean restricted;
+
+        private Band(final int lo, final int hi, final int margin, final boolean restricted) {
+            this.lo = lo;
+            this.hi = hi;
+            this.margin = margin;
+            this.restricted = restricted;
+        }
+
+        private static Band full(final int refLength, final int altLength) {
+            return new Band(-altLength, refLength, 0, false);
+        }
+
+        private static Band around(final int refLength, final int altLength, final int width) {
+            final int lo = Math.min(0, refLength - altLength) - width;
+            final int hi = Math.max(0, refLength - altLength) + width;
+            return lo <= -altLength && hi >= refLength ? full(refLength, altLength) : new Band(lo, hi, Math.max(1, width / 2), true);
+        }
+
+        private boolean isOnEdge(final int i, final int j) {
+            return restricted && (i - j == lo || i - j == hi);
+        }
+
+        private boolean isNearEdge(final int i, final int j) {
+            return restricted && (i - j - lo < margin || hi - (i - j) < margin);
+        }
+    }
 
     /**
      * Aligns the alternate sequence to the reference sequence
@@ -81,14 +188,23 @@ public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
             alignmentResult = new SWPairwiseAlignmentResult(AlignmentUtils.consolidateCigar(new Cigar(lce)), matchIndex);
         }
         else {
-            // run full Smith-Waterman
+            // run Smith-Waterman
             final int n = reference.length+1;
             final int m = alternate.length+1;
-            final int[][] sw = new int[n][m];
-            final int[][] btrack=new int[n][m];
-
-            calculateMatrix(reference, alternate, sw, btrack, overhangStrategy, parameters);
-            alignmentResult = calculateCigar(sw, btrack, overhangStrategy); // length of the segment (continuous matches, insertions or deletions)
+            final Workspace workspace = (long) n * m > MAX_RETAINED_MATRIX_CELLS ? new Workspace() : WORKSPACE.get();
+            workspace.ensureCapacity(n, m);
+
+            final Band band = bandWidth == NO_BAND ? Band.full(reference.length, alternate.length) : Band.around(reference.length, alternate.length, bandWidth);
+            calculateMatrix(reference, alternate, workspace, band, overhangStrategy, parameters);
+            final SWPairwiseAlignmentResult bandedResult = calculateCigar(workspace, n, m, band, overhangStrategy);
+            if ( workspace.touchedBandEdge ) {
+                // a better alignment may lie outside the band
+                final Band full = Band.full(reference.length, alternate.length);
+                calculateMatrix(reference, alternate, workspace, full, overhangStrategy, parameters);
+                alignmentResult = calculateCigar(workspace, n, m, full, overhangStrategy);
+            } else {
+                alignmentResult = bandedResult;
+            }
         }
 
         totalComputeTime += System.nanoTime() - startTime;
@@ -99,50 +215,58 @@ public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
      * Calculates the SW matrices for the given sequences
      * @param reference  ref sequence
      * @param alternate  alt sequence
-     * @param sw         the Smith-Waterman matrix to populate
-     * @param btrack     the back track matrix to populate
+     * @param workspace  holds the Smith-Waterman and back track matrices to populate
+     * @param band       the cells to compute; cells just outside of it are given a prohibitive score
      * @param overhangStrategy    the strategy to use for dealing with overhangs
      * @param parameters the set of weights to use to configure the alignment
      */
-    private static void calculateMatrix(final byte[] reference, final byte[] alternate, final int[][] sw, final int[][] btrack,
+    private static void calculateMatrix(final byte[] reference, final byte[] alternate, final Workspace workspace, final Band band,
                                         final SWOverhangStrategy overhangStrategy, final SWParameters parameters) {
         if ( reference.length == 0 || alternate.length == 0 ) {
             throw new IllegalArgumentException("Non-null, non-empty sequences are required for the Smith-Waterman calculation");
         }
 
-        final int ncol = sw[0].length;//alternate.length+1; formerly m
-        final int nrow = sw.length;// reference.length+1; formerly n
+        final int ncol = alternate.length+1; // formerly m
+        final int nrow = reference.length+1; // formerly n
+        final int[] sw = workspace.sw;
+        final int[] btrack = workspace.btrack;
 
         final int MATRIX_MIN_CUTOFF = (int) -1.0e8;   // never let matrix elements drop below this cutoff
 
         final int lowInitValue= Integer.MIN_VALUE/2;
-        final int[] best_gap_v = new int[ncol+1];
-        Arrays.fill(best_gap_v, lowInitValue);
-        final int[] gap_size_v = new int[ncol+1];
-        final int[] best_gap_h = new int[nrow+1];
-        Arrays.fill(best_gap_h, lowInitValue);
-        final int[] gap_size_h = new int[nrow+1];
-
+        final int[] best_gap_v = workspace.bestGapV;
+        Arrays.fill(best_gap_v, 0, ncol+1, lowInitValue);
+        final int[] gap_size_v = workspace.gapSizeV;
+        Arrays.fill(gap_size_v, 0, ncol+1, 0);
+        final int[] best_gap_h = workspace.bestGapH;
+        Arrays.fill(best_gap_h, 0, nrow+1, lowInitValue);
+        final int[] gap_size_h = workspace.gapSizeH;
+        Arrays.fill(gap_size_h, 0, nrow+1, 0);
+
+        // the matrices are reused, so the first row and column must be explicitly (re)initialized;
         // we need to initialize the SW matrix with gap penalties if we want to keep track of indels at the edges of alignments
+        Arrays.fill(sw, 0, ncol, 0);
+        for ( int i = 1; i < nrow; i++ ) {
+            sw[i*ncol] = 0;
+        }
         if ( overhangStrategy == SWOverhangStrategy.INDEL || overhangStrategy == SWOverhangStrategy.LEADING_INDEL ) {
             // initialize the first row
-            final int[] topRow=sw[0];
-            topRow[1]= parameters.getGapOpenPenalty();
+            sw[1]= parameters.getGapOpenPenalty();
             int currentValue = parameters.getGapOpenPenalty();
-            for ( int i = 2; i < topRow.length; i++ ) {
+            for ( int j = 2; j < ncol; j++ ) {
                 currentValue += parameters.getGapExtendPenalty();
-                topRow[i]=currentValue;
+                sw[j]=currentValue;
             }
             // initialize the first column
-            sw[1][0]= parameters.getGapOpenPenalty();
+            sw[ncol]= parameters.getGapOpenPenalty();
             currentValue = parameters.getGapOpenPenalty();
-            for ( int i = 2; i < sw.length; i++ ) {
+            for ( int i = 2; i < nrow; i++ ) {
                 currentValue += parameters.getGapExtendPenalty();
-                sw[i][0]=currentValue;
+                sw[i*ncol]=currentValue;
             }
         }
         // build smith-waterman matrix and keep backtrack info:
-        int[] curRow=sw[0];
+        int curRow = 0; // offset of the current row in sw and btrack
 
         //access is pricey if done enough times so we extract those out
         final int w_open = parameters.getGapOpenPenalty();
@@ -150,18 +274,26 @@ public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
         final int w_match = parameters.getMatchValue();
         final int w_mismatch = parameters.getMismatchPenalty();
 
-        //array length checks are expensive in tight loops so extract the length out
-        for ( int i = 1, sw_length = sw.length; i < sw_length ; i++ ) {
+        for ( int i = 1; i < nrow ; i++ ) {
             final byte a_base = reference[i-1]; // letter in a at the current pos
-            final int[] lastRow=curRow;
-            curRow=sw[i];
-            final int[] curBackTrackRow=btrack[i];
+            final int lastRow=curRow;
+            curRow += ncol;
+
+            // only cells with band.lo <= i - j <= band.hi are computed; the cells right next to the band are read
+            // when computing the band's edges, so give them a score that is never chosen
+            final int jStart = Math.max(1, i - band.hi);
+            final int jEnd = Math.min(ncol - 1, i - band.lo);
+            if ( jStart > 1 ) {
+                sw[curRow + jStart - 1] = lowInitValue;
+            }
+            if ( jEnd < ncol - 1 ) {
+                sw[curRow + jEnd + 1] = lowInitValue;
+            }
 
-            //array length checks are expensive in tight loops so extract the length out
-            for ( int j = 1, curRow_length = curRow.length; j < curRow_length; j++) {
+            for ( int j = jStart; j <= jEnd; j++) {
                 final byte b_base = alternate[j-1]; // letter in b at the current pos
                 // in other words, step_diag = sw[i-1][j-1] + wd(a_base,b_base);
-                final int step_diag = lastRow[j-1] + (a_base == b_base ? w_match : w_mismatch);
+                final int step_diag = sw[lastRow + j-1] + (a_base == b_base ? w_match : w_mismatch);
 
                 // optimized "traversal" of all the matrix cells above the current one (i.e. traversing
                 // all 'step down' events that would end in the current cell. The optimized code
@@ -169,7 +301,7 @@ public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
                 // the optimization works ONLY for linear w(k)=wopen+(k-1)*wextend!!!!
 
                 // if a gap (length 1) was just opened above, this is the cost of arriving to the current cell:
-                int prev_gap = lastRow[j] + w_open;
+                int prev_gap = sw[lastRow + j] + w_open;
                 best_gap_v[j] += w_extend; // for the gaps that were already opened earlier, extending them by 1 costs w_extend
                 if (  prev_gap > best_gap_v[j]  ) {
                     // opening a gap just before the current cell results in better score than extending by one
@@ -191,7 +323,7 @@ public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
                 // does exactly the same thing as the commented out loop below. IMPORTANT:
                 // the optimization works ONLY for linear w(k)=wopen+(k-1)*wextend!!!!
 
-                prev_gap =curRow[j-1]  + w_open; // what would it cost us to open length 1 gap just to the left from current cell
+                prev_gap =sw[curRow + j-1]  + w_open; // what would it cost us to open length 1 gap just to the left from current cell
                 best_gap_h[i] += w_extend; // previous best gap would cost us that much if extended by another base
                 if ( prev_gap > best_gap_h[i] ) {
                     // newly opened gap is better (score-wise) than any previous gap with the same row index i; since
@@ -210,16 +342,16 @@ public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
                                                 && (step_diag >= step_right);
 
                 if ( diagHighestOrEqual ) {
-                    curRow[j]= Math.max(MATRIX_MIN_CUTOFF, step_diag);
-                    curBackTrackRow[j]=0;
+                    sw[curRow + j]= Math.max(MATRIX_MIN_CUTOFF, step_diag);
+                    btrack[curRow + j]=0;
                 }
                 else if(step_right>=step_down) { //moving right is the highest
-                    curRow[j]= Math.max(MATRIX_MIN_CUTOFF, step_right);
-                    curBackTrackRow[j]=-ki; // negative = horizontal
+                    sw[curRow + j]= Math.max(MATRIX_MIN_CUTOFF, step_right);
+                    btrack[curRow + j]=-ki; // negative = horizontal
                 }
                 else  {
-                    curRow[j]= Math.max(MATRIX_MIN_CUTOFF, step_down);
-                    curBackTrackRow[j]= kd; // positive=vertical
+                    sw[curRow + j]= Math.max(MATRIX_MIN_CUTOFF, step_down);
+                    btrack[curRow + j]= kd; // positive=vertical
                 }
             }
         }
@@ -251,17 +383,25 @@ public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
     /**
      * Calculates the CIGAR for the alignment from the back track matrix
      *
-     * @param sw                   the Smith-Waterman matrix to use
-     * @param btrack               the back track matrix to use
+     * Sets {@code workspace.touchedBandEdge} to whether the alignment ends near the edge of the band or goes through a
+     * cell on its edge.
+     *
+     * @param workspace            holds the Smith-Waterman and back track matrices to use
+     * @param nrow                 number of rows of the matrices (reference length + 1)
+     * @param ncol                 number of columns of the matrices (alternate length + 1)
+     * @param band                 the cells that were computed
      * @param overhangStrategy    the strategy to use for dealing with overhangs
      * @return non-null SWPairwiseAlignmentResult object
      */
-    private static SWPairwiseAlignmentResult calculateCigar(final int[][] sw, final int[][] btrack, final SWOverhangStrategy overhangStrategy) {
+    private static SWPairwiseAlignmentResult calculateCigar(final Workspace workspace, final int nrow, final int ncol, final Band band, final SWOverhangStrategy overhangStrategy) {
+        final int[] sw = workspace.sw;
+        final int[] btrack = workspace.btrack;
+
         // p holds the position we start backtracking from; we will be assembling a cigar in the backwards order
         int p1 = 0, p2 = 0;
 
-        final int refLength = sw.length-1;
-        final int altLength = sw[0].length-1;
+        final int refLength = nrow-1;
+        final int altLength = ncol-1;
 
         int maxscore = Integer.MIN_VALUE; // sw scores are allowed to be negative
         int segment_length = 0; // length of the segment (continuous matches, insertions or deletions)
@@ -275,10 +415,11 @@ public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
             // to ensure that if two scores are equal, the one closer to diagonal gets picked
             //Note: this is not technically smith-waterman, as by only looking for max values on the right we are
             //excluding high scoring local alignments
+            //Only the cells within the band have been computed
             p2=altLength;
 
-            for(int i=1;i<sw.length;i++)  {
-               final int curScore = sw[i][altLength];
+            for(int i=Math.max(1, altLength + band.lo), iEnd = Math.min(refLength, altLength + band.hi); i<=iEnd;i++)  {
+               final int curScore = sw[i*ncol + altLength];
                if (curScore >= maxscore ) {
                     p1 = i;
                     maxscore = curScore;
@@ -286,9 +427,9 @@ public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
             }
             // now look for a larger score on the bottom-most row
             if ( overhangStrategy != SWOverhangStrategy.LEADING_INDEL ) {
-                final int[] bottomRow=sw[refLength];
-                for ( int j = 1 ; j < bottomRow.length; j++) {
-                    final int curScore=bottomRow[j];
+                final int bottomRow=refLength*ncol;
+                for ( int j = Math.max(1, refLength - band.hi), jEnd = Math.min(altLength, refLength - band.lo) ; j <= jEnd; j++) {
+                    final int curScore=sw[bottomRow + j];
                     // data_offset is the offset of [n][j]
                     if ( curScore > maxscore ||
                             (curScore == maxscore && Math.abs(refLength - j) < Math.abs(p1 - p2) ) ) {
@@ -300,6 +441,9 @@ public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
                 }
             }
         }
+        // the best cell may only be the best within the band if the scores were still increasing towards its edge
+        boolean touchedBandEdge = band.isNearEdge(p1, p2);
+
         final List<CigarElement> lce = new ArrayList<>(5);
         if ( segment_length > 0 && overhangStrategy == SWOverhangStrategy.SOFTCLIP ) {
             lce.add(makeElement(State.CLIP, segment_length));
@@ -311,7 +455,8 @@ public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
 
         State state = State.MATCH;
         do {
-            final int btr = btrack[p1][p2];
+            touchedBandEdge |= band.isOnEdge(p1, p2);
+            final int btr = btrack[p1*ncol + p2];
             final State new_state;
             int step_length = 1;
             if ( btr > 0 ) {
@@ -371,6 +516,7 @@ public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
             alignment_offset = 0;
         }
 
+        workspace.touchedBandEdge = touchedBandEdge;
         Collections.reverse(lce);
         return new SWPairwiseAlignmentResult(AlignmentUtils.consolidateCigar(new Cigar(lce)), alignment_offset);
     }
@@ -259,7 +259,7 @@ public final class GATKVariantContextUtils {
                 gb.alleles(noCallAlleles(ploidy)).noGQ();
             } else {
                 final int maxLikelihoodIndex = MathUtils.maxElementIndex(genotypeLikelihoods);
-                final GenotypeLikelihoodCalculator glCalc = GL_CALCS.getInstance(ploidy, allelesToUse.size());
+                final GenotypeLikelihoodCalculator glCalc = GL_CALCS.getThreadLocalInstance(ploidy, allelesToUse.size());
                 final GenotypeAlleleCounts alleleCounts = glCalc.genotypeAlleleCountsAt(maxLikelihoodIndex);
 
                 gb.alleles(alleleCounts.asAlleleList(allelesToUse));
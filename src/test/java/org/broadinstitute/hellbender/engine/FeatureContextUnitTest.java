@@ -13,6 +13,9 @@ import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
 
 public final class FeatureContextUnitTest extends GATKBaseTest {
 
@@ -65,4 +68,27 @@ public final class FeatureContextUnitTest extends GATKBaseTest {
                     " not a VCFHeader");
         }
     }
+
+    @Test
+    public void testPrefetchedFeatures() {
+        final ArtificialFeatureContainingCommandLineProgram toolInstance = new ArtificialFeatureContainingCommandLineProgram();
+        final SimpleInterval interval = new SimpleInterval("1", 199, 286);
+        final List<Integer> expectedStarts;
+        final FeatureContext prefetchedContext;
+        try (final FeatureManager featureManager = new FeatureManager(toolInstance)) {
+            final FeatureContext featureContext = new FeatureContext(featureManager, interval);
+            expectedStarts = getStarts(featureContext.getValues(toolInstance.featureArgument));
+            prefetchedContext = featureContext.withPrefetchedFeatures(Collections.singletonList(toolInstance.featureArgument));
+        }
+
+        // the data source is closed now, so these must be answered from the prefetched Features
+        Assert.assertEquals(expectedStarts, Arrays.asList(199, 200, 203, 280, 284, 285, 286));
+        Assert.assertEquals(getStarts(prefetchedContext.getValues(toolInstance.featureArgument)), expectedStarts);
+        Assert.assertEquals(getStarts(prefetchedContext.getValues(toolInstance.featureArgument, 200)), Collections.singletonList(200));
+        Assert.assertEquals(prefetchedContext.getInterval(), interval);
+    }
+
+    private static List<Integer> getStarts(final List<Feature> features) {
+        return features.stream().map(Feature::getStart).sorted().collect(Collectors.toList());
+    }
 }
@@ -384,6 +384,24 @@ public final class FeatureDataSourceUnitTest extends GATKBaseTest {
         }
     }
 
+    @Test(dataProvider = "SingleDataSourceMultipleQueriesTestData")
+    public void testSingleDataSourceMultipleQueriesWithRandomAccessCache( final List<Pair<SimpleInterval, List<String>>> testQueries ) {
+        try (final FeatureDataSource<VariantContext> featureSource = new FeatureDataSource<>(QUERY_TEST_VCF)) {
+            featureSource.setRandomAccessCacheSize(1000);
+
+            // Run the queries twice, so that the second pass is answered from the windows cached during the first
+            for ( int pass = 0; pass < 2; pass++ ) {
+                for ( Pair<SimpleInterval, List<String>> testQuery : testQueries ) {
+                    final SimpleInterval queryInterval = testQuery.getLeft();
+                    final List<String> expectedVariantIDs = testQuery.getRight();
+
+                    final List<VariantContext> queryResults = featureSource.queryAndPrefetch(queryInterval);
+                    checkVariantQueryResults(queryResults, expectedVariantIDs, queryInterval);
+                }
+            }
+        }
+    }
+
     @DataProvider(name = "GVCFQueryTestData")
     public Object[][] getGVCFQueryTestData() {
 
@@ -672,6 +690,69 @@ public final class FeatureDataSourceUnitTest extends GATKBaseTest {
         Assert.assertEquals(cache.getCachedFeaturesUpToStopPosition(100), emptyRegion, "Should get back empty List for empty region");
     }
 
+    @Test
+    public void testRandomAccessCacheRetrieval() {
+        final RandomAccessFeatureCache<ArtificialTestFeature> cache = new RandomAccessFeatureCache<>(2, 100);
+        final ArtificialTestFeature longFeature = new ArtificialTestFeature("1", 1, 500);
+        final ArtificialTestFeature first = new ArtificialTestFeature("1", 100, 110);
+        final ArtificialTestFeature second = new ArtificialTestFeature("1", 100, 105);
+        final ArtificialTestFeature third = new ArtificialTestFeature("1", 300, 310);
+        final List<ArtificialTestFeature> feats = Arrays.asList(longFeature, first, second, third);
+
+        Assert.assertNull(cache.getCachedFeatures(new SimpleInterval("1", 100, 200)), "Unexpected cache hit");
+        Assert.assertEquals(cache.fill(feats.iterator(), new SimpleInterval("1", 100, 400), new SimpleInterval("1", 100, 200)),
+                Arrays.asList(longFeature, first, second));
+
+        // queries within the window, in any order, are cache hits that preserve the order of the features
+        Assert.assertEquals(cache.getCachedFeatures(new SimpleInterval("1", 300, 400)), Arrays.asList(longFeature, third));
+        Assert.assertEquals(cache.getCachedFeatures(new SimpleInterval("1", 106, 299)), Arrays.asList(longFeature, first));
+        Assert.assertEquals(cache.getCachedFeatures(new SimpleInterval("1", 101, 101)), Arrays.asList(longFeature, first, second));
+        Assert.assertEquals(cache.getCachedFeatures(new SimpleInterval("1", 311, 400)), Arrays.asList(longFeature));
+        Assert.assertNull(cache.getCachedFeatures(new SimpleInterval("1", 99, 200)), "Unexpected cache hit");
+        Assert.assertNull(cache.getCachedFeatures(new SimpleInterval("2", 100, 200)), "Unexpected cache hit");
+        Assert.assertEquals(cache.getNumCacheHits(), 4);
+        Assert.assertEquals(cache.getNumCacheMisses(), 3);
+    }
+
+    @Test
+    public void testRandomAccessCacheEviction() {
+        final RandomAccessFeatureCache<ArtificialTestFeature> cache = new RandomAccessFeatureCache<>(2, 2);
+        final List<ArtificialTestFeature> feats1 = Arrays.asList(new ArtificialTestFeature("1", 10, 20));
+        final List<ArtificialTestFeature> feats2 = Arrays.asList(new ArtificialTestFeature("2", 10, 20));
+        final List<ArtificialTestFeature> feats3 = Arrays.asList(new ArtificialTestFeature("3", 10, 20), new ArtificialTestFeature("3", 30, 40));
+
+        cache.fill(feats1.iterator(), new SimpleInterval("1", 1, 100), new SimpleInterval("1", 1, 100));
+        cache.fill(feats2.iterator(), new SimpleInterval("2", 1, 100), new SimpleInterval("2", 1, 100));
+        Assert.assertEquals(cache.getNumWindows(), 2);
+
+        // using the window on contig 1 makes the window on contig 2 the least recently used one
+        Assert.assertEquals(cache.getCachedFeatures(new SimpleInterval("1", 1, 50)), feats1);
+        cache.fill(feats3.iterator(), new SimpleInterval("3", 1, 100), new SimpleInterval("3", 1, 100));
+        Assert.assertEquals(cache.getNumWindows(), 2);
+        Assert.assertNull(cache.getCachedFeatures(new SimpleInterval("2", 1, 50)), "Evicted window should be a cache miss");
+        Assert.assertEquals(cache.getCachedFeatures(new SimpleInterval("1", 1, 50)), feats1);
+    }
+
+    @Test
+    public void testRandomAccessCacheEvictionByNumberOfFeatures() {
+        final RandomAccessFeatureCache<ArtificialTestFeature> cache = new RandomAccessFeatureCache<>(10, 2);
+        final List<ArtificialTestFeature> feats1 = Arrays.asList(new ArtificialTestFeature("1", 10, 20), new ArtificialTestFeature("1", 30, 40));
+        final List<ArtificialTestFeature> feats2 = Arrays.asList(new ArtificialTestFeature("2", 10, 20));
+        final List<ArtificialTestFeature> feats3 = Arrays.asList(new ArtificialTestFeature("3", 10, 20));
+
+        cache.fill(feats1.iterator(), new SimpleInterval("1", 1, 100), new SimpleInterval("1", 1, 100));
+        cache.fill(feats2.iterator(), new SimpleInterval("2", 1, 100), new SimpleInterval("2", 1, 100));
+        Assert.assertEquals(cache.getNumWindows(), 2);
+        Assert.assertEquals(cache.getNumCachedFeatures(), 3);
+
+        // the windows before the most recent one would hold 3 features
+        cache.fill(feats3.iterator(), new SimpleInterval("3", 1, 100), new SimpleInterval("3", 1, 100));
+        Assert.assertEquals(cache.getNumWindows(), 2);
+        Assert.assertEquals(cache.getNumCachedFeatures(), 2);
+        Assert.assertNull(cache.getCachedFeatures(new SimpleInterval("1", 1, 50)), "Evicted window should be a cache miss");
+        Assert.assertEquals(cache.getCachedFeatures(new SimpleInterval("2", 1, 50)), feats2);
+    }
+
     /*********************************************************
      * End of direct testing on the FeatureCache inner class
      *********************************************************/
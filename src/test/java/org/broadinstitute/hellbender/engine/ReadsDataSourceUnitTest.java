@@ -303,6 +303,27 @@ public final class ReadsDataSourceUnitTest extends GATKBaseTest {
         }
     }
 
+    @Test(dataProvider = "MultipleFilesTraversalWithIntervalsData")
+    public void testMultipleFilesTraversalWithIntervalsAndReadAhead( final List<Path> samFiles, final List<SimpleInterval> intervals, final List<String> expectedReadNames ) {
+        try (ReadsDataSource readsSource = new ReadsDataSource(samFiles)) {
+            readsSource.setTraversalBounds(intervals);
+            readsSource.setReadAheadQueueDepth(2);
+
+            // traverse twice, to check that a read-ahead traversal can be restarted
+            for (int traversal = 0; traversal < 2; traversal++) {
+                final List<String> readNames = new ArrayList<>();
+                for (GATKRead read : readsSource) {
+                    readNames.add(read.getName());
+                }
+                Assert.assertEquals(readNames, expectedReadNames, "Wrong reads returned in read-ahead traversal by intervals of " + samFiles);
+            }
+
+            // a query stops a read-ahead traversal that is still in progress
+            readsSource.iterator();
+            readsSource.query(intervals.get(0)).forEachRemaining(read -> Assert.assertNotNull(read.getName()));
+        }
+    }
+
     @DataProvider(name = "MultipleFilesQueryByIntervalData")
     public Object[][] getMultipleFilesQueryByIntervalData() {
         // Files, with a single query interval, and expected read names in the expected order
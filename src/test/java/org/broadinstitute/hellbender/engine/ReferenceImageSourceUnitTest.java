@@ -0,0 +1,180 @@
+package org.broadinstitute.hellbender.engine;
+
+import htsjdk.samtools.SAMException;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.reference.ReferenceSequence;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+public class ReferenceImageSourceUnitTest extends GATKBaseTest {
+    private static final Path FASTA = IOUtils.getPath(hg19MiniReference);
+
+    @DataProvider
+    public Object[][] queries() {
+        return new Object[][]{
+                // start of a contig, within the leading run of Ns
+                {new SimpleInterval("1", 1, 100)},
+                // crossing the end of the leading run of Ns
+                {new SimpleInterval("1", 9_950, 10_100)},
+                // unaligned start and stop
+                {new SimpleInterval("2", 10_003, 10_006)},
+                {new SimpleInterval("3", 12_345, 12_345)},
+                // end of a contig
+                {new SimpleInterval("4", 15_900, 16_000)},
+        };
+    }
+
+    @Test(dataProvider = "queries")
+    public void testQueryMatchesFasta(final SimpleInterval interval) {
+        try ( final ReferenceDataSource fasta = new ReferenceFileSource(FASTA) ) {
+            final ReferenceSequence expected = fasta.queryAndPrefetch(interval);
+            final ReferenceSequence actual = ReferenceImageSource.of(FASTA).queryAndPrefetch(interval);
+            Assert.assertEquals(actual.getName(), expected.getName());
+            Assert.assertEquals(actual.getContigIndex(), expected.getContigIndex());
+            Assert.assertEquals(new String(actual.getBases()), new String(expected.getBases()));
+        }
+    }
+
+    @Test
+    public void testWholeContigsMatchFasta() {
+        final ReferenceDataSource image = ReferenceImageSource.of(FASTA);
+        try ( final ReferenceDataSource fasta = new ReferenceFileSource(FASTA) ) {
+            Assert.assertEquals(image.getSequenceDictionary(), fasta.getSequenceDictionary());
+            for ( final SAMSequenceRecord sequence : fasta.getSequenceDictionary().getSequences() ) {
+                final SimpleInterval contig = new SimpleInterval(sequence.getSequenceName(), 1, sequence.getSequenceLength());
+                Assert.assertEquals(image.queryAndPrefetch(contig).getBases(), fasta.queryAndPrefetch(contig).getBases());
+            }
+        }
+    }
+
+    @Test
+    public void testSharedAcrossThreads() throws Exception {
+        final ReferenceDataSource image = ReferenceImageSource.of(FASTA);
+        Assert.assertSame(ReferenceImageSource.of(FASTA), image);
+
+        final List<SimpleInterval> intervals = new ArrayList<>();
+        final Random random = new Random(42);
+        for ( int i = 0; i < 1000; i++ ) {
+            final int start = 1 + random.nextInt(15_000);
+            intervals.add(new SimpleInterval(Integer.toString(1 + random.nextInt(4)), start, start + random.nextInt(1000)));
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try ( final ReferenceDataSource fasta = new ReferenceFileSource(FASTA) ) {
+            final List<Future<byte[]>> results = new ArrayList<>();
+            for ( final SimpleInterval interval : intervals ) {
+                results.add(executor.submit(() -> image.queryAndPrefetch(interval).getBases()));
+            }
+            for ( int i = 0; i < intervals.size(); i++ ) {
+                Assert.assertEquals(results.get(i).get(), fasta.queryAndPrefetch(intervals.get(i)).getBases());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Path copyReference(final String name) throws IOException {
+        // the copies have their own paths, so that the images written next to them do not leak into other tests
+        final Path dir = createTempDir(name).toPath();
+        Files.copy(FASTA, dir.resolve("hg19mini.fasta"));
+        Files.copy(IOUtils.getPath(hg19MiniReference + ".fai"), dir.resolve("hg19mini.fasta.fai"));
+        Files.copy(IOUtils.getPath(publicTestDir + "hg19mini.dict"), dir.resolve("hg19mini.dict"));
+        return dir.resolve("hg19mini.fasta");
+    }
+
+    @Test
+    public void testImageNextToFasta() throws IOException {
+        final Path fasta = copyReference("referenceImage");
+        ReferenceImageSource.writeImage(fasta, ReferenceImageSource.getImagePath(fasta));
+
+        final SimpleInterval interval = new SimpleInterval("1", 9_950, 10_100);
+        try ( final ReferenceDataSource expected = new ReferenceFileSource(FASTA) ) {
+            Assert.assertEquals(ReferenceImageSource.of(fasta).queryAndPrefetch(interval).getBases(), expected.queryAndPrefetch(interval).getBases());
+        }
+    }
+
+    @Test
+    public void testWriteImageReplacesExistingImage() throws IOException {
+        final Path fasta = copyReference("replacedReferenceImage");
+        final Path image = ReferenceImageSource.getImagePath(fasta);
+        Files.write(image, new byte[16]);
+        ReferenceImageSource.writeImage(fasta, image);
+
+        final SimpleInterval interval = new SimpleInterval("2", 9_950, 10_100);
+        try ( final ReferenceDataSource expected = new ReferenceFileSource(FASTA);
+              final ReferenceDataSource actual = ReferenceImageSource.of(fasta) ) {
+            Assert.assertEquals(actual.queryAndPrefetch(interval).getBases(), expected.queryAndPrefetch(interval).getBases());
+        }
+        // the image was written to a temporary file and renamed
+        try ( final Stream<Path> files = Files.list(fasta.getParent()) ) {
+            Assert.assertEquals(files.filter(file -> file.getFileName().toString().endsWith(".tmp")).count(), 0L);
+        }
+    }
+
+    @Test
+    public void testContigsSpanningMappedChunks() throws IOException {
+        final Path image = createTempFile("chunkedReferenceImage", ReferenceImageSource.IMAGE_EXTENSION).toPath();
+        ReferenceImageSource.writeImage(FASTA, image);
+
+        try ( final ReferenceDataSource fasta = new ReferenceFileSource(FASTA) ) {
+            // 1KB chunks, while each contig of hg19mini takes 4000 bytes
+            final ReferenceDataSource chunked = new ReferenceImageSource(image, fasta.getSequenceDictionary(), 10);
+            for ( final SAMSequenceRecord sequence : fasta.getSequenceDictionary().getSequences() ) {
+                final SimpleInterval contig = new SimpleInterval(sequence.getSequenceName(), 1, sequence.getSequenceLength());
+                Assert.assertEquals(chunked.queryAndPrefetch(contig).getBases(), fasta.queryAndPrefetch(contig).getBases());
+            }
+        }
+    }
+
+    @Test
+    public void testSharedUntilClosedByAllCallers() throws IOException {
+        final Path fasta = copyReference("closedReferenceImage");
+        final ReferenceDataSource first = ReferenceImageSource.of(fasta);
+        final ReferenceDataSource second = ReferenceImageSource.of(fasta);
+        Assert.assertSame(second, first);
+
+        first.close();
+        final ReferenceDataSource third = ReferenceImageSource.of(fasta);
+        Assert.assertSame(third, first);
+
+        second.close();
+        third.close();
+        final ReferenceDataSource reopened = ReferenceImageSource.of(fasta);
+        Assert.assertNotSame(reopened, first);
+        reopened.close();
+    }
+
+    @Test(expectedExceptions = UserException.CouldNotReadInputFile.class)
+    public void testInvalidImageNextToFasta() throws IOException {
+        final Path fasta = copyReference("invalidReferenceImage");
+        Files.write(ReferenceImageSource.getImagePath(fasta), new byte[16]);
+        ReferenceImageSource.of(fasta);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnknownContig() {
+        ReferenceImageSource.of(FASTA).queryAndPrefetch("unknown", 1, 10);
+    }
+
+    @Test(expectedExceptions = SAMException.class)
+    public void testStopPastEndOfContig() {
+        // as for the fasta, rather than returning the bases up to the end of the contig
+        ReferenceImageSource.of(FASTA).queryAndPrefetch("1", 15_990, 16_001);
+    }
+}
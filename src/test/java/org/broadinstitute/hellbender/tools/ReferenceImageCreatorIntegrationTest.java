@@ -0,0 +1,37 @@
+package org.broadinstitute.hellbender.tools;
+
+import org.broadinstitute.hellbender.CommandLineProgramTest;
+import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
+import org.broadinstitute.hellbender.engine.ReferenceDataSource;
+import org.broadinstitute.hellbender.engine.ReferenceFileSource;
+import org.broadinstitute.hellbender.engine.ReferenceImageSource;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+public class ReferenceImageCreatorIntegrationTest extends CommandLineProgramTest {
+
+    @Test
+    public void testImageNextToFasta() throws IOException {
+        // a copy of the reference, so that the image written next to it does not leak into other tests
+        final Path dir = createTempDir("referenceImageCreator").toPath();
+        final Path fasta = dir.resolve("hg19mini.fasta");
+        Files.copy(IOUtils.getPath(hg19MiniReference), fasta);
+        Files.copy(IOUtils.getPath(hg19MiniReference + ".fai"), dir.resolve("hg19mini.fasta.fai"));
+        Files.copy(IOUtils.getPath(publicTestDir + "hg19mini.dict"), dir.resolve("hg19mini.dict"));
+
+        runCommandLine(Arrays.asList("--" + StandardArgumentDefinitions.INPUT_LONG_NAME, fasta.toAbsolutePath().toString()));
+
+        Assert.assertTrue(Files.exists(ReferenceImageSource.getImagePath(fasta)));
+        final SimpleInterval interval = new SimpleInterval("1", 9_950, 10_100);
+        try ( final ReferenceDataSource expected = new ReferenceFileSource(IOUtils.getPath(hg19MiniReference)) ) {
+            Assert.assertEquals(ReferenceImageSource.of(fasta).queryAndPrefetch(interval).getBases(), expected.queryAndPrefetch(interval).getBases());
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package org.broadinstitute.hellbender.tools.spark.transforms.markduplicates;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMReadGroupRecord;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.engine.spark.GATKRegistrator;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.markduplicates.MarkDuplicatesScoringStrategy;
+import org.broadinstitute.hellbender.utils.read.markduplicates.SerializableOpticalDuplicatesFinder;
+import org.broadinstitute.hellbender.utils.read.markduplicates.sparkrecords.MarkDuplicatesSparkRecord;
+import org.broadinstitute.hellbender.utils.read.markduplicates.sparkrecords.Pair;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import picard.sam.markduplicates.util.OpticalDuplicateFinder;
+import picard.sam.util.PhysicalLocation;
+import scala.Tuple2;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class DuplicateSetSummaryUnitTest extends GATKBaseTest {
+    private static final String READ_GROUP = "RG1";
+
+    private SAMFileHeader header;
+    private Map<String, Byte> libraryIndex;
+    private final OpticalDuplicateFinder finder = new SerializableOpticalDuplicatesFinder();
+
+    @BeforeClass
+    public void setup() {
+        final SAMReadGroupRecord readGroup = new SAMReadGroupRecord(READ_GROUP);
+        readGroup.setLibrary("library");
+        header = ArtificialReadUtils.createArtificialSamHeaderWithReadGroup(readGroup);
+        libraryIndex = MarkDuplicatesSparkUtils.constructLibraryIndex(header);
+    }
+
+    private GATKRead makeRead(final String name, final byte quality) {
+        final GATKRead read = ArtificialReadUtils.createArtificialRead(header, name, 0, 100, 50);
+        read.setBaseQualities(Utils.dupBytes(quality, read.getLength()));
+        read.setReadGroup(READ_GROUP);
+        return read;
+    }
+
+    private MarkDuplicatesSparkRecord makeFragment(final String name, final byte quality, final int partition) {
+        return MarkDuplicatesSparkRecord.newFragment(makeRead(name, quality), header, partition, MarkDuplicatesScoringStrategy.SUM_OF_BASE_QUALITIES, libraryIndex);
+    }
+
+    private MarkDuplicatesSparkRecord makePair(final String name, final byte quality, final int partition) {
+        final List<GATKRead> reads = ArtificialReadUtils.createPair(header, name, 50, 100, 300, true, false);
+        reads.forEach(read -> {
+            read.setBaseQualities(Utils.dupBytes(quality, read.getLength()));
+            read.setReadGroup(READ_GROUP);
+        });
+        final Pair pair = MarkDuplicatesSparkRecord.newPair(reads.get(0), reads.get(1), header, partition, MarkDuplicatesScoringStrategy.SUM_OF_BASE_QUALITIES, libraryIndex);
+        pair.setReadGroup((short) 0);
+        return pair;
+    }
+
+    private List<String> nonDuplicateNames(final DuplicateSetSummary summary) {
+        return summary.getNonDuplicates(finder).stream().map(t -> t._1().getValue()).sorted().collect(Collectors.toList());
+    }
+
+    @Test
+    public void testBestFragment() {
+        final DuplicateSetSummary left = new DuplicateSetSummary()
+                .add(makeFragment("RUNID:7:1203:2886:82292", (byte) 20, 0), finder)
+                .add(makeFragment("RUNID:7:1203:2886:92292", (byte) 30, 1), finder);
+        final DuplicateSetSummary right = new DuplicateSetSummary()
+                .add(makeFragment("RUNID:7:1203:3886:82292", (byte) 25, 2), finder);
+
+        final List<Tuple2<MarkDuplicatesSparkUtils.IndexPair<String>, Integer>> nonDuplicates = left.merge(right, finder).getNonDuplicates(finder);
+        Assert.assertEquals(nonDuplicates.size(), 1);
+        Assert.assertEquals(nonDuplicates.get(0)._1().getValue(), "RUNID:7:1203:2886:92292");
+        Assert.assertEquals(nonDuplicates.get(0)._1().getIndex(), 1);
+        Assert.assertEquals((int) nonDuplicates.get(0)._2(), -1);
+    }
+
+    @Test
+    public void testFragmentsOverlappingAPairAreDuplicates() {
+        final GATKRead mappedMate = makeRead("RUNID:7:1203:1000:1000", (byte) 10);
+        mappedMate.setIsPaired(true);
+        mappedMate.setMatePosition(mappedMate.getContig(), 500);
+
+        final DuplicateSetSummary left = new DuplicateSetSummary()
+                .add(makeFragment("RUNID:7:1203:2886:82292", (byte) 30, 0), finder);
+        final DuplicateSetSummary right = new DuplicateSetSummary()
+                .add(MarkDuplicatesSparkRecord.newEmptyFragment(mappedMate, header, libraryIndex), finder)
+                .add(MarkDuplicatesSparkRecord.getPassthrough(makeRead("passthrough", (byte) 10), 3), finder);
+
+        Assert.assertEquals(nonDuplicateNames(left.merge(right, finder)), Collections.singletonList("passthrough"));
+    }
+
+    @Test
+    public void testBestPairAndOpticalDuplicates() {
+        // the first three pairs are within the optical duplicate pixel distance of each other, the last one is not
+        final DuplicateSetSummary left = new DuplicateSetSummary()
+                .add(makePair("RUNID:7:1203:2886:82292", (byte) 20, 0), finder)
+                .add(makePair("RUNID:7:1203:2890:82292", (byte) 30, 0), finder);
+        final DuplicateSetSummary right = new DuplicateSetSummary()
+                .add(makePair("RUNID:7:1203:2886:82296", (byte) 25, 1), finder)
+                .add(makePair("RUNID:7:1203:9886:12292", (byte) 20, 1), finder);
+
+        final List<Tuple2<MarkDuplicatesSparkUtils.IndexPair<String>, Integer>> nonDuplicates = left.merge(right, finder).getNonDuplicates(finder);
+        Assert.assertEquals(nonDuplicates.size(), 1);
+        Assert.assertEquals(nonDuplicates.get(0)._1().getValue(), "RUNID:7:1203:2890:82292");
+        Assert.assertEquals(nonDuplicates.get(0)._1().getIndex(), 0);
+        Assert.assertEquals((int) nonDuplicates.get(0)._2(), 2);
+    }
+
+    private static DuplicateSetSummary roundTrip(final DuplicateSetSummary summary) {
+        final Kryo kryo = new Kryo();
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final Output output = new Output(bytes)) {
+            kryo.writeObject(output, summary);
+        }
+        try (final Input input = new Input(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return kryo.readObject(input, DuplicateSetSummary.class);
+        }
+    }
+
+    @Test
+    public void testSerializedSummariesMerge() {
+        final DuplicateSetSummary pairs = new DuplicateSetSummary()
+                .add(makePair("RUNID:7:1203:2886:82292", (byte) 20, 0), finder)
+                .add(makePair("RUNID:7:1203:2890:82292", (byte) 30, 0), finder);
+        final DuplicateSetSummary otherPairs = new DuplicateSetSummary()
+                .add(makePair("RUNID:7:1203:2886:82296", (byte) 25, 1), finder)
+                .add(makePair("RUNID:7:1203:9886:12292", (byte) 20, 1), finder)
+                .add(MarkDuplicatesSparkRecord.getPassthrough(makeRead("passthrough", (byte) 10), 3), finder);
+        final DuplicateSetSummary fragments = new DuplicateSetSummary()
+                .add(makeFragment("RUNID:7:1203:2886:92292", (byte) 30, 1), finder);
+        final DuplicateSetSummary otherFragments = new DuplicateSetSummary()
+                .add(makeFragment("RUNID:7:1203:3886:82292", (byte) 25, 2), finder);
+
+        final List<Tuple2<MarkDuplicatesSparkUtils.IndexPair<String>, Integer>> nonDuplicates = roundTrip(pairs)
+                .merge(roundTrip(otherPairs), finder)
+                .merge(roundTrip(fragments), finder)
+                .merge(roundTrip(otherFragments), finder)
+                .getNonDuplicates(finder);
+
+        Assert.assertEquals(nonDuplicates.size(), 3);
+        Assert.assertEquals(nonDuplicates.get(0)._1().getValue(), "RUNID:7:1203:2886:92292");
+        Assert.assertEquals(nonDuplicates.get(0)._1().getIndex(), 1);
+        Assert.assertEquals((int) nonDuplicates.get(0)._2(), -1);
+        Assert.assertEquals(nonDuplicates.get(1)._1().getValue(), "RUNID:7:1203:2890:82292");
+        Assert.assertEquals(nonDuplicates.get(1)._1().getIndex(), 0);
+        Assert.assertEquals((int) nonDuplicates.get(1)._2(), 2);
+        Assert.assertEquals(nonDuplicates.get(2)._1().getValue(), "passthrough");
+        Assert.assertEquals(nonDuplicates.get(2)._1().getIndex(), 3);
+    }
+
+    private static final class CountingOpticalDuplicatesFinder extends SerializableOpticalDuplicatesFinder {
+        private static final long serialVersionUID = 1L;
+        private int numParsedNames = 0;
+
+        @Override
+        public boolean addLocationInformation(final String readName, final PhysicalLocation loc) {
+            numParsedNames++;
+            return super.addLocationInformation(readName, loc);
+        }
+    }
+
+    @Test
+    public void testSingleRecordsAreNotParsed() {
+        final CountingOpticalDuplicatesFinder countingFinder = new CountingOpticalDuplicatesFinder();
+        final DuplicateSetSummary singlePair = new DuplicateSetSummary()
+                .add(makePair("RUNID:7:1203:2890:82292", (byte) 30, 0), countingFinder);
+        final DuplicateSetSummary singleFragment = new DuplicateSetSummary()
+                .add(makeFragment("RUNID:7:1203:2886:92292", (byte) 30, 1), countingFinder)
+                .add(MarkDuplicatesSparkRecord.getPassthrough(makeRead("passthrough", (byte) 10), 3), countingFinder);
+        final DuplicateSetSummary single = roundTrip(singlePair).merge(roundTrip(singleFragment), countingFinder);
+
+        final List<Tuple2<MarkDuplicatesSparkUtils.IndexPair<String>, Integer>> nonDuplicates = roundTrip(single).getNonDuplicates(countingFinder);
+        Assert.assertEquals(nonDuplicates.size(), 3);
+        Assert.assertEquals((int) nonDuplicates.get(1)._2(), 0);
+        Assert.assertEquals(countingFinder.numParsedNames, 0);
+
+        // a second pair needs the location of the first one for the optical duplicate count
+        final DuplicateSetSummary otherPairs = new DuplicateSetSummary()
+                .add(makePair("RUNID:7:1203:2886:82292", (byte) 20, 0), countingFinder);
+        final List<Tuple2<MarkDuplicatesSparkUtils.IndexPair<String>, Integer>> withOtherPair = roundTrip(single)
+                .merge(roundTrip(otherPairs), countingFinder)
+                .getNonDuplicates(countingFinder);
+        Assert.assertEquals(withOtherPair.get(1)._1().getValue(), "RUNID:7:1203:2890:82292");
+        Assert.assertEquals((int) withOtherPair.get(1)._2(), 1);
+        Assert.assertTrue(countingFinder.numParsedNames > 0);
+    }
+
+    /*
+     * What MarkDuplicatesSpark shuffles for a duplicate set: all of its records with groupByKey, or one summary with combineByKey
+     */
+    @Test
+    public void testSerializedSizeComparedToGroupedRecords() {
+        final Kryo kryo = new Kryo();
+        new GATKRegistrator().registerClasses(kryo);
+
+        final List<MarkDuplicatesSparkRecord> records = new ArrayList<>();
+        final DuplicateSetSummary summary = new DuplicateSetSummary();
+        for (int i = 0; i < 100; i++) {
+            final MarkDuplicatesSparkRecord pair = makePair("RUNID:7:1203:" + (2000 + 10 * i) + ":" + (80000 + 7 * i), (byte) (10 + i % 30), i % 4);
+            records.add(pair);
+            summary.add(pair, finder);
+        }
+
+        final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+        try (final Output output = new Output(recordBytes)) {
+            kryo.writeClassAndObject(output, records);
+        }
+        final ByteArrayOutputStream summaryBytes = new ByteArrayOutputStream();
+        try (final Output output = new Output(summaryBytes)) {
+            kryo.writeClassAndObject(output, summary);
+        }
+
+        // the summary keeps a single record and about a dozen bytes of location per pair instead of a whole record
+        Assert.assertTrue(summaryBytes.size() < recordBytes.size() / 2,
+                "summary: " + summaryBytes.size() + " bytes, grouped records: " + recordBytes.size() + " bytes");
+    }
+}
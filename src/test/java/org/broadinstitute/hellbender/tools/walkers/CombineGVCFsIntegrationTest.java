@@ -222,6 +222,34 @@ public class CombineGVCFsIntegrationTest extends CommandLineProgramTest {
         Assert.assertTrue(second.getGenotype("NA2").isNoCall());
     }
 
+    // NA1 and NA2 both have two overlapping blocks starting at the same position. Both blocks of NA1 end before
+    // NA3 starts, and then NA1 and NA2 start new blocks right after the last position written, so the site must
+    // be skipped and the remaining block of NA2 must still be merged and split where it ends.
+    @Test
+    public void testOverlappingRecordsOfOneSample() throws Exception {
+        final File output = createTempFile("combinegvcfs", ".vcf");
+
+        final ArgumentsBuilder args = new ArgumentsBuilder();
+        args.addReference(new File(hg19MiniReference))
+                .addOutput(output);
+        args.addVCF(getTestFile("overlappingRecordsOfOneSample.1.g.vcf"));
+        args.addVCF(getTestFile("overlappingRecordsOfOneSample.2.g.vcf"));
+        args.addVCF(getTestFile("overlappingRecordsOfOneSample.3.g.vcf"));
+
+        runCommandLine(args);
+
+        final List<VariantContext> allVCs = getVariantContexts(output);
+
+        final int[][] expectedBlocks = {{10100, 10103}, {10104, 10105}, {10106, 10108}, {10109, 10112}, {10113, 10120}};
+        Assert.assertEquals(allVCs.size(), expectedBlocks.length, "Observed: " + allVCs);
+        for (int i = 0; i < expectedBlocks.length; i++) {
+            final VariantContext vc = allVCs.get(i);
+            Assert.assertEquals(vc.getStart(), expectedBlocks[i][0], "Observed: " + vc);
+            Assert.assertEquals(vc.getEnd(), expectedBlocks[i][1], "Observed: " + vc);
+        }
+        Assert.assertEquals(allVCs.get(3).getGenotypes().size(), 3);
+    }
+
     @Test()
     public void testTetraploidRun() throws IOException {
         final File output = createTempFile("combinegvcfs", ".vcf");
@@ -15,6 +15,7 @@ import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
 import org.broadinstitute.hellbender.utils.runtime.ProcessController;
+import org.broadinstitute.hellbender.utils.variant.GATKVCFConstants;
 import org.broadinstitute.hellbender.testutils.ArgumentsBuilder;
 import org.broadinstitute.hellbender.testutils.GenomicsDBTestUtils;
 import org.broadinstitute.hellbender.testutils.VariantContextTestUtils;
@@ -182,6 +183,78 @@ public class GenotypeGVCFsIntegrationTest extends CommandLineProgramTest {
         assertVariantContextsMatch(input, expected, extraArgs, reference);
     }
 
+    @Test(dataProvider = "gvcfsToGenotype")
+    public void testEntireVariantContextMultithreaded(File input, File expected, List<String> extraArgs, String reference) throws IOException {
+        final List<String> args = new ArrayList<>(extraArgs);
+        args.addAll(Arrays.asList("--" + GenotypeGVCFs.THREADS_LONG_NAME, "4"));
+        assertVariantContextsMatch(input, expected, args, reference);
+    }
+
+    private List<VariantContext> genotypeWithThreads(final File input, final int threads) throws IOException {
+        return genotypeWithThreads(input, threads, null);
+    }
+
+    private List<VariantContext> genotypeWithThreads(final File input, final int threads, final String dbsnp) throws IOException {
+        final File output = createTempFile("genotypegvcf" + threads, ".vcf");
+        final ArgumentsBuilder args = new ArgumentsBuilder();
+        args.addReference(new File(b37_reference_20_21))
+                .addArgument("V", input.getAbsolutePath())
+                .addArgument(GenotypeGVCFs.THREADS_LONG_NAME, Integer.toString(threads))
+                .addOutput(output);
+        if ( dbsnp != null ) {
+            args.addArgument("dbsnp", dbsnp);
+        }
+        Utils.resetRandomGenerator();
+        runCommandLine(args);
+        return getVariantContexts(output);
+    }
+
+    /*
+     * Sites with a QD above 35 get a random QD, which must not depend on the number of threads or on their scheduling
+     */
+    @Test
+    public void testMultithreadedJitteredQDDoesNotDependOnThreads() throws IOException {
+        final File input = CEUTRIO_20_21_GATK3_4_G_VCF;
+        final List<VariantContext> singleThreaded = genotypeWithThreads(input, 1);
+        final List<VariantContext> twoThreads = genotypeWithThreads(input, 2);
+        final List<VariantContext> fourThreads = genotypeWithThreads(input, 4);
+
+        Assert.assertEquals(twoThreads.size(), singleThreaded.size());
+        Assert.assertEquals(fourThreads.size(), singleThreaded.size());
+        int numJittered = 0;
+        for ( int i = 0; i < singleThreaded.size(); i++ ) {
+            VariantContextTestUtils.assertVariantContextsAreEqual(fourThreads.get(i), twoThreads.get(i), Collections.emptyList());
+            VariantContextTestUtils.assertVariantContextsAreEqual(fourThreads.get(i), singleThreaded.get(i), Arrays.asList(GATKVCFConstants.QUAL_BY_DEPTH_KEY, GATKVCFConstants.AS_QUAL_BY_DEPTH_KEY));
+            if ( ! fourThreads.get(i).getAttributeAsString(GATKVCFConstants.QUAL_BY_DEPTH_KEY, "").equals(singleThreaded.get(i).getAttributeAsString(GATKVCFConstants.QUAL_BY_DEPTH_KEY, "")) ) {
+                numJittered++;
+            }
+        }
+        // only the jittered QDs, drawn from different generators, can differ from the single-threaded run
+        Assert.assertTrue(numJittered > 0, "the test data should have sites with a QD above 35");
+    }
+
+    /*
+     * The dbSNP records are fetched on the traversal thread and handed to the workers, so the IDs must be the same
+     * as in a single-threaded run
+     */
+    @Test
+    public void testMultithreadedWithDbsnp() throws IOException {
+        final String dbsnp = largeFileTestDir + "dbsnp_138.b37.20.21.vcf";
+        final List<VariantContext> singleThreaded = genotypeWithThreads(CEUTRIO_20_21_GATK3_4_G_VCF, 1, dbsnp);
+        final List<VariantContext> fourThreads = genotypeWithThreads(CEUTRIO_20_21_GATK3_4_G_VCF, 4, dbsnp);
+
+        Assert.assertEquals(fourThreads.size(), singleThreaded.size());
+        int numWithIds = 0;
+        for ( int i = 0; i < singleThreaded.size(); i++ ) {
+            Assert.assertEquals(fourThreads.get(i).getID(), singleThreaded.get(i).getID());
+            VariantContextTestUtils.assertVariantContextsAreEqual(fourThreads.get(i), singleThreaded.get(i), Arrays.asList(GATKVCFConstants.QUAL_BY_DEPTH_KEY, GATKVCFConstants.AS_QUAL_BY_DEPTH_KEY));
+            if ( fourThreads.get(i).hasID() ) {
+                numWithIds++;
+            }
+        }
+        Assert.assertTrue(numWithIds > 0, "the test data should have sites in dbSNP");
+    }
+
     private void assertVariantContextsMatch(File input, File expected, List<String> extraArgs, String reference) throws IOException {
         try {
             final VCFHeader header = VCFHeaderReader.readHeaderFrom(new SeekablePathStream(IOUtils.getPath(expected.getAbsolutePath())));
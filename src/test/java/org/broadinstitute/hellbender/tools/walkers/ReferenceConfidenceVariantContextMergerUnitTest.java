@@ -422,4 +422,42 @@ public class ReferenceConfidenceVariantContextMergerUnitTest extends GATKBaseTes
 
         Assert.assertEquals(mergedVC.getAttributeAsDouble(MAP_QUAL_RANK_SUM_KEY,-1.0), medianRankSum);
     }
+
+    @Test
+    public void testMergeSamplesWithSameAllelesAndDifferentPloidies() {
+        // the samples with the same alleles share their PL/AD remapping, which must still depend on each sample's ploidy
+        final List<Allele> snpAlleles = Arrays.asList(Aref, C, Allele.NON_REF_ALLELE);
+        final List<Allele> refBlockAlleles = Arrays.asList(Aref, Allele.NON_REF_ALLELE);
+        final List<VariantContext> toMerge = Arrays.asList(
+                makeSingleSampleVC("diploidSNP", snpAlleles, Arrays.asList(Aref, C), new int[]{0, 10, 20, 30, 40, 50}),
+                makeSingleSampleVC("haploidSNP", snpAlleles, Collections.singletonList(C), new int[]{0, 10, 20}),
+                makeSingleSampleVC("otherDiploidSNP", snpAlleles, Arrays.asList(Aref, C), new int[]{0, 15, 25, 35, 45, 55}),
+                makeSingleSampleVC("diploidRefBlock", refBlockAlleles, Arrays.asList(Aref, Aref), new int[]{0, 10, 20}),
+                makeSingleSampleVC("haploidRefBlock", refBlockAlleles, Collections.singletonList(Aref), new int[]{0, 10}));
+
+        final ReferenceConfidenceVariantContextMerger merger = new ReferenceConfidenceVariantContextMerger(getAnnotationEngine(), new VCFHeader());
+        final VariantContext merged = merger.merge(toMerge, new SimpleInterval("20", 10, 10), (byte) 'A', true, false);
+
+        Assert.assertEquals(merged.getAlleles(), Arrays.asList(Aref, C));
+        Assert.assertEquals(merged.getGenotype("diploidSNP").getPL(), new int[]{0, 10, 20});
+        Assert.assertEquals(merged.getGenotype("diploidSNP").getAD(), new int[]{5, 3});
+        Assert.assertEquals(merged.getGenotype("haploidSNP").getPL(), new int[]{0, 10});
+        Assert.assertEquals(merged.getGenotype("haploidSNP").getAD(), new int[]{5, 3});
+        Assert.assertEquals(merged.getGenotype("otherDiploidSNP").getPL(), new int[]{0, 15, 25});
+        Assert.assertEquals(merged.getGenotype("diploidRefBlock").getPL(), new int[]{0, 10, 20});
+        Assert.assertEquals(merged.getGenotype("diploidRefBlock").getAD(), new int[]{5, 0});
+        Assert.assertEquals(merged.getGenotype("haploidRefBlock").getPL(), new int[]{0, 10});
+        Assert.assertEquals(merged.getGenotype("haploidRefBlock").getAD(), new int[]{5, 0});
+    }
+
+    private static VariantContext makeSingleSampleVC(final String sample, final List<Allele> alleles, final List<Allele> genotypeAlleles, final int[] PLs) {
+        final int[] AD = new int[alleles.size()];
+        AD[0] = 5;
+        if ( alleles.size() > 2 ) {
+            AD[1] = 3;
+            AD[2] = 1;
+        }
+        final Genotype genotype = new GenotypeBuilder(sample, genotypeAlleles).PL(PLs).AD(AD).make();
+        return new VariantContextBuilder(sample, "20", 10, 10, alleles).genotypes(genotype).make();
+    }
 }
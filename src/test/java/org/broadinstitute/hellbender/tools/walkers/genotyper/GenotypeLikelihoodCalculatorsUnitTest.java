@@ -1,5 +1,6 @@
 package org.broadinstitute.hellbender.tools.walkers.genotyper;
 
+import htsjdk.variant.variantcontext.GenotypeLikelihoods;
 import org.broadinstitute.hellbender.GATKBaseTest;
 import org.testng.Assert;
 import org.testng.annotations.BeforeClass;
@@ -9,6 +10,10 @@ import org.testng.annotations.Test;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public final class GenotypeLikelihoodCalculatorsUnitTest extends GATKBaseTest {
 
@@ -99,4 +104,52 @@ public final class GenotypeLikelihoodCalculatorsUnitTest extends GATKBaseTest {
         Assert.assertEquals(3, GenotypeLikelihoodCalculators.computeMaxAcceptableAlleleCount(20, 1024));
         Assert.assertEquals(2, GenotypeLikelihoodCalculators.computeMaxAcceptableAlleleCount(100, 1024));
     }
+
+    @Test
+    public void testThreadLocalInstance() throws Exception {
+        final GenotypeLikelihoodCalculator inst = calcs.getThreadLocalInstance(2, 3);
+        Assert.assertEquals(inst.genotypeCount(), 6);
+        Assert.assertSame(calcs.getThreadLocalInstance(2, 3), inst);
+        Assert.assertSame(new GenotypeLikelihoodCalculators().getThreadLocalInstance(2, 3), inst);
+        Assert.assertNotSame(calcs.getThreadLocalInstance(3, 2), inst);
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Assert.assertNotSame(executor.submit(() -> calcs.getThreadLocalInstance(2, 3)).get(), inst);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testConcurrentUse() throws Exception {
+        // the threads expand the shared tables concurrently, in no particular order
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < 16; t++) {
+                final Random random = new Random(t);
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        final int ploidy = 1 + random.nextInt(8);
+                        final int alleleCount = 1 + random.nextInt(16);
+                        final GenotypeLikelihoodCalculators calculators = new GenotypeLikelihoodCalculators();
+                        final GenotypeLikelihoodCalculator inst = random.nextBoolean() ? calculators.getInstance(ploidy, alleleCount)
+                                : calculators.getThreadLocalInstance(ploidy, alleleCount);
+                        Assert.assertEquals(inst.genotypeCount(), GenotypeLikelihoods.numLikelihoods(alleleCount, ploidy));
+                        Assert.assertEquals(calculators.genotypeCount(ploidy, alleleCount), inst.genotypeCount());
+                        final int lastGenotype = inst.genotypeCount() - 1;
+                        final int[] alleleCounts = new int[alleleCount * 2];
+                        inst.genotypeAlleleCountsAt(lastGenotype).copyAlleleCounts(alleleCounts, 0);
+                        Assert.assertEquals(inst.alleleCountsToIndex(alleleCounts), lastGenotype);
+                    }
+                }));
+            }
+            for (final Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 }
@@ -13,6 +13,7 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.broadinstitute.barclay.argparser.CommandLineException;
 import org.broadinstitute.hellbender.CommandLineProgramTest;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
+import org.broadinstitute.hellbender.engine.AssemblyRegionWalker;
 import org.broadinstitute.hellbender.engine.FeatureDataSource;
 import org.broadinstitute.hellbender.engine.ReadsDataSource;
 import org.broadinstitute.hellbender.exceptions.UserException;
@@ -34,6 +35,7 @@ import org.testng.annotations.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -202,6 +204,136 @@ public class HaplotypeCallerIntegrationTest extends CommandLineProgramTest {
         IntegrationTestSpec.assertEqualTextFiles(output, expected);
     }
 
+    /*
+     * Test that processing assembly regions on multiple threads produces output identical to past single-threaded results
+     */
+    @Test
+    public void testMultithreadedGVCFModeIsConsistentWithPastResults() throws Exception {
+        Utils.resetRandomGenerator();
+
+        final File output = createTempFile("testMultithreadedGVCFModeIsConsistentWithPastResults", ".g.vcf");
+        final File expected = new File(TEST_FILES_DIR, "expected.testGVCFMode.gatk4.g.vcf");
+
+        final String[] args = {
+                "-I", NA12878_20_21_WGS_bam,
+                "-R", b37_reference_20_21,
+                "-L", "20:10000000-10100000",
+                "-O", output.getAbsolutePath(),
+                "-ERC", "GVCF",
+                "-pairHMM", "AVX_LOGLESS_CACHING",
+                "--" + AssemblyRegionWalker.THREADS_LONG_NAME, "4",
+                "--" + StandardArgumentDefinitions.ADD_OUTPUT_VCF_COMMANDLINE, "false"
+        };
+
+        runCommandLine(args);
+
+        IntegrationTestSpec.assertEqualTextFiles(output, expected);
+    }
+
+    /*
+     * Test that writing the output on a background thread produces output identical to past results
+     */
+    @Test
+    public void testAsyncOutputWriterGVCFModeIsConsistentWithPastResults() throws Exception {
+        Utils.resetRandomGenerator();
+
+        final File output = createTempFile("testAsyncOutputWriterGVCFModeIsConsistentWithPastResults", ".g.vcf");
+        final File expected = new File(TEST_FILES_DIR, "expected.testGVCFMode.gatk4.g.vcf");
+
+        final String[] args = {
+                "-I", NA12878_20_21_WGS_bam,
+                "-R", b37_reference_20_21,
+                "-L", "20:10000000-10100000",
+                "-O", output.getAbsolutePath(),
+                "-ERC", "GVCF",
+                "-pairHMM", "AVX_LOGLESS_CACHING",
+                "--" + HaplotypeCallerArgumentCollection.ASYNC_OUTPUT_WRITER_LONG_NAME, "true",
+                "--" + StandardArgumentDefinitions.CREATE_OUTPUT_VARIANT_INDEX_LONG_NAME, "true",
+                "--" + StandardArgumentDefinitions.ADD_OUTPUT_VCF_COMMANDLINE, "false"
+        };
+
+        runCommandLine(args);
+
+        IntegrationTestSpec.assertEqualTextFiles(output, expected);
+        Assert.assertTrue(new File(output.getAbsolutePath() + Tribble.STANDARD_INDEX_EXTENSION).exists(), "No index was created");
+    }
+
+    private File runMultithreadedVCFMode(final int threads) {
+        final File output = createTempFile("testMultithreadedVCFMode" + threads, ".vcf");
+        final String[] args = {
+                "-I", NA12878_20_21_WGS_bam,
+                "-R", b37_reference_20_21,
+                "-L", "20:10000000-10100000",
+                "-O", output.getAbsolutePath(),
+                "-pairHMM", "AVX_LOGLESS_CACHING",
+                "--" + AssemblyRegionWalker.THREADS_LONG_NAME, Integer.toString(threads),
+                "--" + StandardArgumentDefinitions.ADD_OUTPUT_VCF_COMMANDLINE, "false"
+        };
+        runCommandLine(args);
+        return output;
+    }
+
+    /*
+     * Test that in VCF mode, where QD values above 35 are jittered, the output doesn't depend on the number of threads,
+     * and otherwise matches past single-threaded results
+     */
+    @Test
+    public void testMultithreadedVCFModeIsConsistent() throws Exception {
+        Utils.resetRandomGenerator();
+        final File twoThreads = runMultithreadedVCFMode(2);
+        final File fourThreads = runMultithreadedVCFMode(4);
+        IntegrationTestSpec.assertEqualTextFiles(fourThreads, twoThreads);
+
+        final List<VariantContext> actual = VariantContextTestUtils.streamVcf(fourThreads).collect(Collectors.toList());
+        final List<VariantContext> expected = VariantContextTestUtils.streamVcf(new File(TEST_FILES_DIR, "expected.testVCFMode.gatk4.vcf")).collect(Collectors.toList());
+        Assert.assertEquals(actual.size(), expected.size());
+        // the jittered values can't be told apart from the others in the output, so QD is compared by the test above only
+        for ( int i = 0; i < expected.size(); i++ ) {
+            VariantContextTestUtils.assertVariantContextsAreEqual(actual.get(i), expected.get(i), Collections.singletonList(GATKVCFConstants.QUAL_BY_DEPTH_KEY));
+        }
+    }
+
+    @Test(expectedExceptions = CommandLineException.BadArgumentValue.class)
+    public void testMultithreadedModeNotAllowedWithBamout() {
+        final ArgumentsBuilder argBuilder = new ArgumentsBuilder();
+        argBuilder.addInput(new File(NA12878_20_21_WGS_bam));
+        argBuilder.addReference(new File(b37_reference_20_21));
+        argBuilder.addOutput(createTempFile("testMultithreadedModeNotAllowedWithBamout", ".vcf"));
+        argBuilder.addArgument("L", "20:10000000-10010000");
+        argBuilder.addArgument(AssemblyBasedCallerArgumentCollection.BAM_OUTPUT_SHORT_NAME, createTempFile("testMultithreadedModeNotAllowedWithBamout", ".bam").getAbsolutePath());
+        argBuilder.addArgument(AssemblyRegionWalker.THREADS_LONG_NAME, "2");
+
+        runCommandLine(argBuilder.getArgsArray());
+    }
+
+    @Test
+    public void testProfilingOutput() throws IOException {
+        final File output = createTempFile("testProfilingOutput", ".g.vcf");
+        final File summary = createTempFile("testProfilingOutput", ".json");
+        final File perRegion = createTempFile("testProfilingOutput", ".tsv");
+
+        final ArgumentsBuilder argBuilder = new ArgumentsBuilder();
+        argBuilder.addInput(new File(NA12878_20_21_WGS_bam));
+        argBuilder.addReference(new File(b37_reference_20_21));
+        argBuilder.addOutput(output);
+        argBuilder.addArgument("L", "20:10000000-10010000");
+        argBuilder.addArgument("ERC", "GVCF");
+        argBuilder.addArgument("profiling-output", summary.getAbsolutePath());
+        argBuilder.addArgument("per-region-profiling-output", perRegion.getAbsolutePath());
+        runCommandLine(argBuilder.getArgsArray());
+
+        final String json = new String(Files.readAllBytes(summary.toPath()));
+        for ( final String metric : Arrays.asList("regions", "active_regions", "haplotypes", "pairhmm_cells", "activity_seconds", "assembly_seconds", "reference_confidence_seconds", "output_seconds") ) {
+            Assert.assertTrue(json.contains('"' + metric + '"'), metric + " missing from " + json);
+        }
+
+        final List<String> rows = Files.readAllLines(perRegion.toPath());
+        Assert.assertTrue(rows.get(0).startsWith("contig\tstart\tend\tactive"));
+        Assert.assertTrue(rows.size() > 1, "no regions were profiled");
+        Assert.assertTrue(rows.stream().skip(1).allMatch(row -> row.startsWith("20\t")));
+        Assert.assertTrue(json.contains("\"regions\": " + (rows.size() - 1) + ','), json);
+    }
+
     /*
      * Test that in GVCF mode we're consistent with past GATK4 results using AS_ annotations
      *
@@ -86,4 +86,22 @@ public final class KMerCounterUnitTest extends GATKBaseTest {
         Assert.assertEquals(list.get(0).getKmer().bases(), kmer2.getBytes());
         Assert.assertEquals(list.get(1).getKmer().bases(), kmer1.getBytes());
     }
+
+    @Test
+    public void testAddKmersFromBases() {
+        // the same kmers counted from sequence ranges and as Kmer objects, including unpackable ones and a long kmer size
+        for ( final int kmerLength : new int[]{3, 40} ) {
+            final byte[] bases = "ACGTACGTNACGTACGTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTACGTTACG".getBytes();
+            final KMerCounter fromBases = new KMerCounter(kmerLength);
+            final KMerCounter fromKmers = new KMerCounter(kmerLength);
+            for ( int i = 0; i <= bases.length - kmerLength; i++ ) {
+                fromBases.addKmer(bases, i, 1);
+                fromKmers.addKmer(new Kmer(bases, i, kmerLength), 1);
+            }
+            Assert.assertEquals(fromBases.getCountedKmers().size(), fromKmers.getCountedKmers().size());
+            for ( final KMerCounter.CountedKmer counted : fromKmers.getCountedKmers() ) {
+                Assert.assertEquals(fromBases.getKmerCount(counted.getKmer()), counted.getCount(), counted.toString());
+            }
+        }
+    }
 }
@@ -0,0 +1,73 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+
+public final class PackedKmerMapUnitTest extends GATKBaseTest {
+
+    @Test
+    public void testBasicOperations() {
+        final PackedKmerMap<String> map = new PackedKmerMap<>();
+        Assert.assertTrue(map.isEmpty());
+        Assert.assertNull(map.get(0));
+        Assert.assertNull(map.put(0, "zero"));
+        Assert.assertNull(map.put(5, "five"));
+        Assert.assertEquals(map.put(5, "FIVE"), "five");
+        Assert.assertEquals(map.size(), 2);
+        Assert.assertEquals(map.get(0), "zero");
+        Assert.assertEquals(map.get(5), "FIVE");
+        Assert.assertTrue(map.containsKey(0));
+        Assert.assertFalse(map.containsKey(1));
+        Assert.assertFalse(map.containsKey(PackedKmer.NOT_PACKABLE));
+        Assert.assertNull(map.get(PackedKmer.NOT_PACKABLE));
+        Assert.assertEquals(new HashSet<>(map.values()), new HashSet<>(Arrays.asList("zero", "FIVE")));
+
+        Assert.assertEquals(map.remove(0), "zero");
+        Assert.assertNull(map.remove(0));
+        Assert.assertEquals(map.size(), 1);
+
+        map.clear();
+        Assert.assertTrue(map.isEmpty());
+        Assert.assertNull(map.get(5));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidKey() {
+        new PackedKmerMap<String>().put(PackedKmer.NOT_PACKABLE, "x");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNullValue() {
+        new PackedKmerMap<String>().put(1, null);
+    }
+
+    @Test
+    public void testAgreesWithHashMap() {
+        // random puts and removes over a small key range, so that probe chains collide and wrap around often
+        final Random rnd = new Random(5);
+        final PackedKmerMap<Integer> map = new PackedKmerMap<>(4);
+        final Map<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 100000; i++) {
+            final long key = rnd.nextInt(2000);
+            if (rnd.nextInt(3) == 0) {
+                Assert.assertEquals(map.remove(key), expected.remove(key));
+            } else {
+                Assert.assertEquals(map.put(key, i), expected.put(key, i));
+            }
+            Assert.assertEquals(map.size(), expected.size());
+        }
+        for (long key = 0; key < 2000; key++) {
+            Assert.assertEquals(map.get(key), expected.get(key), "key " + key);
+        }
+        final Map<Integer, Integer> valueCounts = new HashMap<>();
+        map.forEachValue(v -> valueCounts.merge(v, 1, Integer::sum));
+        Assert.assertEquals(valueCounts.keySet(), new HashSet<>(expected.values()));
+    }
+}
@@ -0,0 +1,83 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public final class PackedKmerUnitTest extends GATKBaseTest {
+
+    @DataProvider(name = "packableKmers")
+    public Object[][] packableKmers() {
+        return new Object[][]{
+                {"A"}, {"C"}, {"G"}, {"T"}, {"ACGT"}, {"TTTTTTTTTTTTTTTTTTTTTTTTTTTTTTT"}, {"AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA"},
+                {"GATTACAGATTACAGATTACAGATTACAGA"}
+        };
+    }
+
+    @Test(dataProvider = "packableKmers")
+    public void testPackUnpack(final String kmer) {
+        final byte[] bases = kmer.getBytes();
+        final long code = PackedKmer.pack(bases, 0, bases.length);
+        Assert.assertTrue(code >= 0);
+        Assert.assertEquals(PackedKmer.unpack(code, bases.length), bases);
+    }
+
+    @Test
+    public void testNonACGTBasesAreNotPackable() {
+        for (final String kmer : new String[]{"ACNT", "acgt", "ACGR", "-ACG"}) {
+            Assert.assertEquals(PackedKmer.pack(kmer.getBytes(), 0, 4), PackedKmer.NOT_PACKABLE, kmer);
+        }
+    }
+
+    @Test
+    public void testCanPack() {
+        Assert.assertFalse(PackedKmer.canPack(0));
+        Assert.assertTrue(PackedKmer.canPack(1));
+        Assert.assertTrue(PackedKmer.canPack(PackedKmer.MAX_LENGTH));
+        Assert.assertFalse(PackedKmer.canPack(PackedKmer.MAX_LENGTH + 1));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testPackTooLong() {
+        PackedKmer.pack(new byte[PackedKmer.MAX_LENGTH + 1], 0, PackedKmer.MAX_LENGTH + 1);
+    }
+
+    @Test
+    public void testRollMatchesPack() {
+        final Random rnd = new Random(13);
+        final byte[] bases = new byte[500];
+        for (int i = 0; i < bases.length; i++) {
+            bases[i] = "ACGTN".getBytes()[rnd.nextInt(40) == 0 ? 4 : rnd.nextInt(4)];
+        }
+        for (final int length : new int[]{1, 10, 25, PackedKmer.MAX_LENGTH}) {
+            long code = PackedKmer.NOT_PACKABLE;
+            for (int i = 0; i <= bases.length - length; i++) {
+                code = PackedKmer.roll(code, bases, i, length);
+                Assert.assertEquals(code, PackedKmer.pack(bases, i, length), "position " + i + " length " + length);
+            }
+        }
+    }
+
+    @Test
+    public void testCodesAreUnique() {
+        // every 2-mer and 3-mer gets a distinct code
+        for (final int length : new int[]{2, 3}) {
+            final List<Long> codes = new ArrayList<>();
+            final byte[] kmer = new byte[length];
+            final int combinations = 1 << (2 * length);
+            for (int c = 0; c < combinations; c++) {
+                for (int i = 0, rest = c; i < length; i++, rest >>= 2) {
+                    kmer[i] = "ACGT".getBytes()[rest & 3];
+                }
+                codes.add(PackedKmer.pack(kmer, 0, length));
+            }
+            Assert.assertEquals(codes.stream().distinct().count(), combinations, Arrays.toString(codes.toArray()));
+        }
+    }
+}
@@ -162,6 +162,39 @@ public final class ReadThreadingAssemblerUnitTest extends GATKBaseTest {
     }
 
 
+    @Test
+    public void testMultiThreadedAssemblyMatchesSingleThreaded() {
+        final SimpleInterval loc = new SimpleInterval("1", 100400, 100600);
+        final byte[] refBases = seq.getSubsequenceAt(loc.getContig(), loc.getStart(), loc.getEnd()).getBases();
+
+        // a SNP on one haplotype and a deletion on another, so that every kmer size finds several paths
+        final String ref = new String(refBases);
+        final byte[] snpBases = ref.getBytes();
+        snpBases[60] = (byte) (snpBases[60] == 'A' ? 'C' : 'A');
+        final byte[] deletionBases = (ref.substring(0, 120) + ref.substring(123)).getBytes();
+
+        final List<GATKRead> reads = new ArrayList<>();
+        for ( final byte[] bases : Arrays.asList(refBases, snpBases, deletionBases, snpBases, deletionBases) ) {
+            final byte[] quals = Utils.dupBytes((byte) 30, bases.length);
+            reads.add(ArtificialReadUtils.createArtificialRead(header, "read" + reads.size(), loc.getContig(), loc.getStart(), bases.clone(), quals, bases.length + "M"));
+        }
+
+        final List<Integer> kmerSizes = Arrays.asList(10, 15, 25, 35);
+        final List<Haplotype> expected = assemble(new ReadThreadingAssembler(128, kmerSizes), refBases, loc, reads);
+        Assert.assertTrue(expected.size() > 2, "expected both variants to be assembled");
+
+        final ReadThreadingAssembler multiThreadedAssembler = new ReadThreadingAssembler(128, kmerSizes);
+        multiThreadedAssembler.setNumAssemblyThreads(4);
+        for ( int i = 0; i < 3; i++ ) {
+            final List<Haplotype> actual = assemble(multiThreadedAssembler, refBases, loc, reads);
+            Assert.assertEquals(actual, expected);
+            for ( int j = 0; j < actual.size(); j++ ) {
+                Assert.assertEquals(actual.get(j).getCigar(), expected.get(j).getCigar());
+                Assert.assertEquals(Double.compare(actual.get(j).getScore(), expected.get(j).getScore()), 0);
+            }
+        }
+    }
+
     private List<Haplotype> assemble(final ReadThreadingAssembler assembler, final byte[] refBases, final SimpleInterval loc, final List<GATKRead> reads) {
         final Haplotype refHaplotype = new Haplotype(refBases, true);
         final Cigar c = new Cigar();
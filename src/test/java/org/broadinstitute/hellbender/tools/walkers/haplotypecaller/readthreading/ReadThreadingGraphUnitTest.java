@@ -498,4 +498,43 @@ public final class ReadThreadingGraphUnitTest extends GATKBaseTest {
 
         return tests.toArray(new Object[][]{});
     }
+
+    @Test
+    public void testDetermineNonUniqueKmers() {
+        // compare against a direct count, for packable and unpackable kmer sizes and with Ns inside some kmers
+        final Random rnd = new Random(11);
+        for ( final int kmerSize : new int[]{3, 10, 31, 32, 40} ) {
+            final byte[] sequence = new byte[300];
+            for ( int i = 0; i < sequence.length; i++ ) {
+                sequence[i] = "ACGTN".getBytes()[rnd.nextInt(30) == 0 ? 4 : rnd.nextInt(4)];
+            }
+            // guarantee long repeats for the bigger kmer sizes
+            System.arraycopy(sequence, 0, sequence, 150, 60);
+
+            final Map<String, Integer> expected = new HashMap<>();
+            for ( int i = 0; i <= sequence.length - kmerSize; i++ ) {
+                expected.merge(new String(sequence, i, kmerSize), 1, Integer::sum);
+            }
+            expected.values().removeIf(count -> count == 1);
+            expected.replaceAll((kmer, count) -> count - 1);
+
+            final Map<String, Integer> actual = new HashMap<>();
+            for ( final Kmer kmer : ReadThreadingGraph.determineNonUniqueKmers(new ReadThreadingGraph.SequenceForKmers("seq", sequence, 0, sequence.length, 1, false), kmerSize) ) {
+                actual.merge(new String(kmer.bases()), 1, Integer::sum);
+            }
+            Assert.assertEquals(actual, expected, "kmerSize " + kmerSize);
+        }
+    }
+
+    @Test
+    public void testFindKmerWithNonACGTBases() {
+        final ReadThreadingGraph assembler = new ReadThreadingGraph(5);
+        final String ref = "ACGTNACGGTTACCA";
+        assembler.addSequence("ref", getBytes(ref), true);
+        assembler.buildGraphIfNecessary();
+        Assert.assertNotNull(assembler.findKmer(new Kmer("GTNAC")));
+        Assert.assertNotNull(assembler.findKmer(new Kmer("GGTTA")));
+        Assert.assertNull(assembler.findKmer(new Kmer("GGTTT")));
+        Assert.assertNull(assembler.findKmer(new Kmer("GGTT")));
+    }
 }
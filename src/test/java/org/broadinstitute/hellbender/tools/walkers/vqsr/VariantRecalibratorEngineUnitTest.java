@@ -0,0 +1,111 @@
+package org.broadinstitute.hellbender.tools.walkers.vqsr;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public final class VariantRecalibratorEngineUnitTest extends GATKBaseTest {
+    private static final int NUM_ANNOTATIONS = 3;
+    // several blocks, the last one partial
+    private static final int NUM_DATA = 3 * VariantDataBlocks.DATA_PER_BLOCK + 17;
+
+    // two clusters of variants with different spreads in each dimension
+    private static List<VariantDatum> makeData(final double missingAnnotationRate) {
+        final Random random = new Random(17);
+        final List<VariantDatum> data = new ArrayList<>(NUM_DATA);
+        for ( int i = 0; i < NUM_DATA; i++ ) {
+            final VariantDatum datum = new VariantDatum();
+            final double center = random.nextBoolean() ? -1.0 : 1.5;
+            datum.annotations = new double[NUM_ANNOTATIONS];
+            datum.isNull = new boolean[NUM_ANNOTATIONS];
+            for ( int j = 0; j < NUM_ANNOTATIONS; j++ ) {
+                datum.annotations[j] = center + 0.5 * (j + 1) * random.nextGaussian();
+                datum.isNull[j] = random.nextDouble() < missingAnnotationRate;
+            }
+            datum.prior = 2.0;
+            data.add(datum);
+        }
+        return data;
+    }
+
+    private static VariantRecalibratorEngine makeEngine(final int numThreads) {
+        final VariantRecalibratorArgumentCollection VRAC = new VariantRecalibratorArgumentCollection();
+        VRAC.MAX_ITERATIONS = 30;
+        VRAC.NUM_KMEANS_ITERATIONS = 20;
+        final VariantRecalibratorEngine engine = new VariantRecalibratorEngine(VRAC);
+        engine.setNumThreads(numThreads);
+        return engine;
+    }
+
+    private static GaussianMixtureModel generateModel(final int numThreads, final List<VariantDatum> data) {
+        final VariantRecalibratorEngine engine = makeEngine(numThreads);
+        try {
+            Utils.resetRandomGenerator();
+            return engine.generateModel(data, 4);
+        } finally {
+            engine.close();
+        }
+    }
+
+    @Test
+    public void testMultithreadedModelMatchesSingleThreaded() {
+        final GaussianMixtureModel expected = generateModel(1, makeData(0.0));
+        final GaussianMixtureModel actual = generateModel(4, makeData(0.0));
+
+        final List<MultivariateGaussian> expectedGaussians = expected.getModelGaussians();
+        final List<MultivariateGaussian> actualGaussians = actual.getModelGaussians();
+        Assert.assertEquals(actualGaussians.size(), expectedGaussians.size());
+        for ( int k = 0; k < expectedGaussians.size(); k++ ) {
+            final MultivariateGaussian expectedGaussian = expectedGaussians.get(k);
+            final MultivariateGaussian actualGaussian = actualGaussians.get(k);
+            Assert.assertEquals(actualGaussian.pMixtureLog10, expectedGaussian.pMixtureLog10, 1e-8);
+            for ( int i = 0; i < NUM_ANNOTATIONS; i++ ) {
+                Assert.assertEquals(actualGaussian.mu[i], expectedGaussian.mu[i], 1e-8);
+                for ( int j = 0; j < NUM_ANNOTATIONS; j++ ) {
+                    Assert.assertEquals(actualGaussian.sigma.get(i, j), expectedGaussian.sigma.get(i, j), 1e-8);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMultithreadedEvaluationIsIdentical() {
+        final GaussianMixtureModel goodModel = generateModel(1, makeData(0.0));
+        final GaussianMixtureModel badModel = generateModel(1, makeData(0.0).subList(0, 1000));
+
+        // the variants missing annotations are evaluated with random draws, which must be made in the same order
+        final List<VariantDatum> expected = makeData(0.01);
+        final List<VariantDatum> actual = makeData(0.01);
+        final VariantRecalibratorEngine singleThreaded = makeEngine(1);
+        final VariantRecalibratorEngine multithreaded = makeEngine(4);
+        try {
+            Utils.resetRandomGenerator();
+            singleThreaded.evaluateData(expected, goodModel, false);
+            singleThreaded.evaluateData(expected, badModel, true);
+            singleThreaded.calculateWorstPerformingAnnotation(expected, goodModel, badModel);
+
+            Utils.resetRandomGenerator();
+            multithreaded.evaluateData(actual, goodModel, false);
+            multithreaded.evaluateData(actual, badModel, true);
+            multithreaded.calculateWorstPerformingAnnotation(actual, goodModel, badModel);
+        } finally {
+            multithreaded.close();
+        }
+
+        for ( int i = 0; i < NUM_DATA; i++ ) {
+            Assert.assertEquals(actual.get(i).lod, expected.get(i).lod);
+            Assert.assertEquals(actual.get(i).worstAnnotation, expected.get(i).worstAnnotation);
+            Assert.assertEquals(actual.get(i).worstValue, expected.get(i).worstValue);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidNumThreads() {
+        makeEngine(0);
+    }
+}
@@ -0,0 +1,60 @@
+package org.broadinstitute.hellbender.utils;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public final class OrderedParallelExecutorUnitTest extends GATKBaseTest {
+
+    @DataProvider(name = "threadCounts")
+    public Object[][] threadCounts() {
+        return new Object[][] {
+                {1, 1}, {1, 4}, {2, 2}, {4, 16}, {8, 8}
+        };
+    }
+
+    @Test(dataProvider = "threadCounts")
+    public void testResultsAreConsumedInSubmissionOrder(final int numThreads, final int maxTasksInFlight) {
+        final int numTasks = 200;
+        final Random random = new Random(13);
+        final List<Integer> consumed = new ArrayList<>();
+
+        try ( final OrderedParallelExecutor<Integer> executor = new OrderedParallelExecutor<>(numThreads, maxTasksInFlight, consumed::add) ) {
+            for ( int i = 0; i < numTasks; i++ ) {
+                final int taskIndex = i;
+                final int sleepMillis = random.nextInt(3);
+                executor.submit(() -> {
+                    Thread.sleep(sleepMillis);
+                    return taskIndex;
+                });
+                Assert.assertTrue(executor.numTasksInFlight() <= maxTasksInFlight);
+            }
+            executor.drain();
+            Assert.assertEquals(executor.numTasksInFlight(), 0);
+        }
+
+        Assert.assertEquals(consumed, IntStream.range(0, numTasks).boxed().collect(Collectors.toList()));
+    }
+
+    @Test(expectedExceptions = UserException.class)
+    public void testTaskExceptionIsRethrown() {
+        try ( final OrderedParallelExecutor<Integer> executor = new OrderedParallelExecutor<>(2, 2, i -> {}) ) {
+            executor.submit(() -> 1);
+            executor.submit(() -> { throw new UserException("expected"); });
+            executor.drain();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testTooFewTasksInFlight() {
+        new OrderedParallelExecutor<Integer>(4, 2, i -> {});
+    }
+}
@@ -978,4 +978,24 @@ public final class UtilsUnitTest extends GATKBaseTest {
         Set<String> actual = Utils.filterCollectionByExpressions(values, filters, exactMatch);
         Assert.assertEquals(actual, expected);
     }
+
+    @Test
+    public void testRunWithLocusRandomGenerator() {
+        final SimpleInterval locus = new SimpleInterval("20", 10_000, 10_100);
+        final Random staticGenerator = Utils.getRandomGenerator();
+
+        final double[] draws = Utils.runWithLocusRandomGenerator(locus, () -> {
+            Assert.assertNotSame(Utils.getRandomGenerator(), staticGenerator);
+            // nested calls get their own generator, and restore the enclosing one
+            final double nested = Utils.runWithLocusRandomGenerator(new SimpleInterval("20", 20_000, 20_000), () -> Utils.getRandomGenerator().nextDouble());
+            return new double[]{Utils.getRandomGenerator().nextDouble(), nested};
+        });
+        Assert.assertSame(Utils.getRandomGenerator(), staticGenerator);
+
+        // the draws depend only on the locus, not on what was drawn before
+        staticGenerator.nextDouble();
+        final double redraw = Utils.runWithLocusRandomGenerator(locus, () -> Utils.getRandomGenerator().nextDouble());
+        Assert.assertEquals(redraw, draws[0]);
+        Assert.assertNotEquals(draws[1], draws[0]);
+    }
 }
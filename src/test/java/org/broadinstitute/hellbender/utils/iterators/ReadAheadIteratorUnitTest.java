@@ -0,0 +1,95 @@
+package org.broadinstitute.hellbender.utils.iterators;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public final class ReadAheadIteratorUnitTest extends GATKBaseTest {
+
+    @DataProvider(name = "sizes")
+    public Object[][] getSizes() {
+        return new Object[][] {
+                // number of elements, queue depth, batch size
+                { 0, 1, 1 },
+                { 1, 1, 1 },
+                { 10, 1, 3 },
+                { 10, 4, 5 },
+                { 1000, 2, 7 },
+                { 1000, 16, 1000 }
+        };
+    }
+
+    @Test(dataProvider = "sizes")
+    public void testAllElementsInOrder(final int numElements, final int queueDepth, final int batchSize) {
+        final List<Integer> expected = IntStream.range(0, numElements).boxed().collect(Collectors.toList());
+        try (final ReadAheadIterator<Integer> iterator = new ReadAheadIterator<>(expected.iterator(), queueDepth, batchSize)) {
+            final List<Integer> actual = new ArrayList<>();
+            iterator.forEachRemaining(actual::add);
+            Assert.assertEquals(actual, expected);
+            Assert.assertFalse(iterator.hasNext());
+            Assert.assertTrue(iterator.getWaitNanos() >= 0);
+        }
+    }
+
+    @Test(expectedExceptions = NoSuchElementException.class)
+    public void testNextPastEnd() {
+        try (final ReadAheadIterator<Integer> iterator = new ReadAheadIterator<>(IntStream.range(0, 3).iterator(), 1, 2)) {
+            for (int i = 0; i < 4; i++) {
+                iterator.next();
+            }
+        }
+    }
+
+    @Test
+    public void testSourceExceptionIsRethrownAfterEarlierElements() {
+        final Iterator<Integer> failing = new Iterator<Integer>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                if (next == 5) {
+                    throw new UserException.MalformedFile("bad record");
+                }
+                return next++;
+            }
+        };
+
+        final List<Integer> actual = new ArrayList<>();
+        try (final ReadAheadIterator<Integer> iterator = new ReadAheadIterator<>(failing, 2, 2)) {
+            iterator.forEachRemaining(actual::add);
+            Assert.fail("The exception of the source was not rethrown");
+        } catch (final UserException.MalformedFile e) {
+            Assert.assertEquals(actual, IntStream.range(0, 5).boxed().collect(Collectors.toList()));
+        }
+    }
+
+    @Test(timeOut = 10000)
+    public void testCloseBeforeEndStopsReadingAhead() {
+        // an endless source: close must stop the background thread, which is blocked on the full queue
+        final Iterator<Integer> endless = IntStream.iterate(0, i -> i + 1).iterator();
+        final ReadAheadIterator<Integer> iterator = new ReadAheadIterator<>(endless, 2, 10);
+        Assert.assertEquals(iterator.next().intValue(), 0);
+        iterator.close();
+        // the source is ours again once the iterator is closed
+        Assert.assertTrue(endless.next() > 0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidQueueDepth() {
+        new ReadAheadIterator<>(IntStream.range(0, 3).iterator(), 0, 1);
+    }
+}
@@ -0,0 +1,101 @@
+package org.broadinstitute.hellbender.utils.pairhmm;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public final class AntiDiagonalLoglessPairHMMUnitTest extends GATKBaseTest {
+
+    private static final byte[] BASES = {'A', 'C', 'G', 'T', 'N'};
+
+    private static byte[] randomBases(final Random rnd, final int length) {
+        final byte[] result = new byte[length];
+        for (int i = 0; i < length; i++) {
+            // Ns are rare, but must be treated as matching anything
+            result[i] = BASES[rnd.nextInt(50) == 0 ? 4 : rnd.nextInt(4)];
+        }
+        return result;
+    }
+
+    private static byte[] randomQuals(final Random rnd, final int length, final int min, final int max) {
+        final byte[] result = new byte[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = (byte) (min + rnd.nextInt(max - min + 1));
+        }
+        return result;
+    }
+
+    // derive a read from the haplotype with a few mismatches and indels, so that likelihoods are not all negligible
+    private static byte[] mutatedRead(final Random rnd, final byte[] haplotype, final int readLength) {
+        final int start = rnd.nextInt(Math.max(1, haplotype.length - readLength));
+        final byte[] read = new byte[readLength];
+        int h = start;
+        for (int i = 0; i < readLength; i++) {
+            final int event = rnd.nextInt(30);
+            if (event == 0 || h >= haplotype.length) {
+                read[i] = BASES[rnd.nextInt(4)];
+            } else {
+                if (event == 1) {
+                    h++; // deletion
+                }
+                read[i] = h < haplotype.length ? haplotype[h++] : BASES[rnd.nextInt(4)];
+            }
+        }
+        return read;
+    }
+
+    @DataProvider(name = "randomCases")
+    public Object[][] randomCases() {
+        final List<Object[]> tests = new ArrayList<>();
+        final Random rnd = new Random(17);
+        for (final int readLength : new int[]{1, 2, 10, 37, 100, 151}) {
+            for (final int haplotypeLength : new int[]{readLength, readLength + 1, readLength + 30, 2 * readLength + 50}) {
+                for (final boolean tristate : new boolean[]{true, false}) {
+                    tests.add(new Object[]{rnd.nextLong(), readLength, haplotypeLength, tristate});
+                }
+            }
+        }
+        return tests.toArray(new Object[][]{});
+    }
+
+    @Test(dataProvider = "randomCases")
+    public void testAgreesWithLoglessPairHMM(final long seed, final int readLength, final int haplotypeLength, final boolean tristate) {
+        final Random rnd = new Random(seed);
+        final LoglessPairHMM expectedHMM = new LoglessPairHMM();
+        final AntiDiagonalLoglessPairHMM actualHMM = new AntiDiagonalLoglessPairHMM();
+        if (!tristate) {
+            expectedHMM.doNotUseTristateCorrection();
+            actualHMM.doNotUseTristateCorrection();
+        }
+        expectedHMM.initialize(readLength, haplotypeLength);
+        actualHMM.initialize(readLength, haplotypeLength);
+
+        // several haplotypes per read, including shorter ones, to exercise reuse of the diagonal buffers
+        final byte[] readBases = mutatedRead(rnd, randomBases(rnd, haplotypeLength), readLength);
+        final byte[] readQuals = randomQuals(rnd, readLength, 6, 40);
+        final byte[] insQuals = randomQuals(rnd, readLength, 20, 45);
+        final byte[] delQuals = randomQuals(rnd, readLength, 20, 45);
+        final byte[] gcp = Utils.dupBytes((byte) 10, readLength);
+        for (int h = 0; h < 4; h++) {
+            final int length = Math.max(readLength, haplotypeLength - rnd.nextInt(haplotypeLength - readLength + 1));
+            final byte[] haplotype = h == 0 ? randomBases(rnd, length) : mutatedHaplotype(rnd, readBases, length);
+            final double expected = expectedHMM.computeReadLikelihoodGivenHaplotypeLog10(haplotype, readBases, readQuals, insQuals, delQuals, gcp, true, null);
+            final double actual = actualHMM.computeReadLikelihoodGivenHaplotypeLog10(haplotype, readBases, readQuals, insQuals, delQuals, gcp, true, null);
+            Assert.assertEquals(actual, expected, 1e-9, "haplotype " + new String(haplotype) + " read " + new String(readBases));
+        }
+    }
+
+    // embed the read in random flanks, so that the haplotype explains most of the read
+    private static byte[] mutatedHaplotype(final Random rnd, final byte[] read, final int length) {
+        final byte[] result = randomBases(rnd, length);
+        final int offset = rnd.nextInt(length - read.length + 1);
+        System.arraycopy(read, 0, result, offset, read.length);
+        return result;
+    }
+}
@@ -0,0 +1,139 @@
+package org.broadinstitute.hellbender.utils.pairhmm;
+
+import org.broadinstitute.gatk.nativebindings.pairhmm.PairHMMNativeArguments;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedAlleleList;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedSampleList;
+import org.broadinstitute.hellbender.utils.genotyper.ReadLikelihoods;
+import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+public final class PairHMMBatchUnitTest extends GATKBaseTest {
+
+    private static final String[] SAMPLES = {"s1", "s2"};
+
+    // two "regions", each with its own haplotypes and reads for every sample
+    private static final List<List<Haplotype>> REGION_HAPLOTYPES = Arrays.asList(
+            Arrays.asList(new Haplotype("ACGTTGCAAGCTTAGGCAATCGGA".getBytes(), true),
+                          new Haplotype("ACGTTGCAAGCTAAGGCAATCGGA".getBytes(), false)),
+            Arrays.asList(new Haplotype("TTGACCATGGCATTACGGATCAGT".getBytes(), true),
+                          new Haplotype("TTGACCATGGCATTTACGGATCAGT".getBytes(), false),
+                          new Haplotype("TTGACCATGCATTACGGATCAGT".getBytes(), false)));
+
+    private static final List<List<String>> REGION_READS = Arrays.asList(
+            Arrays.asList("GCAAGCTTAGGC", "GCAAGCTAAGGC", "TTGCAAGCTT"),
+            Arrays.asList("CATGGCATTACG", "ATGGCATTTACGGA", "GACCATGCATTA", "GGCATTACGGAT"));
+
+    private static List<ReadLikelihoods<Haplotype>> makeLikelihoods() {
+        final List<ReadLikelihoods<Haplotype>> result = new ArrayList<>();
+        for (int region = 0; region < REGION_HAPLOTYPES.size(); region++) {
+            final Map<String, List<GATKRead>> readsBySample = new LinkedHashMap<>();
+            for (final String sample : SAMPLES) {
+                final List<GATKRead> reads = new ArrayList<>();
+                for (final String bases : REGION_READS.get(region)) {
+                    reads.add(ArtificialReadUtils.createArtificialRead(bases.getBytes(), Utils.dupBytes((byte) (sample.equals("s1") ? 30 : 20), bases.length()), bases.length() + "M"));
+                }
+                readsBySample.put(sample, reads);
+            }
+            result.add(new ReadLikelihoods<>(new IndexedSampleList(SAMPLES), new IndexedAlleleList<>(REGION_HAPLOTYPES.get(region)), readsBySample));
+        }
+        return result;
+    }
+
+    private static Map<GATKRead, byte[]> gcps(final List<GATKRead> reads) {
+        final Map<GATKRead, byte[]> result = new HashMap<>();
+        reads.forEach(read -> result.put(read, Utils.dupBytes((byte) 10, read.getLength())));
+        return result;
+    }
+
+    private static void assertSameLikelihoods(final List<ReadLikelihoods<Haplotype>> actual, final List<ReadLikelihoods<Haplotype>> expected) {
+        for (int region = 0; region < expected.size(); region++) {
+            for (int s = 0; s < SAMPLES.length; s++) {
+                for (int a = 0; a < expected.get(region).numberOfAlleles(); a++) {
+                    for (int r = 0; r < expected.get(region).sampleReadCount(s); r++) {
+                        Assert.assertEquals(actual.get(region).sampleMatrix(s).get(a, r), expected.get(region).sampleMatrix(s).get(a, r));
+                    }
+                }
+            }
+        }
+    }
+
+    private static List<ReadLikelihoods<Haplotype>> computeOneByOne(final PairHMM hmm) {
+        final List<ReadLikelihoods<Haplotype>> result = makeLikelihoods();
+        for (final ReadLikelihoods<Haplotype> likelihoods : result) {
+            final List<GATKRead> allReads = new ArrayList<>();
+            Arrays.stream(SAMPLES).forEach(sample -> allReads.addAll(likelihoods.sampleReads(likelihoods.indexOfSample(sample))));
+            hmm.initialize(likelihoods.alleles(), Collections.singletonMap("all", allReads), 14, 25);
+            for (int s = 0; s < SAMPLES.length; s++) {
+                final List<GATKRead> reads = likelihoods.sampleReads(s);
+                hmm.computeLog10Likelihoods(likelihoods.sampleMatrix(s), reads, gcps(reads));
+            }
+        }
+        return result;
+    }
+
+    private static List<ReadLikelihoods<Haplotype>> computeBatched(final PairHMM hmm) {
+        final List<ReadLikelihoods<Haplotype>> result = makeLikelihoods();
+        final PairHMMBatch batch = new PairHMMBatch();
+        for (final ReadLikelihoods<Haplotype> likelihoods : result) {
+            for (int s = 0; s < SAMPLES.length; s++) {
+                final List<GATKRead> reads = likelihoods.sampleReads(s);
+                batch.add(likelihoods.sampleMatrix(s), reads, gcps(reads));
+            }
+        }
+        Assert.assertEquals(batch.groupByHaplotypes().size(), REGION_HAPLOTYPES.size());
+        Assert.assertEquals(batch.numberOfReads(), SAMPLES.length * REGION_READS.stream().mapToInt(List::size).sum());
+        hmm.computeLog10Likelihoods(batch);
+        return result;
+    }
+
+    private static void testBatchMatchesOneByOne(final Supplier<PairHMM> hmmFactory) {
+        final List<ReadLikelihoods<Haplotype>> expected = computeOneByOne(hmmFactory.get());
+        assertSameLikelihoods(computeBatched(hmmFactory.get()), expected);
+
+        final PairHMM cachedHMM = hmmFactory.get();
+        cachedHMM.setResultCache(new PairHMMResultCache(1 << 20));
+        assertSameLikelihoods(computeBatched(cachedHMM), expected);
+        // the second sample has different qualities, so only a second pass can hit the cache
+        Assert.assertEquals(cachedHMM.getResultCache().getHits(), 0);
+        assertSameLikelihoods(computeBatched(cachedHMM), expected);
+        final long numberOfCells = expected.stream().mapToLong(l -> (long) l.readCount() * l.numberOfAlleles()).sum();
+        Assert.assertEquals(cachedHMM.getResultCache().getHits(), numberOfCells);
+    }
+
+    @Test
+    public void testJavaBatchMatchesOneByOne() {
+        testBatchMatchesOneByOne(LoglessPairHMM::new);
+    }
+
+    @Test
+    public void testVectorBatchMatchesOneByOne() {
+        final PairHMMNativeArguments args = new PairHMMNativeArguments();
+        args.useDoublePrecision = false;
+        args.maxNumberOfThreads = 1;
+        try {
+            new VectorLoglessPairHMM(VectorLoglessPairHMM.Implementation.AVX, args).close();
+        } catch (final UserException.HardwareFeatureException e) {
+            throw new SkipException("AVX PairHMM is not supported on this system");
+        }
+        testBatchMatchesOneByOne(() -> new VectorLoglessPairHMM(VectorLoglessPairHMM.Implementation.AVX, args));
+    }
+
+    @Test
+    public void testEmptyEntriesAreIgnored() {
+        final PairHMMBatch batch = new PairHMMBatch();
+        final ReadLikelihoods<Haplotype> likelihoods = makeLikelihoods().get(0);
+        batch.add(likelihoods.sampleMatrix(0), Collections.emptyList(), Collections.emptyMap());
+        Assert.assertTrue(batch.isEmpty());
+        new LoglessPairHMM().computeLog10Likelihoods(batch);
+    }
+}
@@ -0,0 +1,116 @@
+package org.broadinstitute.hellbender.utils.pairhmm;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedAlleleList;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedSampleList;
+import org.broadinstitute.hellbender.utils.genotyper.ReadLikelihoods;
+import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+public final class PairHMMResultCacheUnitTest extends GATKBaseTest {
+
+    private static PairHMMResultCache.ReadKey readKey(final String bases, final int qual) {
+        final byte[] b = bases.getBytes();
+        return new PairHMMResultCache.ReadKey(b, Utils.dupBytes((byte) qual, b.length), Utils.dupBytes((byte) 45, b.length),
+                Utils.dupBytes((byte) 45, b.length), Utils.dupBytes((byte) 10, b.length));
+    }
+
+    @Test
+    public void testLookupIsByContent() {
+        final PairHMMResultCache cache = new PairHMMResultCache(1 << 20);
+        cache.put(readKey("ACGT", 30), new PairHMMResultCache.HaplotypeKey("AACGTT".getBytes()), -1.5);
+
+        Assert.assertEquals(cache.get(readKey("ACGT", 30), new PairHMMResultCache.HaplotypeKey("AACGTT".getBytes())), -1.5);
+        Assert.assertTrue(Double.isNaN(cache.get(readKey("ACGT", 20), new PairHMMResultCache.HaplotypeKey("AACGTT".getBytes()))));
+        Assert.assertTrue(Double.isNaN(cache.get(readKey("ACGT", 30), new PairHMMResultCache.HaplotypeKey("AACGTA".getBytes()))));
+        Assert.assertEquals(cache.getHits(), 1);
+        Assert.assertEquals(cache.getMisses(), 2);
+    }
+
+    @Test
+    public void testPeekDoesNotCount() {
+        final PairHMMResultCache cache = new PairHMMResultCache(1 << 20);
+        cache.put(readKey("ACGT", 30), new PairHMMResultCache.HaplotypeKey("AACGTT".getBytes()), -1.5);
+
+        Assert.assertEquals(cache.peek(readKey("ACGT", 30), new PairHMMResultCache.HaplotypeKey("AACGTT".getBytes())), -1.5);
+        Assert.assertTrue(Double.isNaN(cache.peek(readKey("ACGT", 30), new PairHMMResultCache.HaplotypeKey("AACGTA".getBytes()))));
+        Assert.assertEquals(cache.getHits(), 0);
+        Assert.assertEquals(cache.getMisses(), 0);
+
+        cache.countLookups(0, 2);
+        Assert.assertEquals(cache.getHits(), 0);
+        Assert.assertEquals(cache.getMisses(), 2);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEviction() {
+        // room for roughly two entries
+        final PairHMMResultCache cache = new PairHMMResultCache(450);
+        final PairHMMResultCache.HaplotypeKey hap = new PairHMMResultCache.HaplotypeKey("ACGTACGT".getBytes());
+        cache.put(readKey("AAAA", 30), hap, -1.0);
+        cache.put(readKey("CCCC", 30), hap, -2.0);
+        // touch the first entry so that the second becomes the least recently used one
+        Assert.assertEquals(cache.get(readKey("AAAA", 30), hap), -1.0);
+        cache.put(readKey("GGGG", 30), hap, -3.0);
+
+        Assert.assertEquals(cache.size(), 2);
+        Assert.assertEquals(cache.getEvictions(), 1);
+        Assert.assertEquals(cache.get(readKey("AAAA", 30), hap), -1.0);
+        Assert.assertTrue(Double.isNaN(cache.get(readKey("CCCC", 30), hap)));
+        Assert.assertEquals(cache.get(readKey("GGGG", 30), hap), -3.0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNonPositiveSize() {
+        new PairHMMResultCache(0);
+    }
+
+    @Test
+    public void testCachedLikelihoodsMatchUncached() {
+        final List<Haplotype> haplotypes = Arrays.asList(
+                new Haplotype("ACGTTGCAAGCTTAGGCAATCGGA".getBytes(), true),
+                new Haplotype("ACGTTGCAAGCTAAGGCAATCGGA".getBytes(), false),
+                new Haplotype("ACGTTGCAAGCTTTAGGCAATCGGA".getBytes(), false));
+        final List<GATKRead> reads = new ArrayList<>();
+        for (final String bases : Arrays.asList("GCAAGCTTAGGC", "GCAAGCTAAGGC", "TTGCAAGCTTTAGG", "AGCTTAGGCAAT")) {
+            reads.add(ArtificialReadUtils.createArtificialRead(bases.getBytes(), Utils.dupBytes((byte) 30, bases.length()), bases.length() + "M"));
+        }
+        final Map<GATKRead, byte[]> gcps = new HashMap<>();
+        reads.forEach(read -> gcps.put(read, Utils.dupBytes((byte) 10, read.getLength())));
+
+        final ReadLikelihoods<Haplotype> expected = computeLikelihoods(new LoglessPairHMM(), haplotypes, reads, gcps);
+
+        final PairHMM cachedHMM = new LoglessPairHMM();
+        cachedHMM.setResultCache(new PairHMMResultCache(1 << 20));
+        final ReadLikelihoods<Haplotype> first = computeLikelihoods(cachedHMM, haplotypes, reads, gcps);
+        Assert.assertEquals(cachedHMM.getResultCache().getHits(), 0);
+
+        // a second pass over the same content, with a different haplotype order, must be served entirely from the cache
+        final List<Haplotype> reordered = new ArrayList<>(haplotypes);
+        Collections.reverse(reordered);
+        final ReadLikelihoods<Haplotype> second = computeLikelihoods(cachedHMM, reordered, reads, gcps);
+        Assert.assertEquals(cachedHMM.getResultCache().getHits(), (long) reads.size() * haplotypes.size());
+
+        for (int r = 0; r < reads.size(); r++) {
+            for (int h = 0; h < haplotypes.size(); h++) {
+                final double expectedValue = expected.sampleMatrix(0).get(h, r);
+                Assert.assertEquals(first.sampleMatrix(0).get(h, r), expectedValue);
+                Assert.assertEquals(second.sampleMatrix(0).get(haplotypes.size() - 1 - h, r), expectedValue);
+            }
+        }
+    }
+
+    private static ReadLikelihoods<Haplotype> computeLikelihoods(final PairHMM hmm, final List<Haplotype> haplotypes,
+                                                                 final List<GATKRead> reads, final Map<GATKRead, byte[]> gcps) {
+        final ReadLikelihoods<Haplotype> result = new ReadLikelihoods<>(new IndexedSampleList("sample"),
+                new IndexedAlleleList<>(haplotypes), Collections.singletonMap("sample", reads));
+        hmm.computeLog10Likelihoods(result.sampleMatrix(0), reads, gcps);
+        return result;
+    }
+}
@@ -0,0 +1,110 @@
+package org.broadinstitute.hellbender.utils.recalibration;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.collections.NestedIntegerArray;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.StandardCovariateList;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public final class DenseRecalibrationTablesUnitTest extends GATKBaseTest {
+    private static final int NUM_READ_GROUPS = 3;
+
+    private StandardCovariateList covariates;
+
+    @BeforeMethod
+    private void makeCovariates() {
+        final List<String> readGroups = IntStream.range(0, NUM_READ_GROUPS).mapToObj(i -> "readgroup" + i).collect(Collectors.toList());
+        covariates = new StandardCovariateList(new RecalibrationArgumentCollection(), readGroups);
+    }
+
+    /**
+     * Count the same random bases in the dense tables and, the old way, in RecalDatums
+     */
+    private void fillTables(final Random rnd, final int numBases, final boolean fractionalErrors,
+                            final DenseRecalibrationTables counts, final RecalibrationTables tables) {
+        final int cycleDimension = covariates.getAdditionalCovariates().get(0).maximumKeyValue() + 1;
+        final int contextDimension = covariates.getAdditionalCovariates().get(1).maximumKeyValue() + 1;
+        for ( int i = 0; i < numBases; i++ ) {
+            final int rg = rnd.nextInt(NUM_READ_GROUPS);
+            final int qual = 2 + rnd.nextInt(40);
+            final int event = rnd.nextInt(EventType.values().length);
+            final double error = fractionalErrors ? rnd.nextDouble() : rnd.nextInt(2);
+            final int cycle = rnd.nextInt(cycleDimension);
+            final int context = rnd.nextInt(contextDimension);
+
+            counts.incrementQualityScoreTable(rg, qual, event, error);
+            counts.incrementAdditionalTable(0, rg, qual, cycle, event, error);
+            counts.incrementAdditionalTable(1, rg, qual, context, event, error);
+            if ( tables != null ) {
+                RecalUtils.incrementDatumOrPutIfNecessary3keys(tables.getQualityScoreTable(), (byte) qual, error, rg, qual, event);
+                RecalUtils.incrementDatumOrPutIfNecessary4keys(tables.getTable(2), (byte) qual, error, rg, qual, cycle, event);
+                RecalUtils.incrementDatumOrPutIfNecessary4keys(tables.getTable(3), (byte) qual, error, rg, qual, context, event);
+            }
+        }
+    }
+
+    private static void assertTablesEqual(final RecalibrationTables actual, final RecalibrationTables expected) {
+        Assert.assertEquals(actual.numTables(), expected.numTables());
+        for ( int i = 0; i < expected.numTables(); i++ ) {
+            final NestedIntegerArray<RecalDatum> actualTable = actual.getTable(i);
+            final NestedIntegerArray<RecalDatum> expectedTable = expected.getTable(i);
+            Assert.assertEquals(actualTable.getAllLeaves().size(), expectedTable.getAllLeaves().size(), "table " + i);
+            for ( final NestedIntegerArray.Leaf<RecalDatum> leaf : expectedTable.getAllLeaves() ) {
+                final RecalDatum actualDatum = actualTable.get(leaf.keys);
+                Assert.assertNotNull(actualDatum);
+                Assert.assertEquals(actualDatum.getNumObservations(), leaf.value.getNumObservations());
+                Assert.assertEquals(actualDatum.getNumMismatches(), leaf.value.getNumMismatches());
+                Assert.assertEquals(actualDatum.getEstimatedQReported(), leaf.value.getEstimatedQReported());
+                Assert.assertEquals(actualDatum.getEmpiricalQuality(), leaf.value.getEmpiricalQuality());
+            }
+        }
+    }
+
+    @Test
+    public void testMatchesRecalDatumTables() {
+        final DenseRecalibrationTables counts = new DenseRecalibrationTables(covariates, NUM_READ_GROUPS);
+        final RecalibrationTables expected = new RecalibrationTables(covariates, NUM_READ_GROUPS);
+        Assert.assertTrue(counts.isEmpty());
+        fillTables(new Random(11), 50000, true, counts, expected);
+        Assert.assertFalse(counts.isEmpty());
+
+        final RecalibrationTables actual = counts.toRecalibrationTables(covariates);
+        assertTablesEqual(actual, expected);
+
+        BaseRecalibrationEngine.finalizeRecalibrationTables(actual);
+        BaseRecalibrationEngine.finalizeRecalibrationTables(expected);
+        assertTablesEqual(actual, expected);
+    }
+
+    @Test
+    public void testCombine() {
+        // whole errors so that the sums don't depend on the order of addition
+        final DenseRecalibrationTables all = new DenseRecalibrationTables(covariates, NUM_READ_GROUPS);
+        fillTables(new Random(7), 20000, false, all, null);
+
+        final DenseRecalibrationTables left = new DenseRecalibrationTables(covariates, NUM_READ_GROUPS);
+        final DenseRecalibrationTables right = new DenseRecalibrationTables(covariates, NUM_READ_GROUPS);
+        final Random rnd = new Random(7);
+        fillTables(rnd, 5000, false, left, null);
+        fillTables(rnd, 15000, false, right, null);
+
+        final DenseRecalibrationTables combined = DenseRecalibrationTables.inPlaceCombine(left, right);
+        Assert.assertSame(combined, left);
+        assertTablesEqual(combined.toRecalibrationTables(covariates), all.toRecalibrationTables(covariates));
+
+        // combining into empty tables is a copy
+        final DenseRecalibrationTables copy = new DenseRecalibrationTables(covariates, NUM_READ_GROUPS).combine(all);
+        assertTablesEqual(copy.toRecalibrationTables(covariates), all.toRecalibrationTables(covariates));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testCombineDifferentDimensions() {
+        new DenseRecalibrationTables(covariates, NUM_READ_GROUPS).combine(new DenseRecalibrationTables(covariates, NUM_READ_GROUPS + 1));
+    }
+}
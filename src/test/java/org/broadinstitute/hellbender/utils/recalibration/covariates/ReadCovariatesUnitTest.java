@@ -6,6 +6,7 @@ import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.ReadUtils;
+import org.broadinstitute.hellbender.utils.recalibration.EventType;
 import org.broadinstitute.hellbender.utils.recalibration.RecalUtils;
 import org.broadinstitute.hellbender.utils.recalibration.RecalibrationArgumentCollection;
 import org.broadinstitute.hellbender.GATKBaseTest;
@@ -84,4 +85,37 @@ public final class ReadCovariatesUnitTest extends GATKBaseTest {
 
     }
 
+    @Test
+    public void testKeysAreReusedAcrossReads() {
+        final RecalibrationArgumentCollection RAC = new RecalibrationArgumentCollection();
+        final SAMReadGroupRecord readGroupRecord = new SAMReadGroupRecord("RG1");
+        readGroupRecord.setPlatform("illumina");
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeaderWithReadGroup(readGroupRecord);
+        final StandardCovariateList covariates = new StandardCovariateList(RAC, header);
+        final CovariateKeyCache keyCache = new CovariateKeyCache();
+
+        ReadCovariates previous = null;
+        for (final int length : new int[]{150, 30, 101}) {
+            final GATKRead read = ArtificialReadUtils.createRandomRead(header, length, false);
+            read.setReadGroup("RG1");
+            final ReadCovariates rc = RecalUtils.computeCovariates(read, header, covariates, true, keyCache);
+            if (previous != null) {
+                Assert.assertSame(rc, previous);
+            }
+            previous = rc;
+
+            // the keys of a read computed with a fresh cache are the same
+            final ReadCovariates expected = RecalUtils.computeCovariates(read, header, covariates, true, new CovariateKeyCache());
+            for (final EventType eventType : EventType.values()) {
+                Assert.assertEquals(rc.getKeySet(eventType).length, length);
+                for (int i = 0; i < length; i++) {
+                    final int[] keySet = expected.getKeySet(i, eventType);
+                    for (int cov = 0; cov < covariates.size(); cov++) {
+                        Assert.assertEquals(rc.getKey(i, eventType.ordinal(), cov), keySet[cov]);
+                    }
+                }
+            }
+        }
+    }
+
 }
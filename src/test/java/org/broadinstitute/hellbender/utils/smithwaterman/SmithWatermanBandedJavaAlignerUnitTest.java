@@ -0,0 +1,109 @@
+package org.broadinstitute.hellbender.utils.smithwaterman;
+
+import org.broadinstitute.gatk.nativebindings.smithwaterman.SWOverhangStrategy;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public final class SmithWatermanBandedJavaAlignerUnitTest extends SmithWatermanAlignerAbstractUnitTest {
+
+    private static final byte[] BASES = {'A', 'C', 'G', 'T'};
+
+    @Override
+    protected SmithWatermanJavaAligner getAligner() {
+        return SmithWatermanJavaAligner.getBandedInstance(SmithWatermanJavaAligner.DEFAULT_BAND_WIDTH);
+    }
+
+    // a copy of the reference with a few point mutations and short indels, plus optionally one long deletion
+    private static byte[] mutate(final Random rnd, final byte[] ref, final int numEvents, final int longDeletionLength) {
+        final StringBuilder alt = new StringBuilder(new String(ref));
+        for (int e = 0; e < numEvents; e++) {
+            final int pos = 10 + rnd.nextInt(alt.length() - 20);
+            switch (rnd.nextInt(3)) {
+                case 0: alt.setCharAt(pos, (char) BASES[rnd.nextInt(4)]); break;
+                case 1: alt.insert(pos, (char) BASES[rnd.nextInt(4)]); break;
+                default: alt.delete(pos, pos + 1 + rnd.nextInt(3));
+            }
+        }
+        if (longDeletionLength > 0) {
+            final int pos = alt.length() / 2;
+            alt.delete(pos, pos + longDeletionLength);
+        }
+        return alt.toString().getBytes();
+    }
+
+    @DataProvider(name = "nearIdenticalSequences")
+    public Object[][] nearIdenticalSequences() {
+        final List<Object[]> tests = new ArrayList<>();
+        final Random rnd = new Random(42);
+        for (final SWOverhangStrategy strategy : SWOverhangStrategy.values()) {
+            for (final int longDeletionLength : new int[]{0, 40}) {
+                for (int i = 0; i < 10; i++) {
+                    final byte[] ref = new byte[150 + rnd.nextInt(200)];
+                    for (int j = 0; j < ref.length; j++) {
+                        ref[j] = BASES[rnd.nextInt(4)];
+                    }
+                    tests.add(new Object[]{ref, mutate(rnd, ref, 1 + rnd.nextInt(5), longDeletionLength), strategy});
+                }
+            }
+        }
+        return tests.toArray(new Object[][]{});
+    }
+
+    @Test(dataProvider = "nearIdenticalSequences")
+    public void testBandedMatchesFullAlignment(final byte[] ref, final byte[] alt, final SWOverhangStrategy strategy) {
+        final SmithWatermanAlignment expected = SmithWatermanJavaAligner.getInstance().align(ref, alt, SmithWatermanAligner.STANDARD_NGS, strategy);
+        final SmithWatermanAlignment actual = SmithWatermanJavaAligner.getBandedInstance(8).align(ref, alt, SmithWatermanAligner.STANDARD_NGS, strategy);
+        Assert.assertEquals(actual.getCigar(), expected.getCigar());
+        Assert.assertEquals(actual.getAlignmentOffset(), expected.getAlignmentOffset());
+    }
+
+    @Test
+    public void testFallsBackWhenBestCellIsNearBandEdge() {
+        // the alternate overhangs the end of the reference by 10 bases, so the best alignment lies outside of the band;
+        // the backtrack from the best cell within the band stays off its edge, but that cell is near the edge
+        final Random rnd = new Random(9);
+        final byte[] ref = new byte[120];
+        for (int j = 0; j < ref.length; j++) {
+            ref[j] = BASES[rnd.nextInt(4)];
+        }
+        final byte[] alt = new byte[ref.length];
+        System.arraycopy(ref, 10, alt, 0, ref.length - 10);
+        for (int j = ref.length - 10; j < alt.length; j++) {
+            alt[j] = BASES[rnd.nextInt(4)];
+        }
+        final SmithWatermanAlignment expected = SmithWatermanJavaAligner.getInstance().align(ref, alt, SmithWatermanAligner.STANDARD_NGS, SWOverhangStrategy.SOFTCLIP);
+        final SmithWatermanAlignment actual = SmithWatermanJavaAligner.getBandedInstance(8).align(ref, alt, SmithWatermanAligner.STANDARD_NGS, SWOverhangStrategy.SOFTCLIP);
+        Assert.assertEquals(actual.getCigar(), expected.getCigar());
+        Assert.assertEquals(actual.getAlignmentOffset(), expected.getAlignmentOffset());
+    }
+
+    @Test
+    public void testReusedWorkspaceDoesNotLeakBetweenAlignments() {
+        // a large alignment followed by smaller ones must give the same results as the smaller ones on their own
+        final SmithWatermanJavaAligner aligner = SmithWatermanJavaAligner.getInstance();
+        final Random rnd = new Random(7);
+        final byte[] bigRef = new byte[500];
+        for (int j = 0; j < bigRef.length; j++) {
+            bigRef[j] = BASES[rnd.nextInt(4)];
+        }
+        final byte[] smallRef = "ACGTTGCATTGACCA".getBytes();
+        final byte[] smallAlt = "ACGTGCATTAGACCA".getBytes();
+        for (final SWOverhangStrategy strategy : SWOverhangStrategy.values()) {
+            final SmithWatermanAlignment before = aligner.align(smallRef, smallAlt, SmithWatermanAligner.ORIGINAL_DEFAULT, strategy);
+            aligner.align(bigRef, mutate(rnd, bigRef, 5, 0), SmithWatermanAligner.ORIGINAL_DEFAULT, strategy);
+            final SmithWatermanAlignment after = aligner.align(smallRef, smallAlt, SmithWatermanAligner.ORIGINAL_DEFAULT, strategy);
+            Assert.assertEquals(after.getCigar(), before.getCigar());
+            Assert.assertEquals(after.getAlignmentOffset(), before.getAlignmentOffset());
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNonPositiveBandWidth() {
+        SmithWatermanJavaAligner.getBandedInstance(0);
+    }
+}